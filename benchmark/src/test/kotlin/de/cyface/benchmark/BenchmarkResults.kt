@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.benchmark
+
+import org.json.JSONObject
+import java.io.File
+
+/**
+ * Measures the duration of benchmarked operations and writes the results as JSON lines, one object per operation.
+ *
+ * Each line contains the `suite`, the `name` of the operation, the `hours` of the measurement it was executed on,
+ * the number of `iterations` and the `minMillis`, `medianMillis` and `maxMillis` of these iterations, as well as the
+ * number of `processors` of the machine which executed them. When the number of processed bytes is known, the
+ * `megabytesPerSecond` of the median iteration are added, and when the number of processed database rows is known,
+ * the `rowsPerSecond`. This way the results of two runs can be compared by a script to detect regressions.
+ *
+ * @author Armin Schnabel
+ * @version 1.3.0
+ * @since 7.14.0
+ * @property suite The name of the benchmark suite, used as file name of the results.
+ */
+class BenchmarkResults(private val suite: String) {
+
+    /**
+     * The file to which the results are appended.
+     */
+    private val file: File = File(System.getProperty(OUTPUT_PROPERTY) ?: DEFAULT_OUTPUT, "$suite.jsonl")
+
+    init {
+        file.parentFile!!.mkdirs()
+        file.delete()
+    }
+
+    /**
+     * Executes an operation multiple times and records how long it took.
+     *
+     * @param name The name of the operation.
+     * @param hours The duration of the measurement in hours on which the operation is executed.
+     * @param iterations The number of times to execute the operation.
+     * @param bytes The number of bytes processed by each iteration, or `null` if the throughput is not relevant.
+     * @param rows The number of rows processed by each iteration, or `null` if the throughput is not relevant.
+     * @param before Executed before each iteration, e.g. to reset caches, which is not included in the duration.
+     * @param block The operation to benchmark.
+     */
+    suspend fun measure(
+        name: String,
+        hours: Int,
+        iterations: Int = DEFAULT_ITERATIONS,
+        bytes: Long? = null,
+        rows: Long? = null,
+        before: suspend () -> Unit = {},
+        block: suspend () -> Unit
+    ) {
+        require(iterations > 0)
+        val durations = (0 until iterations).map {
+            before()
+            val start = System.nanoTime()
+            block()
+            (System.nanoTime() - start) / NANOS_PER_MILLI
+        }
+        record(name, hours, durations, bytes, rows)
+    }
+
+    /**
+     * Records durations which were measured elsewhere, e.g. reported by a listener.
+     *
+     * @param name The name of the operation.
+     * @param hours The duration of the measurement in hours on which the operation is executed.
+     * @param durations The duration of each iteration in milliseconds.
+     * @param bytes The number of bytes processed by each iteration, or `null` if the throughput is not relevant.
+     * @param rows The number of rows processed by each iteration, or `null` if the throughput is not relevant.
+     */
+    fun record(name: String, hours: Int, durations: List<Long>, bytes: Long? = null, rows: Long? = null) {
+        val sorted = durations.sorted()
+        val median = sorted[sorted.size / 2]
+        val seconds = median.coerceAtLeast(1) / MILLIS_PER_SECOND
+        val json = JSONObject()
+            .put("suite", suite)
+            .put("name", name)
+            .put("hours", hours)
+            .put("iterations", sorted.size)
+            .put("minMillis", sorted.first())
+            .put("medianMillis", median)
+            .put("maxMillis", sorted.last())
+            .put("processors", Runtime.getRuntime().availableProcessors())
+        if (bytes != null) {
+            json.put("megabytesPerSecond", bytes / BYTES_PER_MEGABYTE / seconds)
+        }
+        if (rows != null) {
+            json.put("rowsPerSecond", rows / seconds)
+        }
+        val result = json.toString()
+        println("benchmark: $result")
+        file.appendText(result + "\n")
+    }
+
+    companion object {
+        /**
+         * The system property with the folder to which the results are written, set by the `build.gradle`.
+         */
+        private const val OUTPUT_PROPERTY = "benchmark.output"
+
+        /**
+         * The folder to which the results are written if [OUTPUT_PROPERTY] is not set.
+         */
+        private const val DEFAULT_OUTPUT = "build/benchmark-results"
+
+        /**
+         * The number of iterations if not specified otherwise.
+         */
+        private const val DEFAULT_ITERATIONS = 5
+
+        private const val NANOS_PER_MILLI = 1_000_000L
+        private const val MILLIS_PER_SECOND = 1_000.0
+        private const val BYTES_PER_MEGABYTE = 1_000_000.0
+    }
+}
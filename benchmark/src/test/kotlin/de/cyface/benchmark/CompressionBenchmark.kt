@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.benchmark
+
+import android.content.Context
+import android.os.Build.VERSION_CODES
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.serialization.ParallelDeflaterOutputStream
+import de.cyface.persistence.serialization.TransferFileSerializer
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import de.cyface.testutils.SharedTestUtils.insertSampleMeasurementWithData
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.SQLiteMode
+import java.io.File
+import java.io.OutputStream
+
+/**
+ * Benchmarks the throughput of the [ParallelDeflaterOutputStream] with different numbers of threads.
+ *
+ * The serialized transfer file of a realistic measurement is compressed with one thread up to the number of
+ * available processors. Each thread count is warmed up before it's measured, so the just-in-time compiler does not
+ * distort the results. The `megabytesPerSecond` in the results refer to the uncompressed data.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class CompressionBenchmark {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour>
+    private lateinit var serialized: File
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        serialized = File.createTempFile("serialized", ".tmp")
+    }
+
+    @After
+    fun tearDown() {
+        serialized.delete()
+        runBlocking { clearPersistenceLayer(context, persistence) }
+        persistence.shutdown()
+    }
+
+    @Test
+    fun benchmarkParallelDeflate() = runBlocking {
+        val results = BenchmarkResults("compression")
+        val hours = System.getProperty(HOURS_PROPERTY, DEFAULT_HOURS)!!.split(",").map { it.trim().toInt() }
+        val processors = Runtime.getRuntime().availableProcessors()
+        val threadCounts = generateSequence(1) { it * 2 }.takeWhile { it < processors }.toList() + processors
+
+        hours.forEach { hours ->
+            val measurement = insertSampleMeasurementWithData(
+                context,
+                MeasurementStatus.FINISHED,
+                persistence,
+                hours * SECONDS_PER_HOUR * SENSOR_FREQUENCY,
+                hours * SECONDS_PER_HOUR
+            )
+            serialized.outputStream().buffered().use {
+                TransferFileSerializer.loadSerialized(it, measurement.id, persistence)
+            }
+            val bytes = serialized.length()
+
+            threadCounts.forEach { threads ->
+                repeat(WARM_UP_ITERATIONS) { compress(threads) }
+                results.measure("parallelDeflate-$threads-threads", hours, bytes = bytes) { compress(threads) }
+            }
+            persistence.delete(measurement.id)
+        }
+    }
+
+    private fun compress(threads: Int) {
+        serialized.inputStream().use { input ->
+            ParallelDeflaterOutputStream(DiscardingOutputStream, LEVEL, threads).use { output ->
+                input.copyTo(output)
+            }
+        }
+    }
+
+    /**
+     * Discards the compressed data, so only the compression is measured.
+     */
+    private object DiscardingOutputStream : OutputStream() {
+        override fun write(b: Int) = Unit
+
+        override fun write(b: ByteArray, off: Int, len: Int) = Unit
+    }
+
+    companion object {
+        /**
+         * The system property with the comma-separated durations of the benchmarked measurements in hours.
+         */
+        private const val HOURS_PROPERTY = "benchmark.hours"
+        private const val DEFAULT_HOURS = "1,5,20"
+        private const val SECONDS_PER_HOUR = 3_600
+
+        /**
+         * The frequency in Hz in which the sensor data is generated.
+         */
+        private const val SENSOR_FREQUENCY = 100
+
+        /**
+         * The compression level used by the `MeasurementSerializer`.
+         */
+        private const val LEVEL = 5
+
+        /**
+         * The number of iterations executed before each thread count is measured.
+         */
+        private const val WARM_UP_ITERATIONS = 2
+    }
+}
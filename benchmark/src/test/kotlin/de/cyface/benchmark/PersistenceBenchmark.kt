@@ -0,0 +1,210 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.benchmark
+
+import android.content.Context
+import android.os.Build.VERSION_CODES
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.Database
+import de.cyface.persistence.DatabaseMigrator
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.MigrationListener
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.serialization.MeasurementSerializer
+import de.cyface.persistence.serialization.RecordsFile
+import de.cyface.persistence.strategy.DefaultLocationCleaning
+import de.cyface.testutils.LegacyDatabases
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import de.cyface.testutils.SharedTestUtils.insertSampleMeasurementWithData
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.greaterThan
+import org.hamcrest.Matchers.notNullValue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.SQLiteMode
+import java.io.File
+
+/**
+ * Benchmarks the persistence layer with realistic measurements of different durations.
+ *
+ * The measurements are generated by the [insertSampleMeasurementWithData] fixture with sensor data captured at
+ * [SENSOR_FREQUENCY] Hz and one location per second. The durations are configured by the `benchmark.hours` system
+ * property, see `build.gradle`. The results are written by [BenchmarkResults].
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class PersistenceBenchmark {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour>
+
+    /**
+     * The durations of the benchmarked measurements in hours.
+     */
+    private val hours = System.getProperty(HOURS_PROPERTY, DEFAULT_HOURS)!!.split(",").map { it.trim().toInt() }
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+    }
+
+    @After
+    fun tearDown() {
+        DatabaseMigrator.listener = null
+        runBlocking { clearPersistenceLayer(context, persistence) }
+        persistence.shutdown()
+        context.deleteDatabase(MIGRATION_DATABASE_NAME)
+        context.deleteDatabase(LegacyDatabases.V6_DATABASE_NAME)
+    }
+
+    @Test
+    fun benchmarkOperations() = runBlocking {
+        val results = BenchmarkResults("operations")
+        val serializer = MeasurementSerializer()
+        val cleaning = DefaultLocationCleaning()
+
+        hours.forEach { hours ->
+            val measurement = insertSampleMeasurementWithData(
+                context,
+                MeasurementStatus.FINISHED,
+                persistence,
+                hours * SECONDS_PER_HOUR * SENSOR_FREQUENCY,
+                hours * SECONDS_PER_HOUR
+            )
+            val id = measurement.id
+
+            results.measure("loadTracks", hours) { persistence.loadTracks(id) }
+            results.measure("loadTracksCleaned", hours) { persistence.loadTracks(id, cleaning) }
+            results.measure("loadAverageSpeed", hours) { persistence.loadAverageSpeed(id, cleaning) }
+            results.measure("loadMaxSpeed", hours) { persistence.loadMaxSpeed(id, cleaning) }
+            results.measure("loadAscend", hours) { persistence.loadAscend(id) }
+            results.measure("loadDuration", hours) { persistence.loadDuration(id) }
+
+            // Without and with the records prebuilt when the measurement is finished
+            val serialize = suspend {
+                val file = serializer.writeSerializedCompressed(id, persistence)
+                assertThat(file, notNullValue())
+                require(file!!.delete())
+            }
+            results.measure(
+                "writeSerializedCompressed",
+                hours,
+                before = { RecordsFile.delete(context, persistence.fileIOHandler, id) },
+                block = serialize
+            )
+            results.measure("writeSerializedCompressedPrebuilt", hours, block = serialize)
+
+            // Can only be executed once per measurement
+            results.measure("delete", hours, iterations = 1) { persistence.delete(id) }
+        }
+    }
+
+    @Test
+    fun benchmarkMigrations() = runBlocking {
+        val results = BenchmarkResults("migrations")
+        val schemaFiles = LegacyDatabases.schemaFiles(File(System.getProperty(SCHEMAS_PROPERTY)!!), LATEST_VERSION)
+        assertThat(schemaFiles.size, greaterThan(1))
+        val steps = mutableMapOf<String, Long>()
+        DatabaseMigrator.listener = object : MigrationListener {
+            override fun onMigrationStarted(startVersion: Int, endVersion: Int) = Unit
+
+            override fun onMigrationFinished(startVersion: Int, endVersion: Int, durationMillis: Long) {
+                steps["migration-$startVersion-$endVersion"] = durationMillis
+            }
+        }
+
+        hours.forEach { hours ->
+            schemaFiles.toSortedMap().forEach { (version, schemaFile) ->
+                steps.clear()
+                val locations = hours * SECONDS_PER_HOUR
+                LegacyDatabases.create(
+                    context,
+                    MIGRATION_DATABASE_NAME,
+                    schemaFile,
+                    version,
+                    MIGRATION_MEASUREMENTS,
+                    locations
+                )
+                if (version == V6_IMPORT_VERSION) {
+                    LegacyDatabases.createV6(context, MIGRATION_MEASUREMENTS, locations)
+                }
+
+                val database = Room.databaseBuilder(context, Database::class.java, MIGRATION_DATABASE_NAME)
+                    .addMigrations(*DatabaseMigrator(context).migrations())
+                    .allowMainThreadQueries()
+                    .build()
+                database.openHelper.writableDatabase
+                database.close()
+                context.deleteDatabase(MIGRATION_DATABASE_NAME)
+
+                // Only the step from the version the database was created in, the others are recorded separately
+                val first = "migration-$version-${version + 1}"
+                results.record(first, hours, listOf(steps[first]!!))
+                results.record("migration-$version-$LATEST_VERSION", hours, listOf(steps.values.sum()))
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * The system property with the comma-separated durations of the benchmarked measurements in hours.
+         */
+        private const val HOURS_PROPERTY = "benchmark.hours"
+
+        /**
+         * The system property with the folder containing the schemas exported by Room.
+         */
+        private const val SCHEMAS_PROPERTY = "benchmark.schemas"
+
+        private const val DEFAULT_HOURS = "1,5,20"
+        private const val SECONDS_PER_HOUR = 3_600
+
+        /**
+         * The frequency in Hz in which the sensor data is generated.
+         */
+        private const val SENSOR_FREQUENCY = 100
+
+        private const val MIGRATION_DATABASE_NAME = "migration-benchmark"
+        private const val LATEST_VERSION = 24
+
+        /**
+         * The number of measurements in the migrated databases, each with the locations of a measurement of the
+         * benchmarked duration.
+         */
+        private const val MIGRATION_MEASUREMENTS = 10
+
+        /**
+         * The only version which also imports data from the secondary `v6` database.
+         */
+        private const val V6_IMPORT_VERSION = 17
+    }
+}
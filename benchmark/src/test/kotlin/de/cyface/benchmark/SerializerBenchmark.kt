@@ -0,0 +1,176 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.benchmark
+
+import android.content.Context
+import android.database.Cursor
+import android.os.Build.VERSION_CODES
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.Database
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.content.AbstractCyfaceTable.Companion.DATABASE_QUERY_LIMIT
+import de.cyface.persistence.content.BaseColumns
+import de.cyface.persistence.content.LocationTable
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.serialization.LocationSerializer
+import de.cyface.protos.model.LocationRecords
+import de.cyface.serializer.Formatter
+import de.cyface.serializer.LocationOffsetter
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import de.cyface.testutils.SharedTestUtils.insertSampleMeasurementWithData
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.equalTo
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.SQLiteMode
+
+/**
+ * Benchmarks how many locations per second are read from the database and added to the serialized format.
+ *
+ * The `projected` reader queries only the [LocationSerializer.PROJECTION] and resolves the column indices once per
+ * page, as the [LocationSerializer] does. The `baseline` reader queries all columns and resolves the column indices
+ * for each row, as the serializer did before. Both read the same pages, so the `rowsPerSecond` in the results can be
+ * compared directly.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class SerializerBenchmark {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour>
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+        persistence.shutdown()
+    }
+
+    @Test
+    fun benchmarkLocationReaders() = runBlocking {
+        val results = BenchmarkResults("serializer")
+        val hours = System.getProperty(HOURS_PROPERTY, DEFAULT_HOURS)!!.split(",").map { it.trim().toInt() }
+
+        hours.forEach { hours ->
+            val locations = hours * SECONDS_PER_HOUR
+            val id = insertSampleMeasurementWithData(context, MeasurementStatus.FINISHED, persistence, 0, locations).id
+            val database = persistence.timeSeriesDatabase(id)
+
+            results.measure("readLocationsBaseline", hours, rows = locations.toLong()) {
+                val builder = LocationRecords.newBuilder()
+                val offsetter = LocationOffsetter()
+                val rows = readPages(database, id, "*") { readBaseline(it, builder, offsetter) }
+                assertThat(rows, equalTo(locations))
+            }
+            results.measure("readLocationsProjected", hours, rows = locations.toLong()) {
+                val serializer = LocationSerializer()
+                val rows = readPages(database, id, LocationSerializer.PROJECTION.joinToString()) {
+                    serializer.readFrom(it)
+                    serializer.nextBatch()
+                }
+                assertThat(rows, equalTo(locations))
+            }
+        }
+    }
+
+    /**
+     * Reads all locations of a measurement in pages, like the `TransferFileSerializer`.
+     *
+     * @param database The database to read from.
+     * @param measurementId The identifier of the measurement to read the locations of.
+     * @param columns The columns to query.
+     * @param read Reads all rows of a page.
+     * @return The number of rows read.
+     */
+    private fun readPages(database: Database, measurementId: Long, columns: String, read: (Cursor) -> Unit): Int {
+        var afterTimestamp = Long.MIN_VALUE
+        var afterId = Long.MIN_VALUE
+        var rows = 0
+        do {
+            val query = SimpleSQLiteQuery(
+                "SELECT $columns FROM ${LocationTable.URI_PATH} " +
+                        "WHERE ${BaseColumns.MEASUREMENT_ID} = ? " +
+                        "AND (${BaseColumns.TIMESTAMP}, ${BaseColumns.ID}) > (?, ?) " +
+                        "ORDER BY ${BaseColumns.TIMESTAMP} ASC, ${BaseColumns.ID} ASC " +
+                        "LIMIT ?",
+                arrayOf(measurementId, afterTimestamp, afterId, DATABASE_QUERY_LIMIT)
+            )
+            val pageSize = database.query(query).use { cursor ->
+                read(cursor)
+                if (cursor.moveToLast()) {
+                    afterTimestamp = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP))
+                    afterId = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.ID))
+                }
+                cursor.count
+            }
+            rows += pageSize
+        } while (pageSize == DATABASE_QUERY_LIMIT)
+        return rows
+    }
+
+    /**
+     * Reads the locations of a page like the `LocationSerializer` before version 1.3.0.
+     */
+    private fun readBaseline(cursor: Cursor, builder: LocationRecords.Builder, offsetter: LocationOffsetter) {
+        while (cursor.moveToNext()) {
+            val timestamp = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP))
+            val latitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationTable.COLUMN_LAT))
+            val longitude = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationTable.COLUMN_LON))
+            val speed = cursor.getDouble(cursor.getColumnIndexOrThrow(LocationTable.COLUMN_SPEED))
+            val accuracyColumn = cursor.getColumnIndexOrThrow(LocationTable.COLUMN_ACCURACY)
+            val accuracy = if (cursor.isNull(accuracyColumn)) 0.0 else cursor.getDouble(accuracyColumn)
+
+            val offsets = offsetter.offset(Formatter.Location(timestamp, latitude, longitude, speed, accuracy))
+            builder.addTimestamp(offsets.timestamp)
+                .addLatitude(offsets.latitude)
+                .addLongitude(offsets.longitude)
+                .addAccuracy(offsets.accuracy)
+                .addSpeed(offsets.speed)
+        }
+        builder.build()
+        builder.clear()
+    }
+
+    companion object {
+        /**
+         * The system property with the comma-separated durations of the benchmarked measurements in hours.
+         */
+        private const val HOURS_PROPERTY = "benchmark.hours"
+
+        private const val DEFAULT_HOURS = "1,5,20"
+        private const val SECONDS_PER_HOUR = 3_600
+    }
+}
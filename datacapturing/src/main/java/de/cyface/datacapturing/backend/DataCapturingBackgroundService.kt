@@ -72,7 +72,7 @@ import kotlin.math.min
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 8.0.3
+ * @version 8.0.5
  * @since 2.0.0
  */
 class DataCapturingBackgroundService : Service(), CapturingProcessListener {
@@ -344,6 +344,11 @@ class DataCapturingBackgroundService : Service(), CapturingProcessListener {
         dataCapturing = initializeCapturingProcess(sensorCapture)
         dataCapturing.addCapturingProcessListener(this)
 
+        // Counts the invalidations per minute of this capturing session, see `CapturingPersistenceBehaviour`
+        persistenceLayer.propagatedInvalidations?.reset()
+        persistenceLayer.timeSeriesNotifications?.reset()
+        persistenceLayer.receivedTimeSeriesNotifications?.reset()
+
         // Informs about the service start
         Log.d(
             StartUpFinishedHandler.TAG,
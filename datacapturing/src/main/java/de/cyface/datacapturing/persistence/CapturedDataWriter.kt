@@ -21,6 +21,7 @@ package de.cyface.datacapturing.persistence
 import android.util.Log
 import de.cyface.datacapturing.Constants
 import de.cyface.datacapturing.model.CapturedData
+import de.cyface.model.Point3D
 import de.cyface.persistence.serialization.Point3DFile
 
 /**
@@ -31,12 +32,14 @@ import de.cyface.persistence.serialization.Point3DFile
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 5.0.0
+ * @version 5.1.0
  * @since 1.0.0
  * @property data The data to write.
  * @property accelerationsFile The file to write the data to or `null` if `SensorCaptureDisabled`.
  * @property rotationsFile The file to write the data to or `null` if `SensorCaptureDisabled`.
  * @property directionsFile The file to write the data to or `null` if `SensorCaptureDisabled`.
+ * @property measurementId The id of the measurement the data is written for.
+ * @property ledger Collects the number of bytes written for the [de.cyface.persistence.model.MeasurementLedger].
  * @property callback Callback which is called after writing data has finished.
  */
 class CapturedDataWriter internal constructor(
@@ -44,6 +47,8 @@ class CapturedDataWriter internal constructor(
     private val accelerationsFile: Point3DFile?,
     private val rotationsFile: Point3DFile?,
     private val directionsFile: Point3DFile?,
+    private val measurementId: Long,
+    private val ledger: MeasurementLedgerBuffer,
     private val callback: WritingDataCompletedCallback
 ) : Runnable {
     private fun writeCapturedData() {
@@ -52,16 +57,21 @@ class CapturedDataWriter internal constructor(
                     + data.directions.size + " A/R/MPs on: " + Thread.currentThread().name
         )
         if (data.accelerations.isNotEmpty()) {
-            accelerationsFile!!.append(data.accelerations)
+            append(accelerationsFile!!, data.accelerations)
         }
         if (data.rotations.isNotEmpty()) {
-            rotationsFile!!.append(data.rotations)
+            append(rotationsFile!!, data.rotations)
         }
         if (data.directions.isNotEmpty()) {
-            directionsFile!!.append(data.directions)
+            append(directionsFile!!, data.directions)
         }
     }
 
+    private fun append(file: Point3DFile, dataPoints: List<Point3D?>) {
+        val bytes = file.append(dataPoints)
+        ledger.addSensorBytes(measurementId, file.type, bytes.toLong())
+    }
+
     override fun run() {
         try {
             writeCapturedData()
@@ -46,12 +46,15 @@ import de.cyface.datacapturing.persistence.CapturingPersistenceBehaviour
 import de.cyface.datacapturing.ui.Reason
 import de.cyface.datacapturing.ui.UIListener
 import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.LocationArchiveJobService
+import de.cyface.persistence.TransferFileJobService
 import de.cyface.persistence.exception.NoSuchMeasurementException
 import de.cyface.persistence.model.EventType
 import de.cyface.persistence.model.Measurement
 import de.cyface.persistence.model.MeasurementStatus
 import de.cyface.persistence.model.Modality
 import de.cyface.persistence.model.ParcelableGeoLocation
+import de.cyface.persistence.serialization.TransferFileSerializer
 import de.cyface.persistence.strategy.DistanceCalculationStrategy
 import de.cyface.persistence.strategy.LocationCleaningStrategy
 import de.cyface.synchronization.BundlesExtrasCodes
@@ -63,6 +66,7 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.TimeoutCancellationException
+import kotlinx.coroutines.flow.collect
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
@@ -89,7 +93,7 @@ import java.util.concurrent.locks.ReentrantLock
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 22.0.0
+ * @version 22.4.1
  * @since 1.0.0
  * @constructor You need to call [initialize] before using the class to initialize the async parts.
  * @property context The context (i.e. `Activity`) handling this service.
@@ -266,6 +270,16 @@ abstract class DataCapturingService(
                 )
             }
         }
+
+        // Finish deletions, archiving and precomputing interrupted by a process death or a reboot
+        serviceScope.launch {
+            persistenceLayer.deletionWorker?.resume()?.collect()
+            // Archiving the measurements of upgraded devices at once would slow down the app, so it's deferred
+            getContext()?.let { LocationArchiveJobService.schedule(it) }
+            if (persistenceLayer.loadMeasurements(MeasurementStatus.FINISHED).isNotEmpty()) {
+                getContext()?.let { TransferFileJobService.schedule(it) }
+            }
+        }
     }
 
     /**
@@ -371,6 +385,14 @@ abstract class DataCapturingService(
             persistenceLayer.logEvent(EventType.LIFECYCLE_STOP, currentlyCapturedMeasurement)
             if (stopService(finishedHandler)) {
                 persistenceLayer.persistenceBehaviour!!.updateRecentMeasurement(MeasurementStatus.FINISHED)
+                // Locations stored by the stopping capturing process afterward are archived by the job scheduled
+                // by the next `initialize` and outdate the prebuilt records, which are then rebuilt by the sync
+                serviceScope.launch {
+                    persistenceLayer.locationArchiver?.archive(currentlyCapturedMeasurement.id)
+                    TransferFileSerializer.prebuildRecords(currentlyCapturedMeasurement.id, persistenceLayer)
+                    // Compresses the transfer file ahead of the synchronization, preferably while charging
+                    getContext()?.let { TransferFileJobService.schedule(it) }
+                }
             } else {
                 handleStopFailed(currentlyCapturedMeasurement)
             }
@@ -1165,6 +1187,9 @@ abstract class DataCapturingService(
                 )
 
             MeasurementStatus.DEPRECATED -> {}
+
+            // The measurement is removed anyway
+            MeasurementStatus.DELETING -> {}
         }
     }
 
@@ -51,7 +51,7 @@ import java.util.concurrent.TimeUnit
  * [Measurement]s.
  *
  * @author Armin Schnabel
- * @version 2.1.3
+ * @version 2.4.2
  * @since 3.0.0
  * @param ioDispatcher The dispatcher to run the async tasks on (fixes flaky tests)
  */
@@ -93,6 +93,12 @@ class CapturingPersistenceBehaviour(
 
     private val mutex = Mutex()
 
+    /**
+     * Collects the captured data for the [de.cyface.persistence.model.MeasurementLedger]s, so they are not updated
+     * at sensor rate.
+     */
+    private val ledger = MeasurementLedgerBuffer()
+
     private val scope = CoroutineScope(SupervisorJob() + ioDispatcher)
 
     override fun onStart(persistenceLayer: DefaultPersistenceLayer<*>) {
@@ -109,6 +115,7 @@ class CapturingPersistenceBehaviour(
     }
 
     override fun shutdown() {
+        logInvalidations()
         if (threadPool != null) {
             try {
                 threadPool!!.shutdown()
@@ -118,6 +125,39 @@ class CapturingPersistenceBehaviour(
                 throw IllegalStateException(e)
             }
         }
+        // Contains the data written by the thread pool after the measurement was stopped
+        if (this::persistenceLayer.isInitialized) {
+            scope.launch { flushLedger() }
+        }
+    }
+
+    /**
+     * Logs the number of invalidations exchanged with other processes per minute of capturing.
+     *
+     * This allows to compare the load caused by Room's multi-instance invalidation with and without the separate
+     * time series database.
+     */
+    private fun logInvalidations() {
+        if (!this::persistenceLayer.isInitialized) {
+            return
+        }
+        val propagated = persistenceLayer.propagatedInvalidations ?: return
+        val published = persistenceLayer.timeSeriesNotifications ?: return
+        val received = persistenceLayer.receivedTimeSeriesNotifications ?: return
+        Log.i(
+            Constants.TAG,
+            String.format(
+                Locale.getDefault(),
+                "Invalidations per minute: %.1f propagated (%d), %.1f time series published (%d) and %.1f " +
+                    "received (%d)",
+                propagated.perMinute(),
+                propagated.count(),
+                published.perMinute(),
+                published.count(),
+                received.perMinute(),
+                received.count()
+            )
+        )
     }
 
     /**
@@ -163,6 +203,8 @@ class CapturingPersistenceBehaviour(
             accelerationsFile,
             rotationsFile,
             directionsFile,
+            measurementIdentifier,
+            ledger,
             callback
         )
         threadPool!!.submit(writer)
@@ -187,8 +229,12 @@ class CapturingPersistenceBehaviour(
             // Using the timestamp of the latest pressure sample
             val timestamp = pressures[pressures.size - 1].timestamp
             val pressure = Pressure(0, timestamp, averagePressure, measurementIdentifier)
-            scope.launch(Dispatchers.IO) { persistenceLayer.pressureDao!!.insertAll(pressure) }
+            scope.launch(Dispatchers.IO) {
+                persistenceLayer.timeSeriesDatabase(measurementIdentifier).pressureDao().insertAll(pressure)
+                ledger.addPressures(measurementIdentifier, 1L)
+            }
         }
+        flushLedgerIfDue()
     }
 
     /**
@@ -198,7 +244,28 @@ class CapturingPersistenceBehaviour(
      * @param measurementIdentifier The identifier of the measurement to store the data to.
      */
     suspend fun storeLocation(location: ParcelableGeoLocation, measurementIdentifier: Long) {
-        persistenceLayer.locationDao!!.insertAll(GeoLocation(location, measurementIdentifier))
+        persistenceLayer.timeSeriesDatabase(measurementIdentifier).locationDao()
+            .insertAll(GeoLocation(location, measurementIdentifier))
+        ledger.addLocations(measurementIdentifier, 1L)
+        flushLedgerIfDue()
+    }
+
+    /**
+     * Writes the data collected for the [de.cyface.persistence.model.MeasurementLedger]s to the database, if the
+     * last write is at least [MeasurementLedgerBuffer.FLUSH_INTERVAL_MILLIS] ago.
+     */
+    private fun flushLedgerIfDue() {
+        val deltas = ledger.drainIfDue()
+        if (deltas.isNotEmpty()) {
+            scope.launch { persistenceLayer.addToLedgers(deltas) }
+        }
+    }
+
+    /**
+     * Writes the data collected for the [de.cyface.persistence.model.MeasurementLedger]s to the database.
+     */
+    private suspend fun flushLedger() {
+        persistenceLayer.addToLedgers(ledger.drain())
     }
 
     /**
@@ -309,6 +376,8 @@ class CapturingPersistenceBehaviour(
             }
 
             Log.d(Constants.TAG, "Updating recent measurement to: $newStatus")
+            // So the ledger is complete when the measurement is synchronized
+            flushLedger()
 
             try {
                 persistenceLayer.setStatus(currentlyCapturedMeasurementId, newStatus, false)
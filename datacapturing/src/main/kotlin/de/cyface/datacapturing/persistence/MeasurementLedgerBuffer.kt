@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.persistence
+
+import de.cyface.persistence.model.MeasurementLedger
+import de.cyface.serializer.model.Point3DType
+
+/**
+ * Collects the data captured for the [MeasurementLedger]s in memory, so the ledgers are not updated at sensor rate.
+ *
+ * The collected data is written to the database at most every [flushIntervalMillis], see [drainIfDue], and when the
+ * capturing is paused, stopped or shut down, see [drain].
+ *
+ * This class is thread-safe, as the sensor data is written on a thread pool.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property flushIntervalMillis The minimal time between two writes of the collected data in milliseconds.
+ */
+class MeasurementLedgerBuffer(private val flushIntervalMillis: Long = FLUSH_INTERVAL_MILLIS) {
+    /**
+     * The data captured since the last [drain], one entry per measurement.
+     */
+    private val deltas = mutableMapOf<Long, MeasurementLedger>()
+
+    /**
+     * The time of the last [drain] in milliseconds.
+     */
+    private var lastDrain = 0L
+
+    /**
+     * Adds the bytes written to a sensor data file.
+     *
+     * @param measurementId The id of the measurement the data was captured for.
+     * @param type The type of the sensor data.
+     * @param bytes The number of bytes written.
+     */
+    @Synchronized
+    fun addSensorBytes(measurementId: Long, type: Point3DType, bytes: Long) {
+        val delta = delta(measurementId)
+        deltas[measurementId] = when (type) {
+            Point3DType.ACCELERATION -> delta.copy(accelerationBytes = delta.accelerationBytes + bytes)
+            Point3DType.ROTATION -> delta.copy(rotationBytes = delta.rotationBytes + bytes)
+            Point3DType.DIRECTION -> delta.copy(directionBytes = delta.directionBytes + bytes)
+            else -> throw IllegalArgumentException("Unknown type: $type")
+        }
+    }
+
+    /**
+     * Adds captured locations.
+     *
+     * @param measurementId The id of the measurement the data was captured for.
+     * @param count The number of locations stored.
+     */
+    @Synchronized
+    fun addLocations(measurementId: Long, count: Long) {
+        val delta = delta(measurementId)
+        deltas[measurementId] = delta.copy(locations = delta.locations + count)
+    }
+
+    /**
+     * Adds captured pressures.
+     *
+     * @param measurementId The id of the measurement the data was captured for.
+     * @param count The number of pressures stored.
+     */
+    @Synchronized
+    fun addPressures(measurementId: Long, count: Long) {
+        val delta = delta(measurementId)
+        deltas[measurementId] = delta.copy(pressures = delta.pressures + count)
+    }
+
+    /**
+     * Returns and clears the collected data.
+     *
+     * @param now The current time in milliseconds.
+     * @return The data captured since the last call, one entry per measurement.
+     */
+    @Synchronized
+    fun drain(now: Long = System.currentTimeMillis()): List<MeasurementLedger> {
+        lastDrain = now
+        val drained = deltas.values.toList()
+        deltas.clear()
+        return drained
+    }
+
+    /**
+     * Returns and clears the collected data, if the last [drain] is at least [flushIntervalMillis] ago.
+     *
+     * @param now The current time in milliseconds.
+     * @return The data captured since the last drain or an empty list if it's not yet due.
+     */
+    @Synchronized
+    fun drainIfDue(now: Long = System.currentTimeMillis()): List<MeasurementLedger> {
+        if (deltas.isEmpty() || now - lastDrain < flushIntervalMillis) {
+            return emptyList()
+        }
+        return drain(now)
+    }
+
+    private fun delta(measurementId: Long): MeasurementLedger {
+        return deltas[measurementId] ?: MeasurementLedger(measurementId)
+    }
+
+    companion object {
+        /**
+         * The default minimal time between two writes of the collected data in milliseconds.
+         */
+        const val FLUSH_INTERVAL_MILLIS = 10_000L
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.datacapturing.persistence
+
+import de.cyface.persistence.model.MeasurementLedger
+import de.cyface.serializer.model.Point3DType
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.containsInAnyOrder
+import org.hamcrest.Matchers.empty
+import org.junit.Test
+
+/**
+ * Tests how the [MeasurementLedgerBuffer] collects the captured data.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+class MeasurementLedgerBufferTest {
+
+    @Test
+    fun testDrain() {
+        // Arrange
+        val buffer = MeasurementLedgerBuffer()
+        buffer.addSensorBytes(1L, Point3DType.ACCELERATION, 10L)
+        buffer.addSensorBytes(1L, Point3DType.ACCELERATION, 5L)
+        buffer.addSensorBytes(1L, Point3DType.ROTATION, 7L)
+        buffer.addSensorBytes(1L, Point3DType.DIRECTION, 3L)
+        buffer.addLocations(1L, 2L)
+        buffer.addPressures(2L, 1L)
+
+        // Act
+        val deltas = buffer.drain()
+
+        // Assert
+        assertThat(
+            deltas,
+            containsInAnyOrder(
+                MeasurementLedger(1L, accelerationBytes = 15L, rotationBytes = 7L, directionBytes = 3L, locations = 2L),
+                MeasurementLedger(2L, pressures = 1L)
+            )
+        )
+        assertThat(buffer.drain(), empty())
+    }
+
+    @Test
+    fun testDrainIfDue() {
+        // Arrange
+        val buffer = MeasurementLedgerBuffer(1_000L)
+        buffer.drain(0L)
+        buffer.addLocations(1L, 1L)
+
+        // Act & Assert
+        assertThat(buffer.drainIfDue(999L), empty())
+        assertThat(buffer.drainIfDue(1_000L), equalTo(listOf(MeasurementLedger(1L, locations = 1L))))
+        assertThat(buffer.drainIfDue(5_000L), empty())
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.model.Event
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.model.Pressure
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.flow.take
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Tests deleting measurements in batches using the [DeletionWorker].
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class DeletionWorkerTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<PersistenceBehaviour>
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+    }
+
+    @Test
+    fun testDelete() = runBlocking {
+        // Arrange
+        val measurementId = insertMeasurement(LOCATIONS)
+        val oocut = DeletionWorker(persistence, BATCH_SIZE, 0L)
+
+        // Act
+        val progress = oocut.delete(measurementId).toList()
+
+        // Assert
+        val total = LOCATIONS * 2L + 1L
+        // The initial progress, one per location and pressure batch, one for the event and the final progress
+        assertThat(progress.size, equalTo(1 + (LOCATIONS / BATCH_SIZE + 1) * 2 + 1 + 1))
+        assertThat(progress.first().deletedRows, equalTo(0L))
+        assertThat(progress.last().deletedRows, equalTo(total))
+        assertThat(progress.last().totalRows, equalTo(total))
+        assertThat(progress.last().finished, equalTo(true))
+        assertThat(persistence.locationDao!!.countByMeasurementId(measurementId), equalTo(0))
+        assertThat(persistence.loadMeasurement(measurementId), nullValue())
+    }
+
+    @Test
+    fun testResume() = runBlocking {
+        // Arrange
+        val measurementId = insertMeasurement(LOCATIONS)
+        val oocut = DeletionWorker(persistence, BATCH_SIZE, 0L)
+        // Simulates a process death after the first batch
+        oocut.delete(measurementId).take(2).toList()
+        assertThat(persistence.loadMeasurement(measurementId)!!.status, equalTo(MeasurementStatus.DELETING))
+        assertThat(persistence.loadCompletedMeasurements().size, equalTo(0))
+
+        // Act
+        val progress = oocut.resume().toList()
+
+        // Assert
+        assertThat(progress.last().finished, equalTo(true))
+        assertThat(persistence.locationDao!!.countByMeasurementId(measurementId), equalTo(0))
+        assertThat(persistence.loadMeasurement(measurementId), nullValue())
+    }
+
+    private suspend fun insertMeasurement(locations: Int): Long {
+        val measurement = persistence.newMeasurement(Modality.BICYCLE)
+        val id = measurement.id
+        persistence.locationDao!!.insertAll(*Array(locations) {
+            GeoLocation(0, it.toLong(), 51.1, 13.1, 400.0, 1.0, 5.0, 20.0, id)
+        })
+        persistence.pressureDao!!.insertAll(*Array(locations) { Pressure(0, it.toLong(), 1013.0, id) })
+        persistence.eventRepository!!.insert(Event(1L, EventType.LIFECYCLE_START, null, id))
+        persistence.setStatus(id, MeasurementStatus.FINISHED, false)
+        return id
+    }
+
+    companion object {
+        private const val LOCATIONS = 250
+        private const val BATCH_SIZE = 100
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.LiveMeasurementStats
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.greaterThan
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Tests that [DefaultPersistenceLayer.observeLiveStats] emits updated [LiveMeasurementStats] when data is captured.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class LiveMeasurementStatsTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<PersistenceBehaviour>
+    private lateinit var measurement: Measurement
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+        measurement = persistence.newMeasurement(Modality.BICYCLE)
+        persistence.logEvent(EventType.LIFECYCLE_START, measurement, System.currentTimeMillis())
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+    }
+
+    @Test
+    fun testObserveLiveStats() = runBlocking {
+        // Arrange
+        val emitted = Channel<LiveMeasurementStats>(Channel.UNLIMITED)
+        val collector = launch(Dispatchers.IO) {
+            persistence.observeLiveStats(measurement.id, TICK_INTERVAL_MILLIS).collect { emitted.send(it) }
+        }
+
+        try {
+            val initial = awaitStats(emitted) { true }
+            assertThat(initial.status, equalTo(MeasurementStatus.OPEN))
+            assertThat(initial.locationCount, equalTo(0))
+            assertThat(initial.currentSpeed, nullValue())
+
+            // Act - the complete count is only used for the first emission, afterwards the new locations are added
+            persistence.locationDao!!.insertAll(location(1, 5.0), location(2, 6.0))
+            persistence.setDistance(measurement.id, 10.0)
+            val captured = awaitStats(emitted) { it.locationCount == 2 && it.distance == 10.0 }
+            persistence.locationDao!!.insertAll(location(3, 7.0))
+            val next = awaitStats(emitted) { it.locationCount == 3 }
+
+            // Assert
+            assertThat(captured.currentSpeed, equalTo(6.0))
+            assertThat(next.currentSpeed, equalTo(7.0))
+            assertThat(next.distance, equalTo(10.0))
+            // The duration of the running track is advanced without new data
+            val ticked = awaitStats(emitted) { it.duration > next.duration }
+            assertThat(ticked.locationCount, equalTo(3))
+            assertThat(ticked.duration, greaterThan(initial.duration))
+        } finally {
+            collector.cancel()
+        }
+    }
+
+    @Test
+    fun testObserveLiveStats_paused() = runBlocking {
+        // Arrange
+        val emitted = Channel<LiveMeasurementStats>(Channel.UNLIMITED)
+        val collector = launch(Dispatchers.IO) {
+            persistence.observeLiveStats(measurement.id, TICK_INTERVAL_MILLIS).collect { emitted.send(it) }
+        }
+
+        try {
+            awaitStats(emitted) { true }
+
+            // Act
+            persistence.logEvent(EventType.LIFECYCLE_PAUSE, measurement, System.currentTimeMillis())
+            persistence.setStatus(measurement.id, MeasurementStatus.PAUSED, false)
+            val paused = awaitStats(emitted) { it.status == MeasurementStatus.PAUSED }
+            // The events and the status are observed separately, so wait until both are emitted
+            Thread.sleep(TICK_INTERVAL_MILLIS * 3)
+            val settled = latest(emitted, paused)
+            Thread.sleep(TICK_INTERVAL_MILLIS * 3)
+
+            // Assert - the duration is not advanced while paused
+            assertThat(latest(emitted, settled).duration, equalTo(settled.duration))
+        } finally {
+            collector.cancel()
+        }
+    }
+
+    /**
+     * Receives the emitted statistics until one matches.
+     */
+    private suspend fun awaitStats(
+        emitted: Channel<LiveMeasurementStats>,
+        predicate: (LiveMeasurementStats) -> Boolean
+    ): LiveMeasurementStats {
+        return withTimeout(TIMEOUT_MILLIS) {
+            var stats = emitted.receive()
+            while (!predicate(stats)) {
+                stats = emitted.receive()
+            }
+            stats
+        }
+    }
+
+    /**
+     * Returns the statistics emitted last, or [previous] if none were emitted since.
+     */
+    private fun latest(emitted: Channel<LiveMeasurementStats>, previous: LiveMeasurementStats): LiveMeasurementStats {
+        var latest = previous
+        while (true) {
+            latest = emitted.tryReceive().getOrNull() ?: return latest
+        }
+    }
+
+    private fun location(index: Int, speed: Double): GeoLocation {
+        return GeoLocation(0, System.currentTimeMillis() + index, 51.1, 13.7, 400.0, speed, 5.0, 20.0, measurement.id)
+    }
+
+    companion object {
+        private const val TICK_INTERVAL_MILLIS = 50L
+        private const val TIMEOUT_MILLIS = 5_000L
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.serialization.LocationArchive
+import de.cyface.persistence.strategy.DefaultLocationCleaning
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.notNullValue
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Tests archiving the locations of finished measurements using the [LocationArchiver].
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class LocationArchiverTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<PersistenceBehaviour>
+    private lateinit var oocut: LocationArchiver
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+        oocut = LocationArchiver(persistence, BATCH_SIZE)
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+    }
+
+    @Test
+    fun testArchive() = runBlocking {
+        // Arrange
+        val measurementId = insertFinishedMeasurement()
+        val tracks = persistence.loadTracks(measurementId)
+        val cleanedTracks = persistence.loadTracks(measurementId, DefaultLocationCleaning())
+
+        // Act
+        val archived = oocut.archive(measurementId)
+
+        // Assert
+        assertThat(archived, equalTo(LOCATIONS))
+        assertThat(rows(measurementId), equalTo(0))
+        assertThat(persistence.countLocations(measurementId), equalTo(LOCATIONS))
+        // The archive is lossless
+        assertThat(persistence.loadTracks(measurementId), equalTo(tracks))
+        assertThat(persistence.loadTracks(measurementId, DefaultLocationCleaning()), equalTo(cleanedTracks))
+    }
+
+    @Test
+    fun testArchive_loadedByLocationDao() = runBlocking {
+        // Arrange
+        val measurementId = insertFinishedMeasurement()
+        val locations = persistence.locationDao!!.loadAllByMeasurementId(measurementId)
+        val cleaned = DefaultLocationCleaning().loadCleanedLocations(persistence.locationDao!!, measurementId)
+
+        // Act
+        oocut.archive(measurementId)
+
+        // Assert
+        val dao = persistence.locationDao!!
+        assertThat(dao.loadAllByMeasurementId(measurementId), equalTo(locations))
+        assertThat(dao.countByMeasurementId(measurementId), equalTo(LOCATIONS))
+        assertThat(DefaultLocationCleaning().loadCleanedLocations(dao, measurementId), equalTo(cleaned))
+        assertThat(dao.loadPageByMeasurementId(measurementId, 0L, locations[0].id, 2), equalTo(locations.subList(1, 3)))
+        assertThat(dao.observeLatestByMeasurementId(measurementId).first(), equalTo(locations.last()))
+
+        assertThat(dao.deleteItemByMeasurementId(measurementId), equalTo(LOCATIONS))
+        assertThat(persistence.locationArchive(measurementId), nullValue())
+        assertThat(dao.countByMeasurementId(measurementId), equalTo(0))
+    }
+
+    @Test
+    fun testArchive_withLocationsStoredAfterward() = runBlocking {
+        // Arrange
+        val measurementId = insertFinishedMeasurement()
+        oocut.archive(measurementId)
+        // E.g. stored by a capturing process which did not stop yet
+        persistence.locationDao!!.insertAll(location(LOCATIONS, measurementId))
+
+        // Act
+        val beforeArchive = persistence.loadLocations(measurementId)
+        val archived = oocut.archive(measurementId)
+
+        // Assert
+        assertThat(beforeArchive.size, equalTo(LOCATIONS + 1))
+        assertThat(archived, equalTo(1))
+        assertThat(persistence.loadLocations(measurementId), equalTo(beforeArchive))
+        assertThat(rows(measurementId), equalTo(0))
+    }
+
+    @Test
+    fun testArchive_afterArchivedRowsWereNotDeleted() = runBlocking {
+        // Arrange
+        val measurementId = insertFinishedMeasurement()
+        val dao = persistence.timeSeriesDatabase(measurementId).locationDao()
+        // E.g. the process was killed after the archive was written
+        val rows = dao.loadAllByMeasurementId(measurementId)
+        LocationArchive.write(context, persistence.fileIOHandler, measurementId, rows)
+        persistence.locationDao!!.insertAll(location(LOCATIONS, measurementId))
+
+        // Act
+        val archived = oocut.archive(measurementId)
+
+        // Assert
+        assertThat(archived, equalTo(1))
+        assertThat(persistence.locationArchive(measurementId)!!.count, equalTo(LOCATIONS + 1))
+        assertThat(persistence.loadLocations(measurementId).size, equalTo(LOCATIONS + 1))
+        assertThat(dao.countByMeasurementId(measurementId), equalTo(0))
+    }
+
+    @Test
+    fun testResume() = runBlocking {
+        // Arrange
+        val measurementId = insertFinishedMeasurement()
+        val openMeasurementId = persistence.newMeasurement(Modality.BICYCLE).id
+        persistence.locationDao!!.insertAll(location(0, openMeasurementId))
+
+        // Act
+        val archived = oocut.resume()
+
+        // Assert
+        assertThat(archived, equalTo(1))
+        assertThat(persistence.locationArchive(measurementId), notNullValue())
+        assertThat(persistence.locationArchive(openMeasurementId), nullValue())
+        assertThat(rows(openMeasurementId), equalTo(1))
+    }
+
+    @Test
+    fun testDelete() = runBlocking {
+        // Arrange
+        val measurementId = insertFinishedMeasurement()
+        oocut.archive(measurementId)
+
+        // Act
+        persistence.delete(measurementId)
+
+        // Assert
+        assertThat(persistence.locationArchive(measurementId), nullValue())
+    }
+
+    private suspend fun insertFinishedMeasurement(): Long {
+        val measurement = persistence.newMeasurement(Modality.BICYCLE)
+        val id = measurement.id
+        persistence.logEvent(EventType.LIFECYCLE_START, measurement, 0L)
+        persistence.locationDao!!.insertAll(*Array(LOCATIONS) { location(it, id) })
+        persistence.logEvent(EventType.LIFECYCLE_STOP, measurement, LOCATIONS * 1_000L)
+        persistence.setStatus(id, MeasurementStatus.FINISHED, false)
+        return id
+    }
+
+    /**
+     * @return The number of locations of the measurement which are stored in the database.
+     */
+    private suspend fun rows(measurementId: Long): Int {
+        return persistence.timeSeriesDatabase(measurementId).locationDao().countByMeasurementId(measurementId)
+    }
+
+    private fun location(index: Int, measurementId: Long): GeoLocation {
+        // Speed and accuracy are reported as `Float` by Android
+        val accuracy = if (index % 10 == 0) null else (5.3f + index % 30).toDouble()
+        val lon = 13.5 + index * 0.000123456789
+        val speed = (0.7f + index % 4).toDouble()
+        return GeoLocation(0, index * 1_000L, 51.0508123456, lon, 400.12345, speed, accuracy, 20.0, measurementId)
+    }
+
+    companion object {
+        private const val LOCATIONS = 250
+        private const val BATCH_SIZE = 100
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.model.Event
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.model.Pressure
+import de.cyface.persistence.model.RetentionTier
+import de.cyface.persistence.strategy.DefaultLocationCleaning
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.util.concurrent.TimeUnit
+
+/**
+ * Tests applying a [RetentionPolicy] using the [RetentionEngine].
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class RetentionEngineTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<PersistenceBehaviour>
+    private lateinit var oocut: RetentionEngine
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+        oocut = RetentionEngine(context, persistence, RetentionPolicy(30, 365, 10_000L))
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+    }
+
+    @Test
+    fun testFullData() = runBlocking {
+        // Arrange
+        val measurementId = insertSyncedMeasurement()
+
+        // Act
+        val report = oocut.run(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1))
+
+        // Assert
+        assertThat(report.deletedRows, equalTo(0L))
+        assertThat(persistence.locationDao!!.countByMeasurementId(measurementId), equalTo(LOCATIONS))
+        assertThat(persistence.measurementSummaryDao!!.loadByMeasurementId(measurementId), nullValue())
+    }
+
+    @Test
+    fun testDownsampled() = runBlocking {
+        // Arrange
+        val measurementId = insertSyncedMeasurement()
+        val averageSpeed = persistence.loadAverageSpeed(measurementId, DefaultLocationCleaning())
+        val duration = persistence.loadDuration(measurementId)
+
+        // Act
+        val report = oocut.run(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(40))
+
+        // Assert
+        assertThat(report.downsampled, equalTo(1))
+        // One location per 10 seconds
+        assertThat(persistence.locationDao!!.countByMeasurementId(measurementId), equalTo(7))
+        assertThat(persistence.pressureDao!!.countByMeasurementId(measurementId), equalTo(0))
+        assertThat(report.deletedRows, equalTo((LOCATIONS - 7 + LOCATIONS).toLong()))
+        val summary = persistence.measurementSummaryDao!!.loadByMeasurementId(measurementId)!!
+        assertThat(summary.tier, equalTo(RetentionTier.DOWNSAMPLED))
+        assertThat(persistence.loadAverageSpeed(measurementId, DefaultLocationCleaning()), equalTo(averageSpeed))
+        assertThat(persistence.loadDuration(measurementId), equalTo(duration))
+    }
+
+    @Test
+    fun testDownsampledInPages() = runBlocking {
+        // Arrange
+        val measurementId = insertSyncedMeasurement()
+        val expected = persistence.loadLocations(measurementId).filterIndexed { index, _ ->
+            index % 10 == 0
+        }.map { it.timestamp }
+        // Pages of 7 locations, so the kept locations are spread across the page boundaries
+        oocut = RetentionEngine(context, persistence, RetentionPolicy(30, 365, 10_000L), batchSize = 7)
+
+        // Act
+        val report = oocut.run(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(40))
+
+        // Assert
+        assertThat(report.downsampled, equalTo(1))
+        assertThat(persistence.loadLocations(measurementId).map { it.timestamp }, equalTo(expected))
+        assertThat(report.deletedRows, equalTo((LOCATIONS - 7 + LOCATIONS).toLong()))
+    }
+
+    @Test
+    fun testMetadata() = runBlocking {
+        // Arrange
+        val measurementId = insertSyncedMeasurement()
+        val duration = persistence.loadDuration(measurementId)
+        oocut.run(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(40))
+
+        // Act
+        val report = oocut.run(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(400))
+
+        // Assert
+        assertThat(report.reducedToMetadata, equalTo(1))
+        assertThat(persistence.locationDao!!.countByMeasurementId(measurementId), equalTo(0))
+        assertThat(persistence.database!!.eventDao().countByMeasurementId(measurementId), equalTo(0))
+        val summary = persistence.measurementSummaryDao!!.loadByMeasurementId(measurementId)!!
+        assertThat(summary.tier, equalTo(RetentionTier.METADATA))
+        assertThat(persistence.loadDuration(measurementId), equalTo(duration))
+        assertThat(persistence.loadMeasurement(measurementId)!!.status, equalTo(MeasurementStatus.SYNCED))
+    }
+
+    private suspend fun insertSyncedMeasurement(): Long {
+        val measurement = persistence.newMeasurement(Modality.BICYCLE)
+        val id = measurement.id
+        persistence.logEvent(EventType.LIFECYCLE_START, measurement, 0L)
+        persistence.locationDao!!.insertAll(*Array(LOCATIONS) {
+            GeoLocation(0, it * 1_000L, 51.1, 13.1 + it * 0.0001, 400.0, 5.0 + it % 3, 5.0, 20.0, id)
+        })
+        persistence.pressureDao!!.insertAll(*Array(LOCATIONS) { Pressure(0, it * 1_000L, 1013.0, id) })
+        persistence.eventRepository!!.insert(Event((LOCATIONS - 1) * 1_000L, EventType.LIFECYCLE_STOP, null, id))
+        persistence.setStatus(id, MeasurementStatus.FINISHED, false)
+        persistence.markFinishedAs(MeasurementStatus.SYNCED, id)
+        return id
+    }
+
+    companion object {
+        /**
+         * One location per second for one minute.
+         */
+        private const val LOCATIONS = 61
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.model.Pressure
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Tests storing the time series of measurements in a separate database, see [Database.buildTimeSeries].
+ *
+ * @author Armin Schnabel
+ * @version 1.3.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class TimeSeriesStorageTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<PersistenceBehaviour>
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour(), true)
+        clearPersistenceLayer(context, persistence)
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+    }
+
+    @Test
+    fun testSeparateTimeSeries() = runBlocking {
+        // Arrange
+        val measurementId = persistence.newMeasurement(Modality.BICYCLE).id
+
+        // Act
+        val timeSeries = persistence.timeSeriesDatabase(measurementId)
+        timeSeries.locationDao().insertAll(GeoLocation(0, 1L, 51.1, 13.1, 400.0, 1.0, 5.0, 20.0, measurementId))
+        timeSeries.pressureDao().insertAll(Pressure(0, 1L, 1013.0, measurementId))
+
+        // Assert
+        assertThat(timeSeries, not(sameInstance(persistence.database!!)))
+        assertThat(persistence.database!!.locationDao().countByMeasurementId(measurementId), equalTo(0))
+        assertThat(timeSeries.locationDao().countByMeasurementId(measurementId), equalTo(1))
+        // The DAOs of the persistence layer access the database which stores the measurement
+        assertThat(persistence.locationDao!!.countByMeasurementId(measurementId), equalTo(1))
+        assertThat(persistence.pressureDao!!.countByMeasurementId(measurementId), equalTo(1))
+        assertThat(persistence.loadTracks(measurementId).size, equalTo(1))
+        // Other instances, e.g. in other processes, find the data without enabling the option
+        val other = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        val otherTimeSeries = other.timeSeriesDatabase(measurementId)
+        assertThat(otherTimeSeries.locationDao().countByMeasurementId(measurementId), equalTo(1))
+        // Each process opens the separate database only once
+        assertThat(otherTimeSeries, sameInstance(timeSeries))
+    }
+
+    @Test
+    fun testInsertThroughPersistenceLayer() = runBlocking {
+        // Arrange
+        val separate = persistence.newMeasurement(Modality.BICYCLE).id
+        val primary = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        val other = primary.newMeasurement(Modality.BICYCLE).id
+
+        // Act
+        persistence.locationDao!!.insertAll(
+            GeoLocation(0, 1L, 51.1, 13.1, 400.0, 1.0, 5.0, 20.0, separate),
+            GeoLocation(0, 1L, 51.1, 13.1, 400.0, 1.0, 5.0, 20.0, other)
+        )
+        persistence.pressureDao!!.insertAll(Pressure(0, 1L, 1013.0, separate), Pressure(0, 1L, 1013.0, other))
+
+        // Assert
+        val timeSeries = persistence.timeSeriesDatabase(separate)
+        assertThat(timeSeries.locationDao().countByMeasurementId(separate), equalTo(1))
+        assertThat(timeSeries.pressureDao().countByMeasurementId(separate), equalTo(1))
+        assertThat(persistence.database!!.locationDao().countByMeasurementId(other), equalTo(1))
+        assertThat(persistence.database!!.pressureDao().countByMeasurementId(other), equalTo(1))
+        assertThat(persistence.locationDao!!.getAll().size, equalTo(2))
+    }
+
+    @Test
+    fun testDelete() = runBlocking {
+        // Arrange
+        val measurementId = persistence.newMeasurement(Modality.BICYCLE).id
+        val timeSeries = persistence.timeSeriesDatabase(measurementId)
+        timeSeries.locationDao().insertAll(GeoLocation(0, 1L, 51.1, 13.1, 400.0, 1.0, 5.0, 20.0, measurementId))
+
+        // Act
+        persistence.delete(measurementId)
+
+        // Assert
+        assertThat(timeSeries.locationDao().countByMeasurementId(measurementId), equalTo(0))
+        assertThat(timeSeries.measurementDao().loadById(measurementId), nullValue())
+        assertThat(persistence.loadMeasurement(measurementId), nullValue())
+    }
+
+    @Test
+    fun testDisabled() = runBlocking {
+        // Arrange
+        val primary = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+
+        // Act
+        val measurementId = primary.newMeasurement(Modality.BICYCLE).id
+
+        // Assert
+        assertThat(primary.timeSeriesDatabase(measurementId), sameInstance(primary.database!!))
+    }
+
+    @Test
+    fun testSynchronousMode() = runBlocking {
+        // Arrange
+        val measurementId = persistence.newMeasurement(Modality.BICYCLE).id
+        val database = persistence.timeSeriesDatabase(measurementId).openHelper.writableDatabase
+
+        // Act - a transaction runs on the connection which writes
+        database.beginTransaction()
+        val mode = try {
+            database.query("PRAGMA synchronous").use { it.moveToFirst(); it.getInt(0) }
+        } finally {
+            database.endTransaction()
+        }
+
+        // Assert
+        assertThat(mode, equalTo(SYNCHRONOUS_NORMAL))
+    }
+
+    companion object {
+        /**
+         * The value SQLite returns for `PRAGMA synchronous` in the mode `NORMAL`.
+         */
+        private const val SYNCHRONOUS_NORMAL = 1
+    }
+}
@@ -57,7 +57,7 @@ import org.junit.runner.RunWith
  * should be the same as they were in that version to really test the migration as it would happen in real.
  *
  * @author Armin Schnabel
- * @version 2.1.0
+ * @version 2.5.1
  * @since 4.0.0
  */
 @RunWith(AndroidJUnit4::class)
@@ -99,6 +99,10 @@ class DatabaseMigratorTest {
             migrator!!.MIGRATION_17_18,
             DatabaseMigrator.MIGRATION_18_19,
             DatabaseMigrator.MIGRATION_19_20,
+            DatabaseMigrator.MIGRATION_20_21,
+            DatabaseMigrator.MIGRATION_21_22,
+            DatabaseMigrator.MIGRATION_22_23,
+            DatabaseMigrator.MIGRATION_23_24,
         )
     }
 
@@ -431,6 +435,161 @@ class DatabaseMigratorTest {
                 "`uid` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `timestamp` INTEGER NOT NULL)")
     }
 
+    /**
+     * Tests that the measurement ledger table is added, the ledgers of the existing measurements are backfilled and
+     * the triggers count the events and attachment bytes.
+     */
+    @Test
+    fun testMigrationV23ToV24() {
+        // Arrange
+        helper.createDatabase(TEST_DB_NAME, 23).apply {
+            execSQL("INSERT INTO Measurement (_id, status, modality, fileFormatVersion, distance, timestamp, " +
+                    "filesSize) VALUES (1, 'OPEN', 'BICYCLE', 3, 0.0, 1, 0)")
+            execSQL("INSERT INTO Event (timestamp, type, value, measurementId) VALUES (1, 'LIFECYCLE_START', NULL, 1)")
+            execSQL("INSERT INTO Pressure (timestamp, pressure, measurementId) VALUES (1, 1013.25, 1)")
+            execSQL("INSERT INTO Attachment (timestamp, status, type, fileFormatVersion, size, path, measurementId) " +
+                    "VALUES (1, 'SAVED', 'CSV', 1, 5, './0.csv', 1)")
+            close()
+        }
+
+        // Act
+        // MigrationTestHelper automatically verifies the schema changes
+        val db = helper.runMigrationsAndValidate(
+            TEST_DB_NAME,
+            24,
+            true,
+            DatabaseMigrator.MIGRATION_23_24
+        )
+
+        // Assert
+        db.query("SELECT events, pressures, logBytes, accelerationBytes FROM MeasurementLedger WHERE measurementId = 1")
+            .use { cursor ->
+                MatcherAssert.assertThat(cursor.moveToFirst(), Matchers.equalTo(true))
+                MatcherAssert.assertThat(cursor.getLong(0), Matchers.equalTo(1L))
+                MatcherAssert.assertThat(cursor.getLong(1), Matchers.equalTo(1L))
+                MatcherAssert.assertThat(cursor.getLong(2), Matchers.equalTo(5L))
+                MatcherAssert.assertThat(cursor.getLong(3), Matchers.equalTo(0L))
+            }
+        db.execSQL("INSERT INTO Event (timestamp, type, value, measurementId) VALUES (2, 'LIFECYCLE_STOP', NULL, 1)")
+        db.execSQL("INSERT INTO Attachment (timestamp, status, type, fileFormatVersion, size, path, measurementId) " +
+                "VALUES (2, 'SAVED', 'CSV', 1, 10, './1.csv', 1), (3, 'SAVED', 'JPG', 1, 20, './2.jpg', 1)")
+        db.execSQL("UPDATE Attachment SET size = 15 WHERE path = './1.csv'")
+        db.query("SELECT events, logBytes, imageBytes, otherBytes FROM MeasurementLedger WHERE measurementId = 1")
+            .use { cursor ->
+                MatcherAssert.assertThat(cursor.moveToFirst(), Matchers.equalTo(true))
+                MatcherAssert.assertThat(cursor.getLong(0), Matchers.equalTo(2L))
+                MatcherAssert.assertThat(cursor.getLong(1), Matchers.equalTo(20L))
+                MatcherAssert.assertThat(cursor.getLong(2), Matchers.equalTo(20L))
+                MatcherAssert.assertThat(cursor.getLong(3), Matchers.equalTo(0L))
+            }
+    }
+
+    /**
+     * Tests that the measurement summary table is added.
+     */
+    @Test
+    fun testMigrationV22ToV23() {
+        // Arrange
+        helper.createDatabase(TEST_DB_NAME, 22).apply {
+            execSQL("INSERT INTO Measurement (_id, status, modality, fileFormatVersion, distance, timestamp, " +
+                    "filesSize) VALUES (1, 'SYNCED', 'BICYCLE', 3, 0.0, 1, 0)")
+            close()
+        }
+
+        // Act
+        // MigrationTestHelper automatically verifies the schema changes
+        val db = helper.runMigrationsAndValidate(
+            TEST_DB_NAME,
+            23,
+            true,
+            DatabaseMigrator.MIGRATION_22_23
+        )
+
+        // Assert
+        db.execSQL("INSERT INTO MeasurementSummary (measurementId, tier, averageSpeed, maxSpeed, ascend, duration) " +
+                "VALUES (1, 'METADATA', 1.0, 2.0, NULL, 3)")
+        db.query("SELECT tier FROM MeasurementSummary WHERE measurementId = 1").use { cursor ->
+            MatcherAssert.assertThat(cursor.moveToFirst(), Matchers.equalTo(true))
+            MatcherAssert.assertThat(cursor.getString(0), Matchers.equalTo("METADATA"))
+        }
+    }
+
+    /**
+     * Tests that the composite indices for the queries filtering by status or type are added.
+     */
+    @Test
+    fun testMigrationV21ToV22() {
+        // Arrange
+        helper.createDatabase(TEST_DB_NAME, 21).apply {
+            close()
+        }
+
+        // Act
+        // MigrationTestHelper automatically verifies the schema changes, including the indices
+        val db = helper.runMigrationsAndValidate(
+            TEST_DB_NAME,
+            22,
+            true,
+            DatabaseMigrator.MIGRATION_21_22
+        )
+
+        // Assert
+        db.query("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name IN ('Attachment', 'Pressure')")
+            .use { cursor ->
+                val indices = mutableListOf<String>()
+                while (cursor.moveToNext()) {
+                    indices.add(cursor.getString(0))
+                }
+                MatcherAssert.assertThat(
+                    indices,
+                    Matchers.containsInAnyOrder(
+                        "index_Attachment_measurementId_timestamp",
+                        "index_Attachment_measurementId_status_timestamp",
+                        "index_Attachment_measurementId_type_timestamp",
+                        "index_Attachment_path",
+                        "index_Pressure_measurementId_timestamp"
+                    )
+                )
+            }
+    }
+
+    /**
+     * Tests that the `measurementId` indices of `Location` and `Event` are replaced by the composite indices
+     * required for seek-based pagination.
+     */
+    @Test
+    fun testMigrationV20ToV21() {
+        // Arrange
+        helper.createDatabase(TEST_DB_NAME, 20).apply {
+            close()
+        }
+
+        // Act
+        // MigrationTestHelper automatically verifies the schema changes, including the indices
+        val db = helper.runMigrationsAndValidate(
+            TEST_DB_NAME,
+            21,
+            true,
+            DatabaseMigrator.MIGRATION_20_21
+        )
+
+        // Assert
+        db.query("SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name IN ('Location', 'Event')")
+            .use { cursor ->
+                val indices = mutableListOf<String>()
+                while (cursor.moveToNext()) {
+                    indices.add(cursor.getString(0))
+                }
+                MatcherAssert.assertThat(
+                    indices,
+                    Matchers.containsInAnyOrder(
+                        "index_Location_measurementId_timestamp__id",
+                        "index_Event_measurementId_timestamp__id"
+                    )
+                )
+            }
+    }
+
     /**
      * Tests the migration when a user has installed e.g. SDK 7.3 and upgrades directly to 7.5.
      *
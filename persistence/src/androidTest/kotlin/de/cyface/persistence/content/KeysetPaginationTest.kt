@@ -0,0 +1,181 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.content
+
+import android.content.Context
+import android.database.Cursor
+import android.util.Log
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.PersistenceBehaviour
+import de.cyface.persistence.PersistenceLayer
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.serialization.TransferFileSerializer.getLocationCursor
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.containsString
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Tests and benchmarks the seek-based pagination used to serialize large measurements.
+ *
+ * The benchmark logs the time required to load each page, which should be flat for seek-based pagination,
+ * whereas it grows with the number of previous pages for `OFFSET`-based pagination.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class KeysetPaginationTest {
+
+    private lateinit var persistence: PersistenceLayer<PersistenceBehaviour>
+    private var context: Context? = null
+    private var measurementId: Long? = null
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context!!, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context!!, persistence)
+        measurementId = persistence.newMeasurement(Modality.UNKNOWN).id
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context!!, persistence) }
+    }
+
+    /**
+     * Ensures each location is loaded exactly once, even if locations with the same timestamp are split
+     * across two pages.
+     */
+    @Test
+    fun testPagination_withDuplicateTimestamps() = runBlocking {
+        // Arrange
+        val numberOfTestEntries = AbstractCyfaceTable.DATABASE_QUERY_LIMIT * 2 + 1
+        insertLocations(numberOfTestEntries) { i -> i / 3L }
+
+        // Act
+        val loadedIds = mutableListOf<Long>()
+        pages { cursor ->
+            while (cursor.moveToNext()) {
+                loadedIds.add(cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.ID)))
+            }
+        }
+
+        // Assert
+        assertThat(loadedIds.size, equalTo(numberOfTestEntries))
+        assertThat(loadedIds.toSet().size, equalTo(numberOfTestEntries))
+    }
+
+    /**
+     * Ensures the page query is answered by the composite index without a full table scan or sort.
+     */
+    @Test
+    fun testQueryPlan() {
+        // Act
+        val plan = StringBuilder()
+        persistence.database!!.query(
+            SimpleSQLiteQuery(
+                "EXPLAIN QUERY PLAN SELECT * FROM ${LocationTable.URI_PATH} " +
+                        "WHERE ${BaseColumns.MEASUREMENT_ID} = ? " +
+                        "AND (${BaseColumns.TIMESTAMP}, ${BaseColumns.ID}) > (?, ?) " +
+                        "ORDER BY ${BaseColumns.TIMESTAMP} ASC, ${BaseColumns.ID} ASC " +
+                        "LIMIT ?",
+                arrayOf(measurementId!!, 0L, 0L, AbstractCyfaceTable.DATABASE_QUERY_LIMIT)
+            )
+        ).use { cursor ->
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n')
+            }
+        }
+
+        // Assert
+        assertThat(plan.toString(), containsString("index_Location_measurementId_timestamp__id"))
+        assertThat(plan.toString(), not(containsString("TEMP B-TREE")))
+    }
+
+    /**
+     * Logs the time required to load each page of a 20h measurement.
+     */
+    @Test
+    fun benchmarkPagination_20hTrack() = runBlocking {
+        // Arrange
+        // The Location frequency is always 1 Hz, i.e. 20h of measurement:
+        insertLocations(3600 * 20) { i -> i.toLong() }
+
+        // Act
+        val durations = mutableListOf<Long>()
+        var start = System.nanoTime()
+        pages { cursor ->
+            cursor.count // Executes the query
+            durations.add((System.nanoTime() - start) / 1_000)
+            start = System.nanoTime()
+        }
+
+        // Assert
+        durations.forEachIndexed { page, micros -> Log.i(TAG, "benchmark: page $page took $micros us") }
+        assertThat(durations.size, equalTo(3600 * 20 / AbstractCyfaceTable.DATABASE_QUERY_LIMIT + 1))
+    }
+
+    private suspend fun insertLocations(count: Int, timestamp: (Int) -> Long) {
+        val locations = (0 until count).map { i ->
+            GeoLocation(0L, timestamp(i), 51.0, 13.0, 100.0, 5.0, 5.0, 5.0, measurementId!!)
+        }
+        persistence.locationDao!!.insertAll(*locations.toTypedArray())
+    }
+
+    /**
+     * Loads all pages of locations like the `TransferFileSerializer`.
+     *
+     * @param onPage Called with the `Cursor` of each page, positioned before the first entry.
+     */
+    private fun pages(onPage: (Cursor) -> Unit) {
+        var afterTimestamp = Long.MIN_VALUE
+        var afterId = Long.MIN_VALUE
+        do {
+            val pageSize = getLocationCursor(
+                persistence.database!!,
+                measurementId!!,
+                afterTimestamp,
+                afterId,
+                AbstractCyfaceTable.DATABASE_QUERY_LIMIT
+            ).use { cursor ->
+                onPage(cursor)
+                if (cursor.moveToLast()) {
+                    afterTimestamp = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP))
+                    afterId = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.ID))
+                }
+                cursor.count
+            }
+        } while (pageSize == AbstractCyfaceTable.DATABASE_QUERY_LIMIT)
+    }
+}
@@ -47,7 +47,7 @@ import java.lang.Double.min
  * It's the only class which (still) uses the Cursor database interface for locations.
  *
  * @author Armin Schnabel
- * @version 1.0.2
+ * @version 1.1.0
  * @since 3.2.0
  */
 @RunWith(AndroidJUnit4::class)
@@ -123,17 +123,24 @@ class LocationSerializerTest {
         try {
             val count = persistence.locationDao!!.countByMeasurementId(measurementId!!)
             assertThat(count, equalTo(numberOfTestEntries))
-            var startIndex = 0
-            while (startIndex < count) {
+            var afterTimestamp = Long.MIN_VALUE
+            var afterId = Long.MIN_VALUE
+            var loaded = 0
+            while (loaded < count) {
                 cursor = getLocationCursor(
                     persistence.database!!,
                     measurementId!!,
-                    startIndex,
+                    afterTimestamp,
+                    afterId,
                     AbstractCyfaceTable.DATABASE_QUERY_LIMIT,
                 )
                 // if (cursor == null) throw CursorIsNullException()
                 oocut!!.readFrom(cursor)
-                startIndex += AbstractCyfaceTable.DATABASE_QUERY_LIMIT
+                cursor.moveToLast()
+                afterTimestamp = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP))
+                afterId = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.ID))
+                loaded += cursor.count
+                cursor.close()
             }
         } catch (e: RemoteException) {
             throw java.lang.IllegalStateException(e)
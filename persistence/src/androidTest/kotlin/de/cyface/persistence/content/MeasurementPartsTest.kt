@@ -0,0 +1,163 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.content
+
+import android.content.Context
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.LocationArchiver
+import de.cyface.persistence.PersistenceBehaviour
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.serialization.MeasurementParts
+import de.cyface.persistence.serialization.MeasurementSerializer
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.greaterThan
+import org.hamcrest.Matchers.lessThanOrEqualTo
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Tests that the [MeasurementParts] load the locations and events of each part page by page.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class MeasurementPartsTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<PersistenceBehaviour>
+    private lateinit var measurement: Measurement
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+        measurement = persistence.newMeasurement(Modality.BICYCLE)
+        persistence.locationDao!!.insertAll(*Array(LOCATIONS) { location(it) })
+        for (index in 0 until LOCATIONS step EVENT_INTERVAL) {
+            persistence.logEvent(EventType.MODALITY_TYPE_CHANGE, measurement, index * 1_000L)
+        }
+        persistence.setStatus(measurement.id, MeasurementStatus.FINISHED, false)
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+    }
+
+    @Test
+    fun testForEachLocationPage() = runBlocking {
+        // Arrange
+        val parts = load()
+
+        // Act
+        val pages = parts.parts.map { part ->
+            mutableListOf<List<GeoLocation>>().also { pages -> parts.forEachLocationPage(part) { pages.add(it) } }
+        }
+
+        // Assert
+        assertThat(parts.parts.size, greaterThan(1))
+        parts.parts.zip(pages).forEach { (part, partPages) ->
+            partPages.forEach { page ->
+                assertThat(page.size, lessThanOrEqualTo(PAGE_SIZE))
+                page.forEach { assertThat(it.timestamp in part, equalTo(true)) }
+            }
+        }
+        // Each location is loaded exactly once
+        val timestamps = pages.flatten().flatten().map { it.timestamp }
+        assertThat(timestamps, equalTo(List(LOCATIONS) { it * 1_000L }))
+    }
+
+    @Test
+    fun testForEachLocationPage_archived() = runBlocking {
+        // Arrange
+        LocationArchiver(persistence).archive(measurement.id)
+        val parts = load()
+
+        // Act
+        val timestamps = parts.parts.flatMap { part ->
+            mutableListOf<Long>().also { timestamps ->
+                parts.forEachLocationPage(part) { page ->
+                    assertThat(page.size, lessThanOrEqualTo(PAGE_SIZE))
+                    page.mapTo(timestamps) { it.timestamp }
+                }
+            }
+        }
+
+        // Assert
+        assertThat(parts.parts.size, greaterThan(1))
+        assertThat(timestamps, equalTo(List(LOCATIONS) { it * 1_000L }))
+    }
+
+    @Test
+    fun testForEachEventPage() = runBlocking {
+        // Arrange
+        val parts = load()
+
+        // Act
+        val timestamps = parts.parts.flatMap { part ->
+            mutableListOf<Long>().also { timestamps ->
+                parts.forEachEventPage(part) { page ->
+                    assertThat(page.size, lessThanOrEqualTo(PAGE_SIZE))
+                    page.forEach { assertThat(it.timestamp in part, equalTo(true)) }
+                    page.mapTo(timestamps) { it.timestamp }
+                }
+            }
+        }
+
+        // Assert
+        assertThat(timestamps, equalTo((0 until LOCATIONS step EVENT_INTERVAL).map { it * 1_000L }))
+    }
+
+    /**
+     * Cuts the measurement into about four parts.
+     */
+    private suspend fun load(): MeasurementParts {
+        val maxPartBytes = MeasurementSerializer.estimateSize(measurement.id, persistence) / 4
+        return MeasurementParts.load(measurement.id, persistence, maxPartBytes, PAGE_SIZE)
+    }
+
+    private fun location(index: Int): GeoLocation {
+        return GeoLocation(0, index * 1_000L, 51.1, 13.7 + index * 0.0001, 400.0, 5.0, 5.0, 20.0, measurement.id)
+    }
+
+    companion object {
+        private const val LOCATIONS = 100
+        private const val EVENT_INTERVAL = 3
+
+        /**
+         * Smaller than the number of locations in a part, so each part is loaded in multiple pages.
+         */
+        private const val PAGE_SIZE = 7
+    }
+}
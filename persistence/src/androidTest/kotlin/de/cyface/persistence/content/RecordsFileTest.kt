@@ -0,0 +1,198 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.content
+
+import android.content.Context
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.PersistenceBehaviour
+import de.cyface.persistence.content.AbstractCyfaceTable.Companion.DATABASE_QUERY_LIMIT
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.serialization.RecordsFile
+import de.cyface.persistence.serialization.TransferFileSerializer
+import de.cyface.serializer.DataSerializable
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.notNullValue
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+
+/**
+ * Tests that the [RecordsFile]s prebuilt by the [TransferFileSerializer] are reused and invalidated as expected.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class RecordsFileTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<PersistenceBehaviour>
+    private lateinit var measurement: Measurement
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+        measurement = persistence.newMeasurement(Modality.BICYCLE)
+        persistence.logEvent(EventType.LIFECYCLE_START, measurement, 0L)
+        persistence.locationDao!!.insertAll(*Array(LOCATIONS) { location(it) })
+        persistence.logEvent(EventType.LIFECYCLE_STOP, measurement, LOCATIONS * 1_000L)
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+    }
+
+    @Test
+    fun testLoadSerialized_withPrebuiltRecords() = runBlocking {
+        // Arrange
+        val expected = serialize()
+        RecordsFile.delete(context, persistence.fileIOHandler, measurement.id)
+        TransferFileSerializer.prebuildRecords(measurement.id, persistence)
+
+        // Act
+        val serialized = serialize()
+
+        // Assert
+        assertThat(serialized, equalTo(expected))
+        val parsed = parse(serialized)
+        assertThat(parsed.eventsCount, equalTo(2))
+        assertThat(parsed.locationRecords.timestampCount, equalTo(LOCATIONS))
+    }
+
+    @Test
+    fun testLoadSerialized_withEventAddedAfterPrebuild() = runBlocking {
+        // Arrange
+        TransferFileSerializer.prebuildRecords(measurement.id, persistence)
+        persistence.logEvent(EventType.MODALITY_TYPE_CHANGE, measurement, LOCATIONS * 1_000L + 1)
+
+        // Act
+        val parsed = parse(serialize())
+
+        // Assert
+        assertThat(parsed.eventsCount, equalTo(3))
+        assertThat(parsed.locationRecords.timestampCount, equalTo(LOCATIONS))
+        val records = RecordsFile.load(context, persistence.fileIOHandler, measurement.id)
+        assertThat(records!!.isValid(3, LOCATIONS), equalTo(true))
+    }
+
+    @Test
+    fun testLoadSerialized_withLocationAddedAfterPrebuild() = runBlocking {
+        // Arrange
+        TransferFileSerializer.prebuildRecords(measurement.id, persistence)
+        persistence.locationDao!!.insertAll(location(LOCATIONS))
+
+        // Act
+        val parsed = parse(serialize())
+
+        // Assert
+        assertThat(parsed.eventsCount, equalTo(2))
+        assertThat(parsed.locationRecords.timestampCount, equalTo(LOCATIONS + 1))
+    }
+
+    @Test
+    fun testLoadSerialized_withMultiplePages() = runBlocking {
+        // Arrange
+        val total = LOCATIONS + DATABASE_QUERY_LIMIT
+        persistence.locationDao!!.insertAll(*Array(DATABASE_QUERY_LIMIT) { location(LOCATIONS + it) })
+
+        // Act
+        val parsed = parse(serialize())
+
+        // Assert - the pages are merged and the offsets continue across pages
+        assertThat(parsed.locationRecords.timestampCount, equalTo(total))
+        assertThat(parsed.locationRecords.timestampList.sum(), equalTo((total - 1) * 1_000L))
+    }
+
+    @Test
+    fun testLoadSerialized_withArchivedLocations() = runBlocking {
+        // Arrange
+        val total = LOCATIONS + DATABASE_QUERY_LIMIT
+        persistence.locationDao!!.insertAll(*Array(DATABASE_QUERY_LIMIT) { location(LOCATIONS + it) })
+        persistence.setStatus(measurement.id, MeasurementStatus.FINISHED, false)
+        val expected = serialize()
+        RecordsFile.delete(context, persistence.fileIOHandler, measurement.id)
+
+        // Act
+        persistence.locationArchiver!!.archive(measurement.id)
+        val serialized = serialize()
+
+        // Assert - the archived locations are serialized exactly like the rows they replaced
+        assertThat(persistence.locationArchive(measurement.id)!!.count, equalTo(total))
+        assertThat(serialized, equalTo(expected))
+
+        // E.g. stored by a capturing process which did not stop yet
+        RecordsFile.delete(context, persistence.fileIOHandler, measurement.id)
+        persistence.locationDao!!.insertAll(location(total))
+        val parsed = parse(serialize())
+        assertThat(parsed.locationRecords.timestampCount, equalTo(total + 1))
+        assertThat(parsed.locationRecords.timestampList.sum(), equalTo(total * 1_000L))
+    }
+
+    @Test
+    fun testDelete() = runBlocking {
+        // Arrange
+        TransferFileSerializer.prebuildRecords(measurement.id, persistence)
+        assertThat(RecordsFile.load(context, persistence.fileIOHandler, measurement.id), notNullValue())
+
+        // Act
+        persistence.delete(measurement.id)
+
+        // Assert
+        assertThat(RecordsFile.load(context, persistence.fileIOHandler, measurement.id), nullValue())
+    }
+
+    private suspend fun serialize(): ByteArray {
+        val output = ByteArrayOutputStream()
+        BufferedOutputStream(output).use {
+            TransferFileSerializer.loadSerialized(it, measurement.id, persistence)
+        }
+        return output.toByteArray()
+    }
+
+    private fun parse(serialized: ByteArray): de.cyface.protos.model.Measurement {
+        val headerSize = DataSerializable.transferFileHeader().size
+        return de.cyface.protos.model.Measurement.parseFrom(serialized.copyOfRange(headerSize, serialized.size))
+    }
+
+    private fun location(index: Int): GeoLocation {
+        return GeoLocation(0, index * 1_000L, 51.1, 13.7 + index * 0.0001, 400.0, 5.0, 5.0, 20.0, measurement.id)
+    }
+
+    companion object {
+        private const val LOCATIONS = 100
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.content
+
+import android.content.Context
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.PersistenceBehaviour
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.serialization.MeasurementSerializer
+import de.cyface.persistence.serialization.TransferFile
+import de.cyface.persistence.serialization.TransferFileCheckpoint
+import de.cyface.persistence.serialization.TransferFileLock
+import de.cyface.persistence.serialization.TransferFileSerializer
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.notNullValue
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+/**
+ * Tests that the [TransferFile]s precomputed by the [MeasurementSerializer] are reused, invalidated and continued
+ * from a [TransferFileCheckpoint] as expected.
+ *
+ * @author Armin Schnabel
+ * @version 1.3.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class TransferFileTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<PersistenceBehaviour>
+    private lateinit var measurement: Measurement
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+        measurement = persistence.newMeasurement(Modality.BICYCLE)
+        persistence.logEvent(EventType.LIFECYCLE_START, measurement, 0L)
+        persistence.locationDao!!.insertAll(*Array(LOCATIONS) { location(it) })
+        persistence.logEvent(EventType.LIFECYCLE_STOP, measurement, LOCATIONS * 1_000L)
+        persistence.setStatus(measurement.id, MeasurementStatus.FINISHED, false)
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+    }
+
+    @Test
+    fun testLoadPrecomputed() = runBlocking {
+        // Arrange
+        val expected = MeasurementSerializer().writeSerializedCompressed(measurement.id, persistence)!!
+        MeasurementSerializer().precompute(measurement.id, persistence)
+
+        // Act
+        val precomputed = MeasurementSerializer.loadPrecomputed(measurement.id, persistence)
+
+        // Assert
+        assertThat(precomputed, notNullValue())
+        assertThat(precomputed!!.readBytes().contentEquals(expected.readBytes()), equalTo(true))
+        require(expected.delete())
+    }
+
+    @Test
+    fun testLoadPrecomputed_withoutPrecompute() = runBlocking {
+        // Act
+        val precomputed = MeasurementSerializer.loadPrecomputed(measurement.id, persistence)
+
+        // Assert
+        assertThat(precomputed, nullValue())
+    }
+
+    @Test
+    fun testLoadPrecomputed_withEventAddedAfterPrecompute() = runBlocking {
+        // Arrange
+        MeasurementSerializer().precompute(measurement.id, persistence)
+        persistence.logEvent(EventType.MODALITY_TYPE_CHANGE, measurement, LOCATIONS * 1_000L + 1)
+
+        // Act
+        val precomputed = MeasurementSerializer.loadPrecomputed(measurement.id, persistence)
+
+        // Assert
+        assertThat(precomputed, nullValue())
+    }
+
+    @Test
+    fun testLoadPrecomputed_withLocationAddedAfterPrecompute() = runBlocking {
+        // Arrange
+        MeasurementSerializer().precompute(measurement.id, persistence)
+        persistence.locationDao!!.insertAll(location(LOCATIONS))
+
+        // Act
+        val precomputed = MeasurementSerializer.loadPrecomputed(measurement.id, persistence)
+
+        // Assert
+        assertThat(precomputed, nullValue())
+    }
+
+    @Test
+    fun testPrecompute_withCheckpoint() = runBlocking {
+        // Arrange - data written after the checkpoint is discarded
+        val fingerprint = TransferFile.fingerprint(measurement.id, persistence)
+        TransferFileCheckpoint.partialFile(context, persistence.fileIOHandler, measurement.id).writeText("garbage")
+        val checkpoint = TransferFileCheckpoint(fingerprint, 0L, 0L, ByteArray(0))
+        TransferFileCheckpoint.write(context, persistence.fileIOHandler, measurement.id, checkpoint)
+
+        // Act
+        val transferFile = MeasurementSerializer().precompute(measurement.id, persistence)
+
+        // Assert
+        assertThat(inflate(transferFile.file.readBytes()).contentEquals(serialize()), equalTo(true))
+        assertThat(TransferFileCheckpoint.load(context, persistence.fileIOHandler, measurement.id), nullValue())
+    }
+
+    @Test
+    fun testPrecompute_withOutdatedCheckpoint() = runBlocking {
+        // Arrange
+        TransferFileCheckpoint.partialFile(context, persistence.fileIOHandler, measurement.id).writeText("garbage")
+        val checkpoint = TransferFileCheckpoint("outdated", 7L, 7L, ByteArray(0))
+        TransferFileCheckpoint.write(context, persistence.fileIOHandler, measurement.id, checkpoint)
+
+        // Act
+        val transferFile = MeasurementSerializer().precompute(measurement.id, persistence)
+
+        // Assert
+        assertThat(inflate(transferFile.file.readBytes()).contentEquals(serialize()), equalTo(true))
+    }
+
+    @Test
+    fun testLoadSerialized_withOffset() = runBlocking {
+        // Arrange
+        val expected = serialize()
+
+        // Act & Assert - offsets within the header, the format version and the records
+        listOf(0L, 1L, 5L, expected.size - 1L, expected.size.toLong()).forEach { offset ->
+            val serialized = serialize(offset)
+            assertThat(serialized.contentEquals(expected.copyOfRange(offset.toInt(), expected.size)), equalTo(true))
+        }
+    }
+
+    @Test
+    fun testMarkFinishedAs() = runBlocking {
+        // Arrange
+        MeasurementSerializer().precompute(measurement.id, persistence)
+        assertThat(TransferFile.load(context, persistence.fileIOHandler, measurement.id), notNullValue())
+
+        // Act
+        persistence.markFinishedAs(MeasurementStatus.SYNCED, measurement.id)
+
+        // Assert
+        assertThat(TransferFile.load(context, persistence.fileIOHandler, measurement.id), nullValue())
+    }
+
+    @Test
+    fun testDelete() = runBlocking {
+        // Arrange
+        MeasurementSerializer().precompute(measurement.id, persistence)
+
+        // Act
+        persistence.delete(measurement.id)
+
+        // Assert
+        assertThat(TransferFile.load(context, persistence.fileIOHandler, measurement.id), nullValue())
+    }
+
+    @Test
+    fun testEvict() = runBlocking {
+        // Arrange - an interrupted serialization of another measurement, written after the transfer file
+        val transferFile = MeasurementSerializer().precompute(measurement.id, persistence)
+        transferFile.file.setLastModified(transferFile.file.lastModified() - 60_000L)
+        val other = persistence.newMeasurement(Modality.BICYCLE)
+        TransferFileCheckpoint.partialFile(context, persistence.fileIOHandler, other.id).writeText("partial")
+        val size = TransferFile.cacheSize(context, persistence.fileIOHandler)
+        assertThat(size, equalTo(transferFile.file.length() + "partial".length))
+
+        // Act
+        val evicted = TransferFile.evict(context, persistence.fileIOHandler, size - 1)
+
+        // Assert - the least recently written file is evicted first
+        assertThat(evicted, equalTo(listOf(measurement.id)))
+        assertThat(TransferFile.load(context, persistence.fileIOHandler, measurement.id), nullValue())
+        assertThat(TransferFile.cacheSize(context, persistence.fileIOHandler), equalTo("partial".length.toLong()))
+    }
+
+    @Test
+    fun testEvict_withinLimit() = runBlocking {
+        // Arrange
+        MeasurementSerializer().precompute(measurement.id, persistence)
+        val size = TransferFile.cacheSize(context, persistence.fileIOHandler)
+
+        // Act
+        val evicted = TransferFile.evict(context, persistence.fileIOHandler, size)
+
+        // Assert
+        assertThat(evicted, equalTo(emptyList()))
+        assertThat(TransferFile.load(context, persistence.fileIOHandler, measurement.id), notNullValue())
+    }
+
+    @Test
+    fun testTryPrecompute_whileLocked() = runBlocking {
+        // Arrange
+        val lock = TransferFileLock.tryAcquire(context, persistence.fileIOHandler, measurement.id)!!
+
+        // Act
+        val skipped = lock.use { MeasurementSerializer().tryPrecompute(measurement.id, persistence) }
+        val precomputed = MeasurementSerializer().tryPrecompute(measurement.id, persistence)
+
+        // Assert
+        assertThat(skipped, nullValue())
+        assertThat(precomputed, notNullValue())
+    }
+
+    @Test
+    fun testTryAcquire() {
+        // Arrange
+        val lock = TransferFileLock.tryAcquire(context, persistence.fileIOHandler, measurement.id)
+
+        // Act
+        val second = TransferFileLock.tryAcquire(context, persistence.fileIOHandler, measurement.id)
+        lock!!.close()
+        val afterRelease = TransferFileLock.tryAcquire(context, persistence.fileIOHandler, measurement.id)
+        afterRelease?.close()
+
+        // Assert
+        assertThat(second, nullValue())
+        assertThat(afterRelease, notNullValue())
+    }
+
+    @Test
+    fun testEvict_whileLocked() = runBlocking {
+        // Arrange
+        MeasurementSerializer().precompute(measurement.id, persistence)
+
+        // Act
+        val evicted = TransferFileLock.tryAcquire(context, persistence.fileIOHandler, measurement.id)!!.use {
+            TransferFile.evict(context, persistence.fileIOHandler, 0L)
+        }
+
+        // Assert
+        assertThat(evicted, equalTo(emptyList()))
+        assertThat(TransferFile.load(context, persistence.fileIOHandler, measurement.id), notNullValue())
+    }
+
+    private suspend fun serialize(offset: Long = 0L): ByteArray {
+        val output = ByteArrayOutputStream()
+        BufferedOutputStream(output).use {
+            TransferFileSerializer.loadSerialized(it, measurement.id, persistence, offset = offset)
+        }
+        return output.toByteArray()
+    }
+
+    private fun inflate(compressed: ByteArray): ByteArray {
+        val inflater = Inflater(MeasurementSerializer.COMPRESSION_NOWRAP)
+        val inflated = InflaterInputStream(compressed.inputStream(), inflater).use { it.readBytes() }
+        inflater.end()
+        return inflated
+    }
+
+    private fun location(index: Int): GeoLocation {
+        return GeoLocation(0, index * 1_000L, 51.1, 13.7 + index * 0.0001, 400.0, 5.0, 5.0, 20.0, measurement.id)
+    }
+
+    companion object {
+        private const val LOCATIONS = 100
+    }
+}
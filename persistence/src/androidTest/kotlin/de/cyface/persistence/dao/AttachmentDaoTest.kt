@@ -21,6 +21,7 @@ package de.cyface.persistence.dao
 import android.database.sqlite.SQLiteConstraintException
 import de.cyface.persistence.Database
 import de.cyface.persistence.model.Attachment
+import de.cyface.persistence.model.AttachmentStatus
 import de.cyface.persistence.model.Measurement
 import kotlinx.coroutines.runBlocking
 import org.hamcrest.CoreMatchers.equalTo
@@ -33,7 +34,7 @@ import org.junit.Test
  * Tests the CRUD operations of the [AttachmentDao].
  *
  * @author Armin Schnabel
- * @version 1.0.0
+ * @version 1.1.0
  * @since 7.10.0
  */
 class AttachmentDaoTest {
@@ -149,6 +150,22 @@ class AttachmentDaoTest {
         assertThat(dao.getAll().size, equalTo(0))
     }
 
+    @Test
+    fun testUpdateAllStatus() = runBlocking {
+        // Arrange
+        val attachment1 = createEntry(measurementId!!)
+        val attachment2 = createEntry(measurementId!!)
+        val keep = createEntry(measurementId!!)
+
+        // Act
+        dao.updateAllStatus(listOf(attachment1.id, attachment2.id), AttachmentStatus.SYNCED)
+
+        // Assert
+        assertThat(dao.loadById(attachment1.id)!!.status, equalTo(AttachmentStatus.SYNCED))
+        assertThat(dao.loadById(attachment2.id)!!.status, equalTo(AttachmentStatus.SYNCED))
+        assertThat(dao.loadById(keep.id)!!.status, equalTo(keep.status))
+    }
+
     /**
      * Creates an entry in the test database.
      *
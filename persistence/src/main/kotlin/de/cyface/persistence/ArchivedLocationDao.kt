@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import de.cyface.persistence.dao.LocationDao
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.serialization.LocationArchive
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+
+/**
+ * A [LocationDao] which also loads the [GeoLocation]s moved into a [LocationArchive] by the [LocationArchiver].
+ *
+ * The reads of the locations of a measurement are answered from the archive of the measurement, merged with the
+ * locations stored in the database afterward. This way apps and the
+ * [de.cyface.persistence.strategy.LocationCleaningStrategy] implementations find the locations of finished
+ * measurements, no matter where they are stored. Measurements without archive are loaded from the database.
+ *
+ * [getAll] and [deleteAll] only access the database.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property delegate The [LocationDao] of the database which stores the locations of the measurements.
+ * @property archive Returns the archive of a measurement or `null` if its locations are not archived.
+ */
+internal class ArchivedLocationDao(
+    private val delegate: LocationDao,
+    private val archive: (measurementId: Long) -> LocationArchive?
+) : LocationDao by delegate {
+
+    override suspend fun loadAllByMeasurementId(measurementId: Long): List<GeoLocation> {
+        val archive = archive(measurementId) ?: return delegate.loadAllByMeasurementId(measurementId)
+        return merge(archive, measurementId)
+    }
+
+    override suspend fun loadAllByMeasurementIdAfterId(measurementId: Long, afterId: Long): List<GeoLocation> {
+        val archive = archive(measurementId) ?: return delegate.loadAllByMeasurementIdAfterId(measurementId, afterId)
+        return merge(archive, measurementId).filter { it.id > afterId }
+    }
+
+    override suspend fun loadPageByMeasurementId(
+        measurementId: Long,
+        afterTimestamp: Long,
+        afterId: Long,
+        limit: Int
+    ): List<GeoLocation> {
+        val archive = archive(measurementId)
+            ?: return delegate.loadPageByMeasurementId(measurementId, afterTimestamp, afterId, limit)
+        return merge(archive, measurementId).filter { isAfter(it, afterTimestamp, afterId) }.take(limit)
+    }
+
+    override suspend fun countByMeasurementId(measurementId: Long): Int {
+        val archive = archive(measurementId) ?: return delegate.countByMeasurementId(measurementId)
+        // Rows up to the highest archived id are archived, even if they were not deleted yet
+        return archive.count + delegate.loadAllByMeasurementIdAfterId(measurementId, archive.maxId).size
+    }
+
+    override suspend fun countByMeasurementIdAfter(measurementId: Long, afterTimestamp: Long, afterId: Long): Int {
+        val archive = archive(measurementId)
+            ?: return delegate.countByMeasurementIdAfter(measurementId, afterTimestamp, afterId)
+        return merge(archive, measurementId).count { isAfter(it, afterTimestamp, afterId) }
+    }
+
+    override fun observeLatestByMeasurementId(measurementId: Long): Flow<GeoLocation?> {
+        return delegate.observeLatestByMeasurementId(measurementId).map { latest ->
+            val archived = archive(measurementId)?.read()?.lastOrNull()
+            listOfNotNull(archived, latest).maxWithOrNull(compareBy({ it.timestamp }, { it.id }))
+        }
+    }
+
+    override suspend fun loadAllByMeasurementIdAndSpeedGtAndAccuracyLtAndSpeedLt(
+        measurementId: Long,
+        lowerSpeedThreshold: Double,
+        accuracyThreshold: Double,
+        upperSpeedThreshold: Double
+    ): List<GeoLocation> {
+        val archive = archive(measurementId) ?: return delegate.loadAllByMeasurementIdAndSpeedGtAndAccuracyLtAndSpeedLt(
+            measurementId,
+            lowerSpeedThreshold,
+            accuracyThreshold,
+            upperSpeedThreshold
+        )
+        // Like the database query, which also filters locations without accuracy
+        return merge(archive, measurementId).filter {
+            it.speed > lowerSpeedThreshold && it.accuracy != null && it.accuracy < accuracyThreshold &&
+                    it.speed < upperSpeedThreshold
+        }
+    }
+
+    override suspend fun deleteItemByMeasurementId(measurementId: Long): Int {
+        val archived = archive(measurementId)?.let {
+            it.delete()
+            it.count
+        } ?: 0
+        return archived + delegate.deleteItemByMeasurementId(measurementId)
+    }
+
+    /**
+     * @return The archived locations and the locations stored afterward, ordered by timestamp and id.
+     */
+    private suspend fun merge(archive: LocationArchive, measurementId: Long): List<GeoLocation> {
+        val rows = delegate.loadAllByMeasurementIdAfterId(measurementId, archive.maxId)
+        return if (rows.isEmpty()) archive.read() else LocationArchiver.merge(archive.read(), rows)
+    }
+
+    /**
+     * @return `true` if the [location] follows the location with the [afterTimestamp] and [afterId].
+     */
+    private fun isAfter(location: GeoLocation, afterTimestamp: Long, afterId: Long): Boolean {
+        return location.timestamp > afterTimestamp || (location.timestamp == afterTimestamp && location.id > afterId)
+    }
+}
@@ -22,19 +22,27 @@ import android.content.Context
 import androidx.room.Room
 import androidx.room.RoomDatabase
 import androidx.room.TypeConverters
+import androidx.sqlite.db.SupportSQLiteDatabase
+import de.cyface.persistence.content.MeasurementLedgerTable
 import de.cyface.persistence.dao.EventDao
 import de.cyface.persistence.dao.AttachmentDao
 import de.cyface.persistence.dao.IdentifierDao
 import de.cyface.persistence.dao.LocationDao
 import de.cyface.persistence.dao.MeasurementDao
+import de.cyface.persistence.dao.MeasurementLedgerDao
+import de.cyface.persistence.dao.MeasurementSummaryDao
 import de.cyface.persistence.dao.PressureDao
 import de.cyface.persistence.model.Event
 import de.cyface.persistence.model.Attachment
 import de.cyface.persistence.model.GeoLocation
 import de.cyface.persistence.model.Identifier
 import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementLedger
+import de.cyface.persistence.model.MeasurementSummary
 import de.cyface.persistence.model.PathTypeConverter
 import de.cyface.persistence.model.Pressure
+import java.io.File
+import java.util.concurrent.Executors
 
 /**
  * This class represents the database stored in an SQLite file named `measures`.
@@ -45,8 +53,10 @@ import de.cyface.persistence.model.Pressure
  * We only need to worry about deadlocks when running manual transactions. See
  * https://www.reddit.com/r/androiddev/comments/9s2m4x/comment/e8nklbg/?utm_source=share&utm_medium=web2x&context=3
  *
+ * Optionally, the [GeoLocation] and [Pressure] data is stored in a second SQLite file, see [buildTimeSeries].
+ *
  * @author Armin Schnabel
- * @version 1.1.1
+ * @version 1.7.1
  * @since 7.5.0
  */
 @androidx.room.Database(
@@ -56,12 +66,18 @@ import de.cyface.persistence.model.Pressure
         Event::class,
         Pressure::class,
         GeoLocation::class,
-        Attachment::class
+        Attachment::class,
+        MeasurementSummary::class,
+        MeasurementLedger::class
     ],
     // version 18 imported data from `v6.1` database into `measures.17` and migrated `measures` to Room
     // version 19 adds the attachments table
     // version 20 adds filesSize to the measurement table [RFR-1213]
-    version = 20
+    // version 21 replaces the measurementId indices of Location and Event for seek-based pagination
+    // version 22 adds composite indices for the queries filtering by status or type
+    // version 23 adds the measurement summary table for the retention policy
+    // version 24 adds the measurement ledger table which tracks the captured data size
+    version = 24
     //autoMigrations = [] // test this feature on the next version change
 )
 @TypeConverters(PathTypeConverter::class)
@@ -97,43 +113,117 @@ abstract class Database : RoomDatabase() {
      */
     abstract fun attachmentDao(): AttachmentDao
 
+    /**
+     * @return Data access object which provides the API to interact with the [MeasurementSummary] database table.
+     */
+    abstract fun measurementSummaryDao(): MeasurementSummaryDao
+
+    /**
+     * @return Data access object which provides the API to interact with the [MeasurementLedger] database table.
+     */
+    abstract fun measurementLedgerDao(): MeasurementLedgerDao
+
     companion object {
         /**
          * The file name of the database represented by this class.
          */
         private const val DATABASE_NAME = "measures"
 
+        /**
+         * The file name of the database which stores the high-frequency time series, see [buildTimeSeries].
+         */
+        private const val TIME_SERIES_DATABASE_NAME = "measures-time-series"
+
+        /**
+         * The number of threads which execute the queries on the time series database.
+         */
+        private const val TIME_SERIES_QUERY_THREADS = 2
+
+        /**
+         * The executor of the queries on the time series database, shared by all instances so the threads are not
+         * leaked when an instance is discarded.
+         */
+        private val timeSeriesQueryExecutor by lazy { Executors.newFixedThreadPool(TIME_SERIES_QUERY_THREADS) }
+
         /**
          * Creates a new instance of this class.
          *
          * No Singleton should be necessary (https://github.com/cyface-de/android-backend/pull/268).
          */
         fun build(context: Context): Database {
+            return builder(context, DATABASE_NAME, true).build()
+        }
+
+        /**
+         * Creates a new instance of this class which stores the high-frequency time series, i.e. [GeoLocation]
+         * and [Pressure] data, in a separate SQLite file.
+         *
+         * This way, the inserts at sensor rate do not contend with the reads of the measurement metadata from the
+         * UI and the synchronization as the file has its own connection pool and query executor.
+         *
+         * The file uses the same schema. A [Measurement] is mirrored into it when it's created so the foreign keys
+         * of the time series are satisfied and deleting the mirrored entry deletes its time series. Only the
+         * identifier of the mirrored entry is used, the metadata is kept up to date in the primary database.
+         *
+         * As the time series can be recaptured but not the metadata, this file uses `synchronous = NORMAL` in the
+         * write-ahead-log mode, which does not sync on each commit. A power loss may roll back the last commits,
+         * but does not corrupt the database.
+         *
+         * Multi-instance invalidation is not enabled, so the inserts at sensor rate are not sent to all processes.
+         * Use [TimeSeriesInvalidation] to publish the modifications to other processes at a limited rate.
+         */
+        fun buildTimeSeries(context: Context): Database {
+            return builder(context, TIME_SERIES_DATABASE_NAME, false)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setQueryExecutor(timeSeriesQueryExecutor)
+                .openHelperFactory(SynchronousModeOpenHelperFactory("NORMAL"))
+                .build()
+        }
+
+        /**
+         * @return `true` if the time series database file was created, see [buildTimeSeries].
+         */
+        fun timeSeriesExists(context: Context): Boolean {
+            return context.applicationContext.getDatabasePath(TIME_SERIES_DATABASE_NAME).exists()
+        }
+
+        /**
+         * Returns the size of the database files, including the separate time series database and the write-ahead
+         * logs, e.g. to report how much storage was reclaimed.
+         *
+         * @return The sum of the sizes of all existing database files in bytes.
+         */
+        fun filesSize(context: Context): Long {
+            return listOf(DATABASE_NAME, TIME_SERIES_DATABASE_NAME).flatMap { name ->
+                val file = context.applicationContext.getDatabasePath(name)
+                listOf(file, File(file.path + "-wal"), File(file.path + "-shm"))
+            }.sumOf { it.length() }
+        }
+
+        private fun builder(
+            context: Context,
+            name: String,
+            multiInstanceInvalidation: Boolean
+        ): RoomDatabase.Builder<Database> {
             val migrator = DatabaseMigrator(context)
-            // Enabling `multiInstanceInvalidation` tells Room that we use it across processes.
-            // A `MultiInstanceInvalidationService` is used to transfer database modifications
-            // between the processes, so we can use it safely across processes.
-            return Room.databaseBuilder(
+            val builder = Room.databaseBuilder(
                 context.applicationContext,
                 Database::class.java,
-                DATABASE_NAME
+                name
             )
-                .enableMultiInstanceInvalidation()
-                .addMigrations(
-                    DatabaseMigrator.MIGRATION_8_9,
-                    migrator.MIGRATION_9_10,
-                    DatabaseMigrator.MIGRATION_10_11,
-                    DatabaseMigrator.MIGRATION_11_12,
-                    DatabaseMigrator.MIGRATION_12_13,
-                    DatabaseMigrator.MIGRATION_13_14,
-                    DatabaseMigrator.MIGRATION_14_15,
-                    DatabaseMigrator.MIGRATION_15_16,
-                    DatabaseMigrator.MIGRATION_16_17,
-                    migrator.MIGRATION_17_18,
-                    DatabaseMigrator.MIGRATION_18_19,
-                    DatabaseMigrator.MIGRATION_19_20,
-                )
-                .build()
+            if (multiInstanceInvalidation) {
+                // Enabling `multiInstanceInvalidation` tells Room that we use it across processes.
+                // A `MultiInstanceInvalidationService` is used to transfer database modifications
+                // between the processes, so we can use it safely across processes.
+                builder.enableMultiInstanceInvalidation()
+            }
+            // The triggers are not part of Room's schema, so they are created here and by the migration
+            builder.addCallback(object : RoomDatabase.Callback() {
+                override fun onCreate(db: SupportSQLiteDatabase) {
+                    MeasurementLedgerTable.TRIGGERS.forEach { db.execSQL(it) }
+                }
+            })
+            return builder.addMigrations(*migrator.migrations())
         }
     }
 }
\ No newline at end of file
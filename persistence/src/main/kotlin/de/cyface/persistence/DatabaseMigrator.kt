@@ -19,7 +19,6 @@
 package de.cyface.persistence
 
 import android.content.Context
-import android.database.Cursor
 import android.database.sqlite.SQLiteDatabase
 import android.location.Location
 import android.preference.PreferenceManager
@@ -27,7 +26,9 @@ import android.util.Log
 import androidx.room.migration.Migration
 import androidx.sqlite.db.SupportSQLiteDatabase
 import androidx.sqlite.db.SupportSQLiteQueryBuilder
+import androidx.sqlite.db.SupportSQLiteStatement
 import de.cyface.persistence.content.LocationTable
+import de.cyface.persistence.content.MeasurementLedgerTable
 import de.cyface.persistence.content.MeasurementTable
 import de.cyface.persistence.strategy.DefaultDistanceCalculation
 import java.io.File
@@ -47,8 +48,12 @@ import java.io.File
  * Room will clear the database and recreate so even if you have no changes between 2 versions, *always
  * provide a Migration object to the builder*!
  *
+ * The migrations run when the database is opened, so they must not loop over the measurements with one statement
+ * per measurement. Use set-based SQL which processes all rows in one statement instead. The [migrations] report
+ * their progress to the [listener].
+ *
  * @author Armin Schnabel
- * @version 1.2.0
+ * @version 1.7.1
  * @since 7.5.0
  * @property context The `Context` required to import data from a secondary data source.
  */
@@ -88,7 +93,124 @@ class DatabaseMigrator(val context: Context) {
     @Suppress("PropertyName", "VariableNaming")
     val MIGRATION_9_10: Migration = migrationFrom9To10()
 
+    /**
+     * Returns all migrations to be added to the [Database] builder.
+     *
+     * Each migration logs its duration and reports its progress to the [listener].
+     *
+     * @return The migrations from version `8` to the current version.
+     */
+    fun migrations(): Array<Migration> {
+        return arrayOf(
+            MIGRATION_8_9,
+            MIGRATION_9_10,
+            MIGRATION_10_11,
+            MIGRATION_11_12,
+            MIGRATION_12_13,
+            MIGRATION_13_14,
+            MIGRATION_14_15,
+            MIGRATION_15_16,
+            MIGRATION_16_17,
+            MIGRATION_17_18,
+            MIGRATION_18_19,
+            MIGRATION_19_20,
+            MIGRATION_20_21,
+            MIGRATION_21_22,
+            MIGRATION_22_23,
+            MIGRATION_23_24,
+        ).map { ReportingMigration(it) }.toTypedArray()
+    }
+
     companion object {
+        /**
+         * Is notified about the progress of the [migrations].
+         *
+         * Set this before the database is opened for the first time, i.e. before the first
+         * [DefaultPersistenceLayer] is created.
+         */
+        @Volatile
+        @JvmStatic
+        var listener: MigrationListener? = null
+
+        /**
+         * Adds the [de.cyface.persistence.model.MeasurementLedger] table which tracks the size of the data captured
+         * for each measurement, and the [MeasurementLedgerTable.TRIGGERS] which count the events and attachments.
+         *
+         * The ledgers of the existing measurements are backfilled by [MeasurementLedgerTable.BACKFILL] with one
+         * statement. Their sensor data bytes stay `0`, so their size is estimated from the files instead.
+         */
+        val MIGRATION_23_24 = object : Migration(23, 24) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("CREATE TABLE IF NOT EXISTS `MeasurementLedger` (" +
+                        "`measurementId` INTEGER NOT NULL, `accelerationBytes` INTEGER NOT NULL, " +
+                        "`rotationBytes` INTEGER NOT NULL, `directionBytes` INTEGER NOT NULL, " +
+                        "`locations` INTEGER NOT NULL, `events` INTEGER NOT NULL, `pressures` INTEGER NOT NULL, " +
+                        "`logBytes` INTEGER NOT NULL, `imageBytes` INTEGER NOT NULL, `otherBytes` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`measurementId`), FOREIGN KEY(`measurementId`) REFERENCES `Measurement`(`_id`) " +
+                        "ON UPDATE NO ACTION ON DELETE CASCADE )")
+                MeasurementLedgerTable.TRIGGERS.forEach { db.execSQL(it) }
+                db.execSQL(MeasurementLedgerTable.BACKFILL)
+            }
+        }
+
+        /**
+         * Adds the [de.cyface.persistence.model.MeasurementSummary] table which caches the statistics of the
+         * measurements whose data was reduced by the [RetentionEngine].
+         */
+        val MIGRATION_22_23 = object : Migration(22, 23) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("CREATE TABLE IF NOT EXISTS `MeasurementSummary` (" +
+                        "`measurementId` INTEGER NOT NULL, `tier` TEXT NOT NULL, `averageSpeed` REAL NOT NULL, " +
+                        "`maxSpeed` REAL NOT NULL, `ascend` REAL, `duration` INTEGER NOT NULL, " +
+                        "PRIMARY KEY(`measurementId`), FOREIGN KEY(`measurementId`) REFERENCES `Measurement`(`_id`) " +
+                        "ON UPDATE NO ACTION ON DELETE CASCADE )")
+            }
+        }
+
+        /**
+         * Adds composite indices for the queries which filter by `status` or `type` or order by `timestamp`, so
+         * they are answered from the index without a full table scan or a temporary sort.
+         *
+         * The `measurementId` indices of `Attachment` and `Pressure` are replaced as they are a prefix of the new
+         * composite indices which still serve the `ForeignKey`.
+         */
+        val MIGRATION_21_22 = object : Migration(21, 22) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Measurement_status` ON `Measurement` (`status`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Event_measurementId_type_timestamp` " +
+                        "ON `Event` (`measurementId`, `type`, `timestamp`)")
+                db.execSQL("DROP INDEX IF EXISTS `index_Pressure_measurementId`")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Pressure_measurementId_timestamp` " +
+                        "ON `Pressure` (`measurementId`, `timestamp`)")
+                db.execSQL("DROP INDEX IF EXISTS `index_Attachment_measurementId`")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Attachment_measurementId_timestamp` " +
+                        "ON `Attachment` (`measurementId`, `timestamp`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Attachment_measurementId_status_timestamp` " +
+                        "ON `Attachment` (`measurementId`, `status`, `timestamp`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Attachment_measurementId_type_timestamp` " +
+                        "ON `Attachment` (`measurementId`, `type`, `timestamp`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Attachment_path` ON `Attachment` (`path`)")
+            }
+        }
+
+        /**
+         * Replaces the `measurementId` indices of the `Location` and `Event` tables with composite indices on
+         * `measurementId`, `timestamp` and `_id`.
+         *
+         * This allows seek-based pagination, i.e. the next page is found via the index instead of skipping all
+         * rows of the previous pages as with `OFFSET`. The composite indices still serve the `ForeignKey`.
+         */
+        val MIGRATION_20_21 = object : Migration(20, 21) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("DROP INDEX IF EXISTS `index_Location_measurementId`")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Location_measurementId_timestamp__id` " +
+                        "ON `Location` (`measurementId`, `timestamp`, `_id`)")
+                db.execSQL("DROP INDEX IF EXISTS `index_Event_measurementId`")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_Event_measurementId_timestamp__id` " +
+                        "ON `Event` (`measurementId`, `timestamp`, `_id`)")
+            }
+        }
+
         /**
          * Adds the [de.cyface.persistence.model.Measurement.filesSize] column.
          */
@@ -219,47 +341,24 @@ class DatabaseMigrator(val context: Context) {
                 // Add `timestamp` column
                 database.execSQL("ALTER TABLE measurements ADD COLUMN timestamp INTEGER NOT NULL DEFAULT 0")
                 // measurements from version `< 14` without GeoLocations will receive an `0L` timestamp
-                // Calculating timestamp for migrated version `13` measurements
-                var measurementCursor: Cursor? = null
-                var geoLocationCursor: Cursor? = null
-                try {
-                    measurementCursor = database.query(
-                        SupportSQLiteQueryBuilder.builder("measurements").columns(arrayOf("_id"))
-                            .create()
-                    )
-                    if (measurementCursor.count == 0) {
-                        Log.v(Constants.TAG, "No measurements for migration found")
-                        return
-                    }
-
-                    // Check all measurements
-                    while (measurementCursor.moveToNext()) {
-                        val measurementId =
-                            measurementCursor.getLong(measurementCursor.getColumnIndexOrThrow("_id"))
-                        geoLocationCursor = database.query(
-                            SupportSQLiteQueryBuilder
-                                .builder("locations")
-                                .selection("measurement_fk = ?", arrayOf(measurementId))
-                                .columns(arrayOf("gps_time"))
-                                .orderBy("gps_time ASC")
-                                .limit("1")
-                                .create()
-                        )
-                        var timestamp = 0L // Default value for measurements without GeoLocations
-                        if (geoLocationCursor.moveToNext()) {
-                            timestamp =
-                                geoLocationCursor.getLong(geoLocationCursor.getColumnIndexOrThrow("gps_time"))
-                        }
-                        require(timestamp >= 0L)
-                        Log.v(
-                            Constants.TAG,
-                            "Updating timestamp for measurement $measurementId to $timestamp"
-                        )
-                        database.execSQL("UPDATE measurements SET timestamp = $timestamp WHERE _id = $measurementId")
-                    }
-                } finally {
-                    measurementCursor?.close()
-                    geoLocationCursor?.close()
+                // Calculating timestamp for migrated version `13` measurements.
+                // The `locations` have no index on `measurement_fk`, so the first location of all measurements is
+                // collected in one scan instead of scanning the table once per measurement.
+                database.execSQL(
+                    "CREATE TEMP TABLE _first_locations " +
+                            "(measurement_fk INTEGER PRIMARY KEY, gps_time INTEGER NOT NULL);"
+                )
+                database.execSQL(
+                    "INSERT INTO _first_locations (measurement_fk,gps_time) " +
+                            "SELECT measurement_fk, MIN(gps_time) FROM locations GROUP BY measurement_fk"
+                )
+                database.execSQL(
+                    "UPDATE measurements SET timestamp = COALESCE((SELECT gps_time FROM _first_locations " +
+                            "WHERE _first_locations.measurement_fk = measurements._id), 0)"
+                )
+                database.execSQL("DROP TABLE _first_locations;")
+                database.query("SELECT COUNT(*) FROM measurements WHERE timestamp < 0").use { cursor ->
+                    require(cursor.moveToFirst() && cursor.getInt(0) == 0)
                 }
             }
         }
@@ -532,65 +631,67 @@ class DatabaseMigrator(val context: Context) {
                 // Migrate GeoLocation data
                 // Create table with Room generated name and new schema
                 database.execSQL("CREATE TABLE IF NOT EXISTS `Location` (`_id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `timestamp` INTEGER NOT NULL, `lat` REAL NOT NULL, `lon` REAL NOT NULL, `altitude` REAL, `speed` REAL NOT NULL, `accuracy` REAL, `verticalAccuracy` REAL, `measurementId` INTEGER NOT NULL, FOREIGN KEY(`measurementId`) REFERENCES `Measurement`(`_id`) ON UPDATE NO ACTION ON DELETE CASCADE );")
-                // Load all measurements to see which also have locations in `v6` and which only have locations in `measures`
-                val measurementCursor = database.query(
-                    SupportSQLiteQueryBuilder.builder("Measurement").orderBy("_id ASC").create()
+                // Load all measurements, as only the `v6` locations of existing measurements are imported
+                val measurementIds = HashSet<Long>()
+                database.query("SELECT `_id` FROM `Measurement`").use { cursor ->
+                    while (cursor.moveToNext()) {
+                        measurementIds.add(cursor.getLong(0))
+                    }
+                }
+                // Collects the measurements which have locations in `v6`, their `measures` locations are skipped
+                database.execSQL("CREATE TEMP TABLE `_v6_measurements` (`measurementId` INTEGER PRIMARY KEY);")
+                val v6MeasurementStatement =
+                    database.compileStatement("INSERT OR IGNORE INTO `_v6_measurements` VALUES (?);")
+                // Auto-generating id to avoid id conflict [STAD-690]
+                val locationStatement = database.compileStatement(
+                    "INSERT INTO `Location` (`timestamp`, `lat`, `lon`, `altitude`, `speed`, `accuracy`, " +
+                            "`verticalAccuracy`, `measurementId`) VALUES (?, ?, ?, ?, ?, ?, ?, ?);"
                 )
-                while (measurementCursor.moveToNext()) {
-                    val measurementId =
-                        measurementCursor.getLong(measurementCursor.getColumnIndexOrThrow("_id"))
-                    // Check if secondary `v6` database contains locations for that measurement
-                    val locationCursor = v6Database.query(
-                        "Location",
-                        null,
-                        "measurement_fk = ?",
-                        arrayOf(measurementId.toString()),
-                        null,
-                        null,
-                        "uid ASC"
-                    )
-                    if (locationCursor.count > 0) {
-                        // Insert the data from the `v6` database version `1`
+                // Insert the data from the `v6` database version `1` in one pass over the `v6` locations
+                v6Database.query("Location", null, null, null, null, null, "measurement_fk ASC, uid ASC")
+                    .use { locationCursor ->
+                        val timestampIndex = locationCursor.getColumnIndexOrThrow("timestamp")
+                        val latIndex = locationCursor.getColumnIndexOrThrow("lat")
+                        val lonIndex = locationCursor.getColumnIndexOrThrow("lon")
+                        val altitudeIndex = locationCursor.getColumnIndexOrThrow("altitude")
+                        val speedIndex = locationCursor.getColumnIndexOrThrow("speed")
+                        val accuracyIndex = locationCursor.getColumnIndexOrThrow("accuracy")
+                        val verticalAccuracyIndex = locationCursor.getColumnIndexOrThrow("vertical_accuracy")
+                        val measurementIdIndex = locationCursor.getColumnIndexOrThrow("measurement_fk")
                         while (locationCursor.moveToNext()) {
-                            val id =
-                                locationCursor.getInt(locationCursor.getColumnIndexOrThrow("uid"))
-                            val timestamp =
-                                locationCursor.getLong(locationCursor.getColumnIndexOrThrow("timestamp"))
-                            val lat =
-                                locationCursor.getDouble(locationCursor.getColumnIndexOrThrow("lat"))
-                            val lon =
-                                locationCursor.getDouble(locationCursor.getColumnIndexOrThrow("lon"))
-                            val altitude =
-                                locationCursor.getDouble(locationCursor.getColumnIndexOrThrow("altitude"))
-                            val speed =
-                                locationCursor.getDouble(locationCursor.getColumnIndexOrThrow("speed"))
-                            val accuracyCm =
-                                locationCursor.getDouble(locationCursor.getColumnIndexOrThrow("accuracy"))
+                            val measurementId = locationCursor.getLong(measurementIdIndex)
+                            if (!measurementIds.contains(measurementId)) {
+                                continue
+                            }
+                            v6MeasurementStatement.bindLong(1, measurementId)
+                            v6MeasurementStatement.executeInsert()
                             // Convert accuracy from cm to meters
-                            val accuracy = accuracyCm / 100.0
-                            val verticalAccuracy =
-                                locationCursor.getDouble(locationCursor.getColumnIndexOrThrow("vertical_accuracy"))
-                            val locationMeasurementId =
-                                locationCursor.getInt(locationCursor.getColumnIndexOrThrow("measurement_fk"))
+                            val accuracy = locationCursor.getDouble(accuracyIndex) / 100.0
                             // v6.1 `altitude` and `verticalAccuracy` are already in the same format
-                            database.execSQL( // Auto-generating id to avoid id conflict [STAD-690]
-                                "INSERT INTO `Location` (`timestamp`, `lat`, `lon`, `altitude`, `speed`, `accuracy`, `verticalAccuracy`, `measurementId`)"
-                                        + " VALUES ('" + timestamp + "', '" + lat + "', '" + lon + "', '" + altitude + "', '" + speed + "', '" + accuracy + "', '" + verticalAccuracy + "', '" + locationMeasurementId + "');"
-                            )
+                            locationStatement.bindLong(1, locationCursor.getLong(timestampIndex))
+                            locationStatement.bindDouble(2, locationCursor.getDouble(latIndex))
+                            locationStatement.bindDouble(3, locationCursor.getDouble(lonIndex))
+                            locationStatement.bindDouble(4, locationCursor.getDouble(altitudeIndex))
+                            locationStatement.bindDouble(5, locationCursor.getDouble(speedIndex))
+                            locationStatement.bindDouble(6, accuracy)
+                            locationStatement.bindDouble(7, locationCursor.getDouble(verticalAccuracyIndex))
+                            locationStatement.bindLong(8, measurementId)
+                            locationStatement.executeInsert()
                         }
                     }
-                    // Secondary `v6` database contains no locations for that measurement, load from main database
-                    else {
-                        // Insert the data from old table
-                        /// `accuracy` in `measures` version `17` is already in meters
-                        database.execSQL( // Auto-generating id to avoid id conflict [STAD-690]
-                            "INSERT INTO `Location` (`timestamp`, `lat`, `lon`, `altitude`, `speed`, `accuracy`, `verticalAccuracy`, `measurementId`)"
-                                    + " SELECT `gps_time`, `lat`, `lon`, null, `speed`, `accuracy`, null, `measurement_fk` FROM `locations`"
-                                    + " WHERE measurement_fk = $measurementId;"
-                        )
-                    }
-                    locationCursor.close()
-                }
+                v6MeasurementStatement.close()
+                locationStatement.close()
+                // Secondary `v6` database contains no locations for the other measurements, load from main database
+                /// `accuracy` in `measures` version `17` is already in meters
+                database.execSQL( // Auto-generating id to avoid id conflict [STAD-690]
+                    "INSERT INTO `Location` (`timestamp`, `lat`, `lon`, `altitude`, `speed`, `accuracy`, " +
+                            "`verticalAccuracy`, `measurementId`) " +
+                            "SELECT `gps_time`, `lat`, `lon`, null, `speed`, `accuracy`, null, `measurement_fk` " +
+                            "FROM `locations` WHERE `measurement_fk` IN (SELECT `_id` FROM `Measurement`) " +
+                            "AND `measurement_fk` NOT IN (SELECT `measurementId` FROM `_v6_measurements`) " +
+                            "ORDER BY `measurement_fk`, `_id`;"
+                )
+                database.execSQL("DROP TABLE `_v6_measurements`;")
                 /// Set `accuracy` values with `0` m to `null`
                 database.execSQL("UPDATE `Location` SET `accuracy` = null WHERE `accuracy` = 0;")
                 // Create index
@@ -602,23 +703,23 @@ class DatabaseMigrator(val context: Context) {
                 // Create table with Room generated name and new schema
                 database.execSQL("CREATE TABLE IF NOT EXISTS `Pressure` (`_id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `timestamp` INTEGER NOT NULL, `pressure` REAL NOT NULL, `measurementId` INTEGER NOT NULL, FOREIGN KEY(`measurementId`) REFERENCES `Measurement`(`_id`) ON UPDATE NO ACTION ON DELETE CASCADE );")
                 // Insert the data from the `v6` database version `1`
-                val pressureCursor =
-                    v6Database.query("Pressure", null, null, null, null, null, "uid ASC")
-                while (pressureCursor.moveToNext()) {
-                    val id = pressureCursor.getInt(pressureCursor.getColumnIndexOrThrow("uid"))
-                    val timestamp =
-                        pressureCursor.getLong(pressureCursor.getColumnIndexOrThrow("timestamp"))
-                    val pressure =
-                        pressureCursor.getDouble(pressureCursor.getColumnIndexOrThrow("pressure"))
-                    val measurementId =
-                        pressureCursor.getInt(pressureCursor.getColumnIndexOrThrow("measurement_fk"))
-                    // v6.1 `altitude` and `verticalAccuracy` are already in the same format
-                    database.execSQL(
-                        "INSERT INTO `Pressure` (`_id`, `timestamp`, `pressure`, `measurementId`)"
-                                + " VALUES ('" + id + "', '" + timestamp + "', '" + pressure + "', '" + measurementId + "');"
-                    )
+                val pressureStatement = database.compileStatement(
+                    "INSERT INTO `Pressure` (`_id`, `timestamp`, `pressure`, `measurementId`) VALUES (?, ?, ?, ?);"
+                )
+                v6Database.query("Pressure", null, null, null, null, null, "uid ASC").use { pressureCursor ->
+                    val idIndex = pressureCursor.getColumnIndexOrThrow("uid")
+                    val timestampIndex = pressureCursor.getColumnIndexOrThrow("timestamp")
+                    val pressureIndex = pressureCursor.getColumnIndexOrThrow("pressure")
+                    val measurementIdIndex = pressureCursor.getColumnIndexOrThrow("measurement_fk")
+                    while (pressureCursor.moveToNext()) {
+                        pressureStatement.bindLong(1, pressureCursor.getLong(idIndex))
+                        pressureStatement.bindLong(2, pressureCursor.getLong(timestampIndex))
+                        pressureStatement.bindDouble(3, pressureCursor.getDouble(pressureIndex))
+                        pressureStatement.bindLong(4, pressureCursor.getLong(measurementIdIndex))
+                        pressureStatement.executeInsert()
+                    }
                 }
-                pressureCursor.close()
+                pressureStatement.close()
                 // Create index
                 database.execSQL("CREATE INDEX IF NOT EXISTS `index_Pressure_measurementId` ON `Pressure` (`measurementId`);")
 
@@ -694,62 +795,45 @@ class DatabaseMigrator(val context: Context) {
              * The migration from `9` to `10` corrects the `distance` of measurements migrated from
              * version `8` to `9` which was accidentally set to `0.0`.
              *
+             * The `locations` have no index on `measurement_fk`, so all locations are loaded in one pass ordered by
+             * measurement instead of scanning the table once per measurement.
+             *
              * @param database The database to upgrade
              */
             private fun migrate9To10Measurements(database: SupportSQLiteDatabase) {
-                var measurementCursor: Cursor? = null
-                var geoLocationCursor: Cursor? = null
-                try {
-                    // table & column name need to equal version `9`
-                    measurementCursor = database.query(
-                        SupportSQLiteQueryBuilder.builder("measurements").columns(arrayOf("_id"))
-                            .create()
-                    )
-                    if (measurementCursor.count == 0) {
-                        Log.v(Constants.TAG, "No measurements for migration found")
-                        return
+                // table & column name need to equal version `9`
+                val updateStatement = database.compileStatement("UPDATE measurements SET distance = ? WHERE _id = ?")
+                database.query(
+                    SupportSQLiteQueryBuilder
+                        .builder("locations")
+                        .columns(arrayOf("measurement_fk", "lat", "lon"))
+                        .orderBy("measurement_fk ASC, gps_time ASC")
+                        .create()
+                ).use { geoLocationCursor ->
+                    if (geoLocationCursor.count == 0) {
+                        Log.v(Constants.TAG, "No geoLocations for migration found")
+                        return@use
                     }
-
-                    // Check all measurements
-                    while (measurementCursor.moveToNext()) {
-                        val measurementId =
-                            measurementCursor.getLong(measurementCursor.getColumnIndexOrThrow("_id"))
-                        geoLocationCursor = database.query(
-                            SupportSQLiteQueryBuilder
-                                .builder("locations")
-                                .selection("measurement_fk = ?", arrayOf(measurementId))
-                                .columns(arrayOf("lat", "lon", "gps_time", "speed", "accuracy"))
-                                .orderBy("gps_time ASC")
-                                .create()
-                        )
-                        if (geoLocationCursor.count < 2) {
-                            Log.v(
-                                Constants.TAG,
-                                "Not enough geoLocations to update distance in measurement entry:$measurementId"
-                            )
-                            continue
-                        }
-
-                        // Calculate distance for selected measurement
-                        var distance = 0.0
-                        var lastLocationLat: Double? = null
-                        var lastLocationLon: Double? = null
-                        while (geoLocationCursor.moveToNext()) {
-                            val newLocationLat =
-                                geoLocationCursor.getFloat(geoLocationCursor.getColumnIndexOrThrow("lat"))
-                                    .toDouble()
-                            val newLocationLon =
-                                geoLocationCursor.getFloat(geoLocationCursor.getColumnIndexOrThrow("lon"))
-                                    .toDouble()
-
-                            // We cannot calculate a distance from just one geoLocation:
-                            if (lastLocationLat == null || lastLocationLon == null) {
-                                require(lastLocationLat == null && lastLocationLon == null)
-                                lastLocationLat = newLocationLat
-                                lastLocationLon = newLocationLon
-                                continue
-                            }
-
+                    val measurementIdIndex = geoLocationCursor.getColumnIndexOrThrow("measurement_fk")
+                    val latIndex = geoLocationCursor.getColumnIndexOrThrow("lat")
+                    val lonIndex = geoLocationCursor.getColumnIndexOrThrow("lon")
+
+                    // Calculate distance for each measurement
+                    var measurementId: Long? = null
+                    var locations = 0
+                    var distance = 0.0
+                    var lastLocationLat = 0.0
+                    var lastLocationLon = 0.0
+                    while (geoLocationCursor.moveToNext()) {
+                        val newMeasurementId = geoLocationCursor.getLong(measurementIdIndex)
+                        val newLocationLat = geoLocationCursor.getFloat(latIndex).toDouble()
+                        val newLocationLon = geoLocationCursor.getFloat(lonIndex).toDouble()
+                        if (newMeasurementId != measurementId) {
+                            measurementId?.let { updateDistance(updateStatement, it, locations, distance) }
+                            measurementId = newMeasurementId
+                            locations = 0
+                            distance = 0.0
+                        } else {
                             // Calculate distance between last two locations
                             val newDistance = calculateDistance(
                                 lastLocationLat,
@@ -759,19 +843,37 @@ class DatabaseMigrator(val context: Context) {
                             )
                             require(newDistance >= 0)
                             distance += newDistance
-                            lastLocationLat = newLocationLat
-                            lastLocationLon = newLocationLon
                         }
-                        Log.v(
-                            Constants.TAG,
-                            "Updating distance for measurement $measurementId to $distance"
-                        )
-                        database.execSQL("UPDATE measurements SET distance = $distance WHERE _id = $measurementId")
+                        locations++
+                        lastLocationLat = newLocationLat
+                        lastLocationLon = newLocationLon
                     }
-                } finally {
-                    measurementCursor?.close()
-                    geoLocationCursor?.close()
+                    updateDistance(updateStatement, measurementId!!, locations, distance)
+                }
+                updateStatement.close()
+            }
+
+            /**
+             * Updates the `distance` of a measurement with at least two locations.
+             */
+            private fun updateDistance(
+                statement: SupportSQLiteStatement,
+                measurementId: Long,
+                locations: Int,
+                distance: Double
+            ) {
+                // We cannot calculate a distance from just one geoLocation
+                if (locations < 2) {
+                    Log.v(
+                        Constants.TAG,
+                        "Not enough geoLocations to update distance in measurement entry:$measurementId"
+                    )
+                    return
                 }
+                Log.v(Constants.TAG, "Updating distance for measurement $measurementId to $distance")
+                statement.bindDouble(1, distance)
+                statement.bindLong(2, measurementId)
+                statement.executeUpdateDelete()
             }
 
             /**
@@ -816,3 +918,21 @@ class DatabaseMigrator(val context: Context) {
         }
     }
 }
+
+/**
+ * Logs the duration of a [Migration] and reports its progress to the [DatabaseMigrator.listener].
+ *
+ * @property migration The migration to execute.
+ */
+private class ReportingMigration(private val migration: Migration) :
+    Migration(migration.startVersion, migration.endVersion) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        val listener = DatabaseMigrator.listener
+        listener?.onMigrationStarted(startVersion, endVersion)
+        val start = System.nanoTime()
+        migration.migrate(db)
+        val duration = (System.nanoTime() - start) / 1_000_000
+        Log.i(Constants.TAG, "Migrated database from $startVersion to $endVersion in $duration ms")
+        listener?.onMigrationFinished(startVersion, endVersion, duration)
+    }
+}
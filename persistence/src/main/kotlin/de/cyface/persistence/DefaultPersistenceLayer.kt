@@ -21,12 +21,24 @@ package de.cyface.persistence
 import android.content.Context
 import android.hardware.SensorManager
 import android.util.Log
+import androidx.room.InvalidationTracker
+import androidx.room.withTransaction
 import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.content.AttachmentTable
+import de.cyface.persistence.content.EventTable
+import de.cyface.persistence.content.IdentifierTable
+import de.cyface.persistence.content.LocationTable
+import de.cyface.persistence.content.MeasurementLedgerTable
+import de.cyface.persistence.content.MeasurementSummaryTable
+import de.cyface.persistence.content.MeasurementTable
+import de.cyface.persistence.content.PressureTable
 import de.cyface.persistence.dao.AttachmentDao
 import de.cyface.persistence.io.DefaultFileIOHandler
 import de.cyface.persistence.io.FileIOHandler
 import de.cyface.persistence.dao.IdentifierDao
 import de.cyface.persistence.dao.LocationDao
+import de.cyface.persistence.dao.MeasurementLedgerDao
+import de.cyface.persistence.dao.MeasurementSummaryDao
 import de.cyface.persistence.dao.PressureDao
 import de.cyface.persistence.exception.NoDeviceIdException
 import de.cyface.persistence.exception.NoSuchMeasurementException
@@ -35,22 +47,40 @@ import de.cyface.persistence.model.EventType
 import de.cyface.persistence.model.Attachment
 import de.cyface.persistence.model.AttachmentStatus
 import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.LiveMeasurementStats
 import de.cyface.persistence.model.Identifier
 import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementLedger
+import de.cyface.persistence.model.MeasurementSummary
 import de.cyface.persistence.model.MeasurementStatus
 import de.cyface.persistence.model.Modality
 import de.cyface.persistence.model.ParcelablePressure
 import de.cyface.persistence.model.Pressure
+import de.cyface.persistence.model.RetentionTier
 import de.cyface.persistence.model.Track
 import de.cyface.persistence.repository.EventRepository
 import de.cyface.persistence.repository.MeasurementRepository
+import de.cyface.persistence.serialization.LocationArchive
+import de.cyface.persistence.serialization.MeasurementPartCheckpoint
 import de.cyface.persistence.serialization.NoSuchFileException
 import de.cyface.persistence.serialization.Point3DFile
+import de.cyface.persistence.serialization.RecordsFile
+import de.cyface.persistence.serialization.TransferFile
 import de.cyface.persistence.strategy.LocationCleaningStrategy
 import de.cyface.serializer.model.Point3DType
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.distinctUntilChangedBy
+import kotlinx.coroutines.flow.drop
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.scan
 import kotlinx.coroutines.sync.Mutex
 import kotlinx.coroutines.sync.withLock
-import java.util.Locale
 import java.util.UUID
 import kotlin.math.abs
 import kotlin.math.max
@@ -61,7 +91,7 @@ import kotlin.math.max
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 20.0.0
+ * @version 20.13.0
  * @since 2.0.0
  * @property persistenceBehaviour The [PersistenceBehaviour] defines how the `Persistence` layer works.
  * We need this behaviour to differentiate if the [DefaultPersistenceLayer] is used for live capturing
@@ -92,8 +122,63 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
 
     override val attachmentDao: AttachmentDao?
 
+    /**
+     * The cached statistics of the measurements whose data was reduced by the [RetentionEngine].
+     */
+    val measurementSummaryDao: MeasurementSummaryDao?
+
+    /**
+     * The size ledgers of the measurements, i.e. how much data was captured for each measurement.
+     */
+    val measurementLedgerDao: MeasurementLedgerDao?
+
     private val deviceIdLock = Mutex()
 
+    /**
+     * Validates and executes [MeasurementStatus] transitions and caches the unfinished measurement.
+     */
+    private val lifecycle: MeasurementLifecycle?
+
+    /**
+     * Decides which database stores the [GeoLocation] and [Pressure] data of a [Measurement].
+     */
+    private val timeSeriesStorage: TimeSeriesStorage?
+
+    /**
+     * Counts the invalidations of the tables of the primary [database] which Room's multi-instance invalidation
+     * exchanges with the other processes, see [PROPAGATED_TABLES].
+     */
+    val propagatedInvalidations: InvalidationCounter?
+
+    /**
+     * The observer which feeds the [propagatedInvalidations].
+     */
+    private val propagatedObserver: InvalidationTracker.Observer?
+
+    /**
+     * Counts the coalesced notifications about modifications of the separate time series database sent to other
+     * processes, see [TimeSeriesInvalidation].
+     */
+    val timeSeriesNotifications: InvalidationCounter?
+        get() = timeSeriesStorage?.notifications
+
+    /**
+     * Counts the coalesced notifications about modifications of the separate time series database received from
+     * other processes, see [TimeSeriesInvalidation].
+     */
+    val receivedTimeSeriesNotifications: InvalidationCounter?
+        get() = timeSeriesStorage?.receivedNotifications
+
+    /**
+     * Deletes measurements in batches, without blocking the capturing for long, see [DeletionWorker].
+     */
+    val deletionWorker: DeletionWorker?
+
+    /**
+     * Moves the [GeoLocation]s of finished measurements into a compact file, see [LocationArchiver].
+     */
+    val locationArchiver: LocationArchiver?
+
     /**
      * **This constructor is only for testing.**
      *
@@ -108,6 +193,14 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         locationDao = null
         pressureDao = null
         attachmentDao = null
+        measurementSummaryDao = null
+        measurementLedgerDao = null
+        lifecycle = null
+        timeSeriesStorage = null
+        propagatedInvalidations = null
+        propagatedObserver = null
+        deletionWorker = null
+        locationArchiver = null
         fileIOHandler = DefaultFileIOHandler()
     }
 
@@ -117,16 +210,36 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
      * @param context The [Context] required to locate the app's internal storage directory.
      * @param persistenceBehaviour A [PersistenceBehaviour] which tells if this [DefaultPersistenceLayer] is used
      * to capture live data.
+     * @param separateTimeSeries `true` if the [GeoLocation] and [Pressure] data of new measurements should be stored
+     * in a separate database, see [Database.buildTimeSeries]. Only needs to be set where measurements are created,
+     * as the data of existing measurements is found either way. Only the separate database limits the rate at which
+     * the [GeoLocation] and [Pressure] inserts are sent to other processes, see [TimeSeriesInvalidation]. Without
+     * it, they are stored in the primary database, whose multi-instance invalidation sends each insert to all other
+     * processes, see [PROPAGATED_TABLES].
      */
-    constructor(context: Context, persistenceBehaviour: B) {
+    @JvmOverloads
+    constructor(context: Context, persistenceBehaviour: B, separateTimeSeries: Boolean = false) {
         this.context = context
         this.database = Database.build(context.applicationContext)
         this.identifierDao = database.identifierDao()
         this.measurementRepository = MeasurementRepository(database.measurementDao())
         this.eventRepository = EventRepository(database.eventDao())
-        this.locationDao = database.locationDao()
-        this.pressureDao = database.pressureDao()
+        this.locationDao = TimeSeriesLocationDao({ archivedLocationDao(it) }) {
+            timeSeriesDatabases().map { ArchivedLocationDao(it.locationDao()) { id -> locationArchive(id) } }
+        }
+        this.pressureDao = TimeSeriesPressureDao({ timeSeriesDatabase(it).pressureDao() }) {
+            timeSeriesDatabases().map { it.pressureDao() }
+        }
         this.attachmentDao = database.attachmentDao()
+        this.measurementSummaryDao = database.measurementSummaryDao()
+        this.measurementLedgerDao = database.measurementLedgerDao()
+        this.lifecycle = MeasurementLifecycle(measurementRepository, database.invalidationTracker)
+        this.timeSeriesStorage = TimeSeriesStorage(context.applicationContext, database, separateTimeSeries)
+        this.propagatedInvalidations = InvalidationCounter()
+        this.propagatedObserver =
+            propagatedInvalidations.observe(database.invalidationTracker, PROPAGATED_TABLES)
+        this.deletionWorker = DeletionWorker(this)
+        this.locationArchiver = LocationArchiver(this)
         this.persistenceBehaviour = persistenceBehaviour
         this.fileIOHandler = persistenceBehaviour!!.fileIoHandler()
         val accelerationsFolder =
@@ -165,13 +278,15 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         val measurementId = measurementRepository!!.insert(measurement)
         measurement.id = measurementId
         requireNotNull(measurement.id) // Ensure the blocking code altered the object
+        measurementLedgerDao!!.insert(MeasurementLedger(measurementId))
+        timeSeriesStorage!!.onCreated(measurement)
+        lifecycle!!.onCreated(measurementId)
         return measurement
     }
 
     override suspend fun hasMeasurement(status: MeasurementStatus): Boolean {
         Log.v(TAG, "Checking if app has an $status measurement.")
-        val measurements = measurementRepository!!.loadAllByStatus(status)
-        val hasMeasurement = measurements.isNotEmpty()
+        val hasMeasurement = lifecycle!!.hasMeasurement(status)
         Log.v(
             TAG,
             if (hasMeasurement) "At least one measurement is $status." else "No measurement is $status."
@@ -179,6 +294,10 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         return hasMeasurement
     }
 
+    override suspend fun timeSeriesDatabase(measurementIdentifier: Long): Database {
+        return timeSeriesStorage!!.database(measurementIdentifier)
+    }
+
     override suspend fun loadCompletedMeasurements(): List<Measurement> {
         return measurementRepository!!.loadAllCompleted()
     }
@@ -247,9 +366,8 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
     @Throws(NoSuchMeasurementException::class)
     suspend fun markFinishedAs(newStatus: MeasurementStatus, measurementId: Long) {
 
-        // The status in the database could be different from the one in the object so load it again
-        require(loadMeasurementStatus(measurementId) === MeasurementStatus.FINISHED)
-        setStatus(measurementId, newStatus, false)
+        // The status in the database could be different from the one in the object, the update checks it
+        lifecycle!!.transition(measurementId, newStatus, setOf(MeasurementStatus.FINISHED))
 
         // TODO [CY-4359]: implement cyface variant where not only sensor data but also GeoLocations are deleted
         try {
@@ -278,6 +396,10 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         } catch (e: NoSuchFileException) {
             Log.v(TAG, "markAsSynchronized: No direction file found to delete, nothing to do", e)
         }
+        // Only required to upload the measurement
+        RecordsFile.delete(context!!, fileIOHandler, measurementId)
+        TransferFile.delete(context!!, fileIOHandler, measurementId)
+        MeasurementPartCheckpoint.delete(context!!, fileIOHandler, measurementId)
 
         // Also delete syncable attachments binaries when the measurement is skipped or deprecated
         if (newStatus == MeasurementStatus.SKIPPED || newStatus == MeasurementStatus.DEPRECATED) {
@@ -308,9 +430,8 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
     @Throws(NoSuchMeasurementException::class)
     suspend fun markSyncableAttachmentsAs(newStatus: MeasurementStatus, measurementId: Long) {
 
-        // The status in the database could be different from the one in the object so load it again
-        require(loadMeasurementStatus(measurementId) === MeasurementStatus.SYNCABLE_ATTACHMENTS)
-        setStatus(measurementId, newStatus, false)
+        // The status in the database could be different from the one in the object, the update checks it
+        lifecycle!!.transition(measurementId, newStatus, setOf(MeasurementStatus.SYNCABLE_ATTACHMENTS))
 
         cleanupEmptyFolder(measurementId)
     }
@@ -345,6 +466,39 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         markSavedAs(newStatus, attachment)
     }
 
+    /**
+     * Marks multiple [AttachmentStatus.SAVED] [de.cyface.persistence.model.Attachment]s, e.g. which were uploaded
+     * in one bundle, as [AttachmentStatus.SYNCED], [AttachmentStatus.SKIPPED] or [AttachmentStatus.DEPRECATED] in one
+     * transaction and deletes the binary attachment data afterwards.
+     *
+     * **ATTENTION:** This method should not be called from outside the SDK.
+     *
+     * @param attachmentIds The ids of the [Attachment]s to remove.
+     */
+    suspend fun markSavedAs(newStatus: AttachmentStatus, attachmentIds: List<Long>) {
+        require(
+            newStatus == AttachmentStatus.SYNCED || newStatus == AttachmentStatus.SKIPPED ||
+                    newStatus == AttachmentStatus.DEPRECATED
+        ) { "Unexpected status change to $newStatus" }
+        val attachments = database!!.withTransaction {
+            // The status in the database could be different from the one in the object so load it again
+            val attachments = attachmentIds.map { attachmentDao!!.loadById(it)!! }
+            attachments.forEach {
+                require(it.status === AttachmentStatus.SAVED) { "Unexpected status: ${it.status}" }
+            }
+            attachmentIds.chunked(AttachmentDao.MAX_IDS_PER_QUERY).forEach {
+                attachmentDao!!.updateAllStatus(it, newStatus)
+            }
+            attachments
+        }
+
+        // Deleting after the transaction, as a second upload approach would be handled by the API
+        attachments.forEach {
+            require(it.path.toFile().delete())
+            Log.d(TAG, "Deleted attachment ${it.path.fileName}")
+        }
+    }
+
     /**
      * Marks a [AttachmentStatus.SAVED] [de.cyface.persistence.model.Attachment] as [AttachmentStatus.SYNCED],
      * [AttachmentStatus.SKIPPED] or [AttachmentStatus.DEPRECATED] and deletes the binary attachment data.
@@ -414,10 +568,25 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         return deviceId
     }
 
+    /**
+     * Removes one [Measurement] from the local persistent data storage.
+     *
+     * The data of the measurement is deleted in one transaction, which blocks the capturing while long measurements
+     * are deleted. Use [deletionWorker] to delete such measurements in batches.
+     *
+     * @param measurementIdentifier The id of the `Measurement` to remove.
+     */
     override suspend fun delete(measurementIdentifier: Long) {
         deletePoint3DData(measurementIdentifier)
+        locationArchive(measurementIdentifier)?.delete()
+        RecordsFile.delete(context!!, fileIOHandler, measurementIdentifier)
+        TransferFile.delete(context!!, fileIOHandler, measurementIdentifier)
+        MeasurementPartCheckpoint.delete(context!!, fileIOHandler, measurementIdentifier)
+        // Deleted first, so no time series is left behind when the process is killed in between
+        timeSeriesStorage!!.delete(measurementIdentifier)
         // measurement data like locations are deleted automatically because of `ForeignKey`
         measurementRepository!!.deleteItemById(measurementIdentifier)
+        lifecycle!!.invalidate()
     }
 
     /**
@@ -430,6 +599,42 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         eventRepository!!.deleteItemById(eventId)
     }
 
+    /**
+     * @return The separate time series database or `null` if it was never created, see [Database.buildTimeSeries].
+     */
+    internal fun separateTimeSeriesDatabase(): Database? {
+        return timeSeriesStorage!!.separateDatabase()
+    }
+
+    /**
+     * @return The primary [database] and, if it was created, the separate time series database.
+     */
+    private fun timeSeriesDatabases(): List<Database> {
+        return listOfNotNull(database, separateTimeSeriesDatabase())
+    }
+
+    /**
+     * Removes the files of one [Measurement], i.e. the sensor data, the archived locations, the prebuilt records,
+     * the precomputed transfer file, the upload progress of the parts and the attachments, from the local
+     * persistent data storage. The database entries are kept.
+     *
+     * @param measurementIdentifier The `Measurement` id of the files to remove.
+     */
+    internal suspend fun deleteFiles(measurementIdentifier: Long) {
+        deletePoint3DData(measurementIdentifier)
+        locationArchive(measurementIdentifier)?.delete()
+        RecordsFile.delete(context!!, fileIOHandler, measurementIdentifier)
+        TransferFile.delete(context!!, fileIOHandler, measurementIdentifier)
+        MeasurementPartCheckpoint.delete(context!!, fileIOHandler, measurementIdentifier)
+        attachmentDao!!.loadAllByMeasurementId(measurementIdentifier).forEach {
+            val file = it.path.toFile()
+            // Synced attachments are already deleted
+            if (file.exists()) {
+                require(file.delete())
+            }
+        }
+    }
+
     /**
      * Removes the [de.cyface.persistence.model.ParcelablePoint3D]s for one [Measurement] from the
      * local persistent data storage.
@@ -475,7 +680,9 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
     /**
      * Returns the average speed of the measurement with the provided measurement identifier.
      *
-     * Loads the [Track]s from the database to calculate the metric on the fly [STAD-384].
+     * Loads the [Track]s from the database to calculate the metric on the fly [STAD-384]. When the data of the
+     * measurement was reduced by the [RetentionEngine], the cached value is returned instead, which was calculated
+     * with the strategy of the engine.
      *
      * @param measurementIdentifier The id of the `Measurement` to load the track for.
      * @param locationCleaningStrategy The [LocationCleaningStrategy] used to filter the
@@ -487,6 +694,7 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         measurementIdentifier: Long,
         locationCleaningStrategy: LocationCleaningStrategy
     ): Double {
+        loadSummary(measurementIdentifier)?.let { return it.averageSpeed }
         var speedSum = 0.0
         var speedCounter = 0
         val tracks = loadTracks(measurementIdentifier)
@@ -508,7 +716,9 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
     /**
      * Returns the maximum speed of the measurement with the provided measurement identifier.
      *
-     * Loads the [Track]s from the database to calculate the metric on the fly [STAD-384].
+     * Loads the [Track]s from the database to calculate the metric on the fly [STAD-384]. When the data of the
+     * measurement was reduced by the [RetentionEngine], the cached value is returned instead, which was calculated
+     * with the strategy of the engine.
      *
      * @param measurementIdentifier The id of the `Measurement` to load the track for.
      * @param locationCleaningStrategy The [LocationCleaningStrategy] used to filter the
@@ -520,6 +730,7 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         measurementIdentifier: Long,
         locationCleaningStrategy: LocationCleaningStrategy
     ): Double {
+        loadSummary(measurementIdentifier)?.let { return it.maxSpeed }
         var maxSpeed = 0.0
         val tracks = loadTracks(measurementIdentifier)
         for (track in tracks) {
@@ -542,6 +753,9 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
      * calculate the metric on the fly [STAD-384]. In case no altitude information is available,
      * `null` is returned.
      *
+     * When the data of the measurement was reduced by the [RetentionEngine], the cached ascend is returned, which
+     * is based on the barometer data if it was available.
+     *
      * @param measurementIdentifier The id of the `Measurement` to load the track for.
      * @param forceGnssAscend `true` if the ascend calculated based on GNSS data should be returned regardless if
      * barometer data is available.
@@ -550,6 +764,7 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
     @Suppress("unused") // Part of the API
     @JvmOverloads
     suspend fun loadAscend(measurementIdentifier: Long, forceGnssAscend: Boolean = false): Double? {
+        loadSummary(measurementIdentifier)?.let { return it.ascend }
 
         // Check if locations with altitude values are available
         val tracks = loadTracks(measurementIdentifier)
@@ -572,6 +787,66 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         return null
     }
 
+    /**
+     * Loads the cached statistics of a measurement whose data was reduced by the [RetentionEngine].
+     *
+     * @param measurementIdentifier The id of the `Measurement` to load the statistics for.
+     * @return The statistics or `null` if the data of the measurement is complete.
+     */
+    private suspend fun loadSummary(measurementIdentifier: Long): MeasurementSummary? {
+        // Only summaries which are in use are returned, as their data was reduced
+        return measurementSummaryDao?.loadByMeasurementId(measurementIdentifier)
+            ?.takeIf { it.tier != RetentionTier.FULL }
+    }
+
+    /**
+     * Loads the size ledger of a measurement, i.e. how much data was captured for it, without accessing the files.
+     *
+     * @param measurementIdentifier The id of the `Measurement` to load the ledger for.
+     * @return The ledger or `null` if there is no such measurement. The ledgers of measurements captured before the
+     * ledger was added contain no sensor data bytes, see [MeasurementLedgerTable.BACKFILL].
+     */
+    @Suppress("unused") // Part of the API
+    suspend fun loadLedger(measurementIdentifier: Long): MeasurementLedger? {
+        return measurementLedgerDao!!.loadByMeasurementId(measurementIdentifier)
+    }
+
+    /**
+     * Loads the size ledgers of all measurements in a specific status with one query.
+     *
+     * @param status The [MeasurementStatus] of the measurements to load the ledgers for.
+     * @return The ledgers. The ledgers of measurements captured before the ledger was added contain no sensor data
+     * bytes, see [MeasurementLedgerTable.BACKFILL].
+     */
+    suspend fun loadLedgers(status: MeasurementStatus): List<MeasurementLedger> {
+        return measurementLedgerDao!!.loadAllByStatus(status)
+    }
+
+    /**
+     * Adds the captured sensor bytes, locations and pressures to the size ledgers of the measurements.
+     *
+     * The events and attachments are counted by the database, see [MeasurementLedger].
+     *
+     * @param deltas The data captured since the last call, one entry per measurement.
+     */
+    suspend fun addToLedgers(deltas: List<MeasurementLedger>) {
+        if (deltas.isEmpty()) {
+            return
+        }
+        database!!.withTransaction {
+            deltas.forEach {
+                measurementLedgerDao!!.add(
+                    it.measurementId,
+                    it.accelerationBytes,
+                    it.rotationBytes,
+                    it.directionBytes,
+                    it.locations,
+                    it.pressures
+                )
+            }
+        }
+    }
+
     /**
      * Returns the altitudes for each sub-track of a specified measurement.
      *
@@ -755,34 +1030,122 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
     @Suppress("unused") // Part of the API
     @Throws(NoSuchMeasurementException::class)
     suspend fun loadDuration(measurementIdentifier: Long): Long {
+        loadSummary(measurementIdentifier)?.let { return it.duration }
+        val lifecycleEvents = lifecycleEvents(loadEvents(measurementIdentifier))
+        if (lifecycleEvents.isEmpty()) {
+            return 0L
+        }
+        // The status is loaded once, not for each lifecycle event
+        val isOngoing = loadMeasurementStatus(measurementIdentifier) == MeasurementStatus.OPEN
+        return completedDuration(lifecycleEvents) +
+                runningDuration(lifecycleEvents, isOngoing, System.currentTimeMillis())
+    }
 
-        // Extract lifecycle events only
-        val lifecycleEvents: MutableList<Event?> = mutableListOf()
-        for (event in loadEvents(measurementIdentifier)) {
-            val type = event.type
-            if (type == EventType.LIFECYCLE_START || type == EventType.LIFECYCLE_PAUSE ||
-                type == EventType.LIFECYCLE_RESUME || type == EventType.LIFECYCLE_STOP) {
-                lifecycleEvents.add(event)
+    /**
+     * Loads and observes the statistics of a [Measurement] which are shown while it is captured.
+     *
+     * The lifecycle [Event]s are only evaluated when they change. In between, the duration is advanced every
+     * [tickIntervalMillis] from the start of the currently running track, without querying the database. The
+     * location count is only counted completely once and then increased by the locations inserted since the
+     * last emission.
+     *
+     * As this returns a `Flow`, queries are automatically run asynchronously on a background thread.
+     *
+     * @param measurementIdentifier The id of the `Measurement` to observe.
+     * @param tickIntervalMillis The interval in milliseconds in which the duration of an ongoing measurement is
+     * updated.
+     * @return The [LiveMeasurementStats] which are emitted whenever one of the statistics changes.
+     */
+    @Suppress("unused") // Part of the API
+    fun observeLiveStats(
+        measurementIdentifier: Long,
+        tickIntervalMillis: Long = LIVE_STATS_TICK_INTERVAL_MILLIS
+    ): Flow<LiveMeasurementStats> {
+        require(tickIntervalMillis > 0) { "Invalid tick interval: $tickIntervalMillis" }
+        val measurements = measurementRepository!!.observeById(measurementIdentifier).filterNotNull()
+        val completedDurations = eventRepository!!.observeAllByMeasurementId(measurementIdentifier)
+            .map { lifecycleEvents(it.orEmpty()) }
+            .distinctUntilChanged()
+            .map { Pair(completedDuration(it), it) }
+        val locations = observeLocationCount(measurementIdentifier)
+        val ticks = flow {
+            while (true) {
+                emit(Unit)
+                delay(tickIntervalMillis)
             }
         }
+        return combine(measurements, completedDurations, locations, ticks) { measurement, durations, location, _ ->
+            val (completedDuration, lifecycleEvents) = durations
+            val isOngoing = measurement.status == MeasurementStatus.OPEN
+            val now = System.currentTimeMillis()
+            LiveMeasurementStats(
+                measurementIdentifier,
+                measurement.status,
+                completedDuration + runningDuration(lifecycleEvents, isOngoing, now),
+                measurement.distance,
+                location.first,
+                location.second?.speed
+            )
+        }.distinctUntilChanged()
+    }
 
-        // Add duration for each lifecycle event pair which fits:
-        // - START-STOP, START-PAUSE, RESUME-PAUSE, RESUME-STOP
-        // - for ongoing measurements when the last event is START or RESUME (for live duration)
+    /**
+     * Observes the number of locations and the latest location of a [Measurement].
+     *
+     * The locations are only counted completely for the first emission. Afterwards, only the locations which
+     * follow the previously latest location are counted, which is cheap as the locations are indexed by
+     * measurement and time.
+     *
+     * @param measurementIdentifier The id of the `Measurement` to observe.
+     * @return The number of locations and the latest location or `null` if there is none, yet.
+     */
+    private fun observeLocationCount(measurementIdentifier: Long): Flow<Pair<Int, GeoLocation?>> = flow {
+        val dao = timeSeriesDatabase(measurementIdentifier).locationDao()
+        val counts = dao.observeLatestByMeasurementId(measurementIdentifier)
+            .distinctUntilChangedBy { it?.id }
+            .scan(Pair<Int, GeoLocation?>(0, null)) { (count, previous), latest ->
+                when {
+                    latest == null -> Pair(0, null)
+                    previous == null -> Pair(dao.countByMeasurementId(measurementIdentifier), latest)
+                    else -> Pair(
+                        count + dao.countByMeasurementIdAfter(measurementIdentifier, previous.timestamp, previous.id),
+                        latest
+                    )
+                }
+            }
+            // Skip the initial value of `scan` as Room always emits the current state first
+            .drop(1)
+        emitAll(counts)
+    }
+
+    /**
+     * Extracts the lifecycle [Event]s from the provided events.
+     *
+     * @param events The events ordered by time.
+     * @return The [EventType.LIFECYCLE_START], [EventType.LIFECYCLE_PAUSE], [EventType.LIFECYCLE_RESUME] and
+     * [EventType.LIFECYCLE_STOP] events in the same order.
+     */
+    internal fun lifecycleEvents(events: List<Event>): List<Event> {
+        return events.filter {
+            it.type == EventType.LIFECYCLE_START || it.type == EventType.LIFECYCLE_PAUSE ||
+                    it.type == EventType.LIFECYCLE_RESUME || it.type == EventType.LIFECYCLE_STOP
+        }
+    }
+
+    /**
+     * Sums up the duration for each lifecycle event pair which fits:
+     * START-STOP, START-PAUSE, RESUME-PAUSE, RESUME-STOP
+     *
+     * @param lifecycleEvents The lifecycle events ordered by time.
+     * @return The duration in milliseconds of all tracks which are already completed.
+     */
+    internal fun completedDuration(lifecycleEvents: List<Event>): Long {
         var duration = 0L
         var previousEvent: Event? = null
-        for (i in lifecycleEvents.indices) {
-            val event = lifecycleEvents[i]
-            val isLast = i == lifecycleEvents.size - 1
-            val isOngoing = loadMeasurementStatus(measurementIdentifier) == MeasurementStatus.OPEN
-            if (isLast && isOngoing && (event!!.type === EventType.LIFECYCLE_START ||
-                        event!!.type === EventType.LIFECYCLE_RESUME)) {
-                val newDuration = System.currentTimeMillis() - event!!.timestamp
-                require(newDuration >= 0) { "Invalid duration: $newDuration" }
-                duration += newDuration
-            } else if (previousEvent != null) {
+        for (event in lifecycleEvents) {
+            if (previousEvent != null) {
                 val previousType = previousEvent.type
-                val type = event!!.type
+                val type = event.type
                 val startStop =
                     previousType === EventType.LIFECYCLE_START && type === EventType.LIFECYCLE_STOP
                 val startPause =
@@ -802,13 +1165,58 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         return duration
     }
 
+    /**
+     * Returns the live duration of an ongoing measurement, i.e. when the last event is START or RESUME.
+     *
+     * @param lifecycleEvents The lifecycle events ordered by time.
+     * @param isOngoing `true` if the measurement is [MeasurementStatus.OPEN].
+     * @param now The current time in milliseconds since 1.1.1970.
+     * @return The duration in milliseconds of the currently running track or `0` if there is none.
+     */
+    internal fun runningDuration(lifecycleEvents: List<Event>, isOngoing: Boolean, now: Long): Long {
+        val last = lifecycleEvents.lastOrNull()
+        if (!isOngoing || last == null ||
+            (last.type !== EventType.LIFECYCLE_START && last.type !== EventType.LIFECYCLE_RESUME)) {
+            return 0L
+        }
+        val duration = now - last.timestamp
+        require(duration >= 0) { "Invalid duration: $duration" }
+        return duration
+    }
+
     override suspend fun loadTracks(measurementIdentifier: Long): List<Track> {
         val events = eventRepository!!.loadAllByMeasurementId(measurementIdentifier)!!
-        val locations = locationDao!!.loadAllByMeasurementId(measurementIdentifier)
-        val pressures = pressureDao!!.loadAllByMeasurementId(measurementIdentifier)
+        val locations = loadLocations(measurementIdentifier)
+        val pressureDao = timeSeriesDatabase(measurementIdentifier).pressureDao()
+        val pressures = pressureDao.loadAllByMeasurementId(measurementIdentifier)
         return loadTracks(locations, events, pressures)
     }
 
+    override suspend fun loadLocations(measurementIdentifier: Long): List<GeoLocation> {
+        return archivedLocationDao(measurementIdentifier).loadAllByMeasurementId(measurementIdentifier)
+    }
+
+    override suspend fun countLocations(measurementIdentifier: Long): Int {
+        return archivedLocationDao(measurementIdentifier).countByMeasurementId(measurementIdentifier)
+    }
+
+    /**
+     * @param measurementIdentifier The id of the `Measurement` to load the locations of.
+     * @return The [LocationDao] which loads the locations of the measurement from its database and its
+     * [LocationArchive].
+     */
+    private suspend fun archivedLocationDao(measurementIdentifier: Long): LocationDao {
+        return ArchivedLocationDao(timeSeriesDatabase(measurementIdentifier).locationDao()) { locationArchive(it) }
+    }
+
+    /**
+     * @param measurementIdentifier The id of the `Measurement` to load the archive of.
+     * @return The [LocationArchive] of the measurement or `null` if its locations are not archived.
+     */
+    internal fun locationArchive(measurementIdentifier: Long): LocationArchive? {
+        return LocationArchive.load(context!!, fileIOHandler, measurementIdentifier)
+    }
+
     /**
      * Loads the [Track]s from the provided data.
      *
@@ -883,8 +1291,10 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         locationCleaningStrategy: LocationCleaningStrategy
     ): List<Track> {
         val events = loadEvents(measurementIdentifier)
-        val locations = locationCleaningStrategy.loadCleanedLocations(locationDao!!, measurementIdentifier)
-        val pressures = pressureDao!!.loadAllByMeasurementId(measurementIdentifier)
+        val timeSeries = timeSeriesDatabase(measurementIdentifier)
+        val dao = archivedLocationDao(measurementIdentifier)
+        val locations = locationCleaningStrategy.loadCleanedLocations(dao, measurementIdentifier)
+        val pressures = timeSeries.pressureDao().loadAllByMeasurementId(measurementIdentifier)
         return if (locations.isEmpty()) emptyList() else loadTracks(locations, events, pressures)
     }
 
@@ -951,6 +1361,7 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
 
     override fun shutdown() {
         persistenceBehaviour!!.shutdown()
+        propagatedObserver?.let { database!!.invalidationTracker.removeObserver(it) }
     }
 
     override suspend fun storePersistenceFileFormatVersion(
@@ -993,15 +1404,11 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
     @Throws(NoSuchMeasurementException::class)
     suspend fun loadCurrentlyCapturedMeasurementFromPersistence(): Measurement {
         Log.v(TAG, "Trying to load currently captured measurement from PersistenceLayer!")
-        val openMeasurements = loadMeasurements(MeasurementStatus.OPEN)
-        val pausedMeasurements = loadMeasurements(MeasurementStatus.PAUSED)
-        if (openMeasurements.isEmpty() && pausedMeasurements.isEmpty()) {
-            throw NoSuchMeasurementException("No currently captured measurement found!")
-        }
-        check(openMeasurements.size + pausedMeasurements.size <= 1) {
-            "More than one currently captured measurement found!"
-        }
-        return (if (openMeasurements.size == 1) openMeasurements else pausedMeasurements)[0]
+        val unfinished = lifecycle!!.unfinishedMeasurement()
+            ?: throw NoSuchMeasurementException("No currently captured measurement found!")
+        // The cache only holds the id as the distance of the measurement changes frequently
+        return loadMeasurement(unfinished.id)
+            ?: throw NoSuchMeasurementException("No currently captured measurement found!")
     }
 
     /**
@@ -1023,25 +1430,7 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
         newStatus: MeasurementStatus,
         allowCorruptedState: Boolean
     ) {
-        val updates = measurementRepository!!.update(measurementIdentifier, newStatus)
-        require(updates == 1)
-        @Suppress("REDUNDANT_ELSE_IN_WHEN")
-        when (newStatus) {
-            MeasurementStatus.OPEN -> require(!hasMeasurement(MeasurementStatus.PAUSED))
-            MeasurementStatus.PAUSED -> require(!hasMeasurement(MeasurementStatus.OPEN))
-            // Because of MOV-790 we don't check this when cleaning up corrupted measurements
-            MeasurementStatus.FINISHED ->
-                if (!allowCorruptedState) {
-                    require(!hasMeasurement(MeasurementStatus.OPEN))
-                    require(!hasMeasurement(MeasurementStatus.PAUSED))
-                }
-            MeasurementStatus.SYNCABLE_ATTACHMENTS,
-            MeasurementStatus.SYNCED, MeasurementStatus.SKIPPED, MeasurementStatus.DEPRECATED -> {}
-            else -> throw IllegalArgumentException(
-                String.format(Locale.getDefault(), "Unknown status: %s", newStatus)
-            )
-        }
-        Log.d(TAG, "Set measurement $measurementIdentifier to $newStatus")
+        lifecycle!!.transition(measurementIdentifier, newStatus, allowCorruptedState = allowCorruptedState)
     }
 
     /**
@@ -1113,5 +1502,29 @@ class DefaultPersistenceLayer<B : PersistenceBehaviour?> : PersistenceLayer<B> {
          * The size of the sliding window to be used to average the pressure data to filter outliers [STAD-400].
          */
         private const val PRESSURE_SLIDING_WINDOW_SIZE = 20
+
+        /**
+         * The default interval in milliseconds in which [observeLiveStats] updates the duration of an ongoing
+         * measurement.
+         */
+        const val LIVE_STATS_TICK_INTERVAL_MILLIS = 1_000L
+
+        /**
+         * The tables of the primary [Database] which are observed by Room's multi-instance invalidation.
+         *
+         * This includes the time series tables, as they store the [GeoLocation]s and [Pressure]s of measurements
+         * which were not created with the `separateTimeSeries` option. Their inserts are thus sent to all other
+         * processes at sensor rate.
+         */
+        private val PROPAGATED_TABLES = arrayOf(
+            IdentifierTable.URI_PATH,
+            MeasurementTable.URI_PATH,
+            EventTable.URI_PATH,
+            LocationTable.URI_PATH,
+            PressureTable.URI_PATH,
+            AttachmentTable.URI_PATH,
+            MeasurementSummaryTable.URI_PATH,
+            MeasurementLedgerTable.URI_PATH,
+        )
     }
 }
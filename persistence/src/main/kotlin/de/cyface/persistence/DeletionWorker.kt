@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.util.Log
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.exception.NoSuchMeasurementException
+import de.cyface.persistence.model.Event
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Pressure
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.FlowCollector
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.yield
+
+/**
+ * Deletes [Measurement]s in the background without blocking the capturing of other measurements.
+ *
+ * Deleting a measurement in one statement, relying on `ON DELETE CASCADE`, holds the write lock of the database
+ * until all [GeoLocation]s, [Pressure]s and [Event]s of the measurement are deleted. For long measurements this
+ * takes seconds, during which the capturing process cannot store new data.
+ *
+ * Instead, the measurement is marked as [MeasurementStatus.DELETING] first, which hides it from the completed
+ * measurements. Then its sensor data files and attachments are deleted and the rows of the time series are
+ * deleted in batches of [batchSize] rows, each in its own short transaction. Between the batches the worker pauses
+ * for [pauseMillis] so that concurrent writers get the lock. At last, the empty measurement is deleted.
+ *
+ * Each step can be repeated, so a deletion interrupted by a process death is finished by [resume].
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property persistence The persistence layer to delete the measurements from.
+ * @property batchSize The maximal number of rows deleted in one transaction.
+ * @property pauseMillis The time to pause between two batches in milliseconds.
+ */
+class DeletionWorker(
+    private val persistence: DefaultPersistenceLayer<*>,
+    private val batchSize: Int = DEFAULT_BATCH_SIZE,
+    private val pauseMillis: Long = DEFAULT_PAUSE_MILLIS
+) {
+    init {
+        require(batchSize > 0) { "Invalid batch size: $batchSize" }
+    }
+
+    /**
+     * Marks a measurement for deletion and deletes it.
+     *
+     * The deletion runs while the returned [Flow] is collected. If the collection is cancelled or the process is
+     * killed, the measurement stays hidden and the deletion is finished by [resume].
+     *
+     * @param measurementId The id of the measurement to delete.
+     * @return The progress of the deletion, emitted after each batch.
+     * @throws NoSuchMeasurementException If there is no measurement with the id.
+     * @throws IllegalArgumentException If the measurement is still captured, i.e. [MeasurementStatus.OPEN] or
+     * [MeasurementStatus.PAUSED].
+     */
+    fun delete(measurementId: Long): Flow<DeletionProgress> = flow {
+        val measurement = persistence.loadMeasurement(measurementId)
+            ?: throw NoSuchMeasurementException("No measurement found with id $measurementId")
+        if (measurement.status != MeasurementStatus.DELETING) {
+            persistence.setStatus(measurementId, MeasurementStatus.DELETING, false)
+        }
+        deleteMarked(measurementId)
+    }.flowOn(Dispatchers.IO)
+
+    /**
+     * Finishes the deletion of all measurements marked as [MeasurementStatus.DELETING], e.g. after the process was
+     * killed during a deletion.
+     *
+     * @return The progress of the deletions, emitted after each batch.
+     */
+    fun resume(): Flow<DeletionProgress> = flow {
+        val measurements = persistence.measurementRepository!!.loadAllByStatus(MeasurementStatus.DELETING)
+        measurements.forEach {
+            Log.i(TAG, "Resuming deletion of measurement ${it.id}")
+            deleteMarked(it.id)
+        }
+    }.flowOn(Dispatchers.IO)
+
+    /**
+     * Deletes a measurement which is marked as [MeasurementStatus.DELETING].
+     */
+    private suspend fun FlowCollector<DeletionProgress>.deleteMarked(measurementId: Long) {
+        val timeSeries = persistence.timeSeriesDatabase(measurementId)
+        val eventDao = persistence.database!!.eventDao()
+        val locationDao = timeSeries.locationDao()
+        val pressureDao = timeSeries.pressureDao()
+
+        // Deleting the files first, so the storage is freed even if the rows take a while
+        persistence.deleteFiles(measurementId)
+
+        val total = locationDao.countByMeasurementId(measurementId).toLong() +
+                pressureDao.countByMeasurementId(measurementId) +
+                eventDao.countByMeasurementId(measurementId)
+        var deleted = 0L
+        emit(DeletionProgress(measurementId, deleted, total, false))
+        val batches = listOf<suspend () -> Int>(
+            { locationDao.deleteBatchByMeasurementId(measurementId, batchSize) },
+            { pressureDao.deleteBatchByMeasurementId(measurementId, batchSize) },
+            { eventDao.deleteBatchByMeasurementId(measurementId, batchSize) },
+        )
+        batches.forEach { batch ->
+            do {
+                val rows = batch()
+                deleted += rows
+                emit(DeletionProgress(measurementId, deleted, total, false))
+                // Lets concurrent writers, also from other processes, take the lock
+                yield()
+                if (rows == batchSize) delay(pauseMillis)
+            } while (rows == batchSize)
+        }
+
+        // Only the measurement and its attachment rows are left, so the cascade is fast
+        persistence.delete(measurementId)
+        emit(DeletionProgress(measurementId, deleted, total, true))
+        Log.d(TAG, "Deleted measurement $measurementId with $deleted rows in batches of $batchSize")
+    }
+
+    /**
+     * The progress of the deletion of a measurement.
+     *
+     * @property measurementId The id of the measurement which is deleted.
+     * @property deletedRows The number of time series and event rows deleted so far.
+     * @property totalRows The number of time series and event rows to delete in total.
+     * @property finished `true` if the measurement is deleted completely.
+     */
+    data class DeletionProgress(
+        val measurementId: Long,
+        val deletedRows: Long,
+        val totalRows: Long,
+        val finished: Boolean
+    ) {
+        /**
+         * The share of the deleted rows between `0.0` and `1.0`.
+         */
+        val fraction: Double
+            get() = if (finished || totalRows == 0L) 1.0 else deletedRows.toDouble() / totalRows
+    }
+
+    companion object {
+        /**
+         * The default maximal number of rows deleted in one transaction.
+         *
+         * Deleting this many rows takes a few milliseconds, even on slow devices.
+         */
+        const val DEFAULT_BATCH_SIZE = 1_000
+
+        /**
+         * The default time to pause between two batches in milliseconds.
+         */
+        const val DEFAULT_PAUSE_MILLIS = 10L
+    }
+}
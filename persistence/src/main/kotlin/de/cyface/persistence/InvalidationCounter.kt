@@ -0,0 +1,98 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.os.SystemClock
+import androidx.room.InvalidationTracker
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Counts invalidations, e.g. to measure how many invalidations are exchanged with other processes per minute of
+ * capturing.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 7.14.0
+ */
+class InvalidationCounter {
+    /**
+     * The number of invalidations since [since].
+     */
+    private val count = AtomicLong()
+
+    /**
+     * The [SystemClock.elapsedRealtime] when counting started.
+     */
+    @Volatile
+    private var since = SystemClock.elapsedRealtime()
+
+    /**
+     * Counts one invalidation.
+     */
+    fun increment() {
+        count.incrementAndGet()
+    }
+
+    /**
+     * Counts all invalidations of the specified tables, no matter which process modified them.
+     *
+     * For a database with Room's multi-instance invalidation, each of these invalidations is sent to all other
+     * processes which use the database, so this counts the invalidations exchanged between the processes.
+     *
+     * @param tracker The tracker of the database which contains the tables.
+     * @param tables The names of the tables to count the invalidations for.
+     * @return The observer registered, to be removed from the `tracker` when counting is no longer needed.
+     */
+    fun observe(tracker: InvalidationTracker, tables: Array<String>): InvalidationTracker.Observer {
+        val observer = object : InvalidationTracker.Observer(tables) {
+            override fun onInvalidated(tables: Set<String>) {
+                increment()
+            }
+        }
+        tracker.addObserver(observer)
+        return observer
+    }
+
+    /**
+     * Restarts counting, e.g. when a capturing session starts.
+     */
+    fun reset() {
+        count.set(0)
+        since = SystemClock.elapsedRealtime()
+    }
+
+    /**
+     * @return The number of invalidations since counting started.
+     */
+    fun count(): Long {
+        return count.get()
+    }
+
+    /**
+     * @return The average number of invalidations per minute since counting started.
+     */
+    fun perMinute(): Double {
+        val elapsedMillis = SystemClock.elapsedRealtime() - since
+        return if (elapsedMillis <= 0) 0.0 else count.get() * MILLIS_PER_MINUTE / elapsedMillis
+    }
+
+    companion object {
+        private const val MILLIS_PER_MINUTE = 60_000.0
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.app.job.JobInfo
+import android.app.job.JobParameters
+import android.app.job.JobScheduler
+import android.app.job.JobService
+import android.content.ComponentName
+import android.content.Context
+import android.util.Log
+import de.cyface.persistence.Constants.TAG
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+
+/**
+ * Archives the locations of all finished measurements which are still stored in the database while the device is
+ * idle and charging, see [LocationArchiver.resume].
+ *
+ * On devices upgraded from a version without archives, this moves the locations of all existing measurements, which
+ * should not slow down the app. The job is scheduled when the `DataCapturingService` is initialized and can be
+ * scheduled repeatedly, as measurements which are archived are skipped. When the system stops the job or it failed,
+ * it is rescheduled and continues with the measurements which are not archived yet.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+class LocationArchiveJobService : JobService() {
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private var job: Job? = null
+
+    override fun onStartJob(params: JobParameters): Boolean {
+        job = scope.launch {
+            var failed = true
+            try {
+                val persistence = DefaultPersistenceLayer(applicationContext, DefaultPersistenceBehaviour())
+                try {
+                    val archived = persistence.locationArchiver!!.resume()
+                    Log.d(TAG, "Archived the locations of $archived measurements")
+                    failed = false
+                } finally {
+                    persistence.shutdown()
+                }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                // Must not crash the app, the rescheduled job tries again
+                Log.e(TAG, "Location archive job failed", e)
+            } finally {
+                // Ignored by the system if the job was stopped. Rescheduled with a backoff after a failure.
+                jobFinished(params, failed)
+            }
+        }
+        // The work continues asynchronously
+        return true
+    }
+
+    override fun onStopJob(params: JobParameters): Boolean {
+        Log.d(TAG, "Location archive job stopped, continuing on the next run")
+        job?.cancel()
+        // Reschedule, as the job is not periodic
+        return true
+    }
+
+    override fun onDestroy() {
+        scope.cancel()
+        super.onDestroy()
+    }
+
+    companion object {
+        /**
+         * The default id of the location archive job. Pass another id to [schedule] if the app uses this id.
+         */
+        const val DEFAULT_JOB_ID = 0x43594633
+
+        /**
+         * Schedules the job which archives the locations of finished measurements, replacing a job scheduled before.
+         *
+         * @param context The [Context] required to access the `JobScheduler`.
+         * @param jobId The id of the job, unique within the app.
+         * @return `true` if the job was scheduled.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun schedule(context: Context, jobId: Int = DEFAULT_JOB_ID): Boolean {
+            val component = ComponentName(context, LocationArchiveJobService::class.java)
+            val job = JobInfo.Builder(jobId, component)
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .build()
+            val scheduler = context.getSystemService(Context.JOB_SCHEDULER_SERVICE) as JobScheduler
+            return scheduler.schedule(job) == JobScheduler.RESULT_SUCCESS
+        }
+
+        /**
+         * Cancels the location archive job.
+         *
+         * @param context The [Context] required to access the `JobScheduler`.
+         * @param jobId The id the job was scheduled with.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun cancel(context: Context, jobId: Int = DEFAULT_JOB_ID) {
+            val scheduler = context.getSystemService(Context.JOB_SCHEDULER_SERVICE) as JobScheduler
+            scheduler.cancel(jobId)
+        }
+    }
+}
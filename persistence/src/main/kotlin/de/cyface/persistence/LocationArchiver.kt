@@ -0,0 +1,233 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.util.Log
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.dao.LocationDao
+import de.cyface.persistence.exception.NoSuchMeasurementException
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.serialization.LocationArchive
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.yield
+
+/**
+ * Moves the [GeoLocation]s of finished [Measurement]s from the database into a [LocationArchive] file.
+ *
+ * Each location takes a row of nine columns plus an index entry in the database. The locations of finished
+ * measurements are only read sequentially, e.g. to serialize or display the measurement, which is faster from the
+ * compact archive. The archived locations are loaded by [DefaultPersistenceLayer.loadLocations],
+ * [DefaultPersistenceLayer.loadTracks] and the serializer, so callers don't need to know where they are stored.
+ *
+ * The archive is written block by block from pages of [batchSize] rows, so large measurements are archived with
+ * constant memory. It is written completely before the rows are deleted in batches of [batchSize] rows. Locations
+ * stored after the archive was written, e.g. by a capturing process which did not stop yet, are still loaded from
+ * the database and added to the archive by the next call to [archive] or [resume].
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 7.14.0
+ * @property persistence The persistence layer to archive the locations of.
+ * @property batchSize The maximal number of rows loaded at once or deleted in one transaction.
+ */
+class LocationArchiver(
+    private val persistence: DefaultPersistenceLayer<*>,
+    private val batchSize: Int = DeletionWorker.DEFAULT_BATCH_SIZE
+) {
+    init {
+        require(batchSize > 0) { "Invalid batch size: $batchSize" }
+    }
+
+    /**
+     * Moves the locations of a finished measurement from the database into its archive.
+     *
+     * Can be called repeatedly, e.g. after the process was killed, as the locations already archived are skipped.
+     *
+     * @param measurementId The id of the measurement to archive.
+     * @return The number of locations moved into the archive.
+     * @throws NoSuchMeasurementException If there is no measurement with the id.
+     * @throws IllegalArgumentException If the measurement is still captured, i.e. [MeasurementStatus.OPEN] or
+     * [MeasurementStatus.PAUSED].
+     */
+    suspend fun archive(measurementId: Long): Int = withContext(Dispatchers.IO) {
+        val measurement = persistence.loadMeasurement(measurementId)
+            ?: throw NoSuchMeasurementException("No measurement found with id $measurementId")
+        require(measurement.status in ARCHIVABLE) { "Unexpected status: ${measurement.status}" }
+
+        mutex.withLock {
+            val archive = persistence.locationArchive(measurementId)
+            val dao = persistence.timeSeriesDatabase(measurementId).locationDao()
+            val afterId = archive?.maxId ?: 0L
+            // Locations stored while this runs are not archived, so the number of locations is known in advance
+            val maxId = dao.loadMaxIdByMeasurementId(measurementId) ?: 0L
+            if (maxId <= afterId) {
+                // All locations are archived, but the archived rows may not be deleted yet
+                archive?.let { deleteArchivedRows(measurementId, it.maxId) }
+                return@withContext 0
+            }
+            val count = dao.countByMeasurementIdAfterIdUpToId(measurementId, afterId, maxId)
+            val context = persistence.context!!
+            val fileIOHandler = persistence.fileIOHandler
+            LocationArchive.writer(context, fileIOHandler, measurementId, (archive?.count ?: 0) + count, maxId).use {
+                if (archive == null) {
+                    appendRows(it, dao, measurementId, maxId)
+                } else {
+                    // Only the locations stored after the archive was written are loaded at once, which are few
+                    val rows = dao.loadAllByMeasurementIdAfterId(measurementId, afterId)
+                        .filter { row -> row.id <= maxId }
+                    archive.useLocations { archived -> it.append(merge(archived, rows)) }
+                }
+                it.commit()
+            }
+            deleteArchivedRows(measurementId, maxId)
+            Log.d(TAG, "Archived $count locations of measurement $measurementId")
+            count
+        }
+    }
+
+    /**
+     * Archives the locations of all finished measurements which still have locations in the database, e.g. after
+     * the process was killed during [archive] or when the locations were captured before this was introduced.
+     *
+     * On upgraded devices this can archive many measurements, so this is run by the [LocationArchiveJobService].
+     *
+     * @return The number of measurements whose locations were archived.
+     */
+    suspend fun resume(): Int = withContext(Dispatchers.IO) {
+        var archived = 0
+        ARCHIVABLE.flatMap { persistence.measurementRepository!!.loadAllByStatus(it) }.forEach {
+            val dao = persistence.timeSeriesDatabase(it.id).locationDao()
+            if (dao.countByMeasurementId(it.id) > 0) {
+                archive(it.id)
+                archived++
+            }
+        }
+        archived
+    }
+
+    /**
+     * Replaces the archived locations of a measurement, e.g. to downsample them.
+     *
+     * @param measurementId The id of the measurement which is archived.
+     * @param locations The locations to keep, ordered by timestamp.
+     */
+    internal suspend fun replace(measurementId: Long, locations: List<GeoLocation>) = withContext(Dispatchers.IO) {
+        mutex.withLock {
+            val archive = requireNotNull(persistence.locationArchive(measurementId))
+            // Keeps the highest archived id, so the dropped locations are not loaded from the database
+            val maxId = maxOf(archive.maxId, locations.maxOfOrNull { it.id } ?: 0L)
+            write(measurementId, locations, maxId)
+            deleteArchivedRows(measurementId, maxId)
+        }
+    }
+
+    /**
+     * Appends the locations of a measurement which is not archived yet to the archive, page by page.
+     *
+     * @param maxId The highest id of the locations to append.
+     */
+    private suspend fun appendRows(writer: LocationArchive.Writer, dao: LocationDao, measurementId: Long, maxId: Long) {
+        var afterTimestamp = Long.MIN_VALUE
+        var afterId = Long.MIN_VALUE
+        do {
+            val page = dao.loadPageByMeasurementId(measurementId, afterTimestamp, afterId, batchSize)
+            writer.append(page.asSequence().filter { it.id <= maxId })
+            page.lastOrNull()?.let {
+                afterTimestamp = it.timestamp
+                afterId = it.id
+            }
+            yield()
+        } while (page.size == batchSize)
+    }
+
+    private fun write(measurementId: Long, locations: List<GeoLocation>, maxId: Long): LocationArchive {
+        return LocationArchive.write(persistence.context!!, persistence.fileIOHandler, measurementId, locations, maxId)
+    }
+
+    /**
+     * Deletes the rows of the locations which are archived in short transactions.
+     */
+    private suspend fun deleteArchivedRows(measurementId: Long, maxId: Long) {
+        val dao = persistence.timeSeriesDatabase(measurementId).locationDao()
+        do {
+            val rows = dao.deleteBatchByMeasurementIdUpToId(measurementId, maxId, batchSize)
+            // Lets concurrent writers, also from other processes, take the lock
+            yield()
+        } while (rows == batchSize)
+    }
+
+    companion object {
+        /**
+         * Ensures the archive of a measurement is not written concurrently within this process, e.g. by the
+         * [LocationArchiveJobService] and the `DataCapturingService`, which use different instances.
+         */
+        private val mutex = Mutex()
+
+        /**
+         * The status of measurements whose locations are not changed anymore.
+         */
+        private val ARCHIVABLE = setOf(
+            MeasurementStatus.FINISHED,
+            MeasurementStatus.SYNCABLE_ATTACHMENTS,
+            MeasurementStatus.SYNCED,
+            MeasurementStatus.SKIPPED,
+        )
+
+        /**
+         * Merges the archived locations with the locations stored afterward.
+         *
+         * @return The locations ordered by timestamp and id.
+         */
+        internal fun merge(archived: List<GeoLocation>, rows: List<GeoLocation>): List<GeoLocation> {
+            return (archived + rows).sortedWith(ORDER)
+        }
+
+        /**
+         * Merges the archived locations with the locations stored afterward, without loading the archive at once.
+         *
+         * @param archived The archived locations, ordered by timestamp and id, e.g. from
+         * [LocationArchive.useLocations].
+         * @param rows The locations stored afterward.
+         * @return The locations ordered by timestamp and id, read from `archived` only as far as they are iterated.
+         */
+        internal fun merge(archived: Sequence<GeoLocation>, rows: List<GeoLocation>): Sequence<GeoLocation> {
+            val sortedRows = rows.sortedWith(ORDER)
+            return sequence {
+                var index = 0
+                archived.forEach { location ->
+                    while (index < sortedRows.size && ORDER.compare(sortedRows[index], location) < 0) {
+                        yield(sortedRows[index++])
+                    }
+                    yield(location)
+                }
+                yieldAll(sortedRows.subList(index, sortedRows.size))
+            }
+        }
+
+        /**
+         * The order of the locations of a measurement.
+         */
+        private val ORDER = compareBy<GeoLocation>({ it.timestamp }, { it.id })
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.util.Log
+import androidx.room.InvalidationTracker
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.content.MeasurementTable
+import de.cyface.persistence.exception.NoSuchMeasurementException
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.repository.MeasurementRepository
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The state machine of the [MeasurementStatus] of a [Measurement].
+ *
+ * A status transition is validated and executed by a single conditional `UPDATE`, which only matches when the
+ * transition is allowed by [TRANSITIONS] and no other measurement is unfinished, i.e. [MeasurementStatus.OPEN]
+ * or [MeasurementStatus.PAUSED], if the new status requires this. The database stays the source of truth.
+ *
+ * The unfinished measurement is cached in memory so that the checks before starting, resuming or changing the
+ * modality of a measurement don't have to query the database. The cache is dropped whenever Room reports a
+ * modification of the [Measurement] table, which includes modifications from other processes as the database
+ * uses multi-instance invalidation.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ * @property repository The repository to access the [Measurement] table.
+ */
+class MeasurementLifecycle(
+    private val repository: MeasurementRepository,
+    invalidationTracker: InvalidationTracker
+) {
+    /**
+     * Incremented each time the [Measurement] table is modified.
+     */
+    private val modifications = AtomicLong()
+
+    /**
+     * The unfinished measurement as loaded at [Snapshot.modification] or `null` if it was not loaded yet.
+     */
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    init {
+        invalidationTracker.addObserver(object : InvalidationTracker.Observer(MeasurementTable.URI_PATH) {
+            override fun onInvalidated(tables: Set<String>) {
+                modifications.incrementAndGet()
+            }
+        })
+    }
+
+    /**
+     * Returns the measurement which is [MeasurementStatus.OPEN] or [MeasurementStatus.PAUSED].
+     *
+     * The database is only queried when the [Measurement] table was modified since the last call.
+     *
+     * @return The unfinished measurement or `null` if there is none.
+     */
+    suspend fun unfinishedMeasurement(): UnfinishedMeasurement? {
+        val cached = snapshot
+        // Read before querying, so that a modification during the query invalidates the result
+        val modification = modifications.get()
+        if (cached != null && cached.modification == modification) {
+            return cached.measurement
+        }
+
+        val measurements = repository.loadAllUnfinished()
+        check(measurements.size <= 1) { "More than one currently captured measurement found!" }
+        val measurement = measurements.firstOrNull()?.let { UnfinishedMeasurement(it.id, it.status) }
+        snapshot = Snapshot(modification, measurement)
+        return measurement
+    }
+
+    /**
+     * Checks if there is a measurement in the specified status.
+     *
+     * @param status The status to check.
+     * @return `true` if at least one measurement is in the `status`.
+     */
+    suspend fun hasMeasurement(status: MeasurementStatus): Boolean {
+        return when (status) {
+            MeasurementStatus.OPEN, MeasurementStatus.PAUSED -> unfinishedMeasurement()?.status == status
+            else -> repository.existsByStatus(status)
+        }
+    }
+
+    /**
+     * Registers a newly created [MeasurementStatus.OPEN] measurement.
+     *
+     * @param measurementId The id of the new measurement.
+     */
+    fun onCreated(measurementId: Long) {
+        snapshot = Snapshot(modifications.get(), UnfinishedMeasurement(measurementId, MeasurementStatus.OPEN))
+    }
+
+    /**
+     * Drops the cached unfinished measurement, e.g. after a measurement was deleted.
+     */
+    fun invalidate() {
+        snapshot = null
+    }
+
+    /**
+     * Changes the status of a measurement if the transition is valid.
+     *
+     * @param measurementId The id of the measurement to update.
+     * @param newStatus The new status of the measurement.
+     * @param previousStatuses The statuses the measurement is expected to be in. Defaults to all statuses which
+     * allow a transition to `newStatus`.
+     * @param allowCorruptedState `true` if this is called to clean up corrupted measurements and, thus, it's possible
+     * that there are still other unfinished measurements after finishing this measurement.
+     * @throws NoSuchMeasurementException If there is no measurement with the id.
+     * @throws IllegalArgumentException If the transition is not allowed.
+     */
+    @Throws(NoSuchMeasurementException::class)
+    suspend fun transition(
+        measurementId: Long,
+        newStatus: MeasurementStatus,
+        previousStatuses: Set<MeasurementStatus> = TRANSITIONS.getValue(newStatus),
+        allowCorruptedState: Boolean = false
+    ) {
+        require(TRANSITIONS.getValue(newStatus).containsAll(previousStatuses)) {
+            "Invalid transition: $previousStatuses -> $newStatus"
+        }
+        // Because of MOV-790 we don't check this when cleaning up corrupted measurements
+        val conflictingStatuses = if (allowCorruptedState && newStatus == MeasurementStatus.FINISHED) {
+            emptyList()
+        } else {
+            conflictingStatuses(newStatus)
+        }
+
+        val updates = repository.updateStatus(
+            measurementId,
+            newStatus,
+            previousStatuses.toList(),
+            conflictingStatuses
+        )
+        if (updates == 0) {
+            // Only reached on errors, so the additional queries are fine
+            val measurement = repository.loadById(measurementId)
+                ?: throw NoSuchMeasurementException("No measurement found with id $measurementId")
+            require(measurement.status in previousStatuses) {
+                "Invalid transition of measurement $measurementId: ${measurement.status} -> $newStatus"
+            }
+            throw IllegalArgumentException(
+                "Unable to set measurement $measurementId to $newStatus: another measurement is unfinished"
+            )
+        }
+        check(updates == 1)
+
+        when (newStatus) {
+            MeasurementStatus.OPEN, MeasurementStatus.PAUSED -> snapshot =
+                Snapshot(modifications.get(), UnfinishedMeasurement(measurementId, newStatus))
+            MeasurementStatus.FINISHED -> snapshot =
+                if (allowCorruptedState) null else Snapshot(modifications.get(), null)
+            // The unfinished measurement is not affected
+            else -> {}
+        }
+        Log.d(TAG, "Set measurement $measurementId to $newStatus")
+    }
+
+    /**
+     * The measurement which is currently captured.
+     *
+     * @property id The id of the measurement.
+     * @property status Either [MeasurementStatus.OPEN] or [MeasurementStatus.PAUSED].
+     */
+    data class UnfinishedMeasurement(val id: Long, val status: MeasurementStatus)
+
+    /**
+     * The unfinished measurement loaded after [modification] modifications of the [Measurement] table.
+     */
+    private class Snapshot(val modification: Long, val measurement: UnfinishedMeasurement?)
+
+    companion object {
+        /**
+         * The valid transitions, mapping each status to the statuses it can be reached from.
+         */
+        val TRANSITIONS: Map<MeasurementStatus, Set<MeasurementStatus>> = mapOf(
+            MeasurementStatus.OPEN to setOf(MeasurementStatus.PAUSED),
+            MeasurementStatus.PAUSED to setOf(MeasurementStatus.OPEN),
+            MeasurementStatus.FINISHED to setOf(MeasurementStatus.OPEN, MeasurementStatus.PAUSED),
+            MeasurementStatus.SYNCABLE_ATTACHMENTS to setOf(MeasurementStatus.FINISHED),
+            MeasurementStatus.SYNCED to setOf(MeasurementStatus.FINISHED, MeasurementStatus.SYNCABLE_ATTACHMENTS),
+            MeasurementStatus.SKIPPED to setOf(MeasurementStatus.FINISHED, MeasurementStatus.SYNCABLE_ATTACHMENTS),
+            MeasurementStatus.DEPRECATED to setOf(
+                MeasurementStatus.FINISHED,
+                MeasurementStatus.SYNCABLE_ATTACHMENTS,
+                MeasurementStatus.SYNCED,
+                MeasurementStatus.SKIPPED
+            ),
+            // Unfinished measurements need to be finished before they can be deleted
+            MeasurementStatus.DELETING to setOf(
+                MeasurementStatus.FINISHED,
+                MeasurementStatus.SYNCABLE_ATTACHMENTS,
+                MeasurementStatus.SYNCED,
+                MeasurementStatus.SKIPPED,
+                MeasurementStatus.DEPRECATED
+            ),
+        )
+
+        /**
+         * Returns the statuses no other measurement may be in when a measurement is set to `newStatus`.
+         *
+         * There must never be more than one unfinished measurement.
+         */
+        fun conflictingStatuses(newStatus: MeasurementStatus): List<MeasurementStatus> {
+            return when (newStatus) {
+                MeasurementStatus.OPEN, MeasurementStatus.PAUSED, MeasurementStatus.FINISHED ->
+                    listOf(MeasurementStatus.OPEN, MeasurementStatus.PAUSED)
+                else -> emptyList()
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+/**
+ * Is notified about the progress of the [Database] migrations, see [DatabaseMigrator.listener].
+ *
+ * The migrations run when the database is opened for the first time after an update of the SDK. On devices with
+ * years of data this can take a while, so the app can e.g. show a progress indicator instead of an unresponsive UI.
+ *
+ * The methods are called on the thread which opens the database, inside the migration's transaction. Don't access
+ * the database from the listener.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+interface MigrationListener {
+    /**
+     * Called before a migration step is executed.
+     *
+     * @param startVersion The version of the database before the step.
+     * @param endVersion The version of the database after the step.
+     */
+    fun onMigrationStarted(startVersion: Int, endVersion: Int)
+
+    /**
+     * Called after a migration step was executed successfully.
+     *
+     * @param startVersion The version of the database before the step.
+     * @param endVersion The version of the database after the step.
+     * @param durationMillis The time the step took in milliseconds.
+     */
+    fun onMigrationFinished(startVersion: Int, endVersion: Int, durationMillis: Long)
+}
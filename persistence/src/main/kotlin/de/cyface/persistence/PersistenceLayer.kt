@@ -44,7 +44,7 @@ import java.io.File
  * `DataCapturingLocalTest`.
  *
  * @author Armin Schnabel
- * @version 1.2.1
+ * @version 1.4.2
  * @since 7.5.0
  * @property context The [Context] required to locate the app's internal storage directory.
  * @property fileIOHandler The [FileIOHandler] used to interact with files.
@@ -53,8 +53,10 @@ import java.io.File
  * @property identifierDao The repository to load the [Identifier] data from.
  * @property measurementRepository The source to load the [Measurement] data from.
  * @property eventRepository The source to load the [Event] data from.
- * @property locationDao The source to load the [GeoLocation] data from.
- * @property pressureDao The source to load the [Pressure] data from.
+ * @property locationDao The source to load the [GeoLocation] data from, including the locations archived by the
+ * `LocationArchiver`. Accesses the data of each measurement in the database returned by [timeSeriesDatabase].
+ * @property pressureDao The source to load the [Pressure] data from. Accesses the data of each measurement in the
+ * database returned by [timeSeriesDatabase].
  * @property attachmentDao The source to load the [de.cyface.persistence.model.Attachment] data from.
  */
 interface PersistenceLayer<B : PersistenceBehaviour?> {
@@ -111,6 +113,17 @@ interface PersistenceLayer<B : PersistenceBehaviour?> {
     // Sdk implementing apps (SR) use this to load single measurements
     suspend fun loadMeasurement(measurementIdentifier: Long): Measurement?
 
+    /**
+     * Returns the database which stores the [GeoLocation] and [Pressure] data of a [Measurement].
+     *
+     * This is the [database] unless the measurement was created while a separate time series database was
+     * enabled, see [Database.buildTimeSeries].
+     *
+     * @param measurementIdentifier The device wide unique identifier of the `Measurement`.
+     * @return The database to load and store the time series of the `Measurement` from.
+     */
+    suspend fun timeSeriesDatabase(measurementIdentifier: Long): Database
+
     /**
      * This method asynchronously loads or creates a new device identifier, if none exists.
      *
@@ -141,6 +154,23 @@ interface PersistenceLayer<B : PersistenceBehaviour?> {
     // May be used by SDK implementing app
     suspend fun loadTracks(measurementIdentifier: Long): List<Track>
 
+    /**
+     * Loads the [GeoLocation]s of a [Measurement], no matter if they are stored in the database or archived.
+     *
+     * @param measurementIdentifier The id of the `Measurement` to load the locations of.
+     * @return The locations ordered by timestamp.
+     */
+    suspend fun loadLocations(measurementIdentifier: Long): List<GeoLocation>
+
+    /**
+     * Returns the number of [GeoLocation]s of a [Measurement], no matter if they are stored in the database or
+     * archived.
+     *
+     * @param measurementIdentifier The id of the `Measurement` to count the locations of.
+     * @return The number of locations.
+     */
+    suspend fun countLocations(measurementIdentifier: Long): Int
+
     /**
      * Loads the "cleaned" [Track]s for the provided [Measurement].
      *
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import android.database.sqlite.SQLiteException
+import android.util.Log
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.model.Event
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.MeasurementSummary
+import de.cyface.persistence.model.Pressure
+import de.cyface.persistence.model.RetentionTier
+import de.cyface.persistence.strategy.DefaultLocationCleaning
+import de.cyface.persistence.strategy.LocationCleaningStrategy
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.yield
+import java.util.concurrent.TimeUnit
+
+/**
+ * Reduces the data of [MeasurementStatus.SYNCED] measurements according to a [RetentionPolicy].
+ *
+ * Measurements younger than [RetentionPolicy.fullDataDays] keep all data. Older measurements are downsampled: only
+ * one [GeoLocation] per [RetentionPolicy.downsampleIntervalMillis] is kept, also in the [LocationArchiver]'s
+ * archive, and the [Pressure]s are deleted. After
+ * [RetentionPolicy.downsampledDays] also the remaining [GeoLocation]s and the [Event]s are deleted. Before the data
+ * is reduced for the first time, the statistics of the measurement are cached in a [MeasurementSummary], which is
+ * then returned by the statistics methods of the [DefaultPersistenceLayer].
+ *
+ * The rows are deleted in batches and the tier of a measurement is only updated when its data was reduced, so an
+ * interrupted run is continued by the next run. At the end of each run the free pages are released from the
+ * database files using incremental vacuum, so the files actually shrink.
+ *
+ * Use [RetentionJobService] to run this when the device is idle and charging.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.1
+ * @since 7.14.0
+ * @property context The [Context] required to locate the database files.
+ * @property persistence The persistence layer to reduce the measurements of.
+ * @property policy The policy which defines when the data is reduced.
+ * @property locationCleaningStrategy The strategy used to calculate the cached speed statistics.
+ * @property batchSize The maximal number of rows deleted in one transaction.
+ */
+class RetentionEngine(
+    private val context: Context,
+    private val persistence: DefaultPersistenceLayer<*>,
+    private val policy: RetentionPolicy,
+    private val locationCleaningStrategy: LocationCleaningStrategy = DefaultLocationCleaning(),
+    private val batchSize: Int = DeletionWorker.DEFAULT_BATCH_SIZE
+) {
+    /**
+     * Runs the retention policy once.
+     *
+     * This is cancellable between two batches. The measurements processed until then keep their new tier.
+     *
+     * @param now The current time in milliseconds since 1.1.1970.
+     * @return The report about the data reduced by this run.
+     */
+    suspend fun run(now: Long = System.currentTimeMillis()): RetentionReport = withContext(Dispatchers.IO) {
+        val sizeBefore = Database.filesSize(context)
+        var deletedRows = 0L
+
+        // Measurements older than both limits are reduced to metadata directly
+        val metadataLimit = now - TimeUnit.DAYS.toMillis(policy.downsampledDays.toLong())
+        val reduced = forEachMeasurement(metadataLimit, listOf(RetentionTier.METADATA)) {
+            deletedRows += reduceToMetadata(it)
+        }
+        val downsampleLimit = now - TimeUnit.DAYS.toMillis(policy.fullDataDays.toLong())
+        val reducedTiers = listOf(RetentionTier.DOWNSAMPLED, RetentionTier.METADATA)
+        val downsampled = forEachMeasurement(downsampleLimit, reducedTiers) {
+            deletedRows += downsample(it)
+        }
+
+        listOfNotNull(persistence.database, persistence.separateTimeSeriesDatabase()).forEach { vacuum(it) }
+        val report = RetentionReport(downsampled, reduced, deletedRows, sizeBefore - Database.filesSize(context))
+        Log.i(TAG, "Retention: $report")
+        report
+    }
+
+    /**
+     * Calls [action] for each measurement which started before [before] and is not yet in one of the [tiers].
+     *
+     * @return The number of measurements processed.
+     */
+    private suspend fun forEachMeasurement(
+        before: Long,
+        tiers: List<RetentionTier>,
+        action: suspend (Long) -> Unit
+    ): Int {
+        val summaryDao = persistence.measurementSummaryDao!!
+        var processed = 0
+        do {
+            // The processed measurements are in one of the `tiers` afterwards, so they are not loaded again
+            val ids = summaryDao.loadIdsNotInTiers(MeasurementStatus.SYNCED, before, tiers, PAGE_SIZE)
+            ids.forEach {
+                action(it)
+                processed++
+            }
+        } while (ids.size == PAGE_SIZE)
+        return processed
+    }
+
+    /**
+     * Keeps one location per [RetentionPolicy.downsampleIntervalMillis] and deletes all pressures of a measurement.
+     *
+     * The locations are processed page by page, or block by block when they are archived, so large measurements
+     * are not loaded at once.
+     *
+     * @return The number of deleted rows.
+     */
+    private suspend fun downsample(measurementId: Long): Long {
+        cacheStatistics(measurementId)
+        val timeSeries = persistence.timeSeriesDatabase(measurementId)
+        var deleted = 0L
+
+        val archive = persistence.locationArchive(measurementId)
+        if (archive != null) {
+            val kept = mutableListOf<GeoLocation>()
+            val downsampler = Downsampler(policy.downsampleIntervalMillis, { kept.add(it) }, { deleted++ })
+            val rows = timeSeries.locationDao().loadAllByMeasurementIdAfterId(measurementId, archive.maxId)
+            archive.useLocations { archived -> LocationArchiver.merge(archived, rows).forEach { downsampler.add(it) } }
+            downsampler.finish()
+            persistence.locationArchiver!!.replace(measurementId, kept)
+        } else {
+            val dao = timeSeries.locationDao()
+            val dropped = mutableListOf<Long>()
+            val downsampler = Downsampler(policy.downsampleIntervalMillis, {}, { dropped.add(it.id) })
+            var afterTimestamp = Long.MIN_VALUE
+            var afterId = Long.MIN_VALUE
+            do {
+                val page = dao.loadPageByMeasurementId(measurementId, afterTimestamp, afterId, batchSize)
+                page.forEach { downsampler.add(it) }
+                page.lastOrNull()?.let {
+                    afterTimestamp = it.timestamp
+                    afterId = it.id
+                }
+                if (page.size < batchSize) {
+                    downsampler.finish()
+                }
+                // The page continues after the last location, so deleting the locations before does not skip any
+                dropped.chunked(MAX_ARGUMENTS).forEach { deleted += dao.deleteAllById(it) }
+                dropped.clear()
+                yield()
+            } while (page.size == batchSize)
+        }
+        deleted += deleteInBatches { timeSeries.pressureDao().deleteBatchByMeasurementId(measurementId, batchSize) }
+
+        persistence.measurementSummaryDao!!.updateTier(measurementId, RetentionTier.DOWNSAMPLED)
+        Log.d(TAG, "Downsampled measurement $measurementId, deleted $deleted rows")
+        return deleted
+    }
+
+    /**
+     * Deletes the locations, pressures and events of a measurement.
+     *
+     * @return The number of deleted rows.
+     */
+    private suspend fun reduceToMetadata(measurementId: Long): Long {
+        cacheStatistics(measurementId)
+        val timeSeries = persistence.timeSeriesDatabase(measurementId)
+        val eventDao = persistence.database!!.eventDao()
+        var deleted = 0L
+        persistence.locationArchive(measurementId)?.let {
+            it.delete()
+            deleted += it.count
+        }
+        deleted += deleteInBatches { timeSeries.locationDao().deleteBatchByMeasurementId(measurementId, batchSize) }
+        deleted += deleteInBatches { timeSeries.pressureDao().deleteBatchByMeasurementId(measurementId, batchSize) }
+        deleted += deleteInBatches { eventDao.deleteBatchByMeasurementId(measurementId, batchSize) }
+
+        persistence.measurementSummaryDao!!.updateTier(measurementId, RetentionTier.METADATA)
+        Log.d(TAG, "Reduced measurement $measurementId to metadata, deleted $deleted rows")
+        return deleted
+    }
+
+    /**
+     * Caches the statistics of a measurement, unless they were cached before the data was reduced.
+     */
+    private suspend fun cacheStatistics(measurementId: Long) {
+        val summaryDao = persistence.measurementSummaryDao!!
+        if (summaryDao.loadByMeasurementId(measurementId) != null) {
+            return
+        }
+        // Stays `FULL` until the data is reduced, so the statistics are still calculated from the data until then
+        val summary = MeasurementSummary(
+            measurementId,
+            RetentionTier.FULL,
+            persistence.loadAverageSpeed(measurementId, locationCleaningStrategy),
+            persistence.loadMaxSpeed(measurementId, locationCleaningStrategy),
+            persistence.loadAscend(measurementId),
+            persistence.loadDuration(measurementId)
+        )
+        summaryDao.insert(summary)
+    }
+
+    /**
+     * Calls [deleteBatch] until it deletes less than [batchSize] rows.
+     *
+     * @return The number of deleted rows.
+     */
+    private suspend fun deleteInBatches(deleteBatch: suspend () -> Int): Long {
+        var deleted = 0L
+        do {
+            val rows = deleteBatch()
+            deleted += rows
+            // Lets concurrent writers take the lock
+            yield()
+        } while (rows == batchSize)
+        return deleted
+    }
+
+    /**
+     * Releases the free pages of a database so the file shrinks.
+     *
+     * Incremental vacuum requires `auto_vacuum = INCREMENTAL`, which only takes effect on existing databases after
+     * a full `VACUUM`. As this rewrites the whole database, it's only done once enough pages are free, see
+     * [MIN_FREE_PAGES_RATIO].
+     */
+    private fun vacuum(database: Database) {
+        val db = database.openHelper.writableDatabase
+        try {
+            val autoVacuum = db.query("PRAGMA auto_vacuum").use { if (it.moveToFirst()) it.getInt(0) else 0 }
+            if (autoVacuum != AUTO_VACUUM_INCREMENTAL) {
+                val freePages = db.query("PRAGMA freelist_count").use { if (it.moveToFirst()) it.getLong(0) else 0L }
+                val pages = db.query("PRAGMA page_count").use { if (it.moveToFirst()) it.getLong(0) else 0L }
+                if (pages == 0L || freePages.toDouble() / pages < MIN_FREE_PAGES_RATIO) {
+                    Log.d(TAG, "Skipping vacuum, $freePages of $pages pages are free")
+                    return
+                }
+                db.execSQL("PRAGMA auto_vacuum = INCREMENTAL")
+                db.execSQL("VACUUM")
+            }
+            // The pages are only released while the result rows are stepped through
+            db.query("PRAGMA incremental_vacuum").use { while (it.moveToNext()) continue }
+            // The file only shrinks when the write-ahead log is checkpointed
+            db.query("PRAGMA wal_checkpoint(TRUNCATE)").use { it.moveToFirst() }
+        } catch (e: SQLiteException) {
+            // E.g. when another process holds a lock, the next run tries again
+            Log.w(TAG, "Unable to vacuum database", e)
+        }
+    }
+
+    /**
+     * Decides which locations of a measurement are kept when it's downsampled, one location at a time.
+     *
+     * The first and the last location are kept, and the first location at least [intervalMillis] after the
+     * previously kept one. As the last location is only known at the end, the most recent location which is not
+     * kept is held back until the next location is added or [finish] is called.
+     *
+     * @property intervalMillis The minimum time between two kept locations, except for the last one.
+     * @property onKept Called with each kept location, in the order of the added locations.
+     * @property onDropped Called with each location which is not kept.
+     */
+    private class Downsampler(
+        private val intervalMillis: Long,
+        private val onKept: (GeoLocation) -> Unit,
+        private val onDropped: (GeoLocation) -> Unit
+    ) {
+        private var lastKept: GeoLocation? = null
+        private var pending: GeoLocation? = null
+
+        /**
+         * Adds the next location, ordered by timestamp.
+         */
+        fun add(location: GeoLocation) {
+            pending?.let(onDropped)
+            pending = null
+            val last = lastKept
+            if (last == null || location.timestamp - last.timestamp >= intervalMillis) {
+                lastKept = location
+                onKept(location)
+            } else {
+                pending = location
+            }
+        }
+
+        /**
+         * Keeps the last location, after all locations were added.
+         */
+        fun finish() {
+            pending?.let {
+                lastKept = it
+                onKept(it)
+            }
+            pending = null
+        }
+    }
+
+    /**
+     * The result of one [run].
+     *
+     * @property downsampled The number of measurements which were downsampled.
+     * @property reducedToMetadata The number of measurements which were reduced to their metadata.
+     * @property deletedRows The number of deleted rows.
+     * @property bytesReclaimed The number of bytes by which the database files shrunk.
+     */
+    data class RetentionReport(
+        val downsampled: Int,
+        val reducedToMetadata: Int,
+        val deletedRows: Long,
+        val bytesReclaimed: Long
+    )
+
+    companion object {
+        /**
+         * The number of measurement ids loaded at once.
+         */
+        private const val PAGE_SIZE = 50
+
+        /**
+         * The maximum number of arguments supported in one statement by older SQLite versions.
+         */
+        private const val MAX_ARGUMENTS = 999
+
+        /**
+         * The value of `PRAGMA auto_vacuum` for incremental vacuum.
+         */
+        private const val AUTO_VACUUM_INCREMENTAL = 2
+
+        /**
+         * The minimum share of free pages for which the database is rewritten to enable incremental vacuum.
+         */
+        private const val MIN_FREE_PAGES_RATIO = 0.25
+    }
+}
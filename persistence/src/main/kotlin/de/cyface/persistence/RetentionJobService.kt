@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.app.job.JobInfo
+import android.app.job.JobParameters
+import android.app.job.JobScheduler
+import android.app.job.JobService
+import android.content.ComponentName
+import android.content.Context
+import android.util.Log
+import de.cyface.persistence.Constants.TAG
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Runs the [RetentionEngine] periodically while the device is idle and charging.
+ *
+ * The SDK does not depend on WorkManager, so the framework's `JobScheduler` is used. When the system stops the
+ * job, e.g. because the device is used again, the run is cancelled and continued the next time.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 7.14.0
+ */
+class RetentionJobService : JobService() {
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private var job: Job? = null
+
+    override fun onStartJob(params: JobParameters): Boolean {
+        val policy = RetentionPolicy.fromBundle(params.extras)
+        job = scope.launch {
+            try {
+                val persistence = DefaultPersistenceLayer(applicationContext, DefaultPersistenceBehaviour())
+                try {
+                    RetentionEngine(applicationContext, persistence, policy).run()
+                } finally {
+                    persistence.shutdown()
+                }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                // Must not crash the app, the next run tries again
+                Log.e(TAG, "Retention job failed", e)
+            } finally {
+                // Ignored by the system if the job was stopped
+                jobFinished(params, false)
+            }
+        }
+        // The work continues asynchronously
+        return true
+    }
+
+    override fun onStopJob(params: JobParameters): Boolean {
+        Log.d(TAG, "Retention job stopped, continuing on the next run")
+        job?.cancel()
+        // The periodic job is executed again anyway
+        return false
+    }
+
+    override fun onDestroy() {
+        scope.cancel()
+        super.onDestroy()
+    }
+
+    companion object {
+        /**
+         * The default id of the retention job. Pass another id to [schedule] if the app uses this id.
+         */
+        const val DEFAULT_JOB_ID = 0x43594631
+
+        /**
+         * The default interval in which the retention policy is applied.
+         */
+        private val DEFAULT_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1)
+
+        /**
+         * Schedules the periodic retention job, replacing a job scheduled before.
+         *
+         * @param context The [Context] required to access the `JobScheduler`.
+         * @param policy The policy to apply.
+         * @param jobId The id of the job, unique within the app.
+         * @return `true` if the job was scheduled.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun schedule(context: Context, policy: RetentionPolicy, jobId: Int = DEFAULT_JOB_ID): Boolean {
+            val component = ComponentName(context, RetentionJobService::class.java)
+            val job = JobInfo.Builder(jobId, component)
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .setPeriodic(DEFAULT_INTERVAL_MILLIS)
+                .setExtras(policy.toBundle())
+                .build()
+            val scheduler = context.getSystemService(Context.JOB_SCHEDULER_SERVICE) as JobScheduler
+            return scheduler.schedule(job) == JobScheduler.RESULT_SUCCESS
+        }
+
+        /**
+         * Cancels the periodic retention job.
+         *
+         * @param context The [Context] required to access the `JobScheduler`.
+         * @param jobId The id the job was scheduled with.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun cancel(context: Context, jobId: Int = DEFAULT_JOB_ID) {
+            val scheduler = context.getSystemService(Context.JOB_SCHEDULER_SERVICE) as JobScheduler
+            scheduler.cancel(jobId)
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.os.PersistableBundle
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.RetentionTier
+
+/**
+ * Defines how long the data of [MeasurementStatus.SYNCED] measurements is kept on the device, see [RetentionEngine].
+ *
+ * The age of a measurement is counted from its start.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property fullDataDays The number of days all data of a measurement is kept, i.e. [RetentionTier.FULL].
+ * @property downsampledDays The number of days after which only the metadata of a measurement is kept, i.e.
+ * [RetentionTier.METADATA]. In between, the measurement is [RetentionTier.DOWNSAMPLED].
+ * @property downsampleIntervalMillis The minimum time between two locations kept when downsampling a measurement.
+ */
+data class RetentionPolicy(
+    val fullDataDays: Int = DEFAULT_FULL_DATA_DAYS,
+    val downsampledDays: Int = DEFAULT_DOWNSAMPLED_DAYS,
+    val downsampleIntervalMillis: Long = DEFAULT_DOWNSAMPLE_INTERVAL_MILLIS
+) {
+    init {
+        require(fullDataDays >= 0) { "Invalid full data days: $fullDataDays" }
+        require(downsampledDays >= fullDataDays) { "Invalid downsampled days: $downsampledDays" }
+        require(downsampleIntervalMillis > 0L) { "Invalid downsample interval: $downsampleIntervalMillis" }
+    }
+
+    /**
+     * @return The policy as a bundle which can be passed to a `JobService`.
+     */
+    fun toBundle(): PersistableBundle {
+        return PersistableBundle().apply {
+            putInt(KEY_FULL_DATA_DAYS, fullDataDays)
+            putInt(KEY_DOWNSAMPLED_DAYS, downsampledDays)
+            putLong(KEY_DOWNSAMPLE_INTERVAL_MILLIS, downsampleIntervalMillis)
+        }
+    }
+
+    companion object {
+        /**
+         * The default number of days all data of a measurement is kept.
+         */
+        const val DEFAULT_FULL_DATA_DAYS = 30
+
+        /**
+         * The default number of days after which only the metadata of a measurement is kept.
+         */
+        const val DEFAULT_DOWNSAMPLED_DAYS = 365
+
+        /**
+         * The default minimum time between two locations kept when downsampling a measurement.
+         */
+        const val DEFAULT_DOWNSAMPLE_INTERVAL_MILLIS = 10_000L
+
+        private const val KEY_FULL_DATA_DAYS = "de.cyface.persistence.retention.full_data_days"
+        private const val KEY_DOWNSAMPLED_DAYS = "de.cyface.persistence.retention.downsampled_days"
+        private const val KEY_DOWNSAMPLE_INTERVAL_MILLIS = "de.cyface.persistence.retention.downsample_interval"
+
+        /**
+         * Restores a policy from a bundle created by [toBundle].
+         *
+         * @param bundle The bundle to restore the policy from.
+         * @return The policy, using the defaults for missing values.
+         */
+        fun fromBundle(bundle: PersistableBundle): RetentionPolicy {
+            return RetentionPolicy(
+                bundle.getInt(KEY_FULL_DATA_DAYS, DEFAULT_FULL_DATA_DAYS),
+                bundle.getInt(KEY_DOWNSAMPLED_DAYS, DEFAULT_DOWNSAMPLED_DAYS),
+                bundle.getLong(KEY_DOWNSAMPLE_INTERVAL_MILLIS, DEFAULT_DOWNSAMPLE_INTERVAL_MILLIS)
+            )
+        }
+    }
+}
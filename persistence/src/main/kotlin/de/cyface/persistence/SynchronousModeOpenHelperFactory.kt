@@ -0,0 +1,73 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.sqlite.db.SupportSQLiteOpenHelper
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory
+
+/**
+ * Creates open helpers which set the `synchronous` mode of the database connection, see [Database.buildTimeSeries].
+ *
+ * Room's callbacks run on the connection which happens to execute them, which is not necessarily the connection
+ * which writes. Thus, the mode is set in `onConfigure`, which Android calls when the primary connection is
+ * configured. In the write-ahead-log mode, Android executes all writes and commits on this connection, the other
+ * connections of the pool are read-only.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property mode The `synchronous` mode, e.g. `NORMAL`.
+ * @property delegate The factory which creates the open helpers.
+ */
+internal class SynchronousModeOpenHelperFactory(
+    private val mode: String,
+    private val delegate: SupportSQLiteOpenHelper.Factory = FrameworkSQLiteOpenHelperFactory()
+) : SupportSQLiteOpenHelper.Factory {
+
+    override fun create(configuration: SupportSQLiteOpenHelper.Configuration): SupportSQLiteOpenHelper {
+        val callback = configuration.callback
+        return delegate.create(
+            SupportSQLiteOpenHelper.Configuration(
+                configuration.context,
+                configuration.name,
+                object : SupportSQLiteOpenHelper.Callback(callback.version) {
+                    override fun onConfigure(db: SupportSQLiteDatabase) {
+                        callback.onConfigure(db)
+                        db.execSQL("PRAGMA synchronous = $mode")
+                    }
+
+                    override fun onCreate(db: SupportSQLiteDatabase) = callback.onCreate(db)
+
+                    override fun onUpgrade(db: SupportSQLiteDatabase, oldVersion: Int, newVersion: Int) =
+                        callback.onUpgrade(db, oldVersion, newVersion)
+
+                    override fun onDowngrade(db: SupportSQLiteDatabase, oldVersion: Int, newVersion: Int) =
+                        callback.onDowngrade(db, oldVersion, newVersion)
+
+                    override fun onOpen(db: SupportSQLiteDatabase) = callback.onOpen(db)
+
+                    override fun onCorruption(db: SupportSQLiteDatabase) = callback.onCorruption(db)
+                },
+                configuration.useNoBackupDirectory,
+                configuration.allowDataLossOnRecovery
+            )
+        )
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.ComponentName
+import android.content.Context
+import android.content.pm.PackageManager
+import android.database.ContentObserver
+import android.net.Uri
+import android.util.Log
+import androidx.room.InvalidationTracker
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.content.LocationTable
+import de.cyface.persistence.content.PressureTable
+import de.cyface.persistence.content.StubProvider
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Publishes the modifications of the time series database to other processes at a limited rate.
+ *
+ * The time series database does not use Room's multi-instance invalidation, as each [LocationTable] and
+ * [PressureTable] insert would be sent to all other processes, which then re-run all of their observed queries.
+ * Instead, all modifications within [intervalMillis] are coalesced into one notification per table. These are
+ * sent using `ContentResolver#notifyChange` on the URIs of the [StubProvider] and forwarded to the Room observers
+ * of the time series database in the receiving processes.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 7.14.0
+ * @property context The [Context] required to send and receive the notifications.
+ * @property database The time series database to publish the modifications of.
+ * @property published Counts the notifications sent to other processes.
+ * @property received Counts the notifications received from other processes.
+ * @property intervalMillis The minimum time between two notifications.
+ * @param dispatcher The dispatcher which delays and sends the notifications.
+ */
+class TimeSeriesInvalidation(
+    private val context: Context,
+    private val database: Database,
+    private val published: InvalidationCounter,
+    private val received: InvalidationCounter,
+    private val intervalMillis: Long = NOTIFICATION_INTERVAL_MILLIS,
+    dispatcher: CoroutineDispatcher = Dispatchers.Default
+) {
+    /**
+     * The tables modified since the last notification.
+     */
+    private val modified = ConcurrentHashMap.newKeySet<String>()
+
+    /**
+     * `true` while a notification is scheduled.
+     */
+    private val pending = AtomicBoolean()
+
+    /**
+     * `true` on the thread which forwards a notification from another process to the local observers. This way
+     * forwarded notifications are not published again.
+     */
+    private val forwarding = ThreadLocal<Boolean>()
+
+    private val scope = CoroutineScope(SupervisorJob() + dispatcher)
+
+    /**
+     * Receives the modifications of the time series database or `null` if not [start]ed.
+     */
+    private var tracked: InvalidationTracker.Observer? = null
+
+    /**
+     * Receives the notifications of other processes.
+     *
+     * Without a `Handler` this is called on a binder thread.
+     */
+    private val observer = object : ContentObserver(null) {
+        override fun onChange(selfChange: Boolean, uri: Uri?) {
+            val table = uri?.lastPathSegment ?: return
+            received.increment()
+            forwarding.set(true)
+            try {
+                database.invalidationTracker.notifyObserversByTableNames(table)
+            } finally {
+                forwarding.set(false)
+            }
+        }
+    }
+
+    /**
+     * Starts publishing and receiving notifications.
+     */
+    fun start() {
+        val authority = authority()
+        if (authority == null) {
+            Log.w(TAG, "No StubProvider found, time series modifications are not published to other processes.")
+            return
+        }
+        val tracked = object : InvalidationTracker.Observer(TABLES) {
+            override fun onInvalidated(tables: Set<String>) {
+                if (forwarding.get() != true) {
+                    schedule(authority, tables)
+                }
+            }
+        }
+        database.invalidationTracker.addObserver(tracked)
+        this.tracked = tracked
+        TABLES.forEach { context.contentResolver.registerContentObserver(uri(authority, it), false, observer) }
+    }
+
+    /**
+     * Stops publishing and receiving notifications.
+     *
+     * Modifications not published, yet, are dropped, as the other processes re-query when they are notified next.
+     */
+    fun close() {
+        tracked?.let {
+            database.invalidationTracker.removeObserver(it)
+            context.contentResolver.unregisterContentObserver(observer)
+            tracked = null
+        }
+        scope.cancel()
+    }
+
+    /**
+     * Schedules a notification for the modified tables, unless one is already scheduled.
+     */
+    private fun schedule(authority: String, tables: Set<String>) {
+        modified.addAll(tables)
+        if (!pending.compareAndSet(false, true)) {
+            return
+        }
+        scope.launch {
+            delay(intervalMillis)
+            pending.set(false)
+            TABLES.filter { modified.remove(it) }.forEach {
+                // Passing the `observer` ensures it's not notified about its own notification
+                context.contentResolver.notifyChange(uri(authority, it), observer, 0)
+                published.increment()
+            }
+        }
+    }
+
+    /**
+     * @return The authority of the [StubProvider] registered by the app or `null` if there is none.
+     */
+    private fun authority(): String? {
+        return try {
+            val component = ComponentName(context, StubProvider::class.java)
+            @Suppress("DEPRECATION") // The replacement requires API 33
+            val info = context.packageManager.getProviderInfo(component, 0)
+            info.authority?.split(';')?.first()
+        } catch (e: PackageManager.NameNotFoundException) {
+            null
+        }
+    }
+
+    private fun uri(authority: String, table: String): Uri {
+        return when (table) {
+            LocationTable.URI_PATH -> LocationTable.getUri(authority)
+            PressureTable.URI_PATH -> PressureTable.getUri(authority)
+            else -> throw IllegalArgumentException("Unexpected table: $table")
+        }
+    }
+
+    companion object {
+        /**
+         * The default minimum time between two notifications in milliseconds.
+         */
+        const val NOTIFICATION_INTERVAL_MILLIS = 1_000L
+
+        /**
+         * The time series tables whose modifications are published.
+         */
+        private val TABLES = arrayOf(LocationTable.URI_PATH, PressureTable.URI_PATH)
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import de.cyface.persistence.dao.LocationDao
+import de.cyface.persistence.model.GeoLocation
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
+
+/**
+ * A [LocationDao] which accesses the [GeoLocation]s of each measurement in the database which stores its time
+ * series, see [TimeSeriesStorage].
+ *
+ * This way, code using [DefaultPersistenceLayer.locationDao] finds and stores the locations of all measurements,
+ * no matter whether they are stored in the primary or in the separate time series database.
+ *
+ * [getAll] and [deleteAll] access all databases. [deleteAllById] is not supported, as the ids of the locations are
+ * only unique within one database. Use the [LocationDao] of [DefaultPersistenceLayer.timeSeriesDatabase] instead.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ * @property dao Returns the [LocationDao] which accesses the locations of a measurement.
+ * @property daos Returns the [LocationDao]s of all existing databases.
+ */
+internal class TimeSeriesLocationDao(
+    private val dao: suspend (measurementId: Long) -> LocationDao,
+    private val daos: () -> List<LocationDao>
+) : LocationDao {
+
+    override suspend fun insert(location: GeoLocation): Long {
+        return dao(location.measurementId).insert(location)
+    }
+
+    override suspend fun insertAll(vararg locations: GeoLocation) {
+        locations.groupBy { it.measurementId }.forEach { (measurementId, inserted) ->
+            dao(measurementId).insertAll(*inserted.toTypedArray())
+        }
+    }
+
+    override suspend fun getAll(): List<GeoLocation> {
+        return daos().flatMap { it.getAll() }
+    }
+
+    override suspend fun loadAllByMeasurementId(measurementId: Long): List<GeoLocation> {
+        return dao(measurementId).loadAllByMeasurementId(measurementId)
+    }
+
+    override suspend fun loadAllByMeasurementIdAfterId(measurementId: Long, afterId: Long): List<GeoLocation> {
+        return dao(measurementId).loadAllByMeasurementIdAfterId(measurementId, afterId)
+    }
+
+    override suspend fun loadPageByMeasurementId(
+        measurementId: Long,
+        afterTimestamp: Long,
+        afterId: Long,
+        limit: Int
+    ): List<GeoLocation> {
+        return dao(measurementId).loadPageByMeasurementId(measurementId, afterTimestamp, afterId, limit)
+    }
+
+    override suspend fun countByMeasurementId(measurementId: Long): Int {
+        return dao(measurementId).countByMeasurementId(measurementId)
+    }
+
+    override suspend fun countByMeasurementIdAfter(measurementId: Long, afterTimestamp: Long, afterId: Long): Int {
+        return dao(measurementId).countByMeasurementIdAfter(measurementId, afterTimestamp, afterId)
+    }
+
+    override suspend fun loadMaxIdByMeasurementId(measurementId: Long): Long? {
+        return dao(measurementId).loadMaxIdByMeasurementId(measurementId)
+    }
+
+    override suspend fun countByMeasurementIdAfterIdUpToId(measurementId: Long, afterId: Long, maxId: Long): Int {
+        return dao(measurementId).countByMeasurementIdAfterIdUpToId(measurementId, afterId, maxId)
+    }
+
+    override fun observeLatestByMeasurementId(measurementId: Long): Flow<GeoLocation?> {
+        return flow { emitAll(dao(measurementId).observeLatestByMeasurementId(measurementId)) }
+    }
+
+    override suspend fun loadAllByMeasurementIdAndSpeedGtAndAccuracyLtAndSpeedLt(
+        measurementId: Long,
+        lowerSpeedThreshold: Double,
+        accuracyThreshold: Double,
+        upperSpeedThreshold: Double
+    ): List<GeoLocation> {
+        return dao(measurementId).loadAllByMeasurementIdAndSpeedGtAndAccuracyLtAndSpeedLt(
+            measurementId,
+            lowerSpeedThreshold,
+            accuracyThreshold,
+            upperSpeedThreshold
+        )
+    }
+
+    override suspend fun deleteItemByMeasurementId(measurementId: Long): Int {
+        return dao(measurementId).deleteItemByMeasurementId(measurementId)
+    }
+
+    override suspend fun deleteBatchByMeasurementId(measurementId: Long, limit: Int): Int {
+        return dao(measurementId).deleteBatchByMeasurementId(measurementId, limit)
+    }
+
+    override suspend fun deleteBatchByMeasurementIdUpToId(measurementId: Long, maxId: Long, limit: Int): Int {
+        return dao(measurementId).deleteBatchByMeasurementIdUpToId(measurementId, maxId, limit)
+    }
+
+    override suspend fun deleteAllById(ids: List<Long>): Int {
+        throw UnsupportedOperationException("Location ids are not unique across the time series databases")
+    }
+
+    override suspend fun deleteAll(): Int {
+        return daos().sumOf { it.deleteAll() }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import de.cyface.persistence.dao.PressureDao
+import de.cyface.persistence.model.Pressure
+
+/**
+ * A [PressureDao] which accesses the [Pressure]s of each measurement in the database which stores its time series,
+ * see [TimeSeriesStorage].
+ *
+ * This way, code using [DefaultPersistenceLayer.pressureDao] finds and stores the pressures of all measurements,
+ * no matter whether they are stored in the primary or in the separate time series database. [getAll] and
+ * [deleteAll] access all databases.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property dao Returns the [PressureDao] which accesses the pressures of a measurement.
+ * @property daos Returns the [PressureDao]s of all existing databases.
+ */
+internal class TimeSeriesPressureDao(
+    private val dao: suspend (measurementId: Long) -> PressureDao,
+    private val daos: () -> List<PressureDao>
+) : PressureDao {
+
+    override suspend fun insert(pressure: Pressure): Long {
+        return dao(pressure.measurementId).insert(pressure)
+    }
+
+    override suspend fun insertAll(vararg pressures: Pressure) {
+        pressures.groupBy { it.measurementId }.forEach { (measurementId, inserted) ->
+            dao(measurementId).insertAll(*inserted.toTypedArray())
+        }
+    }
+
+    override suspend fun getAll(): List<Pressure> {
+        return daos().flatMap { it.getAll() }
+    }
+
+    override suspend fun loadAllByMeasurementId(measurementId: Long): List<Pressure> {
+        return dao(measurementId).loadAllByMeasurementId(measurementId)
+    }
+
+    override suspend fun deleteItemByMeasurementId(measurementId: Long): Int {
+        return dao(measurementId).deleteItemByMeasurementId(measurementId)
+    }
+
+    override suspend fun countByMeasurementId(measurementId: Long): Int {
+        return dao(measurementId).countByMeasurementId(measurementId)
+    }
+
+    override suspend fun deleteBatchByMeasurementId(measurementId: Long, limit: Int): Int {
+        return dao(measurementId).deleteBatchByMeasurementId(measurementId, limit)
+    }
+
+    override suspend fun deleteAll(): Int {
+        return daos().sumOf { it.deleteAll() }
+    }
+}
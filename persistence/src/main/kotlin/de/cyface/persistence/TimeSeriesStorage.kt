@@ -0,0 +1,167 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import android.util.Log
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.Pressure
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Decides which [Database] stores the time series, i.e. the [GeoLocation] and [Pressure] data, of a [Measurement].
+ *
+ * When [enabled], the time series of new measurements are stored in the database built by
+ * [Database.buildTimeSeries]. The placement is decided once, when the measurement is created, and recorded by
+ * mirroring the measurement into the time series database. Thus, all processes find the data of a measurement,
+ * no matter whether they enabled this option, and measurements captured before the option was enabled are still
+ * loaded from the [primary] database.
+ *
+ * The separate database and the [TimeSeriesInvalidation] which exchanges its modifications with other processes
+ * are opened once per process and shared by all instances. This way, each `DefaultPersistenceLayer`, e.g. one per
+ * synchronization, does not open another database and register another observer which is never released.
+ *
+ * @author Armin Schnabel
+ * @version 1.5.0
+ * @since 7.14.0
+ * @property context The [Context] required to locate the database files.
+ * @property primary The database which stores the metadata of all measurements.
+ * @property enabled `true` if the time series of new measurements should be stored in the separate database.
+ */
+class TimeSeriesStorage(
+    private val context: Context,
+    private val primary: Database,
+    private val enabled: Boolean
+) {
+    /**
+     * Counts the notifications about time series modifications published to other processes by this process.
+     */
+    val notifications: InvalidationCounter
+        get() = Companion.notifications
+
+    /**
+     * Counts the notifications about time series modifications this process received from other processes.
+     */
+    val receivedNotifications: InvalidationCounter
+        get() = Companion.receivedNotifications
+
+    /**
+     * The database which stores the time series of each measurement accessed by this instance.
+     *
+     * The placement of a measurement never changes and identifiers are not reused, so this is never invalidated.
+     */
+    private val placements = ConcurrentHashMap<Long, Database>()
+
+    /**
+     * Returns the database which stores the time series of a measurement.
+     *
+     * @param measurementId The id of the measurement.
+     * @return The separate time series database if the measurement was mirrored into it, else the [primary].
+     */
+    suspend fun database(measurementId: Long): Database {
+        placements[measurementId]?.let { return it }
+        val separate = timeSeriesDatabase(false)
+        val mirrored = separate != null && separate.measurementDao().loadById(measurementId) != null
+        val database = if (mirrored) separate!! else primary
+        placements[measurementId] = database
+        return database
+    }
+
+    /**
+     * Decides where the time series of a newly created measurement is stored.
+     *
+     * @param measurement The measurement which was just inserted into the [primary] database.
+     */
+    suspend fun onCreated(measurement: Measurement) {
+        if (!enabled) {
+            placements[measurement.id] = primary
+            return
+        }
+        val separate = timeSeriesDatabase(true)!!
+        // Keeps the identifier of the primary database as it's set
+        separate.measurementDao().insert(measurement)
+        placements[measurement.id] = separate
+        Log.d(TAG, "Storing time series of measurement ${measurement.id} separately.")
+    }
+
+    /**
+     * Deletes the time series of a measurement.
+     *
+     * This needs to be called before the measurement is deleted from the [primary] database. This way, if the
+     * process is killed in between, no time series is left behind without its measurement.
+     *
+     * @param measurementId The id of the measurement.
+     */
+    suspend fun delete(measurementId: Long) {
+        val database = database(measurementId)
+        if (database !== primary) {
+            // The time series are deleted automatically because of `ForeignKey`
+            database.measurementDao().deleteItemById(measurementId)
+        }
+        placements.remove(measurementId)
+    }
+
+    /**
+     * Returns the separate time series database, e.g. to maintain the database file.
+     *
+     * @return The database or `null` if it was never created.
+     */
+    fun separateDatabase(): Database? {
+        return timeSeriesDatabase(false)
+    }
+
+    /**
+     * Opens the separate time series database.
+     *
+     * @param create `true` if the database file should be created if it does not exist, yet.
+     * @return The database or `null` if it does not exist and `create` is `false`.
+     */
+    private fun timeSeriesDatabase(create: Boolean): Database? {
+        timeSeries?.let { return it }
+        synchronized(Companion) {
+            if (timeSeries == null && (create || Database.timeSeriesExists(context))) {
+                val database = Database.buildTimeSeries(context)
+                // Lives as long as the process, like the database
+                TimeSeriesInvalidation(context, database, notifications, receivedNotifications).start()
+                timeSeries = database
+            }
+            return timeSeries
+        }
+    }
+
+    companion object {
+        /**
+         * The database of this process which stores the time series separately or `null` if it was not opened yet.
+         */
+        @Volatile
+        private var timeSeries: Database? = null
+
+        /**
+         * Counts the notifications published by the [TimeSeriesInvalidation] of this process.
+         */
+        private val notifications = InvalidationCounter()
+
+        /**
+         * Counts the notifications received by the [TimeSeriesInvalidation] of this process.
+         */
+        private val receivedNotifications = InvalidationCounter()
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.app.job.JobInfo
+import android.app.job.JobParameters
+import android.app.job.JobScheduler
+import android.app.job.JobService
+import android.content.ComponentName
+import android.content.Context
+import android.os.PersistableBundle
+import android.util.Log
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.serialization.AdaptiveCompressionPolicy
+import de.cyface.persistence.serialization.MeasurementSerializer
+import de.cyface.persistence.serialization.TransferFile
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Precomputes the compressed [TransferFile]s of all [MeasurementStatus.FINISHED] measurements, so the
+ * synchronization only needs to upload them.
+ *
+ * The job is scheduled when a measurement is finished and runs when the device is charging, but at the latest
+ * after [DEFAULT_DEADLINE_MILLIS]. Measurements whose transfer file is still valid are skipped, so the job can be
+ * scheduled repeatedly. When the system stops the job or a measurement failed to precompute, it is rescheduled and
+ * continues with the measurements which are not precomputed yet.
+ *
+ * Measurements which are serialized by the synchronization at the same time are skipped, see
+ * [MeasurementSerializer.tryPrecompute]. The compression level is chosen by the [AdaptiveCompressionPolicy], like
+ * for the transfer files serialized by the synchronization.
+ *
+ * The transfer files are not precomputed beyond a maximal size of all transfer files, see [schedule]. The least
+ * recently written transfer files are evicted when the cache is larger, see [TransferFile.evict].
+ *
+ * @author Armin Schnabel
+ * @version 1.3.0
+ * @since 7.14.0
+ */
+class TransferFileJobService : JobService() {
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private var job: Job? = null
+
+    override fun onStartJob(params: JobParameters): Boolean {
+        val maxCacheBytes = params.extras.getLong(MAX_CACHE_BYTES_KEY, TransferFile.DEFAULT_MAX_CACHE_BYTES)
+        job = scope.launch {
+            var failed = true
+            try {
+                val persistence = DefaultPersistenceLayer(applicationContext, DefaultPersistenceBehaviour())
+                try {
+                    failed = !precompute(persistence, maxCacheBytes)
+                } finally {
+                    persistence.shutdown()
+                }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                // Must not crash the app, the rescheduled job tries again
+                Log.e(TAG, "Transfer file job failed", e)
+            } finally {
+                // Ignored by the system if the job was stopped. Rescheduled with a backoff after a failure.
+                jobFinished(params, failed)
+            }
+        }
+        // The work continues asynchronously
+        return true
+    }
+
+    override fun onStopJob(params: JobParameters): Boolean {
+        Log.d(TAG, "Transfer file job stopped, continuing on the next run")
+        job?.cancel()
+        // Reschedule, as the job is not periodic
+        return true
+    }
+
+    override fun onDestroy() {
+        scope.cancel()
+        super.onDestroy()
+    }
+
+    /**
+     * Precomputes the transfer files of all finished measurements which have no valid transfer file, until the
+     * transfer files reach their maximal size.
+     *
+     * A measurement which fails to precompute does not stop the others, it is synchronized without a transfer file.
+     *
+     * @param persistence The persistence layer to load the measurements from.
+     * @param maxCacheBytes The maximal size in bytes of all transfer files.
+     * @return `true` if no measurement failed to precompute.
+     */
+    private suspend fun precompute(persistence: DefaultPersistenceLayer<*>, maxCacheBytes: Long): Boolean {
+        val fileIOHandler = persistence.fileIOHandler
+        TransferFile.evict(applicationContext, fileIOHandler, maxCacheBytes).forEach {
+            Log.d(TAG, "Evicted transfer file of measurement $it")
+        }
+        // The job runs while charging, so the same policy as the synchronization's chooses higher levels
+        val serializer = MeasurementSerializer(AdaptiveCompressionPolicy(applicationContext))
+        var succeeded = true
+        persistence.measurementRepository!!.loadAllByStatus(MeasurementStatus.FINISHED).forEach {
+            if (MeasurementSerializer.loadPrecomputed(it.id, persistence) != null) {
+                return@forEach
+            }
+            if (TransferFile.cacheSize(applicationContext, fileIOHandler) >= maxCacheBytes) {
+                // The next job continues when the synchronization released space
+                Log.d(TAG, "Transfer file cache is full, not precomputing measurement ${it.id}")
+                return succeeded
+            }
+            try {
+                if (serializer.tryPrecompute(it.id, persistence) == null) {
+                    Log.d(TAG, "Measurement ${it.id} is serialized by the synchronization, skipping")
+                    return@forEach
+                }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to precompute transfer file of measurement ${it.id}", e)
+                succeeded = false
+                return@forEach
+            }
+            // The transfer file is deleted when the measurement leaves the status, which could have happened since
+            val status = persistence.measurementRepository!!.loadById(it.id)?.status
+            if (status != MeasurementStatus.FINISHED) {
+                TransferFile.delete(applicationContext, fileIOHandler, it.id)
+            }
+            Log.d(TAG, "Precomputed transfer file of measurement ${it.id}")
+        }
+        return succeeded
+    }
+
+    companion object {
+        /**
+         * The default id of the transfer file job. Pass another id to [schedule] if the app uses this id.
+         */
+        const val DEFAULT_JOB_ID = 0x43594632
+
+        /**
+         * The time after which the job runs even if the device is not charging.
+         */
+        private val DEFAULT_DEADLINE_MILLIS = TimeUnit.HOURS.toMillis(1)
+
+        /**
+         * The key of the maximal size of all transfer files in the extras of the job.
+         */
+        private const val MAX_CACHE_BYTES_KEY = "de.cyface.persistence.max_cache_bytes"
+
+        /**
+         * Schedules the job which precomputes the transfer files, replacing a job scheduled before.
+         *
+         * @param context The [Context] required to access the `JobScheduler`.
+         * @param jobId The id of the job, unique within the app.
+         * @param maxCacheBytes The maximal size in bytes of all transfer files.
+         * @return `true` if the job was scheduled.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun schedule(
+            context: Context,
+            jobId: Int = DEFAULT_JOB_ID,
+            maxCacheBytes: Long = TransferFile.DEFAULT_MAX_CACHE_BYTES
+        ): Boolean {
+            val component = ComponentName(context, TransferFileJobService::class.java)
+            val job = JobInfo.Builder(jobId, component)
+                .setRequiresCharging(true)
+                .setOverrideDeadline(DEFAULT_DEADLINE_MILLIS)
+                .setExtras(PersistableBundle().apply { putLong(MAX_CACHE_BYTES_KEY, maxCacheBytes) })
+                .build()
+            val scheduler = context.getSystemService(Context.JOB_SCHEDULER_SERVICE) as JobScheduler
+            return scheduler.schedule(job) == JobScheduler.RESULT_SUCCESS
+        }
+
+        /**
+         * Cancels the transfer file job.
+         *
+         * @param context The [Context] required to access the `JobScheduler`.
+         * @param jobId The id the job was scheduled with.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun cancel(context: Context, jobId: Int = DEFAULT_JOB_ID) {
+            val scheduler = context.getSystemService(Context.JOB_SCHEDULER_SERVICE) as JobScheduler
+            scheduler.cancel(jobId)
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.content
+
+import android.net.Uri
+import de.cyface.protos.model.File.FileType
+
+/**
+ * This class represents the table containing the size ledgers of the [de.cyface.persistence.model.Measurement]s,
+ * see [de.cyface.persistence.model.MeasurementLedger].
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+class MeasurementLedgerTable : AbstractCyfaceTable(URI_PATH) {
+    companion object {
+        /**
+         * The path segment in the table URI identifying the [MeasurementLedgerTable].
+         */
+        const val URI_PATH = "MeasurementLedger"
+
+        /**
+         * Column name for the number of bytes written to the acceleration file.
+         */
+        const val COLUMN_ACCELERATION_BYTES = "accelerationBytes"
+
+        /**
+         * Column name for the number of bytes written to the rotation file.
+         */
+        const val COLUMN_ROTATION_BYTES = "rotationBytes"
+
+        /**
+         * Column name for the number of bytes written to the direction file.
+         */
+        const val COLUMN_DIRECTION_BYTES = "directionBytes"
+
+        /**
+         * Column name for the number of locations captured.
+         */
+        const val COLUMN_LOCATIONS = "locations"
+
+        /**
+         * Column name for the number of events logged.
+         */
+        const val COLUMN_EVENTS = "events"
+
+        /**
+         * Column name for the number of pressures captured.
+         */
+        const val COLUMN_PRESSURES = "pressures"
+
+        /**
+         * Column name for the number of bytes of the log attachments.
+         */
+        const val COLUMN_LOG_BYTES = "logBytes"
+
+        /**
+         * Column name for the number of bytes of the image attachments.
+         */
+        const val COLUMN_IMAGE_BYTES = "imageBytes"
+
+        /**
+         * Column name for the number of bytes of all other attachments.
+         */
+        const val COLUMN_OTHER_BYTES = "otherBytes"
+
+        /**
+         * The attachment types counted as [COLUMN_LOG_BYTES].
+         */
+        private val LOG_TYPES = listOf(FileType.CSV, FileType.JSON, FileType.JSONL)
+            .joinToString { "'${it.name}'" }
+
+        /**
+         * The attachment type counted as [COLUMN_IMAGE_BYTES].
+         */
+        private val IMAGE_TYPE = "'${FileType.JPG.name}'"
+
+        /**
+         * The triggers which count the events and attachment bytes of a measurement in its ledger.
+         *
+         * Triggers are used as the apps insert events and attachments directly. They are not part of Room's schema,
+         * so they are created by the migration and when the database is created.
+         */
+        val TRIGGERS = listOf(
+            "CREATE TRIGGER IF NOT EXISTS `${URI_PATH}_event_insert` AFTER INSERT ON `${EventTable.URI_PATH}` " +
+                    "BEGIN UPDATE `$URI_PATH` SET `$COLUMN_EVENTS` = `$COLUMN_EVENTS` + 1 " +
+                    "WHERE `${BaseColumns.MEASUREMENT_ID}` = NEW.`${BaseColumns.MEASUREMENT_ID}`; END",
+            "CREATE TRIGGER IF NOT EXISTS `${URI_PATH}_attachment_insert` " +
+                    "AFTER INSERT ON `${AttachmentTable.URI_PATH}` " +
+                    "BEGIN ${addAttachmentBytes("NEW.`${AttachmentTable.COLUMN_SIZE}`")} END",
+            "CREATE TRIGGER IF NOT EXISTS `${URI_PATH}_attachment_size` " +
+                    "AFTER UPDATE OF `${AttachmentTable.COLUMN_SIZE}` ON `${AttachmentTable.URI_PATH}` " +
+                    "BEGIN ${addAttachmentBytes(
+                        "NEW.`${AttachmentTable.COLUMN_SIZE}` - OLD.`${AttachmentTable.COLUMN_SIZE}`"
+                    )} END",
+        )
+
+        /**
+         * The statement which creates the ledgers of the measurements captured before the ledger was added.
+         *
+         * The locations, events, pressures and attachment bytes are counted from their tables for all measurements
+         * with one statement. The sensor data bytes are left at `0` as they can only be read from the files.
+         */
+        val BACKFILL = "INSERT OR IGNORE INTO `$URI_PATH` (`${BaseColumns.MEASUREMENT_ID}`, " +
+                "`$COLUMN_ACCELERATION_BYTES`, `$COLUMN_ROTATION_BYTES`, `$COLUMN_DIRECTION_BYTES`, " +
+                "`$COLUMN_LOCATIONS`, `$COLUMN_EVENTS`, `$COLUMN_PRESSURES`, " +
+                "`$COLUMN_LOG_BYTES`, `$COLUMN_IMAGE_BYTES`, `$COLUMN_OTHER_BYTES`) " +
+                "SELECT m.`${BaseColumns.ID}`, 0, 0, 0, " +
+                "${count(LocationTable.URI_PATH)}, ${count(EventTable.URI_PATH)}, " +
+                "${count(PressureTable.URI_PATH)}, " +
+                "${attachmentBytes("IN ($LOG_TYPES)")}, ${attachmentBytes("= $IMAGE_TYPE")}, " +
+                "${attachmentBytes("NOT IN ($LOG_TYPES, $IMAGE_TYPE)")} " +
+                "FROM `${MeasurementTable.URI_PATH}` m"
+
+        /**
+         * Returns the sub-query which counts the rows of a table which belong to the measurement `m`.
+         *
+         * @param table The name of the table to count the rows of.
+         */
+        private fun count(table: String): String {
+            return "(SELECT COUNT(*) FROM `$table` WHERE `${BaseColumns.MEASUREMENT_ID}` = m.`${BaseColumns.ID}`)"
+        }
+
+        /**
+         * Returns the sub-query which sums the bytes of the attachments of the measurement `m` with a matching type.
+         *
+         * @param type The SQL condition on the attachment type, e.g. `= 'JPG'`.
+         */
+        private fun attachmentBytes(type: String): String {
+            return "(SELECT IFNULL(SUM(`${AttachmentTable.COLUMN_SIZE}`), 0) FROM `${AttachmentTable.URI_PATH}` " +
+                    "WHERE `${BaseColumns.MEASUREMENT_ID}` = m.`${BaseColumns.ID}` " +
+                    "AND `${AttachmentTable.COLUMN_TYPE}` $type)"
+        }
+
+        /**
+         * Returns the statement which adds bytes to the attachment column of the ledger matching the attachment type.
+         *
+         * @param bytes The SQL expression of the bytes to add.
+         */
+        private fun addAttachmentBytes(bytes: String): String {
+            val type = "NEW.`${AttachmentTable.COLUMN_TYPE}`"
+            return "UPDATE `$URI_PATH` SET " +
+                    "`$COLUMN_LOG_BYTES` = `$COLUMN_LOG_BYTES` + " +
+                    "CASE WHEN $type IN ($LOG_TYPES) THEN $bytes ELSE 0 END, " +
+                    "`$COLUMN_IMAGE_BYTES` = `$COLUMN_IMAGE_BYTES` + " +
+                    "CASE WHEN $type = $IMAGE_TYPE THEN $bytes ELSE 0 END, " +
+                    "`$COLUMN_OTHER_BYTES` = `$COLUMN_OTHER_BYTES` + " +
+                    "CASE WHEN $type NOT IN ($LOG_TYPES, $IMAGE_TYPE) THEN $bytes ELSE 0 END " +
+                    "WHERE `${BaseColumns.MEASUREMENT_ID}` = NEW.`${BaseColumns.MEASUREMENT_ID}`;"
+        }
+
+        /**
+         * Returns the URI which identifies the table represented by this class.
+         *
+         * It's important to provide the authority string as parameter because depending on from where
+         * you call this you want to access your own authorities database.
+         *
+         * @param authority The authority to access the database
+         */
+        fun getUri(authority: String): Uri {
+            return Uri.Builder().scheme("content").authority(authority).appendPath(URI_PATH).build()
+        }
+    }
+
+    override val databaseTableColumns: Array<String>
+        get() = arrayOf(
+            BaseColumns.MEASUREMENT_ID,
+            COLUMN_ACCELERATION_BYTES,
+            COLUMN_ROTATION_BYTES,
+            COLUMN_DIRECTION_BYTES,
+            COLUMN_LOCATIONS,
+            COLUMN_EVENTS,
+            COLUMN_PRESSURES,
+            COLUMN_LOG_BYTES,
+            COLUMN_IMAGE_BYTES,
+            COLUMN_OTHER_BYTES
+        )
+}
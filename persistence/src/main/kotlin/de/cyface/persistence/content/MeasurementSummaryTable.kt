@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.content
+
+import android.net.Uri
+
+/**
+ * This class represents the table containing the cached statistics of the
+ * [de.cyface.persistence.model.Measurement]s whose data was reduced by the retention policy.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+class MeasurementSummaryTable : AbstractCyfaceTable(URI_PATH) {
+    companion object {
+        /**
+         * The path segment in the table URI identifying the [MeasurementSummaryTable].
+         */
+        const val URI_PATH = "MeasurementSummary"
+
+        /**
+         * Column name for the [de.cyface.persistence.model.RetentionTier] of the measurement.
+         */
+        const val COLUMN_TIER = "tier"
+
+        /**
+         * Column name for the average speed of the measurement in meters per second.
+         */
+        const val COLUMN_AVERAGE_SPEED = "averageSpeed"
+
+        /**
+         * Column name for the maximum speed of the measurement in meters per second.
+         */
+        const val COLUMN_MAX_SPEED = "maxSpeed"
+
+        /**
+         * Column name for the ascend of the measurement in meters.
+         */
+        const val COLUMN_ASCEND = "ascend"
+
+        /**
+         * Column name for the duration of the measurement in milliseconds.
+         */
+        const val COLUMN_DURATION = "duration"
+
+        /**
+         * Returns the URI which identifies the table represented by this class.
+         *
+         * It's important to provide the authority string as parameter because depending on from where
+         * you call this you want to access your own authorities database.
+         *
+         * @param authority The authority to access the database
+         */
+        fun getUri(authority: String): Uri {
+            return Uri.Builder().scheme("content").authority(authority).appendPath(URI_PATH).build()
+        }
+    }
+
+    override val databaseTableColumns: Array<String>
+        get() = arrayOf(
+            BaseColumns.MEASUREMENT_ID,
+            COLUMN_TIER,
+            COLUMN_AVERAGE_SPEED,
+            COLUMN_MAX_SPEED,
+            COLUMN_ASCEND,
+            COLUMN_DURATION
+        )
+}
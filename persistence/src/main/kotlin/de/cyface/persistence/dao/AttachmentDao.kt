@@ -32,7 +32,7 @@ import de.cyface.protos.model.File.FileType
  * Data access object which provides the API to interact with the [Attachment] database table.
  *
  * @author Armin Schnabel
- * @version 1.0.1
+ * @version 1.1.0
  * @since 7.10.0
  */
 @Dao
@@ -119,4 +119,21 @@ interface AttachmentDao {
     @Query("UPDATE ${AttachmentTable.URI_PATH} SET ${AttachmentTable.COLUMN_STATUS} = :status " +
             "WHERE ${BaseColumns.ID} = :id")
     suspend fun updateStatus(id: Long, status: AttachmentStatus)
-}
\ No newline at end of file
+
+    /**
+     * Updates the status of multiple attachments in one statement.
+     *
+     * @param ids The identifiers of the attachments to update, at most [MAX_IDS_PER_QUERY].
+     * @param status The new status.
+     */
+    @Query("UPDATE ${AttachmentTable.URI_PATH} SET ${AttachmentTable.COLUMN_STATUS} = :status " +
+            "WHERE ${BaseColumns.ID} IN (:ids)")
+    suspend fun updateAllStatus(ids: List<Long>, status: AttachmentStatus)
+
+    companion object {
+        /**
+         * The maximal number of ids passed to one query, below SQLite's limit of 999 variables on older devices.
+         */
+        const val MAX_IDS_PER_QUERY = 500
+    }
+}
@@ -32,7 +32,7 @@ import kotlinx.coroutines.flow.Flow
  * [de.cyface.persistence.model.GeoLocation] database table.
  *
  * @author Armin Schnabel
- * @version 2.1.0
+ * @version 2.3.0
  * @since 7.5.0
  */
 @Dao
@@ -68,6 +68,28 @@ interface EventDao {
     )
     fun observeAllByMeasurementId(measurementId: Long): Flow<List<Event>?>
 
+    /**
+     * Loads up to [limit] events of a specific [measurementId] which follow the event with the [afterTimestamp] and
+     * [afterId], ordered by timestamp and id.
+     *
+     * Allows to page through the events of large measurements, e.g. to upload them in parts, see
+     * [de.cyface.persistence.serialization.MeasurementParts]. Use [Long.MIN_VALUE] for both to load the first page.
+     */
+    @Query(
+        "SELECT * FROM ${EventTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId " +
+                // Same as `(timestamp, _id) > (:afterTimestamp, :afterId)`, without row values in DAO queries
+                "AND ${BaseColumns.TIMESTAMP} >= :afterTimestamp " +
+                "AND (${BaseColumns.TIMESTAMP} > :afterTimestamp OR ${BaseColumns.ID} > :afterId) " +
+                "ORDER BY ${BaseColumns.TIMESTAMP} ASC, ${BaseColumns.ID} ASC LIMIT :limit"
+    )
+    suspend fun loadPageByMeasurementId(
+        measurementId: Long,
+        afterTimestamp: Long,
+        afterId: Long,
+        limit: Int
+    ): List<Event>
+
     /**
      * Returns the number of events found for a specific [measurementId].
      */
@@ -91,6 +113,21 @@ interface EventDao {
     @Query("DELETE FROM ${EventTable.URI_PATH} WHERE ${BaseColumns.ID} = :id")
     suspend fun deleteItemById(id: Long): Int
 
+    /**
+     * Deletes up to [limit] events of a specific [measurementId].
+     *
+     * Allows to delete the data of large measurements in short transactions, see
+     * [de.cyface.persistence.DeletionWorker].
+     *
+     * @return The number of deleted events.
+     */
+    @Query(
+        "DELETE FROM ${EventTable.URI_PATH} WHERE ${BaseColumns.ID} IN (" +
+                "SELECT ${BaseColumns.ID} FROM ${EventTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId LIMIT :limit)"
+    )
+    suspend fun deleteBatchByMeasurementId(measurementId: Long, limit: Int): Int
+
     @Query("DELETE FROM ${EventTable.URI_PATH}")
     suspend fun deleteAll(): Int
 }
\ No newline at end of file
@@ -24,12 +24,13 @@ import androidx.room.Query
 import de.cyface.persistence.content.BaseColumns
 import de.cyface.persistence.content.LocationTable
 import de.cyface.persistence.model.GeoLocation
+import kotlinx.coroutines.flow.Flow
 
 /**
  * Data access object which provides the API to interact with the [GeoLocation] database table.
  *
  * @author Armin Schnabel
- * @version 2.1.0
+ * @version 2.7.0
  * @since 7.5.0
  */
 @Dao
@@ -53,12 +54,101 @@ interface LocationDao {
     )
     suspend fun loadAllByMeasurementId(measurementId: Long): List<GeoLocation>
 
+    /**
+     * Loads the locations of a specific [measurementId] which were stored after the location with the [afterId].
+     *
+     * Used to find the locations which were stored after the locations of a measurement were archived, see
+     * [de.cyface.persistence.LocationArchiver]. Ordered by timestamp for
+     * [de.cyface.persistence.DefaultPersistenceLayer.loadTracks] to work.
+     */
+    @Query(
+        "SELECT * FROM ${LocationTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId AND ${BaseColumns.ID} > :afterId " +
+                "ORDER BY ${BaseColumns.TIMESTAMP} ASC"
+    )
+    suspend fun loadAllByMeasurementIdAfterId(measurementId: Long, afterId: Long): List<GeoLocation>
+
+    /**
+     * Loads up to [limit] locations of a specific [measurementId] which follow the location with the
+     * [afterTimestamp] and [afterId], ordered by timestamp and id.
+     *
+     * Allows to page through the locations of large measurements, e.g. to downsample them, see
+     * [de.cyface.persistence.RetentionEngine]. Use [Long.MIN_VALUE] for both to load the first page.
+     */
+    @Query(
+        "SELECT * FROM ${LocationTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId " +
+                // Same as `(timestamp, _id) > (:afterTimestamp, :afterId)`, without row values in DAO queries
+                "AND ${BaseColumns.TIMESTAMP} >= :afterTimestamp " +
+                "AND (${BaseColumns.TIMESTAMP} > :afterTimestamp OR ${BaseColumns.ID} > :afterId) " +
+                "ORDER BY ${BaseColumns.TIMESTAMP} ASC, ${BaseColumns.ID} ASC LIMIT :limit"
+    )
+    suspend fun loadPageByMeasurementId(
+        measurementId: Long,
+        afterTimestamp: Long,
+        afterId: Long,
+        limit: Int
+    ): List<GeoLocation>
+
     /**
      * Returns the number of locations found for a specific [measurementId].
      */
     @Query("SELECT COUNT(*) FROM ${LocationTable.URI_PATH} WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId")
     suspend fun countByMeasurementId(measurementId: Long): Int
 
+    /**
+     * Returns the number of locations of a specific [measurementId] which follow the location with the
+     * [afterTimestamp] and [afterId].
+     *
+     * This only walks the index entries after that location and allows to keep a location count up to date without
+     * counting all locations of the measurement again.
+     */
+    @Query(
+        "SELECT COUNT(*) FROM ${LocationTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId " +
+                // Same as `(timestamp, _id) > (:afterTimestamp, :afterId)`, without row values in DAO queries
+                "AND ${BaseColumns.TIMESTAMP} >= :afterTimestamp " +
+                "AND (${BaseColumns.TIMESTAMP} > :afterTimestamp OR ${BaseColumns.ID} > :afterId)"
+    )
+    suspend fun countByMeasurementIdAfter(measurementId: Long, afterTimestamp: Long, afterId: Long): Int
+
+    /**
+     * Returns the highest id of the locations of a specific [measurementId] or `null` if there are none.
+     *
+     * Used to decide up to which location the locations of a measurement are archived, see
+     * [de.cyface.persistence.LocationArchiver]. Locations which are already archived are not considered.
+     */
+    @Query(
+        "SELECT MAX(${BaseColumns.ID}) FROM ${LocationTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId"
+    )
+    suspend fun loadMaxIdByMeasurementId(measurementId: Long): Long?
+
+    /**
+     * Returns the number of locations of a specific [measurementId] with an id after [afterId] and up to [maxId].
+     *
+     * Used to count the locations which are archived, see [de.cyface.persistence.LocationArchiver], without counting
+     * locations which were stored afterward. Locations which are already archived are not considered.
+     */
+    @Query(
+        "SELECT COUNT(*) FROM ${LocationTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId " +
+                "AND ${BaseColumns.ID} > :afterId AND ${BaseColumns.ID} <= :maxId"
+    )
+    suspend fun countByMeasurementIdAfterIdUpToId(measurementId: Long, afterId: Long, maxId: Long): Int
+
+    /**
+     * Loads and observes the most recent location of a specified measurement.
+     *
+     * As this returns a `Flow`, queries are automatically run asynchronously on a background thread.
+     */
+    @Query(
+        "SELECT * FROM ${LocationTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId " +
+                "ORDER BY ${BaseColumns.TIMESTAMP} DESC, ${BaseColumns.ID} DESC LIMIT 1"
+    )
+    fun observeLatestByMeasurementId(measurementId: Long): Flow<GeoLocation?>
+
     /**
      * Ordered by timestamp for [de.cyface.persistence.DefaultPersistenceLayer.loadTracks] to work.
      */
@@ -80,6 +170,44 @@ interface LocationDao {
     @Query("DELETE FROM ${LocationTable.URI_PATH} WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId")
     suspend fun deleteItemByMeasurementId(measurementId: Long): Int
 
+    /**
+     * Deletes up to [limit] locations of a specific [measurementId].
+     *
+     * Allows to delete the data of large measurements in short transactions, see
+     * [de.cyface.persistence.DeletionWorker].
+     *
+     * @return The number of deleted locations.
+     */
+    @Query(
+        "DELETE FROM ${LocationTable.URI_PATH} WHERE ${BaseColumns.ID} IN (" +
+                "SELECT ${BaseColumns.ID} FROM ${LocationTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId LIMIT :limit)"
+    )
+    suspend fun deleteBatchByMeasurementId(measurementId: Long, limit: Int): Int
+
+    /**
+     * Deletes up to [limit] locations of a specific [measurementId] with an id up to [maxId].
+     *
+     * Allows to delete the locations which were archived, see [de.cyface.persistence.LocationArchiver], in short
+     * transactions without deleting locations which were stored afterward.
+     *
+     * @return The number of deleted locations.
+     */
+    @Query(
+        "DELETE FROM ${LocationTable.URI_PATH} WHERE ${BaseColumns.ID} IN (" +
+                "SELECT ${BaseColumns.ID} FROM ${LocationTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId AND ${BaseColumns.ID} <= :maxId LIMIT :limit)"
+    )
+    suspend fun deleteBatchByMeasurementIdUpToId(measurementId: Long, maxId: Long, limit: Int): Int
+
+    /**
+     * Deletes the locations with the specified [ids], e.g. to downsample a measurement.
+     *
+     * Pass at most 999 ids, the maximum number of arguments supported by older SQLite versions.
+     */
+    @Query("DELETE FROM ${LocationTable.URI_PATH} WHERE ${BaseColumns.ID} IN (:ids)")
+    suspend fun deleteAllById(ids: List<Long>): Int
+
     @Query("DELETE FROM ${LocationTable.URI_PATH}")
     suspend fun deleteAll(): Int
 }
\ No newline at end of file
@@ -31,7 +31,7 @@ import kotlinx.coroutines.flow.Flow
  * Data access object which provides the API to interact with the [Measurement] database table.
  *
  * @author Armin Schnabel
- * @version 2.1.0
+ * @version 2.3.0
  * @since 7.5.0
  */
 @Dao
@@ -49,20 +49,20 @@ interface MeasurementDao {
     suspend fun getAll(): List<Measurement>
 
     /**
-     * Loads all measurements which are not in the [MeasurementStatus.OPEN] or
-     * [MeasurementStatus.PAUSED] state starting with the newest measurement.
+     * Loads all measurements which are not in the [MeasurementStatus.OPEN], [MeasurementStatus.PAUSED] or
+     * [MeasurementStatus.DELETING] state starting with the newest measurement.
      */
     @Query("SELECT * FROM ${MeasurementTable.URI_PATH} " +
-            "WHERE ${MeasurementTable.COLUMN_STATUS} NOT IN ('OPEN', 'PAUSED') " +
+            "WHERE ${MeasurementTable.COLUMN_STATUS} NOT IN ('OPEN', 'PAUSED', 'DELETING') " +
             "ORDER BY ${BaseColumns.ID} DESC")
     suspend fun loadAllCompleted(): List<Measurement>
 
     /**
-     * Loads and observes all measurements which are not in the [MeasurementStatus.OPEN] or
-     * [MeasurementStatus.PAUSED] state starting with the newest measurement.
+     * Loads and observes all measurements which are not in the [MeasurementStatus.OPEN], [MeasurementStatus.PAUSED]
+     * or [MeasurementStatus.DELETING] state starting with the newest measurement.
      */
     @Query("SELECT * FROM ${MeasurementTable.URI_PATH} " +
-            "WHERE ${MeasurementTable.COLUMN_STATUS} NOT IN ('OPEN', 'PAUSED') " +
+            "WHERE ${MeasurementTable.COLUMN_STATUS} NOT IN ('OPEN', 'PAUSED', 'DELETING') " +
             "ORDER BY ${BaseColumns.ID} DESC")
     fun observeAllCompleted(): Flow<List<Measurement>>
 
@@ -80,6 +80,20 @@ interface MeasurementDao {
     @Query("SELECT * FROM ${MeasurementTable.URI_PATH} WHERE ${MeasurementTable.COLUMN_STATUS} = :status")
     suspend fun loadAllByStatus(status: MeasurementStatus): List<Measurement>
 
+    /**
+     * Checks if there is at least one measurement in the specified status without loading the measurements.
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM ${MeasurementTable.URI_PATH} " +
+            "WHERE ${MeasurementTable.COLUMN_STATUS} = :status)")
+    suspend fun existsByStatus(status: MeasurementStatus): Boolean
+
+    /**
+     * Loads all measurements which are in the [MeasurementStatus.OPEN] or [MeasurementStatus.PAUSED] state.
+     */
+    @Query("SELECT * FROM ${MeasurementTable.URI_PATH} " +
+            "WHERE ${MeasurementTable.COLUMN_STATUS} IN ('OPEN', 'PAUSED')")
+    suspend fun loadAllUnfinished(): List<Measurement>
+
     // Try simplified updates: [RFR-341]
     // https://developer.android.com/training/data-storage/room/accessing-data#convenience-update
     //@Update
@@ -95,6 +109,28 @@ interface MeasurementDao {
             "WHERE ${BaseColumns.ID} = :id")
     suspend fun update(id: Long, status: MeasurementStatus): Int
 
+    /**
+     * Updates the status of a measurement if the transition is allowed, using a single statement.
+     *
+     * @param id The device-unique identifier of the measurement to update.
+     * @param status The new status of the measurement.
+     * @param previousStatuses The statuses the measurement is allowed to be in before the update.
+     * @param conflictingStatuses The statuses no other measurement is allowed to be in.
+     * @return The number of database entries updated, `0` if the transition is not allowed.
+     */
+    @Query("UPDATE ${MeasurementTable.URI_PATH} " +
+            "SET ${MeasurementTable.COLUMN_STATUS} = :status " +
+            "WHERE ${BaseColumns.ID} = :id " +
+            "AND ${MeasurementTable.COLUMN_STATUS} IN (:previousStatuses) " +
+            "AND NOT EXISTS (SELECT 1 FROM ${MeasurementTable.URI_PATH} " +
+            "WHERE ${BaseColumns.ID} != :id AND ${MeasurementTable.COLUMN_STATUS} IN (:conflictingStatuses))")
+    suspend fun updateStatus(
+        id: Long,
+        status: MeasurementStatus,
+        previousStatuses: List<MeasurementStatus>,
+        conflictingStatuses: List<MeasurementStatus>
+    ): Int
+
     /**
      * Updates the measurement distance entry of a measurement in the database.
      *
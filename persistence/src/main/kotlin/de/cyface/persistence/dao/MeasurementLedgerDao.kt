@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import de.cyface.persistence.content.BaseColumns
+import de.cyface.persistence.content.MeasurementLedgerTable
+import de.cyface.persistence.content.MeasurementTable
+import de.cyface.persistence.model.MeasurementLedger
+import de.cyface.persistence.model.MeasurementStatus
+
+/**
+ * Data access object which provides the API to interact with the [MeasurementLedger] database table.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@Dao
+interface MeasurementLedgerDao {
+    /**
+     * Inserts the ledger of a measurement, unless it already exists.
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    suspend fun insert(ledger: MeasurementLedger)
+
+    @Query("SELECT * FROM ${MeasurementLedgerTable.URI_PATH} WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId")
+    suspend fun loadByMeasurementId(measurementId: Long): MeasurementLedger?
+
+    /**
+     * Loads the ledgers of all measurements in a specific [status].
+     */
+    @Query(
+        "SELECT l.* FROM ${MeasurementTable.URI_PATH} m " +
+                "INNER JOIN ${MeasurementLedgerTable.URI_PATH} l " +
+                "ON l.${BaseColumns.MEASUREMENT_ID} = m.${BaseColumns.ID} " +
+                "WHERE m.${MeasurementTable.COLUMN_STATUS} = :status"
+    )
+    suspend fun loadAllByStatus(status: MeasurementStatus): List<MeasurementLedger>
+
+    /**
+     * Adds the captured sensor bytes, locations and pressures to the ledger of a measurement.
+     *
+     * @return The number of ledgers updated, i.e. `0` if the measurement has no ledger.
+     */
+    @Query(
+        "UPDATE ${MeasurementLedgerTable.URI_PATH} SET " +
+                "${MeasurementLedgerTable.COLUMN_ACCELERATION_BYTES} = " +
+                "${MeasurementLedgerTable.COLUMN_ACCELERATION_BYTES} + :accelerationBytes, " +
+                "${MeasurementLedgerTable.COLUMN_ROTATION_BYTES} = " +
+                "${MeasurementLedgerTable.COLUMN_ROTATION_BYTES} + :rotationBytes, " +
+                "${MeasurementLedgerTable.COLUMN_DIRECTION_BYTES} = " +
+                "${MeasurementLedgerTable.COLUMN_DIRECTION_BYTES} + :directionBytes, " +
+                "${MeasurementLedgerTable.COLUMN_LOCATIONS} = " +
+                "${MeasurementLedgerTable.COLUMN_LOCATIONS} + :locations, " +
+                "${MeasurementLedgerTable.COLUMN_PRESSURES} = " +
+                "${MeasurementLedgerTable.COLUMN_PRESSURES} + :pressures " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId"
+    )
+    suspend fun add(
+        measurementId: Long,
+        accelerationBytes: Long,
+        rotationBytes: Long,
+        directionBytes: Long,
+        locations: Long,
+        pressures: Long
+    ): Int
+
+    @Query("DELETE FROM ${MeasurementLedgerTable.URI_PATH}")
+    suspend fun deleteAll(): Int
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import de.cyface.persistence.content.BaseColumns
+import de.cyface.persistence.content.MeasurementSummaryTable
+import de.cyface.persistence.content.MeasurementTable
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.MeasurementSummary
+import de.cyface.persistence.model.RetentionTier
+
+/**
+ * Data access object which provides the API to interact with the [MeasurementSummary] database table.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@Dao
+interface MeasurementSummaryDao {
+    /**
+     * Inserts the summary of a measurement or replaces the existing one.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insert(summary: MeasurementSummary)
+
+    @Query("SELECT * FROM ${MeasurementSummaryTable.URI_PATH} WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId")
+    suspend fun loadByMeasurementId(measurementId: Long): MeasurementSummary?
+
+    /**
+     * Loads the ids of the measurements in a specific [status] which started before [before] and are not yet in
+     * one of the [tiers], starting with the oldest measurement.
+     *
+     * Measurements without a summary are in the [RetentionTier.FULL].
+     */
+    @Query(
+        "SELECT m.${BaseColumns.ID} FROM ${MeasurementTable.URI_PATH} m " +
+                "LEFT JOIN ${MeasurementSummaryTable.URI_PATH} s " +
+                "ON s.${BaseColumns.MEASUREMENT_ID} = m.${BaseColumns.ID} " +
+                "WHERE m.${MeasurementTable.COLUMN_STATUS} = :status AND m.${BaseColumns.TIMESTAMP} < :before " +
+                "AND (s.${MeasurementSummaryTable.COLUMN_TIER} IS NULL " +
+                "OR s.${MeasurementSummaryTable.COLUMN_TIER} NOT IN (:tiers)) " +
+                "ORDER BY m.${BaseColumns.ID} ASC LIMIT :limit"
+    )
+    suspend fun loadIdsNotInTiers(
+        status: MeasurementStatus,
+        before: Long,
+        tiers: List<RetentionTier>,
+        limit: Int
+    ): List<Long>
+
+    @Query(
+        "UPDATE ${MeasurementSummaryTable.URI_PATH} SET ${MeasurementSummaryTable.COLUMN_TIER} = :tier " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId"
+    )
+    suspend fun updateTier(measurementId: Long, tier: RetentionTier): Int
+
+    @Query("DELETE FROM ${MeasurementSummaryTable.URI_PATH}")
+    suspend fun deleteAll(): Int
+}
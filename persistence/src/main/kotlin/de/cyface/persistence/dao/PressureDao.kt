@@ -29,7 +29,7 @@ import de.cyface.persistence.model.Pressure
  * Data access object which provides the API to interact with the [Pressure] database table.
  *
  * @author Armin Schnabel
- * @version 2.0.0
+ * @version 2.1.0
  * @since 7.5.0
  */
 @Dao
@@ -52,6 +52,27 @@ interface PressureDao {
     @Query("DELETE FROM ${PressureTable.URI_PATH} WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId")
     suspend fun deleteItemByMeasurementId(measurementId: Long): Int
 
+    /**
+     * Returns the number of pressures found for a specific [measurementId].
+     */
+    @Query("SELECT COUNT(*) FROM ${PressureTable.URI_PATH} WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId")
+    suspend fun countByMeasurementId(measurementId: Long): Int
+
+    /**
+     * Deletes up to [limit] pressures of a specific [measurementId].
+     *
+     * Allows to delete the data of large measurements in short transactions, see
+     * [de.cyface.persistence.DeletionWorker].
+     *
+     * @return The number of deleted pressures.
+     */
+    @Query(
+        "DELETE FROM ${PressureTable.URI_PATH} WHERE ${BaseColumns.ID} IN (" +
+                "SELECT ${BaseColumns.ID} FROM ${PressureTable.URI_PATH} " +
+                "WHERE ${BaseColumns.MEASUREMENT_ID} = :measurementId LIMIT :limit)"
+    )
+    suspend fun deleteBatchByMeasurementId(measurementId: Long, limit: Int): Int
+
     @Query("DELETE FROM ${PressureTable.URI_PATH}")
     suspend fun deleteAll(): Int
 }
\ No newline at end of file
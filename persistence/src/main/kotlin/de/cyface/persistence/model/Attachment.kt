@@ -21,6 +21,7 @@ package de.cyface.persistence.model
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import de.cyface.protos.model.File.FileType
 import java.nio.file.Path
@@ -35,7 +36,7 @@ import java.nio.file.Path
  * should anyway be cleaner, as parcel is for capturing and the entity for the persistence layer.
  *
  * @author Armin Schnabel
- * @version 2.0.0
+ * @version 2.1.0
  * @since 7.10.0
  * @property id The system-wide unique identifier of this entity, generated by the data store.
  * It's `0`, which equals `null` in the non-nullable column `Long` when the entry is not yet persisted.
@@ -56,6 +57,8 @@ import java.nio.file.Path
  * `DeviceSettingDescription.MonotonicGPSTimeMillis` instead to interpolate the image location.
  * @property measurementId The device-unique id of the measurement this data point belongs to.
  * This foreign key points to [Measurement.id] and is indexed to avoid full table scan on parent update.
+ * The composite indices start with `measurementId` and also serve the attachments of a measurement filtered by
+ * [status] or [type], ordered by [timestamp], without a sort.
  */
 @Entity(
     // Keep the table schema in sync with [de.cyface.persistence.content.AttachmentTable]
@@ -65,11 +68,15 @@ import java.nio.file.Path
         childColumns = arrayOf("measurementId"),
         onDelete = ForeignKey.CASCADE
     )],
-    // Add this if this happens again or with the next database migration
-    // Unique, as the file at "path" will be deleted upon upload and next upload will crash
-    /*indices = [
-        Index(value = ["path"], unique = true) // Ensure duplicate file names crash early [LEIP-344]
-    ]*/
+    indices = [
+        Index(value = ["measurementId", "timestamp"]),
+        Index(value = ["measurementId", "status", "timestamp"]),
+        Index(value = ["measurementId", "type", "timestamp"]),
+        // Not unique as existing databases may already contain duplicates which would fail the migration.
+        // Make this unique if this happens again, as the file at "path" will be deleted upon upload and
+        // next upload will crash. This would ensure duplicate file names crash early [LEIP-344]
+        Index(value = ["path"]),
+    ]
 )
 data class Attachment(
     @ColumnInfo(name = "_id") // The CursorAdapter requires a column with the name `_id`
@@ -84,7 +91,6 @@ data class Attachment(
     val lat: Double?,
     val lon: Double?,
     val locationTimestamp: Long?,
-    @ColumnInfo(index = true)
     val measurementId: Long,
 ) {
     /**
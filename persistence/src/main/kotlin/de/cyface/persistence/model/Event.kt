@@ -22,6 +22,7 @@ import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.ForeignKey
 import androidx.room.ForeignKey.Companion.CASCADE
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import java.util.Objects
 
@@ -31,7 +32,7 @@ import java.util.Objects
  * An instance of this class represents one row in a database table containing the event data.
  *
  * @author Armin Schnabel
- * @version 3.0.0
+ * @version 3.2.0
  * @since 4.0.0
  * @property id The system-wide unique identifier of this entity, generated by the data store.
  * It's `0`, which equals `null` in the non-nullable column `Long` when the entry is not yet persisted.
@@ -42,6 +43,9 @@ import java.util.Objects
  * defines the new [Modality]. Or `Null` if the [type] does not require this a [value].
  * @property measurementId The device-unique id of the measurement this [Event] belongs to.
  * This foreign key points to [Measurement.id] and is indexed to avoid full table scan on parent update.
+ * The index is a composite index on `measurementId`, `timestamp` and `_id` which also serves the events of a
+ * measurement in the order required for seek-based pagination, without a sort. A second composite index serves
+ * the events of a measurement filtered by [type], ordered by [timestamp].
  */
 @Entity(
     foreignKeys = [ForeignKey(
@@ -49,7 +53,11 @@ import java.util.Objects
         parentColumns = arrayOf("_id"),
         childColumns = arrayOf("measurementId"),
         onDelete = CASCADE
-    )]
+    )],
+    indices = [
+        Index(value = ["measurementId", "timestamp", "_id"]),
+        Index(value = ["measurementId", "type", "timestamp"]),
+    ]
 )
 data class Event(
     // Keep the table schema in sync with `ContentProvider`'s [EventTable]
@@ -58,7 +66,7 @@ data class Event(
     val timestamp: Long,
     val type: EventType,
     val value: String?,
-    @ColumnInfo(index = true) val measurementId: Long
+    val measurementId: Long
 ) {
 
     /**
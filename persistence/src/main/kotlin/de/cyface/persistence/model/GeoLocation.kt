@@ -21,6 +21,7 @@ package de.cyface.persistence.model
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 
 /**
@@ -33,7 +34,7 @@ import androidx.room.PrimaryKey
  * should anyway be cleaner, as parcel is for capturing and the entity for the persistence layer.
  *
  * @author Armin Schnabel
- * @version 3.0.0
+ * @version 3.1.0
  * @since 6.3.0
  * @property id The system-wide unique identifier of this entity, generated by the data store.
  * It's `0`, which equals `null` in the non-nullable column `Long` when the entry is not yet persisted.
@@ -48,6 +49,8 @@ import androidx.room.PrimaryKey
  * @property verticalAccuracy The current vertical accuracy of the measuring device in meters.
  * @property measurementId The device-unique id of the measurement this data point belongs to.
  * This foreign key points to [Measurement.id] and is indexed to avoid full table scan on parent update.
+ * The index is a composite index on `measurementId`, `timestamp` and `_id` which also serves the locations of a
+ * measurement in the order required for seek-based pagination, without a sort.
  */
 @Entity(
     // Keep the table schema in sync with `ContentProvider`'s [LocationTable]
@@ -57,7 +60,8 @@ import androidx.room.PrimaryKey
         parentColumns = arrayOf("_id"),
         childColumns = arrayOf("measurementId"),
         onDelete = ForeignKey.CASCADE
-    )]
+    )],
+    indices = [Index(value = ["measurementId", "timestamp", "_id"])]
 )
 data class GeoLocation(
     @ColumnInfo(name = "_id") // The CursorAdapter requires a column with the name `_id`
@@ -70,7 +74,6 @@ data class GeoLocation(
     val speed: Double,
     val accuracy: Double?,
     val verticalAccuracy: Double?,
-    @ColumnInfo(index = true)
     val measurementId: Long,
 ) {
     /**
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.model
+
+/**
+ * A snapshot of the statistics of a [Measurement] which is shown to the user while it is captured.
+ *
+ * Instances are emitted by [de.cyface.persistence.DefaultPersistenceLayer.observeLiveStats].
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property measurementId The device-unique id of the [Measurement] these statistics belong to.
+ * @property status The current [MeasurementStatus] of the [Measurement].
+ * @property duration The time spent capturing in milliseconds, excluding pauses.
+ * @property distance The distance travelled in meters.
+ * @property locationCount The number of [GeoLocation]s captured.
+ * @property currentSpeed The speed of the most recent [GeoLocation] in meters per second or `null` if there is
+ * no location yet.
+ */
+data class LiveMeasurementStats(
+    val measurementId: Long,
+    val status: MeasurementStatus,
+    val duration: Long,
+    val distance: Double,
+    val locationCount: Int,
+    val currentSpeed: Double?
+)
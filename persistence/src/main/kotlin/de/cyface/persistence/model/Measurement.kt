@@ -20,6 +20,7 @@ package de.cyface.persistence.model
 
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 
 /**
@@ -28,12 +29,13 @@ import androidx.room.PrimaryKey
  * An instance of this class represents one row in a database table containing the measurement data.
  *
  * @author Armin Schnabel
- * @version 6.1.0
+ * @version 6.2.0
  * @since 1.0.0
  * @property id The system-wide unique identifier of this entity, generated by the data store.
  * It's `0`, which equals `null` in the non-nullable column `Long` when the entry is not yet persisted.
  * For AndroidDataAccessLayer.getIdOfNextUnSyncedMeasurement() to work the id must be long ASC.
  * @property status The capturing status of the measurement, i.e. whether the capturing is still ongoing.
+ * It's indexed as the measurements are frequently looked up by status, e.g. to find the open measurement.
  * @property modality The modality selected when starting this measurement.
  * @property fileFormatVersion The [de.cyface.persistence.DefaultPersistenceLayer.PERSISTENCE_FILE_FORMAT_VERSION]
  *           used to serialize the data in the file-based persistence layer of this measurement.
@@ -42,7 +44,7 @@ import androidx.room.PrimaryKey
  * @property filesSize The number of bytes of the attachments collected for this measurement (log,
  * image and video data).
  */
-@Entity
+@Entity(indices = [Index(value = ["status"])])
 data class Measurement(
     // Keep the table schema in sync with `ContentProvider`'s [MeasurementTable]
     @ColumnInfo(name = "_id") // The CursorAdapter requires a column with the name `_id`
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.model
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.PrimaryKey
+
+/**
+ * An `@Entity` which represents the size ledger of a [Measurement], i.e. how much data was captured for it.
+ *
+ * The ledger is maintained while the data is captured, so the synchronization, the UI and the size limits can read
+ * the size of a measurement with one query instead of accessing the files. It records the captured data and is not
+ * reduced when data is deleted later, e.g. by the retention policy.
+ *
+ * The [events] and the attachment bytes are counted by database triggers, see
+ * [de.cyface.persistence.content.MeasurementLedgerTable.TRIGGERS], so they include the [Event]s and [Attachment]s
+ * inserted by the app directly.
+ *
+ * The ledgers of measurements captured before the ledger was added are backfilled by the migration, see
+ * [de.cyface.persistence.content.MeasurementLedgerTable.BACKFILL]. They contain no [sensorBytes], which can only be
+ * read from the files.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ * @property measurementId The device-unique id of the measurement. This foreign key points to [Measurement.id] and
+ * is the primary key, as there is one ledger per measurement.
+ * @property accelerationBytes The number of bytes written to the acceleration file.
+ * @property rotationBytes The number of bytes written to the rotation file.
+ * @property directionBytes The number of bytes written to the direction file.
+ * @property locations The number of [GeoLocation]s captured.
+ * @property events The number of [Event]s logged.
+ * @property pressures The number of [Pressure]s captured.
+ * @property logBytes The number of bytes of the log [Attachment]s, i.e. CSV, JSON and JSONL files.
+ * @property imageBytes The number of bytes of the image [Attachment]s.
+ * @property otherBytes The number of bytes of all other [Attachment]s.
+ */
+@Entity(
+    // Keep the table schema in sync with `ContentProvider`'s [MeasurementLedgerTable]
+    foreignKeys = [ForeignKey(
+        entity = Measurement::class,
+        parentColumns = arrayOf("_id"),
+        childColumns = arrayOf("measurementId"),
+        onDelete = ForeignKey.CASCADE
+    )]
+)
+data class MeasurementLedger(
+    @PrimaryKey val measurementId: Long,
+    val accelerationBytes: Long = 0L,
+    val rotationBytes: Long = 0L,
+    val directionBytes: Long = 0L,
+    val locations: Long = 0L,
+    val events: Long = 0L,
+    val pressures: Long = 0L,
+    val logBytes: Long = 0L,
+    val imageBytes: Long = 0L,
+    val otherBytes: Long = 0L,
+) {
+    /**
+     * The number of bytes written to the sensor data files.
+     */
+    val sensorBytes: Long
+        get() = accelerationBytes + rotationBytes + directionBytes
+
+    /**
+     * The number of bytes of all [Attachment]s.
+     */
+    val attachmentBytes: Long
+        get() = logBytes + imageBytes + otherBytes
+}
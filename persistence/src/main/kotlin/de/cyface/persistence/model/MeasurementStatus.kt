@@ -23,7 +23,7 @@ package de.cyface.persistence.model
  * the uploading state is.
  *
  * @author Armin Schnabel
- * @version 1.0.0
+ * @version 1.1.0
  * @property databaseIdentifier The [String] which represents the enumeration value in the database.
  */
 enum class MeasurementStatus(val databaseIdentifier: String) {
@@ -66,5 +66,14 @@ enum class MeasurementStatus(val databaseIdentifier: String) {
     /**
      * This state defines that a [Measurement] is no longer supported (to be synced/resumed).
      */
-    DEPRECATED("DEPRECATED");
+    DEPRECATED("DEPRECATED"),
+
+    /**
+     * This state defines that a [Measurement] is being deleted in the background.
+     *
+     * The data of the measurement is deleted in batches and the measurement is deleted as soon as no data is left.
+     * Measurements in this state are hidden from the completed measurements and the deletion is resumed, if the
+     * process was killed in between, see `de.cyface.persistence.DeletionWorker`.
+     */
+    DELETING("DELETING");
 }
\ No newline at end of file
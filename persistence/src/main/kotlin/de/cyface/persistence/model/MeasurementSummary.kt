@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.model
+
+import androidx.room.Entity
+import androidx.room.ForeignKey
+import androidx.room.PrimaryKey
+
+/**
+ * An `@Entity` which represents the cached statistics of a [Measurement] whose data was reduced by the retention
+ * policy, see [RetentionTier].
+ *
+ * The statistics are calculated from the complete data before it is reduced, so they stay the same afterwards.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property measurementId The device-unique id of the measurement summarized. This foreign key points to
+ * [Measurement.id] and is the primary key, as there is at most one summary per measurement.
+ * @property tier The [RetentionTier] of the measurement.
+ * @property averageSpeed The average speed of the measurement in meters per second.
+ * @property maxSpeed The maximum speed of the measurement in meters per second.
+ * @property ascend The ascend of the measurement in meters or `null` if no altitude information was available.
+ * @property duration The duration of the measurement in milliseconds.
+ */
+@Entity(
+    // Keep the table schema in sync with `ContentProvider`'s [MeasurementSummaryTable]
+    foreignKeys = [ForeignKey(
+        entity = Measurement::class,
+        parentColumns = arrayOf("_id"),
+        childColumns = arrayOf("measurementId"),
+        onDelete = ForeignKey.CASCADE
+    )]
+)
+data class MeasurementSummary(
+    @PrimaryKey val measurementId: Long,
+    val tier: RetentionTier,
+    val averageSpeed: Double,
+    val maxSpeed: Double,
+    val ascend: Double?,
+    val duration: Long,
+)
@@ -21,6 +21,7 @@ package de.cyface.persistence.model
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 
 /**
@@ -33,13 +34,15 @@ import androidx.room.PrimaryKey
  * should anyway be cleaner, as parcel is for capturing and the entity for the persistence layer.
  *
  * @author Armin Schnabel
- * @version 3.0.0
+ * @version 3.1.0
  * @since 6.3.0
  * @property id The system-wide unique identifier of this entity, generated by the data store.
  * It's `0`, which equals `null` in the non-nullable column `Long` when the entry is not yet persisted.
  * @property timestamp The time at this data point was captured in milliseconds since 1.1.1970.
  * @property measurementId The device-unique id of the measurement this data point belongs to.
  * This foreign key points to [Measurement.id] and is indexed to avoid full table scan on parent update.
+ * The index is a composite index on `measurementId` and `timestamp` which also serves the pressures of a
+ * measurement ordered by time, without a sort.
  */
 @Entity(
     // Keep the table schema in sync with `ContentProvider`'s [PressureTable]
@@ -48,7 +51,8 @@ import androidx.room.PrimaryKey
         parentColumns = arrayOf("_id"),
         childColumns = arrayOf("measurementId"),
         onDelete = ForeignKey.CASCADE
-    )]
+    )],
+    indices = [Index(value = ["measurementId", "timestamp"])]
 )
 data class Pressure(
     @ColumnInfo(name = "_id") // The CursorAdapter requires a column with the name `_id`
@@ -56,7 +60,6 @@ data class Pressure(
     var id: Long = 0,
     val timestamp: Long,
     val pressure: Double,
-    @ColumnInfo(index = true)
     val measurementId: Long,
 ) {
     override fun equals(other: Any?): Boolean {
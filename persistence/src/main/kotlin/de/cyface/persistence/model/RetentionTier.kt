@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.model
+
+/**
+ * Defines how much of the data of a synchronized [Measurement] is still stored on the device.
+ *
+ * See `de.cyface.persistence.RetentionEngine` for the policy which moves the measurements through the tiers.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property databaseIdentifier The [String] which represents the enumeration value in the database.
+ */
+enum class RetentionTier(val databaseIdentifier: String) {
+    /**
+     * All data of the [Measurement] is stored.
+     */
+    FULL("FULL"),
+
+    /**
+     * The [GeoLocation]s of the [Measurement] are downsampled, its [Pressure]s are deleted and its statistics are
+     * cached in a [MeasurementSummary].
+     */
+    DOWNSAMPLED("DOWNSAMPLED"),
+
+    /**
+     * Only the [Measurement], its [Attachment] entries and the [MeasurementSummary] are stored.
+     */
+    METADATA("METADATA");
+}
@@ -27,6 +27,7 @@ import de.cyface.persistence.content.EventTable
 import de.cyface.persistence.dao.EventDao
 import de.cyface.persistence.model.Event
 import de.cyface.persistence.model.EventType
+import de.cyface.persistence.serialization.EventSerializer
 import kotlinx.coroutines.flow.Flow
 
 /**
@@ -34,7 +35,7 @@ import kotlinx.coroutines.flow.Flow
  * decides which data source to load the data from.
  *
  * @author Armin Schnabel
- * @version 1.1.0
+ * @version 2.2.0
  * @since 7.5.0
  * @property dao The object to access data from the local persistence layer.
  */
@@ -74,29 +75,34 @@ class EventRepository(private val dao: EventDao) {
     }
 
     /**
-     * Returns a `Cursor` which points to a specific page defined by [limit] and [offset] of all
-     * events of a measurement with a specified the [measurementId].
+     * Returns a `Cursor` which points to a specific page of all events of a measurement with a specified
+     * [measurementId]. The page contains up to [limit] events which follow the event with [afterTimestamp] and
+     * [afterId]. Use [Long.MIN_VALUE] for both to load the first page.
      *
      * This way we can reuse the code in `SyncAdapter` > `TransferFileSerializer` which queries and
      * serializes only 10_000 entries at a time which fixed performance issues with large
      * measurements. This could be replaced by room-paging, but it's not straight forward.
      *
-     * The events are ordered by timestamp.
+     * The pages are seek-based instead of `OFFSET`-based so SQLite does not need to skip the events of all previous
+     * pages. This keeps the cost per page constant as the index on `measurementId`, `timestamp`, `_id` is used.
+     *
+     * The events are ordered by timestamp and id. Only the columns of the [EventSerializer.PROJECTION] are loaded.
      */
     @WorkerThread
     fun selectAllByMeasurementId(
         database: Database,
         measurementId: Long,
-        offset: Int,
+        afterTimestamp: Long,
+        afterId: Long,
         limit: Int
     ): Cursor {
         val query = SimpleSQLiteQuery(
-            "SELECT * FROM ${EventTable.URI_PATH} " +
+            "SELECT ${EventSerializer.PROJECTION.joinToString()} FROM ${EventTable.URI_PATH} " +
                     "WHERE ${BaseColumns.MEASUREMENT_ID} = ? " +
-                    "ORDER BY ${BaseColumns.TIMESTAMP} ASC " +
-                    "LIMIT ? " +
-                    "OFFSET ?",
-            arrayOf(measurementId, limit, offset)
+                    "AND (${BaseColumns.TIMESTAMP}, ${BaseColumns.ID}) > (?, ?) " +
+                    "ORDER BY ${BaseColumns.TIMESTAMP} ASC, ${BaseColumns.ID} ASC " +
+                    "LIMIT ?",
+            arrayOf(measurementId, afterTimestamp, afterId, limit)
         )
         // Executing `Cursor` based query directly on the `database` without `dao` layer as Room
         // does not support `Cursor` return types with `KSP` properly.
@@ -104,6 +110,20 @@ class EventRepository(private val dao: EventDao) {
         return database.query(query)
     }
 
+    /**
+     * Loads up to [limit] events of a specific [measurementId] which follow the event with the [afterTimestamp] and
+     * [afterId], ordered by timestamp and id. Use [Long.MIN_VALUE] for both to load the first page.
+     */
+    @WorkerThread
+    suspend fun loadPageByMeasurementId(
+        measurementId: Long,
+        afterTimestamp: Long,
+        afterId: Long,
+        limit: Int
+    ): List<Event> {
+        return dao.loadPageByMeasurementId(measurementId, afterTimestamp, afterId, limit)
+    }
+
     /**
      * Returns the number of events found for a specific [measurementId].
      */
@@ -29,7 +29,7 @@ import kotlinx.coroutines.flow.Flow
  * decides which data source to load the data from.
  *
  * @author Armin Schnabel
- * @version 1.1.0
+ * @version 1.2.0
  * @since 7.5.0
  * @property dao The object to access data from the local persistence layer.
  */
@@ -80,6 +80,16 @@ class MeasurementRepository(private val dao: MeasurementDao) {
         return dao.loadAllByStatus(status)
     }
 
+    @WorkerThread
+    suspend fun existsByStatus(status: MeasurementStatus): Boolean {
+        return dao.existsByStatus(status)
+    }
+
+    @WorkerThread
+    suspend fun loadAllUnfinished(): List<Measurement> {
+        return dao.loadAllUnfinished()
+    }
+
     @WorkerThread
     suspend fun updateFileFormatVersion(id: Long, fileFormatVersion: Short): Int {
         return dao.updateFileFormatVersion(id, fileFormatVersion)
@@ -90,6 +100,16 @@ class MeasurementRepository(private val dao: MeasurementDao) {
         return dao.update(id, status)
     }
 
+    @WorkerThread
+    suspend fun updateStatus(
+        id: Long,
+        status: MeasurementStatus,
+        previousStatuses: List<MeasurementStatus>,
+        conflictingStatuses: List<MeasurementStatus>
+    ): Int {
+        return dao.updateStatus(id, status, previousStatuses, conflictingStatuses)
+    }
+
     @WorkerThread
     suspend fun updateDistance(id: Long, distance: Double): Int {
         return dao.updateDistance(id, distance)
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.net.ConnectivityManager
+import android.os.BatteryManager
+import android.util.Log
+import de.cyface.persistence.Constants.TAG
+import java.util.Locale
+
+/**
+ * A [CompressionPolicy] which chooses the compression level depending on the device and its current state.
+ *
+ * The level is chosen by [chooseLevel] from:
+ * - the throughput measured for each level on this device,
+ * - the size of the transfer file and the total size of the data waiting to be uploaded,
+ * - whether the device is charging,
+ * - whether the network is metered.
+ *
+ * On metered networks with a large backlog, fast levels are used so the data is uploaded before the connection is
+ * lost. When charging on an unmetered network, the highest level is used which is still compressed in time.
+ *
+ * The statistics of each compression are stored per level in the [SharedPreferences], see [statistics], so the
+ * policy can be tuned from field data.
+ *
+ * The policy is used by the synchronization and by the [de.cyface.persistence.TransferFileJobService], so the
+ * precomputed transfer files are compressed with the same levels as the transfer files serialized by the
+ * synchronization. The [SharedPreferences] are not synchronized between processes, so statistics recorded by both
+ * at the same time can get lost.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 7.14.0
+ * @property context The context to access the battery, network and preferences.
+ */
+class AdaptiveCompressionPolicy(private val context: Context) : CompressionPolicy {
+
+    private val preferences: SharedPreferences =
+        context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE)
+
+    /**
+     * The estimated size in bytes of all transfer files which wait to be serialized, including the current one.
+     *
+     * Written by the sync while the transfer files are serialized on another thread, see
+     * `de.cyface.synchronization.TransferFilePrefetcher`.
+     */
+    @Volatile
+    var backlogBytes = 0L
+
+    override fun level(uncompressedBytes: Long): Int {
+        val battery = context.getSystemService(BatteryManager::class.java)
+        val connectivity = context.getSystemService(ConnectivityManager::class.java)
+        val charging = battery?.isCharging ?: false
+        // Assume the worst if the state is unknown
+        val metered = connectivity?.isActiveNetworkMetered ?: true
+        val level = chooseLevel(
+            uncompressedBytes,
+            maxOf(backlogBytes, uncompressedBytes),
+            charging,
+            metered
+        ) { throughput(it) }
+        Log.d(
+            TAG,
+            "Compression level $level for $uncompressedBytes bytes (backlog: $backlogBytes bytes, " +
+                    "charging: $charging, metered: $metered)"
+        )
+        return level
+    }
+
+    override fun onCompressed(result: CompressionResult) {
+        val level = result.level
+        val previous = preferences.getFloat(key(level, THROUGHPUT), 0f)
+        // Exponential moving average, so the throughput follows changes like an app update or thermal throttling
+        val throughput = if (previous == 0f) {
+            result.throughput
+        } else {
+            previous * (1 - THROUGHPUT_WEIGHT) + result.throughput * THROUGHPUT_WEIGHT
+        }
+        preferences.edit()
+            .putFloat(key(level, THROUGHPUT), throughput.toFloat())
+            .putLong(key(level, COUNT), preferences.getLong(key(level, COUNT), 0L) + 1)
+            .putLong(key(level, UNCOMPRESSED_BYTES), preferences.getLong(key(level, UNCOMPRESSED_BYTES), 0L) +
+                    result.uncompressedBytes)
+            .putLong(key(level, COMPRESSED_BYTES), preferences.getLong(key(level, COMPRESSED_BYTES), 0L) +
+                    result.compressedBytes)
+            .putLong(key(level, CPU_TIME), preferences.getLong(key(level, CPU_TIME), 0L) + result.cpuTimeMillis)
+            .apply()
+        Log.i(
+            TAG,
+            String.format(
+                Locale.ENGLISH,
+                "Compressed with level %d: ratio %.2f, %d ms, CPU time %d ms, %.0f bytes/ms",
+                level, result.ratio, result.durationMillis, result.cpuTimeMillis, result.throughput
+            )
+        )
+    }
+
+    /**
+     * Returns the statistics of all compressions on this device, e.g. to collect them from the field.
+     *
+     * @return The statistics by the compression level, for each level which was used at least once.
+     */
+    fun statistics(): Map<Int, Statistics> {
+        return (0..MAX_LEVEL).filter { preferences.getLong(key(it, COUNT), 0L) > 0 }.associateWith {
+            Statistics(
+                preferences.getLong(key(it, COUNT), 0L),
+                preferences.getLong(key(it, UNCOMPRESSED_BYTES), 0L),
+                preferences.getLong(key(it, COMPRESSED_BYTES), 0L),
+                preferences.getLong(key(it, CPU_TIME), 0L),
+                preferences.getFloat(key(it, THROUGHPUT), 0f).toDouble()
+            )
+        }
+    }
+
+    /**
+     * @return The measured throughput of a level in uncompressed bytes per millisecond, or the default estimate
+     * if the level was not used on this device yet.
+     */
+    private fun throughput(level: Int): Double {
+        val measured = preferences.getFloat(key(level, THROUGHPUT), 0f)
+        return if (measured > 0f) measured.toDouble() else DEFAULT_THROUGHPUT.getValue(level)
+    }
+
+    private fun key(level: Int, statistic: String) = "level_${level}_$statistic"
+
+    /**
+     * The statistics of all compressions with one level.
+     *
+     * @property count The number of transfer files compressed.
+     * @property uncompressedBytes The total size of the transfer files before compression.
+     * @property compressedBytes The total size of the transfer files after compression.
+     * @property cpuTimeMillis The total CPU time used to deflate the transfer files.
+     * @property throughput The moving average of uncompressed bytes deflated per millisecond by one thread.
+     */
+    data class Statistics(
+        val count: Long,
+        val uncompressedBytes: Long,
+        val compressedBytes: Long,
+        val cpuTimeMillis: Long,
+        val throughput: Double
+    ) {
+        /**
+         * The average compression ratio.
+         */
+        val ratio: Double
+            get() = if (compressedBytes == 0L) 0.0 else uncompressedBytes.toDouble() / compressedBytes
+    }
+
+    companion object {
+        /**
+         * The name of the [SharedPreferences] file which contains the statistics. Named after the module which
+         * contained the policy before, so the statistics collected since are kept.
+         */
+        private const val PREFERENCES_NAME = "de.cyface.synchronization.compression"
+        private const val THROUGHPUT = "throughput"
+        private const val COUNT = "count"
+        private const val UNCOMPRESSED_BYTES = "uncompressed_bytes"
+        private const val COMPRESSED_BYTES = "compressed_bytes"
+        private const val CPU_TIME = "cpu_time"
+
+        /**
+         * The weight of a new throughput measurement in the moving average.
+         */
+        private const val THROUGHPUT_WEIGHT = 0.2
+
+        private const val MAX_LEVEL = 9
+
+        /**
+         * The levels which are chosen from. The levels in between hardly differ for our data.
+         */
+        private val LEVELS = listOf(1, 3, FixedCompressionPolicy.DEFAULT_LEVEL, 6, MAX_LEVEL)
+
+        /**
+         * The throughput in uncompressed bytes per millisecond assumed until a level was used on the device.
+         */
+        private val DEFAULT_THROUGHPUT = (0..MAX_LEVEL).associateWith {
+            when (it) {
+                0, 1 -> 40_000.0
+                2, 3 -> 30_000.0
+                4, 5 -> 20_000.0
+                6 -> 15_000.0
+                else -> 5_000.0
+            }
+        }
+
+        /**
+         * A backlog from which fast levels are used on metered networks, about 5 hours of sensor data.
+         */
+        internal const val LARGE_BACKLOG_BYTES = 100L * 1024 * 1024
+
+        /**
+         * The time a transfer file may take to compress when charging on an unmetered network.
+         */
+        internal const val CHARGING_BUDGET_MILLIS = 60_000L
+
+        /**
+         * The time a transfer file may take to compress on battery. Android's `SyncManager` cancels syncs which
+         * make no progress for about two minutes.
+         */
+        internal const val BATTERY_BUDGET_MILLIS = 20_000L
+
+        /**
+         * Chooses the compression level.
+         *
+         * @param uncompressedBytes The estimated size of the transfer file before compression.
+         * @param backlogBytes The estimated size of all transfer files which wait to be uploaded.
+         * @param charging `true` if the device is charging.
+         * @param metered `true` if the network is metered, e.g. mobile data.
+         * @param throughput Returns the throughput of a level in uncompressed bytes deflated per millisecond by one
+         * thread. As the transfer file is deflated by multiple threads, the expected time is an upper bound.
+         * @return The highest level which fits the conditions and is expected to finish within the time budget.
+         */
+        internal fun chooseLevel(
+            uncompressedBytes: Long,
+            backlogBytes: Long,
+            charging: Boolean,
+            metered: Boolean,
+            throughput: (Int) -> Double
+        ): Int {
+            val (maxLevel, budgetMillis) = when {
+                metered && backlogBytes >= LARGE_BACKLOG_BYTES -> Pair(1, BATTERY_BUDGET_MILLIS)
+                metered -> Pair(FixedCompressionPolicy.DEFAULT_LEVEL, BATTERY_BUDGET_MILLIS)
+                charging -> Pair(MAX_LEVEL, CHARGING_BUDGET_MILLIS)
+                else -> Pair(6, BATTERY_BUDGET_MILLIS)
+            }
+            return LEVELS.filter { it <= maxLevel }.lastOrNull { level ->
+                uncompressedBytes / throughput(level) <= budgetMillis
+            } ?: LEVELS.first()
+        }
+    }
+}
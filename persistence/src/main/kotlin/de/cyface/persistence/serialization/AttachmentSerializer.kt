@@ -42,19 +42,7 @@ class AttachmentSerializer {
      */
     fun readFrom(attachment: Attachment) {
         val builder = de.cyface.protos.model.File.newBuilder()
-        require(attachment.type == FileType.CSV || attachment.type == FileType.JSON ||
-            attachment.type == FileType.JPG || attachment.type == FileType.JSONL) {
-            "Unsupported type: ${attachment.type}"
-        }
-
-        // Ensure we only inject bytes from the correct file format version
-        // The current version of the file format used to persist attachment data. It's stored in each attachment
-        // database entry and allows to have stored and process attachments with different file format versions
-        // at the same time.
-        // Check fileFormatVersion for the specific type (right now both types only support 1)
-        require(attachment.fileFormatVersion == 1.toShort()) {
-            "Unsupported format version (${attachment.fileFormatVersion}) for type ${attachment.type}"
-        }
+        requireSupported(attachment)
 
         builder.timestamp = attachment.timestamp
         builder.type = attachment.type
@@ -74,4 +62,42 @@ class AttachmentSerializer {
     fun result(): de.cyface.protos.model.File {
         return serialized
     }
-}
\ No newline at end of file
+
+    companion object {
+        /**
+         * Checks if an [Attachment] is a log file, i.e. a text file which can be bundled with other log files into
+         * one ZIP for upload, see [MeasurementSerializer.writeAttachmentBundle].
+         *
+         * @param attachment the [Attachment] to check
+         * @return `true` for CSV, JSON and JSONL attachments
+         */
+        @JvmStatic
+        fun isLog(attachment: Attachment): Boolean {
+            return attachment.type == FileType.CSV || attachment.type == FileType.JSON ||
+                    attachment.type == FileType.JSONL
+        }
+
+        /**
+         * Checks that the type and file format version of an [Attachment] are supported.
+         *
+         * @param attachment the [Attachment] to check
+         * @throws IllegalArgumentException if the attachment is not supported
+         */
+        @JvmStatic
+        fun requireSupported(attachment: Attachment) {
+            require(attachment.type == FileType.CSV || attachment.type == FileType.JSON ||
+                attachment.type == FileType.JPG || attachment.type == FileType.JSONL) {
+                "Unsupported type: ${attachment.type}"
+            }
+
+            // Ensure we only inject bytes from the correct file format version
+            // The current version of the file format used to persist attachment data. It's stored in each attachment
+            // database entry and allows to have stored and process attachments with different file format versions
+            // at the same time.
+            // Check fileFormatVersion for the specific type (right now both types only support 1)
+            require(attachment.fileFormatVersion == 1.toShort()) {
+                "Unsupported format version (${attachment.fileFormatVersion}) for type ${attachment.type}"
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+/**
+ * Decides which compression level the [MeasurementSerializer] uses for a transfer file.
+ *
+ * Higher levels produce smaller files, which reduces the upload time and mobile data, but take more CPU time and
+ * battery to compress.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+interface CompressionPolicy {
+    /**
+     * Chooses the compression level for a transfer file.
+     *
+     * @param uncompressedBytes The estimated size of the transfer file before compression.
+     * @return The `Deflater` level, from `0` to `9`.
+     */
+    fun level(uncompressedBytes: Long): Int
+
+    /**
+     * Is called after a transfer file was compressed with the chosen level, so the policy can adapt to the device.
+     *
+     * @param result The statistics of the compression.
+     */
+    fun onCompressed(result: CompressionResult)
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+/**
+ * The statistics of compressing one transfer file, see [CompressionPolicy.onCompressed].
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ * @property level The `Deflater` level which was used.
+ * @property uncompressedBytes The size of the transfer file before compression.
+ * @property compressedBytes The size of the transfer file after compression.
+ * @property durationMillis The time spent deflating the transfer file, summed up over all threads. The time it took
+ * to load and serialize the data is not included, as it does not depend on the level.
+ * @property cpuTimeMillis The CPU time the threads used to deflate the transfer file, summed up over all threads, or
+ * `0` if it's not supported by the device.
+ */
+data class CompressionResult(
+    val level: Int,
+    val uncompressedBytes: Long,
+    val compressedBytes: Long,
+    val durationMillis: Long,
+    val cpuTimeMillis: Long
+) {
+    /**
+     * The compression ratio, i.e. how many times smaller the compressed file is.
+     */
+    val ratio: Double
+        get() = if (compressedBytes == 0L) 0.0 else uncompressedBytes.toDouble() / compressedBytes
+
+    /**
+     * The number of uncompressed bytes deflated per millisecond by one thread.
+     */
+    val throughput: Double
+        get() = uncompressedBytes.toDouble() / durationMillis.coerceAtLeast(1L)
+}
@@ -28,8 +28,10 @@ import kotlin.math.pow
 /**
  * Serializes [Event]s in the [MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION].
  *
+ * Database `Cursor`s should only contain the columns of the [PROJECTION].
+ *
  * @author Armin Schnabel
- * @version 1.0.2
+ * @version 1.3.0
  * @since 7.0.0
  */
 class EventSerializer {
@@ -41,18 +43,22 @@ class EventSerializer {
     /**
      * Loads and parses [de.cyface.persistence.model.Event]s from a database `Cursor`.
      *
-     * @param cursor the `Cursor` to load the `Event` data from.
+     * The column indices are resolved once per `Cursor`.
+     *
+     * @param cursor the `Cursor` to load the `Event` data from, e.g. with the columns of the [PROJECTION].
      */
     fun readFrom(cursor: Cursor) {
+        val timestampColumn = cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP)
+        val typeColumn = cursor.getColumnIndexOrThrow(EventTable.COLUMN_TYPE)
+        val valueColumn = cursor.getColumnIndexOrThrow(EventTable.COLUMN_VALUE)
         // The ProtoBuf `events` field is `repeated`, i.e. build one Event per entry.
         while (cursor.moveToNext()) {
             val builder = Event.newBuilder()
-            val timestamp =
-                cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP))
-            val typeString = cursor.getString(cursor.getColumnIndexOrThrow(EventTable.COLUMN_TYPE))
+            val timestamp = cursor.getLong(timestampColumn)
+            val typeString = cursor.getString(typeColumn)
 
             @Nullable // Because not all EventTypes use this field
-            val value = cursor.getString(cursor.getColumnIndexOrThrow(EventTable.COLUMN_VALUE))
+            val value = cursor.getString(valueColumn)
             val type = Event.EventType.valueOf(typeString)
             builder.setTimestamp(timestamp).type = type
             if (value != null) {
@@ -64,10 +70,54 @@ class EventSerializer {
         }
     }
 
+    /**
+     * Parses already loaded [de.cyface.persistence.model.Event]s.
+     *
+     * @param events the `Event`s to parse.
+     */
+    fun readFrom(events: List<de.cyface.persistence.model.Event>) {
+        events.forEach {
+            val builder = Event.newBuilder()
+                .setTimestamp(it.timestamp)
+                .setType(Event.EventType.valueOf(it.type.databaseIdentifier))
+            if (it.value != null) {
+                // ProtoBuf `string` must contain UTF-8 encoded text and cannot be longer than 2^32.
+                require(it.value.length <= 2.0.pow(32.0))
+                builder.value = it.value
+            }
+            this.events.add(builder.build())
+        }
+    }
+
     /**
      * @return the `Event`s in the serialized format.
      */
     fun result(): List<Event> {
         return events
     }
+
+    /**
+     * Returns the events added since the previous batch and removes them from this serializer.
+     *
+     * @return the `Event`s added since the previous batch in the serialized format.
+     */
+    fun nextBatch(): List<Event> {
+        val batch = events.toList()
+        events.clear()
+        return batch
+    }
+
+    companion object {
+        /**
+         * The columns to query for serialization. The [BaseColumns.ID] is not serialized, but required to load the
+         * next page.
+         */
+        @JvmField
+        val PROJECTION = arrayOf(
+            BaseColumns.ID,
+            BaseColumns.TIMESTAMP,
+            EventTable.COLUMN_TYPE,
+            EventTable.COLUMN_VALUE
+        )
+    }
 }
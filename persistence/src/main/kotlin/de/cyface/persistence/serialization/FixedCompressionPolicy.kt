@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+/**
+ * A [CompressionPolicy] which always uses the same compression level.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property level The `Deflater` level to use, from `0` to `9`.
+ */
+class FixedCompressionPolicy(private val level: Int = DEFAULT_LEVEL) : CompressionPolicy {
+
+    init {
+        require(level in 0..9) { "Unsupported compression level: $level" }
+    }
+
+    override fun level(uncompressedBytes: Long) = level
+
+    override fun onCompressed(result: CompressionResult) = Unit
+
+    companion object {
+        /**
+         * The level which was used before the level could be chosen.
+         */
+        const val DEFAULT_LEVEL = 5 // 'cause Steve Jobs said so
+    }
+}
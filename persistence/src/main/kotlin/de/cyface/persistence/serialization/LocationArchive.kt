@@ -0,0 +1,499 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import android.util.Log
+import com.google.protobuf.CodedInputStream
+import com.google.protobuf.CodedOutputStream
+import de.cyface.persistence.Constants.TAG
+import de.cyface.persistence.io.FileIOHandler
+import de.cyface.persistence.model.GeoLocation
+import java.io.Closeable
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+
+/**
+ * The file format to archive the [GeoLocation]s of a finished measurement, see
+ * [de.cyface.persistence.LocationArchiver].
+ *
+ * The locations are stored in blocks of up to [BLOCK_SIZE] locations, so they can be read and written block by block
+ * without loading the whole archive, see [useLocations] and [writer]. Within a block, the locations are stored
+ * column by column. Like the `LocationOffsetter` of the transfer file format, each value is stored as the difference
+ * to the previous value of the column, encoded as zigzag variable-length integer. For the nullable columns a bitmap
+ * marks the locations which have a value.
+ *
+ * The values are stored losslessly, so the locations read are equal to the locations written and e.g. the
+ * transfer file of a measurement does not change when its locations are archived. For this, the difference of the
+ * bit patterns of consecutive values is stored. As consecutive locations are close to each other, the upper bits
+ * are mostly equal. Columns which only contain values converted from `Float`, like the speed and accuracy reported
+ * by Android, are stored as `Float` bits, which take fewer bytes.
+ *
+ * @author Armin Schnabel
+ * @version 1.3.0
+ * @since 7.14.0
+ * @property file The [File] pointer to the actual file.
+ * @property measurementId The id of the measurement the locations belong to.
+ * @property count The number of archived locations.
+ * @property maxId The highest [GeoLocation.id] archived. Locations with a higher id were stored after the archive
+ * was written.
+ */
+class LocationArchive private constructor(
+    val file: File,
+    val measurementId: Long,
+    val count: Int,
+    val maxId: Long
+) {
+    /**
+     * Loads the archived locations.
+     *
+     * Use [useLocations] to process large archives without loading them at once.
+     *
+     * @return The locations in the order they were archived, i.e. ordered by timestamp.
+     */
+    fun read(): List<GeoLocation> {
+        return useLocations { it.toList() }
+    }
+
+    /**
+     * Reads the archived locations block by block, so only one block is held in memory at a time.
+     *
+     * @param block Processes the locations in the order they were archived, i.e. ordered by timestamp. The
+     * `Sequence` can only be iterated once and only until `block` returns, as the file is closed afterward.
+     * @return The result of `block`.
+     */
+    fun <T> useLocations(block: (Sequence<GeoLocation>) -> T): T {
+        try {
+            FileInputStream(file).use { stream ->
+                val input = CodedInputStream.newInstance(stream)
+                readHeader(input)
+                val locations = sequence {
+                    var remaining = count
+                    while (remaining > 0) {
+                        val next = readBlock(input)
+                        remaining -= next.size
+                        yieldAll(next)
+                    }
+                }
+                return block(locations.constrainOnce())
+            }
+        } catch (e: IOException) {
+            throw IllegalStateException("Failed to read location archive: ${file.path}", e)
+        }
+    }
+
+    /**
+     * Reads the next block of locations.
+     */
+    private fun readBlock(input: CodedInputStream): List<GeoLocation> {
+        val size = input.readUInt32()
+        if (size <= 0) {
+            throw IOException("Invalid block size: $size")
+        }
+        val ids = readColumn(input, size)
+        val timestamps = readColumn(input, size)
+        val latitudes = readDoubleColumn(input, size, false)
+        val longitudes = readDoubleColumn(input, size, false)
+        val altitudes = readDoubleColumn(input, size, true)
+        val speeds = readDoubleColumn(input, size, false)
+        val accuracies = readDoubleColumn(input, size, true)
+        val verticalAccuracies = readDoubleColumn(input, size, true)
+        return List(size) {
+            GeoLocation(
+                ids[it],
+                timestamps[it],
+                latitudes[it]!!,
+                longitudes[it]!!,
+                altitudes[it],
+                speeds[it]!!,
+                accuracies[it],
+                verticalAccuracies[it],
+                measurementId
+            )
+        }
+    }
+
+    /**
+     * Deletes the archive file.
+     */
+    fun delete() {
+        if (file.exists()) {
+            require(file.delete())
+        }
+    }
+
+    /**
+     * Writes an archive block by block, so only one block is held in memory at a time, see [writer].
+     *
+     * The file is written completely and synced to the disk before it replaces the previous archive, so the
+     * archived rows can be deleted afterward and readers never see a partially written archive. The directory is
+     * synced after the replacement, so the new archive is also found after a power loss.
+     *
+     * @property file The [File] pointer to the archive to replace.
+     * @property measurementId The id of the measurement the locations belong to.
+     * @property count The number of locations to append.
+     * @property maxId The highest id of the locations which are replaced by the archive.
+     * @property blockSize The maximal number of locations stored in one block.
+     */
+    class Writer internal constructor(
+        private val file: File,
+        private val measurementId: Long,
+        private val count: Int,
+        private val maxId: Long,
+        private val blockSize: Int
+    ) : Closeable {
+        private val temporary = File(file.path + TEMPORARY_SUFFIX)
+        private val stream: FileOutputStream
+        private val output: CodedOutputStream
+        private val block = ArrayList<GeoLocation>(minOf(blockSize, count))
+        private var appended = 0
+        private var committed = false
+
+        init {
+            try {
+                stream = FileOutputStream(temporary)
+                output = CodedOutputStream.newInstance(stream)
+                output.writeUInt32NoTag(FORMAT_VERSION)
+                output.writeUInt32NoTag(count)
+                output.writeInt64NoTag(maxId)
+            } catch (e: IOException) {
+                temporary.delete()
+                throw failed(e)
+            }
+        }
+
+        /**
+         * Appends locations to the archive.
+         *
+         * @param locations The locations to append, ordered by timestamp. They follow the locations appended before.
+         */
+        fun append(locations: Sequence<GeoLocation>) {
+            check(!committed) { "Archive already committed" }
+            try {
+                locations.forEach {
+                    block.add(it)
+                    if (block.size == blockSize) {
+                        flushBlock()
+                    }
+                }
+            } catch (e: IOException) {
+                throw failed(e)
+            }
+        }
+
+        /**
+         * Writes the remaining locations and replaces the previous archive.
+         *
+         * @return The written archive.
+         * @throws IllegalStateException If not exactly `count` locations were appended.
+         */
+        fun commit(): LocationArchive {
+            check(!committed) { "Archive already committed" }
+            try {
+                if (block.isNotEmpty()) {
+                    flushBlock()
+                }
+                check(appended == count) { "Appended $appended locations instead of $count" }
+                output.flush()
+                // The archived rows are deleted afterward, so the file must not get lost on a power loss
+                stream.fd.sync()
+                stream.close()
+            } catch (e: IOException) {
+                throw failed(e)
+            }
+            if (!temporary.renameTo(file)) {
+                throw IllegalStateException("Failed to replace location archive: ${file.path}")
+            }
+            committed = true
+            syncDirectory(file.parentFile!!)
+            return LocationArchive(file, measurementId, count, maxId)
+        }
+
+        /**
+         * Deletes the written file if the archive was not committed.
+         */
+        override fun close() {
+            if (!committed) {
+                try {
+                    stream.close()
+                } catch (e: IOException) {
+                    Log.w(TAG, "Failed to close location archive: ${temporary.path}", e)
+                }
+                temporary.delete()
+            }
+        }
+
+        private fun flushBlock() {
+            check(appended + block.size <= count) { "More than $count locations appended" }
+            writeBlock(output, block)
+            appended += block.size
+            block.clear()
+        }
+
+        private fun failed(e: IOException): IllegalStateException {
+            return IllegalStateException("Failed to write location archive. Is there space left on the device?", e)
+        }
+    }
+
+    companion object {
+        /**
+         * The name of the folder containing the location archives.
+         */
+        const val FOLDER_NAME = "locations"
+
+        /**
+         * The file extension of location archives. This makes sure no system-generated files in the [FOLDER_NAME]
+         * are identified as [LocationArchive]s.
+         */
+        const val FILE_EXTENSION = "cyfl"
+
+        /**
+         * The version of the file format, stored at the beginning of each file.
+         */
+        private const val FORMAT_VERSION = 3
+
+        /**
+         * The default maximal number of locations stored in one block.
+         */
+        const val BLOCK_SIZE = 1_000
+
+        /**
+         * Marks a column of `Double` values stored as `Double` bits.
+         */
+        private const val DOUBLE_BITS = 0
+
+        /**
+         * Marks a column of `Double` values stored as `Float` bits, as they were all converted from `Float`.
+         */
+        private const val FLOAT_BITS = 1
+
+        /**
+         * The suffix of the file which is written before it replaces the archive.
+         */
+        private const val TEMPORARY_SUFFIX = ".tmp"
+
+        /**
+         * Loads an existing [LocationArchive] of a specified measurement if it exists.
+         *
+         * Only the header of the file is read.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement for which the archive is to be found.
+         * @return The archive or `null` if the locations of the measurement are not archived.
+         */
+        @JvmStatic
+        fun load(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): LocationArchive? {
+            val file = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FILE_EXTENSION)
+            if (!file.exists()) {
+                return null
+            }
+            try {
+                FileInputStream(file).use { stream ->
+                    val input = CodedInputStream.newInstance(stream)
+                    val (count, maxId) = readHeader(input)
+                    return LocationArchive(file, measurementId, count, maxId)
+                }
+            } catch (e: IOException) {
+                throw IllegalStateException("Failed to read location archive: ${file.path}", e)
+            }
+        }
+
+        /**
+         * Writes the locations of a measurement into its archive, replacing an existing archive.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement the locations belong to.
+         * @param locations The locations to archive, ordered by timestamp.
+         * @param maxId The highest id of the locations which are replaced by the archive. This can be higher than
+         * the ids of the [locations], e.g. when the locations were downsampled.
+         * @param blockSize The maximal number of locations stored in one block.
+         * @return The written archive.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun write(
+            context: Context,
+            fileIOHandler: FileIOHandler,
+            measurementId: Long,
+            locations: List<GeoLocation>,
+            maxId: Long = locations.maxOfOrNull { it.id } ?: 0L,
+            blockSize: Int = BLOCK_SIZE
+        ): LocationArchive {
+            writer(context, fileIOHandler, measurementId, locations.size, maxId, blockSize).use {
+                it.append(locations.asSequence())
+                return it.commit()
+            }
+        }
+
+        /**
+         * Starts to write the locations of a measurement into its archive, replacing an existing archive when
+         * [Writer.commit] is called.
+         *
+         * Use this to archive large measurements without loading their locations at once. The header of the archive
+         * is written first, so the number of locations must be known in advance.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement the locations belong to.
+         * @param count The number of locations which will be appended.
+         * @param maxId The highest id of the locations which are replaced by the archive.
+         * @param blockSize The maximal number of locations stored in one block.
+         * @return The [Writer] which must be closed, also when the archive was not committed.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun writer(
+            context: Context,
+            fileIOHandler: FileIOHandler,
+            measurementId: Long,
+            count: Int,
+            maxId: Long,
+            blockSize: Int = BLOCK_SIZE
+        ): Writer {
+            require(blockSize > 0) { "Invalid block size: $blockSize" }
+            require(count >= 0) { "Invalid count: $count" }
+            val folder = fileIOHandler.getFolderPath(context, FOLDER_NAME)
+            if (!folder.exists()) {
+                require(folder.mkdirs())
+            }
+            val file = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FILE_EXTENSION)
+            return Writer(file, measurementId, count, maxId, blockSize)
+        }
+
+        /**
+         * Reads the header of an archive.
+         *
+         * @return The number of archived locations and the highest archived id.
+         */
+        private fun readHeader(input: CodedInputStream): Pair<Int, Long> {
+            val version = input.readUInt32()
+            require(version == FORMAT_VERSION) { "Unsupported location archive version: $version" }
+            val count = input.readUInt32()
+            val maxId = input.readInt64()
+            return Pair(count, maxId)
+        }
+
+        /**
+         * Syncs the entries of a directory to the disk, so a file renamed within it is not lost on a power loss.
+         */
+        private fun syncDirectory(directory: File) {
+            try {
+                FileChannel.open(directory.toPath(), StandardOpenOption.READ).use { it.force(true) }
+            } catch (e: IOException) {
+                // Not supported by all file systems, the rename is still atomic
+                Log.w(TAG, "Failed to sync directory: ${directory.path}", e)
+            }
+        }
+
+        private fun writeBlock(output: CodedOutputStream, locations: List<GeoLocation>) {
+            output.writeUInt32NoTag(locations.size)
+            writeColumn(output, locations) { it.id }
+            writeColumn(output, locations) { it.timestamp }
+            writeDoubleColumn(output, locations.map { it.lat }, false)
+            writeDoubleColumn(output, locations.map { it.lon }, false)
+            writeDoubleColumn(output, locations.map { it.altitude }, true)
+            writeDoubleColumn(output, locations.map { it.speed }, false)
+            writeDoubleColumn(output, locations.map { it.accuracy }, true)
+            writeDoubleColumn(output, locations.map { it.verticalAccuracy }, true)
+        }
+
+        private inline fun writeColumn(
+            output: CodedOutputStream,
+            locations: List<GeoLocation>,
+            value: (GeoLocation) -> Long
+        ) {
+            var previous = 0L
+            locations.forEach {
+                val current = value(it)
+                output.writeSInt64NoTag(current - previous)
+                previous = current
+            }
+        }
+
+        /**
+         * Writes the bit patterns of a `Double` column.
+         *
+         * The differences of the bit patterns may overflow, which is reverted when they are added up again.
+         *
+         * @param nullable `true` if a bitmap is written which marks the values which are not `null`.
+         */
+        private fun writeDoubleColumn(output: CodedOutputStream, values: List<Double?>, nullable: Boolean) {
+            val present = values.filterNotNull()
+            require(nullable || present.size == values.size) { "Unexpected null value" }
+            val floats = present.all { it.toFloat().toDouble().toRawBits() == it.toRawBits() }
+            output.writeUInt32NoTag(if (floats) FLOAT_BITS else DOUBLE_BITS)
+            if (nullable) {
+                val bitmap = ByteArray((values.size + 7) / 8)
+                values.forEachIndexed { index, current ->
+                    if (current != null) {
+                        bitmap[index / 8] = (bitmap[index / 8].toInt() or (1 shl index % 8)).toByte()
+                    }
+                }
+                output.writeRawBytes(bitmap)
+            }
+            var previous = 0L
+            present.forEach {
+                val current = if (floats) it.toFloat().toRawBits().toLong() else it.toRawBits()
+                output.writeSInt64NoTag(current - previous)
+                previous = current
+            }
+        }
+
+        private fun readColumn(input: CodedInputStream, count: Int): LongArray {
+            val values = LongArray(count)
+            var previous = 0L
+            for (index in 0 until count) {
+                previous += input.readSInt64()
+                values[index] = previous
+            }
+            return values
+        }
+
+        /**
+         * Reads a column written by [writeDoubleColumn].
+         */
+        private fun readDoubleColumn(input: CodedInputStream, count: Int, nullable: Boolean): Array<Double?> {
+            val floats = when (val encoding = input.readUInt32()) {
+                FLOAT_BITS -> true
+                DOUBLE_BITS -> false
+                else -> throw IOException("Unsupported column encoding: $encoding")
+            }
+            val present = if (nullable) input.readRawBytes((count + 7) / 8) else null
+            val values = arrayOfNulls<Double>(count)
+            var previous = 0L
+            for (index in 0 until count) {
+                if (present == null || present[index / 8].toInt() and (1 shl index % 8) != 0) {
+                    previous += input.readSInt64()
+                    values[index] = if (floats) {
+                        Float.fromBits(previous.toInt()).toDouble()
+                    } else {
+                        Double.fromBits(previous)
+                    }
+                }
+            }
+            return values
+        }
+    }
+}
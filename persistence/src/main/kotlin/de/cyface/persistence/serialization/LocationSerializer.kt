@@ -22,6 +22,7 @@ import android.database.Cursor
 import androidx.core.database.getDoubleOrNull
 import de.cyface.persistence.content.BaseColumns
 import de.cyface.persistence.content.LocationTable
+import de.cyface.persistence.model.GeoLocation
 import de.cyface.protos.model.LocationRecords
 import de.cyface.serializer.Formatter
 import de.cyface.serializer.LocationOffsetter
@@ -29,11 +30,13 @@ import de.cyface.serializer.LocationOffsetter
 /**
  * Serializes `Location`s in the [MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION].
  *
- * Use [.readFrom] to add `Location` from the database.
- * And [.result] to receive the `Location`s in the serialized format.
+ * Use [.readFrom] to add `Location` from the database or from a [LocationArchive].
+ * And [.result] to receive the `Location`s in the serialized format, or [.nextBatch] to receive them in batches.
+ *
+ * Database `Cursor`s should only contain the columns of the [PROJECTION].
  *
  * @author Armin Schnabel
- * @version 1.0.2
+ * @version 1.3.0
  * @since 7.0.0
  */
 class LocationSerializer {
@@ -47,40 +50,70 @@ class LocationSerializer {
      */
     private val offsetter: LocationOffsetter = LocationOffsetter()
 
+    // The columns of the rows read from the current `Cursor`, reused for each page
+    private var timestamps = LongArray(INITIAL_CAPACITY)
+    private var latitudes = DoubleArray(INITIAL_CAPACITY)
+    private var longitudes = DoubleArray(INITIAL_CAPACITY)
+    private var speeds = DoubleArray(INITIAL_CAPACITY)
+    private var accuracies = DoubleArray(INITIAL_CAPACITY)
+
     /**
      * Loads and parses `Location`s from a database `Cursor`.
      *
-     * @param cursor the `Cursor` to load the `Location` data from.
+     * The column indices are resolved once per `Cursor`. The rows are read into primitive arrays first, so the
+     * `CursorWindow` is read in one pass before the locations are offset and added to the Protobuf builder.
+     *
+     * @param cursor the `Cursor` to load the `Location` data from, e.g. with the columns of the [PROJECTION].
      */
     fun readFrom(cursor: Cursor) {
-        while (cursor.moveToNext()) {
-            val timestamp =
-                cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP))
-            val latitude =
-                cursor.getDouble(cursor.getColumnIndexOrThrow(LocationTable.COLUMN_LAT))
-            val longitude =
-                cursor.getDouble(cursor.getColumnIndexOrThrow(LocationTable.COLUMN_LON))
-            val speedMeterPerSecond = cursor
-                .getDouble(cursor.getColumnIndexOrThrow(LocationTable.COLUMN_SPEED))
-            val accuracy =
-                cursor.getDoubleOrNull(cursor.getColumnIndexOrThrow(LocationTable.COLUMN_ACCURACY))
+        val timestampColumn = cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP)
+        val latitudeColumn = cursor.getColumnIndexOrThrow(LocationTable.COLUMN_LAT)
+        val longitudeColumn = cursor.getColumnIndexOrThrow(LocationTable.COLUMN_LON)
+        val speedColumn = cursor.getColumnIndexOrThrow(LocationTable.COLUMN_SPEED)
+        val accuracyColumn = cursor.getColumnIndexOrThrow(LocationTable.COLUMN_ACCURACY)
 
-            // The proto serializer expects some fields in a different format and in offset-format
-            val formatted = Formatter.Location(
-                timestamp, latitude, longitude,
-                speedMeterPerSecond,
-                // TODO: When adding verticalAccuracy to protos, make accuracy nullable [STAD-481]
-                accuracy ?: 0.0
-            )
-            val offsets = offsetter.offset(formatted)
-            builder.addTimestamp(offsets.timestamp)
-                .addLatitude(offsets.latitude)
-                .addLongitude(offsets.longitude)
-                .addAccuracy(offsets.accuracy)
-                .addSpeed(offsets.speed)
+        var rows = 0
+        while (cursor.moveToNext()) {
+            if (rows == timestamps.size) {
+                grow()
+            }
+            timestamps[rows] = cursor.getLong(timestampColumn)
+            latitudes[rows] = cursor.getDouble(latitudeColumn)
+            longitudes[rows] = cursor.getDouble(longitudeColumn)
+            speeds[rows] = cursor.getDouble(speedColumn)
+            accuracies[rows] = cursor.getDoubleOrNull(accuracyColumn) ?: 0.0
+            rows++
+        }
+        for (row in 0 until rows) {
+            add(timestamps[row], latitudes[row], longitudes[row], speeds[row], accuracies[row])
         }
     }
 
+    /**
+     * Parses already loaded `Location`s, e.g. from a [LocationArchive].
+     *
+     * @param locations the `Location`s to add, ordered by timestamp.
+     */
+    fun readFrom(locations: List<GeoLocation>) {
+        locations.forEach { add(it.timestamp, it.lat, it.lon, it.speed, it.accuracy) }
+    }
+
+    private fun add(timestamp: Long, latitude: Double, longitude: Double, speed: Double, accuracy: Double?) {
+        // The proto serializer expects some fields in a different format and in offset-format
+        val formatted = Formatter.Location(
+            timestamp, latitude, longitude,
+            speed,
+            // TODO: When adding verticalAccuracy to protos, make accuracy nullable [STAD-481]
+            accuracy ?: 0.0
+        )
+        val offsets = offsetter.offset(formatted)
+        builder.addTimestamp(offsets.timestamp)
+            .addLatitude(offsets.latitude)
+            .addLongitude(offsets.longitude)
+            .addAccuracy(offsets.accuracy)
+            .addSpeed(offsets.speed)
+    }
+
     /**
      * @return the locations in the serialized format.
      */
@@ -88,4 +121,51 @@ class LocationSerializer {
         require(builder.isInitialized)
         return builder.build()
     }
+
+    /**
+     * Returns the locations added since the previous batch and removes them from this serializer.
+     *
+     * The offsets continue from one batch to the next, so the batches must be written in the order they were
+     * returned. Protobuf merges consecutive [LocationRecords] of the same field into one when they are parsed.
+     *
+     * @return the locations added since the previous batch in the serialized format.
+     */
+    fun nextBatch(): LocationRecords {
+        val batch = result()
+        builder.clear()
+        return batch
+    }
+
+    /**
+     * Doubles the capacity of the column arrays.
+     */
+    private fun grow() {
+        val capacity = timestamps.size * 2
+        timestamps = timestamps.copyOf(capacity)
+        latitudes = latitudes.copyOf(capacity)
+        longitudes = longitudes.copyOf(capacity)
+        speeds = speeds.copyOf(capacity)
+        accuracies = accuracies.copyOf(capacity)
+    }
+
+    companion object {
+        /**
+         * The columns to query for serialization. The [BaseColumns.ID] is not serialized, but required to load the
+         * next page, see `TransferFileSerializer.getLocationCursor`.
+         */
+        @JvmField
+        val PROJECTION = arrayOf(
+            BaseColumns.ID,
+            BaseColumns.TIMESTAMP,
+            LocationTable.COLUMN_LAT,
+            LocationTable.COLUMN_LON,
+            LocationTable.COLUMN_SPEED,
+            LocationTable.COLUMN_ACCURACY
+        )
+
+        /**
+         * The initial number of rows of the column arrays, which grow with the pages read.
+         */
+        private const val INITIAL_CAPACITY = 1_024
+    }
 }
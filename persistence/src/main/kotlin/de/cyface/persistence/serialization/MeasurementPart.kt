@@ -0,0 +1,89 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+/**
+ * A time slice of a measurement which is too large to be uploaded in one transfer file, see [MeasurementParts].
+ *
+ * Each part is serialized into a valid transfer file containing the locations, events and sensor data captured
+ * within its time range.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property index The index of the part, starting at `0`.
+ * @property count The number of parts of the measurement.
+ * @property start The first timestamp in milliseconds which belongs to this part. The first part starts at
+ * [Long.MIN_VALUE], so no data captured before the first cut is lost.
+ * @property end The timestamp in milliseconds from which on the data belongs to the next part. The last part ends at
+ * [Long.MAX_VALUE].
+ */
+data class MeasurementPart(val index: Int, val count: Int, val start: Long, val end: Long) {
+    init {
+        require(index in 0 until count) { "Invalid part index $index of $count" }
+        require(start < end) { "Invalid time range [$start, $end)" }
+    }
+
+    /**
+     * `true` if this is the last part of the measurement.
+     */
+    val isLast: Boolean
+        get() = index == count - 1
+
+    /**
+     * @param timestamp The timestamp in milliseconds to check.
+     * @return `true` if data captured at the timestamp belongs to this part.
+     */
+    operator fun contains(timestamp: Long) = timestamp >= start && timestamp < end
+
+    companion object {
+        /**
+         * Cuts a measurement into parts of at most [maxBytes] bytes.
+         *
+         * The data is added to a part in the order of its timestamps until the next entry would exceed [maxBytes].
+         * Then the next part is started at the timestamp of that entry. Entries with the same timestamp always end up
+         * in the same part, so a part may exceed [maxBytes] when a single entry does.
+         *
+         * @param entries The timestamp in milliseconds and the estimated number of bytes of each entry, e.g. of a
+         * location or a batch of sensor data, in any order.
+         * @param maxBytes The maximal number of bytes of a part.
+         * @return The parts, ordered by time. Contains one part covering all timestamps if everything fits.
+         */
+        fun plan(entries: List<Pair<Long, Long>>, maxBytes: Long): List<MeasurementPart> {
+            require(maxBytes > 0L) { "Invalid maximal part size: $maxBytes" }
+
+            val cuts = mutableListOf<Long>()
+            var previous = Long.MIN_VALUE
+            var partBytes = 0L
+            entries.sortedBy { it.first }.forEach { (timestamp, bytes) ->
+                if (partBytes > 0L && partBytes + bytes > maxBytes && timestamp > previous) {
+                    cuts.add(timestamp)
+                    partBytes = 0L
+                }
+                partBytes += bytes
+                previous = timestamp
+            }
+
+            val bounds = listOf(Long.MIN_VALUE) + cuts + Long.MAX_VALUE
+            return bounds.zipWithNext().mapIndexed { index, (start, end) ->
+                MeasurementPart(index, cuts.size + 1, start, end)
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import de.cyface.persistence.io.FileIOHandler
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+
+/**
+ * The upload progress of a measurement which is uploaded in [MeasurementPart]s, so an interrupted upload continues
+ * with the part after the last part accepted by the collector instead of the first part.
+ *
+ * The upload is only continued if the measurement did not change, see [TransferFile.fingerprint], and is still cut
+ * into the same parts, e.g. as the maximal part size did not change. Otherwise, all parts are uploaded again.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property fingerprint The fingerprint of the measurement data when the parts were uploaded, see
+ * [TransferFile.fingerprint].
+ * @property count The number of parts of the measurement.
+ * @property acknowledged The index of the last part accepted by the collector.
+ * @property end The end of the time range of the [acknowledged] part, see [MeasurementPart.end].
+ */
+class MeasurementPartCheckpoint(
+    val fingerprint: String,
+    val count: Int,
+    val acknowledged: Int,
+    val end: Long
+) {
+    init {
+        require(acknowledged in 0 until count) { "Invalid part index $acknowledged of $count" }
+    }
+
+    /**
+     * Returns the index of the part to continue the upload with.
+     *
+     * @param fingerprint The current fingerprint of the measurement, see [TransferFile.fingerprint].
+     * @param parts The parts the measurement is cut into now, see [MeasurementParts.parts].
+     * @return The index of the part after the [acknowledged] part or `0` if the upload has to start over.
+     */
+    fun next(fingerprint: String, parts: List<MeasurementPart>): Int {
+        val sameParts = parts.size == count && parts.getOrNull(acknowledged)?.end == end
+        return if (this.fingerprint == fingerprint && sameParts) acknowledged + 1 else 0
+    }
+
+    companion object {
+        /**
+         * The file extension of the checkpoint files, which are stored in the [TransferFile.FOLDER_NAME].
+         */
+        const val FILE_EXTENSION = "parts"
+
+        /**
+         * The version of the file format, stored at the beginning of each file.
+         */
+        private const val FORMAT_VERSION: Short = 1
+
+        /**
+         * The suffix of the file which is written before it replaces the checkpoint file.
+         */
+        private const val TEMPORARY_SUFFIX = ".tmp"
+
+        /**
+         * Loads the upload progress of a measurement if it exists.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement which is uploaded in parts.
+         * @return The checkpoint or `null` if no part was accepted yet.
+         */
+        @JvmStatic
+        fun load(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): MeasurementPartCheckpoint? {
+            val file = fileIOHandler.getFilePath(context, measurementId, TransferFile.FOLDER_NAME, FILE_EXTENSION)
+            if (!file.exists()) {
+                return null
+            }
+            try {
+                FileInputStream(file).use { stream ->
+                    val input = DataInputStream(stream.buffered())
+                    val version = input.readShort()
+                    require(version == FORMAT_VERSION) { "Unsupported part checkpoint file version: $version" }
+                    val fingerprint = input.readUTF()
+                    val count = input.readInt()
+                    val acknowledged = input.readInt()
+                    val end = input.readLong()
+                    return MeasurementPartCheckpoint(fingerprint, count, acknowledged, end)
+                }
+            } catch (e: IOException) {
+                throw IllegalStateException("Failed to read part checkpoint file: ${file.path}", e)
+            }
+        }
+
+        /**
+         * Writes the upload progress of a measurement, replacing the previous checkpoint.
+         *
+         * The file is written completely before it replaces the previous file, so an interrupted write does not
+         * corrupt the checkpoint.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement which is uploaded in parts.
+         * @param checkpoint The checkpoint to write.
+         */
+        @JvmStatic
+        fun write(
+            context: Context,
+            fileIOHandler: FileIOHandler,
+            measurementId: Long,
+            checkpoint: MeasurementPartCheckpoint
+        ) {
+            val folder = fileIOHandler.getFolderPath(context, TransferFile.FOLDER_NAME)
+            if (!folder.exists()) {
+                require(folder.mkdirs())
+            }
+            val file = fileIOHandler.getFilePath(context, measurementId, TransferFile.FOLDER_NAME, FILE_EXTENSION)
+            val temporary = File(file.path + TEMPORARY_SUFFIX)
+            try {
+                FileOutputStream(temporary).use { stream ->
+                    val output = DataOutputStream(stream.buffered())
+                    output.writeShort(FORMAT_VERSION.toInt())
+                    output.writeUTF(checkpoint.fingerprint)
+                    output.writeInt(checkpoint.count)
+                    output.writeInt(checkpoint.acknowledged)
+                    output.writeLong(checkpoint.end)
+                    output.flush()
+                    // Or the renamed file could be empty after a crash
+                    stream.fd.sync()
+                }
+            } catch (e: IOException) {
+                temporary.delete()
+                throw IllegalStateException("Failed to write part checkpoint file. Is there space left?", e)
+            }
+            if (!temporary.renameTo(file)) {
+                temporary.delete()
+                throw IllegalStateException("Failed to replace part checkpoint file: ${file.path}")
+            }
+        }
+
+        /**
+         * Deletes the upload progress of a measurement if it exists.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement to delete the checkpoint of.
+         */
+        @JvmStatic
+        fun delete(context: Context, fileIOHandler: FileIOHandler, measurementId: Long) {
+            val file = fileIOHandler.getFilePath(context, measurementId, TransferFile.FOLDER_NAME, FILE_EXTENSION)
+            if (file.exists()) {
+                require(file.delete())
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.LocationArchiver
+import de.cyface.persistence.PersistenceLayer
+import de.cyface.persistence.content.AbstractCyfaceTable.Companion.DATABASE_QUERY_LIMIT
+import de.cyface.persistence.model.Event
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.protos.model.Accelerations
+import de.cyface.protos.model.Directions
+import de.cyface.protos.model.MeasurementBytes
+import de.cyface.protos.model.Rotations
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.File
+
+/**
+ * A measurement which is cut by time into [MeasurementPart]s, so it can be uploaded in multiple transfer files when it
+ * is too large to be uploaded in one, see [TransferFileSerializer.loadSerializedPart].
+ *
+ * The sensor data is cut at the batches written by [Point3DFile.append], see [SensorBatchIndex]. The locations and
+ * events are loaded page by page when a part is serialized, see [forEachLocationPage], so only one page is held in
+ * memory, no matter how large the measurement is.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ * @property measurementId The id of the measurement.
+ * @property parts The parts of the measurement, ordered by time.
+ * @property persistence The [PersistenceLayer] to load the locations and events from.
+ * @property locationCounts The number of locations of each part by the index of the part.
+ * @property pageSize The maximal number of locations or events loaded at once.
+ */
+class MeasurementParts private constructor(
+    val measurementId: Long,
+    val parts: List<MeasurementPart>,
+    internal val sensors: List<Sensor>,
+    private val persistence: PersistenceLayer<*>,
+    private val locationCounts: IntArray,
+    private val pageSize: Int
+) {
+    /**
+     * The sensor data of one type of the measurement.
+     *
+     * @property fieldNumber The number of the `bytes` field in the [MeasurementBytes] message.
+     * @property file The [Point3DFile] containing the sensor data.
+     * @property name The name of the sensor data used for logging.
+     * @property index The batches in the file.
+     */
+    internal class Sensor(val fieldNumber: Int, val file: File, val name: String, val index: SensorBatchIndex)
+
+    /**
+     * Loads the locations captured in the time range of a part page by page.
+     *
+     * @param part The part to load the locations of.
+     * @param block Called with each page of up to [pageSize] locations, ordered by timestamp and id. Not called if
+     * there are no locations in the part.
+     */
+    suspend fun forEachLocationPage(part: MeasurementPart, block: (List<GeoLocation>) -> Unit) {
+        forEachLocationPage(persistence, measurementId, part, pageSize, block)
+    }
+
+    /**
+     * Loads the events logged in the time range of a part page by page.
+     *
+     * @param part The part to load the events of.
+     * @param block Called with each page of up to [pageSize] events, ordered by timestamp and id. Not called if
+     * there are no events in the part.
+     */
+    suspend fun forEachEventPage(part: MeasurementPart, block: (List<Event>) -> Unit) {
+        forEachPage(part, pageSize, { it.timestamp }, { it.id }, block) { afterTimestamp, afterId ->
+            persistence.eventRepository!!.loadPageByMeasurementId(measurementId, afterTimestamp, afterId, pageSize)
+        }
+    }
+
+    /**
+     * Estimates the size of the transfer file of a part before it is compressed, like
+     * [MeasurementSerializer.estimateSize].
+     *
+     * @param part The part to estimate the size of.
+     * @return The estimated size in bytes.
+     */
+    fun estimateSize(part: MeasurementPart): Long {
+        val sensorBytes = sensors.sumOf { sensor -> sensor.index.select(part).sumOf { it.length } }
+        return sensorBytes + locationCounts[part.index] * MeasurementSerializer.LOCATION_BYTES
+    }
+
+    companion object {
+        /**
+         * Cuts a measurement into parts of about [maxPartBytes] bytes before compression.
+         *
+         * Only the timestamps of the locations are kept to plan the parts, which are loaded page by page.
+         *
+         * @param measurementId The id of the measurement to cut.
+         * @param persistence The [PersistenceLayer] to load the measurement data from.
+         * @param maxPartBytes The maximal estimated size of a part before compression, see [MeasurementPart.plan].
+         * @param pageSize The maximal number of locations or events loaded at once.
+         * @return The measurement cut into parts.
+         */
+        @JvmStatic
+        suspend fun load(
+            measurementId: Long,
+            persistence: PersistenceLayer<*>,
+            maxPartBytes: Long,
+            pageSize: Int = DATABASE_QUERY_LIMIT
+        ): MeasurementParts {
+            require(pageSize > 0) { "Invalid page size: $pageSize" }
+            // Ensure we only inject bytes from the correct persistence format version
+            val measurement = persistence.loadMeasurement(measurementId)
+            require(measurement!!.fileFormatVersion == DefaultPersistenceLayer.PERSISTENCE_FILE_FORMAT_VERSION)
+
+            val locationTimestamps = mutableListOf<Long>()
+            val all = MeasurementPart(0, 1, Long.MIN_VALUE, Long.MAX_VALUE)
+            forEachLocationPage(persistence, measurementId, all, pageSize) { page ->
+                page.mapTo(locationTimestamps) { it.timestamp }
+            }
+            val sensors = withContext(Dispatchers.IO) {
+                listOf(
+                    sensor(
+                        persistence,
+                        measurementId,
+                        MeasurementBytes.ACCELERATIONS_BINARY_FIELD_NUMBER,
+                        Point3DFile.ACCELERATIONS_FOLDER_NAME,
+                        Point3DFile.ACCELERATIONS_FILE_EXTENSION,
+                        Accelerations.TIMESTAMP_FIELD_NUMBER
+                    ),
+                    sensor(
+                        persistence,
+                        measurementId,
+                        MeasurementBytes.ROTATIONS_BINARY_FIELD_NUMBER,
+                        Point3DFile.ROTATIONS_FOLDER_NAME,
+                        Point3DFile.ROTATION_FILE_EXTENSION,
+                        Rotations.TIMESTAMP_FIELD_NUMBER
+                    ),
+                    sensor(
+                        persistence,
+                        measurementId,
+                        MeasurementBytes.DIRECTIONS_BINARY_FIELD_NUMBER,
+                        Point3DFile.DIRECTIONS_FOLDER_NAME,
+                        Point3DFile.DIRECTION_FILE_EXTENSION,
+                        Directions.TIMESTAMP_FIELD_NUMBER
+                    )
+                )
+            }
+
+            val entries = sensors.flatMap { sensor -> sensor.index.batches.map { it.timestamp to it.length } } +
+                    locationTimestamps.map { it to MeasurementSerializer.LOCATION_BYTES }
+            val parts = MeasurementPart.plan(entries, maxPartBytes)
+            val locationCounts = IntArray(parts.size)
+            locationTimestamps.forEach { timestamp -> locationCounts[parts.first { timestamp in it }.index]++ }
+            return MeasurementParts(measurementId, parts, sensors, persistence, locationCounts, pageSize)
+        }
+
+        /**
+         * Loads the locations of a measurement captured in the time range of a part page by page.
+         *
+         * Archived locations are decoded block by block from the [LocationArchive] and merged with the locations
+         * stored afterward, like [TransferFileSerializer.loadSerialized] does. Otherwise, the locations are loaded
+         * from the database with seek-based pages.
+         */
+        private suspend fun forEachLocationPage(
+            persistence: PersistenceLayer<*>,
+            measurementId: Long,
+            part: MeasurementPart,
+            pageSize: Int,
+            block: (List<GeoLocation>) -> Unit
+        ) {
+            val dao = persistence.timeSeriesDatabase(measurementId).locationDao()
+            val archive = LocationArchive.load(persistence.context!!, persistence.fileIOHandler, measurementId)
+            if (archive != null) {
+                // Rows up to the highest archived id are archived, even if they were not deleted yet
+                val rows = dao.loadAllByMeasurementIdAfterId(measurementId, archive.maxId)
+                withContext(Dispatchers.IO) {
+                    archive.useLocations { archived ->
+                        LocationArchiver.merge(archived, rows)
+                            .dropWhile { it.timestamp < part.start }
+                            .takeWhile { it.timestamp < part.end }
+                            .chunked(pageSize)
+                            .forEach(block)
+                    }
+                }
+            } else {
+                forEachPage(part, pageSize, { it.timestamp }, { it.id }, block) { afterTimestamp, afterId ->
+                    dao.loadPageByMeasurementId(measurementId, afterTimestamp, afterId, pageSize)
+                }
+            }
+        }
+
+        /**
+         * Loads the entries of a measurement captured in the time range of a part with seek-based pages.
+         *
+         * @param part The part to load the entries of.
+         * @param pageSize The maximal number of entries loaded at once.
+         * @param timestamp Returns the timestamp of an entry.
+         * @param id Returns the id of an entry.
+         * @param block Called with each page which contains entries of the part.
+         * @param loadPage Loads up to [pageSize] entries which follow the entry with the provided timestamp and id,
+         * ordered by timestamp and id.
+         */
+        private suspend fun <T> forEachPage(
+            part: MeasurementPart,
+            pageSize: Int,
+            timestamp: (T) -> Long,
+            id: (T) -> Long,
+            block: (List<T>) -> Unit,
+            loadPage: suspend (afterTimestamp: Long, afterId: Long) -> List<T>
+        ) {
+            // Starts after the last possible entry before the part, i.e. at the first entry of the part
+            var afterTimestamp = if (part.start == Long.MIN_VALUE) Long.MIN_VALUE else part.start - 1
+            var afterId = if (part.start == Long.MIN_VALUE) Long.MIN_VALUE else Long.MAX_VALUE
+            do {
+                val page = loadPage(afterTimestamp, afterId)
+                val inPart = page.takeWhile { timestamp(it) < part.end }
+                if (inPart.isNotEmpty()) {
+                    block(inPart)
+                    afterTimestamp = timestamp(inPart.last())
+                    afterId = id(inPart.last())
+                }
+            } while (page.size == pageSize && inPart.size == page.size)
+        }
+
+        private fun sensor(
+            persistence: PersistenceLayer<*>,
+            measurementId: Long,
+            fieldNumber: Int,
+            folderName: String,
+            fileExtension: String,
+            timestampFieldNumber: Int
+        ): Sensor {
+            val file = persistence.fileIOHandler.getFilePath(
+                persistence.context!!,
+                measurementId,
+                folderName,
+                fileExtension
+            )
+            return Sensor(fieldNumber, file, folderName, SensorBatchIndex.read(file, timestampFieldNumber))
+        }
+    }
+}
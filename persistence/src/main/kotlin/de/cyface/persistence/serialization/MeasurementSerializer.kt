@@ -18,10 +18,12 @@
  */
 package de.cyface.persistence.serialization
 
+import android.os.Debug
 import android.util.Log
 import de.cyface.persistence.Constants.TAG
 import de.cyface.persistence.DefaultPersistenceLayer
 import de.cyface.persistence.PersistenceLayer
+import de.cyface.persistence.model.MeasurementLedger
 import de.cyface.persistence.serialization.TransferFileSerializer.loadSerialized
 import de.cyface.utils.CursorIsNullException
 import kotlinx.coroutines.Dispatchers
@@ -29,10 +31,13 @@ import kotlinx.coroutines.withContext
 import java.io.BufferedOutputStream
 import java.io.File
 import java.io.FileOutputStream
+import java.io.FilterOutputStream
 import java.io.IOException
 import java.io.OutputStream
-import java.util.zip.Deflater
-import java.util.zip.DeflaterOutputStream
+import java.io.RandomAccessFile
+import java.nio.file.Files
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
 
 /**
  * This class implements the serialization from data stored in a `MeasuringPointContentProvider` and
@@ -43,14 +48,21 @@ import java.util.zip.DeflaterOutputStream
  * - 2 Bytes which contain the `#TRANSFER_FILE_FORMAT_VERSION`
  * - followed by data in this format: https://github.com/cyface-de/protos (version 1)
  *
- * WARNING: This implementation loads all data from one measurement into memory. So be careful with large measurements.
+ * The data is streamed into the compression with constant memory, independent of the size of the measurement: the
+ * events and locations are serialized in batches or copied from the prebuilt records, the sensor data files are
+ * copied through a small buffer, see [TransferFileSerializer], and only a bounded number of blocks is compressed at
+ * once, see [ParallelDeflaterOutputStream]. The compressed data is written to the transfer file as it is produced.
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 8.0.3
+ * @version 8.9.2
  * @since 2.0.0
+ * @property compressionPolicy Chooses the compression level of the transfer files, e.g. the
+ * [AdaptiveCompressionPolicy].
  */
-class MeasurementSerializer {
+class MeasurementSerializer(
+    private val compressionPolicy: CompressionPolicy = FixedCompressionPolicy()
+) {
     /**
      * Loads the [de.cyface.persistence.model.Measurement] with the provided identifier from the
      * persistence layer serialized and compressed in the
@@ -81,7 +93,7 @@ class MeasurementSerializer {
                 }
             withContext(Dispatchers.IO) {
                 FileOutputStream(compressedTempFile).use { fileOutputStream ->
-                    // As the DeflaterOutputStream is created with an FileOutputStream, the
+                    // As the compressing stream is created with an FileOutputStream, the
                     // compressed data is written to file
                     loadSerializedCompressed(
                         fileOutputStream,
@@ -100,11 +112,158 @@ class MeasurementSerializer {
         return compressedTempFile
     }
 
+    /**
+     * Writes one [MeasurementPart] of a measurement serialized and compressed like [writeSerializedCompressed] to a
+     * temp file, ready to be transferred.
+     *
+     * **ATTENTION**: The caller needs to delete the returned file when no longer needed or on program crash!
+     *
+     * @param parts The measurement cut into parts, see [MeasurementParts.load].
+     * @param part The part to write.
+     * @param persistenceLayer The [PersistenceLayer] to get the cache directory from.
+     * @return A [File] pointing to a temporary file containing the serialized compressed part for transfer.
+     */
+    suspend fun writeSerializedPart(
+        parts: MeasurementParts,
+        part: MeasurementPart,
+        persistenceLayer: PersistenceLayer<*>
+    ): File {
+        val cacheDir = persistenceLayer.cacheDir
+        return withContext(Dispatchers.IO) {
+            val compressedTempFile = File.createTempFile(COMPRESSED_TRANSFER_FILE_PREFIX, ".tmp", cacheDir)
+            try {
+                FileOutputStream(compressedTempFile).use { fileOutputStream ->
+                    val countingFileOutputStream = CountingOutputStream(fileOutputStream)
+                    val deflaterLevel = compressionPolicy.level(parts.estimateSize(part))
+                    val deflaterStream =
+                        ParallelDeflaterOutputStream(BufferedOutputStream(countingFileOutputStream), deflaterLevel)
+                    BufferedOutputStream(deflaterStream).use { outputStream ->
+                        TransferFileSerializer.loadSerializedPart(outputStream, parts, part)
+                        outputStream.flush()
+                    }
+                    Log.d(TAG, "Compressed part ${part.index} to ${countingFileOutputStream.count} bytes")
+                }
+            } catch (e: IOException) {
+                compressedTempFile.delete()
+                throw IllegalStateException(e)
+            }
+            compressedTempFile
+        }
+    }
+
+    /**
+     * Writes the compressed transfer file of a finished measurement into the [TransferFile] cache, so the
+     * synchronization only needs to upload it, see [loadPrecomputed].
+     *
+     * The fingerprint is calculated before the measurement is serialized, so data added in the meantime outdates
+     * the transfer file.
+     *
+     * The progress is stored in a [TransferFileCheckpoint] about every [CHECKPOINT_INTERVAL] serialized bytes. When
+     * the serialization is cancelled or the process is killed, the next call continues from the last checkpoint if
+     * the measurement did not change. This way large measurements are serialized across multiple sync windows.
+     *
+     * Only one serialization per measurement writes the transfer file at a time, see [TransferFileLock]. If another
+     * serialization, e.g. in another process, holds the lock, this waits until it's released. When the transfer file
+     * was completed in the meantime, it's returned without serializing the measurement again.
+     *
+     * @param measurementId The id of the [de.cyface.persistence.model.Measurement] to precompute.
+     * @param persistenceLayer The [PersistenceLayer] to load the `Measurement` data from.
+     * @param onBatchSerialized Called after each batch of records and on each checkpoint, e.g. to signal progress.
+     * @return The cached transfer file.
+     */
+    suspend fun precompute(
+        measurementId: Long,
+        persistenceLayer: PersistenceLayer<*>,
+        onBatchSerialized: (() -> Unit)? = null
+    ): TransferFile {
+        val context = persistenceLayer.context!!
+        val fileIOHandler = persistenceLayer.fileIOHandler
+        return TransferFileLock.acquire(context, fileIOHandler, measurementId).use {
+            precomputeLocked(measurementId, persistenceLayer, onBatchSerialized)
+        }
+    }
+
+    /**
+     * Like [precompute], but does not wait if another serialization of the measurement holds the
+     * [TransferFileLock], e.g. for background work which is not worth to wait for.
+     *
+     * @param measurementId The id of the [de.cyface.persistence.model.Measurement] to precompute.
+     * @param persistenceLayer The [PersistenceLayer] to load the `Measurement` data from.
+     * @param onBatchSerialized Called after each batch of records and on each checkpoint, e.g. to signal progress.
+     * @return The cached transfer file, or `null` if the measurement is serialized by someone else.
+     */
+    suspend fun tryPrecompute(
+        measurementId: Long,
+        persistenceLayer: PersistenceLayer<*>,
+        onBatchSerialized: (() -> Unit)? = null
+    ): TransferFile? {
+        val context = persistenceLayer.context!!
+        val fileIOHandler = persistenceLayer.fileIOHandler
+        return TransferFileLock.tryAcquire(context, fileIOHandler, measurementId)?.use {
+            precomputeLocked(measurementId, persistenceLayer, onBatchSerialized)
+        }
+    }
+
+    /**
+     * Implements [precompute] while the [TransferFileLock] of the measurement is held.
+     */
+    private suspend fun precomputeLocked(
+        measurementId: Long,
+        persistenceLayer: PersistenceLayer<*>,
+        onBatchSerialized: (() -> Unit)?
+    ): TransferFile {
+        val context = persistenceLayer.context!!
+        val fileIOHandler = persistenceLayer.fileIOHandler
+        val fingerprint = TransferFile.fingerprint(measurementId, persistenceLayer)
+        return withContext(Dispatchers.IO) {
+            // Completed by another serialization while the lock was held
+            val completed = TransferFile.load(context, fileIOHandler, measurementId)
+            if (completed != null && completed.isValid(fingerprint)) {
+                return@withContext completed
+            }
+            val partialFile = TransferFileCheckpoint.partialFile(context, fileIOHandler, measurementId)
+            val stored = TransferFileCheckpoint.load(context, fileIOHandler, measurementId)
+            val checkpoint = if (stored != null && stored.isValid(fingerprint, partialFile)) stored else null
+            if (checkpoint == null) {
+                if (stored != null) {
+                    Log.d(TAG, "Checkpoint of measurement $measurementId is outdated, starting over")
+                }
+                TransferFileCheckpoint.delete(context, fileIOHandler, measurementId)
+            } else {
+                Log.d(TAG, "Continuing measurement $measurementId after ${checkpoint.uncompressedBytes} bytes")
+                // Discards the data written after the checkpoint
+                RandomAccessFile(partialFile, "rw").use { it.setLength(checkpoint.compressedBytes) }
+            }
+            FileOutputStream(partialFile, checkpoint != null).use { fileOutputStream ->
+                loadSerializedCompressed(
+                    fileOutputStream,
+                    measurementId,
+                    persistenceLayer,
+                    onBatchSerialized,
+                    checkpoint
+                ) { uncompressedBytes, compressedBytes, dictionary ->
+                    // The compressed data must be on the disk before the checkpoint refers to it, or a crash could
+                    // leave a checkpoint behind which points beyond the end of the partial file
+                    fileOutputStream.fd.sync()
+                    val next = TransferFileCheckpoint(fingerprint, uncompressedBytes, compressedBytes, dictionary)
+                    TransferFileCheckpoint.write(context, fileIOHandler, measurementId, next)
+                    onBatchSerialized?.invoke()
+                }
+            }
+            val transferFile = TransferFile.write(context, fileIOHandler, measurementId, partialFile, fingerprint)
+            TransferFileCheckpoint.delete(context, fileIOHandler, measurementId)
+            transferFile
+        }
+    }
+
     /**
      * Loads the [de.cyface.persistence.model.Attachment] with the provided identifier from the persistence
      * layer serialized in the [MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION] format and writes
      * it to a temp file, ready to be transferred.
      *
+     * As attachments are not wrapped, the temp file is a copy of the attachment file. Use [attachmentFile] to upload
+     * the attachment file directly.
+     *
      * **ATTENTION**: The caller needs to delete the file which is referenced by the returned `FileInputStream`
      * when no longer needed or on program crash!
      *
@@ -140,16 +299,64 @@ class MeasurementSerializer {
         return tempFile
     }
 
+    /**
+     * Writes multiple log attachments into one ZIP file, ready to be transferred in one request instead of one
+     * request per attachment, see [AttachmentSerializer.isLog].
+     *
+     * The attachments are streamed into the ZIP, so the memory used does not depend on their size. Each entry is
+     * named by the attachment id and the file name of the attachment, as the file names may not be unique.
+     *
+     * **ATTENTION**: The caller needs to delete the returned file when no longer needed or on program crash!
+     *
+     * @param attachments The log [de.cyface.persistence.model.Attachment]s to bundle.
+     * @param persistenceLayer The [PersistenceLayer] to get the cache directory from.
+     * @return A [File] pointing to a temporary ZIP file containing the attachments.
+     */
+    suspend fun writeAttachmentBundle(
+        attachments: List<de.cyface.persistence.model.Attachment>,
+        persistenceLayer: PersistenceLayer<*>
+    ): File {
+        attachments.forEach {
+            AttachmentSerializer.requireSupported(it)
+            require(AttachmentSerializer.isLog(it)) { "Unsupported type for bundling: ${it.type}" }
+        }
+
+        val cacheDir = persistenceLayer.cacheDir
+        return withContext(Dispatchers.IO) {
+            val bundle = File.createTempFile(TRANSFER_FILE_PREFIX, BUNDLE_FILE_SUFFIX, cacheDir)
+            try {
+                ZipOutputStream(BufferedOutputStream(FileOutputStream(bundle))).use { zip ->
+                    attachments.forEach {
+                        val entry = ZipEntry("${it.id}_${it.path.fileName}")
+                        entry.time = it.timestamp
+                        zip.putNextEntry(entry)
+                        Files.copy(it.path, zip)
+                        zip.closeEntry()
+                    }
+                }
+            } catch (e: IOException) {
+                bundle.delete()
+                throw IllegalStateException(e)
+            }
+            bundle
+        }
+    }
+
     /**
      * Writes the [de.cyface.persistence.model.Measurement] with the provided identifier from the
      * persistence layer serialized and compressed in the
      * [MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION] format, ready to be transferred.
      *
-     * The Deflater ZLIB (RFC-1950) compression is used.
+     * The raw Deflate (RFC-1951) compression is used, see [COMPRESSION_NOWRAP]. Large measurements are compressed
+     * by multiple threads, see [ParallelDeflaterOutputStream].
      *
      * @param fileOutputStream the `FileInputStream` to write the compressed data to
      * @param measurementId The id of the [de.cyface.persistence.model.Measurement] to load
      * @param persistenceLayer The [PersistenceLayer] to load the `Measurement` data
+     * @param checkpoint The checkpoint to continue from, or `null` to write the whole transfer file. The compressed
+     * data until the checkpoint must already be written to the output stream.
+     * @param onCheckpoint Called about every [CHECKPOINT_INTERVAL] serialized bytes, after the compressed data was
+     * flushed, with the number of serialized and compressed bytes and the dictionary to continue the compression.
      * @throws IOException When flushing or closing the [OutputStream] fails
      */
     @Throws(IOException::class)
@@ -157,28 +364,56 @@ class MeasurementSerializer {
         fileOutputStream: OutputStream,
         measurementId: Long,
         persistenceLayer: PersistenceLayer<*>,
-        onBatchSerialized: (() -> Unit)? = null
+        onBatchSerialized: (() -> Unit)? = null,
+        checkpoint: TransferFileCheckpoint? = null,
+        onCheckpoint: ((Long, Long, ByteArray) -> Unit)? = null
     ) {
         Log.d(TAG, "loadSerializedCompressed: start")
         val startTimestamp = System.currentTimeMillis()
         // These streams don't throw anything and, thus, it should be enough to close the outermost stream at the end
 
         // Wrapping the streams with Buffered streams for performance reasons
-        val bufferedFileOutputStream = BufferedOutputStream(fileOutputStream)
-        val deflaterLevel = 5 // 'cause Steve Jobs said so
-        val compressor = Deflater(deflaterLevel, COMPRESSION_NOWRAP)
-        // As we wrap the injected outputStream with Deflater the serialized data is automatically compressed
-        val deflaterStream = DeflaterOutputStream(bufferedFileOutputStream, compressor)
+        val countingFileOutputStream = CountingOutputStream(fileOutputStream)
+        val bufferedFileOutputStream = BufferedOutputStream(countingFileOutputStream)
+        val deflaterLevel = compressionPolicy.level(estimateSize(measurementId, persistenceLayer))
+        // As we wrap the injected outputStream with the compressor the serialized data is automatically compressed
+        val deflaterStream = ParallelDeflaterOutputStream(
+            bufferedFileOutputStream,
+            deflaterLevel,
+            dictionary = checkpoint?.dictionary,
+            threadCpuTime = Debug::threadCpuTimeNanos
+        )
+        val offset = checkpoint?.uncompressedBytes ?: 0L
+        val compressedOffset = checkpoint?.compressedBytes ?: 0L
+        if (onCheckpoint != null) {
+            var lastCheckpoint = offset
+            deflaterStream.blockListener = { uncompressedBytes, dictionary ->
+                if (offset + uncompressedBytes - lastCheckpoint >= CHECKPOINT_INTERVAL) {
+                    bufferedFileOutputStream.flush()
+                    lastCheckpoint = offset + uncompressedBytes
+                    onCheckpoint(lastCheckpoint, compressedOffset + countingFileOutputStream.count, dictionary)
+                }
+            }
+        }
         BufferedOutputStream(deflaterStream).use { outputStream ->
             // Injecting the outputStream into which the serialized (in this case compressed) data is written to
-            loadSerialized(outputStream, measurementId, persistenceLayer, onBatchSerialized)
+            loadSerialized(outputStream, measurementId, persistenceLayer, onBatchSerialized, offset)
             outputStream.flush()
         }
-        compressor.end()
+        // Only the deflate stage is reported, as reading and serializing the data does not depend on the level
+        val result = CompressionResult(
+            deflaterLevel,
+            deflaterStream.totalIn,
+            countingFileOutputStream.count,
+            deflaterStream.deflateNanos / NANOS_PER_MILLI,
+            deflaterStream.deflateCpuNanos / NANOS_PER_MILLI
+        )
+        compressionPolicy.onCompressed(result)
         Log.d(
             TAG,
             "loadSerializedCompressed: finished after " + (System.currentTimeMillis() - startTimestamp) / 1000
-                    + " s with Deflater Level: " + deflaterLevel
+                    + " s with Deflater Level: " + deflaterLevel + ", ratio: " + "%.2f".format(result.ratio)
+                    + ", deflate time: " + result.durationMillis + " ms, CPU time: " + result.cpuTimeMillis + " ms"
         )
     }
 
@@ -213,6 +448,24 @@ class MeasurementSerializer {
         }
     }
 
+    /**
+     * Counts the bytes written to a stream.
+     */
+    private class CountingOutputStream(outputStream: OutputStream) : FilterOutputStream(outputStream) {
+        var count = 0L
+            private set
+
+        override fun write(b: Int) {
+            out.write(b)
+            count++
+        }
+
+        override fun write(b: ByteArray, off: Int, len: Int) {
+            out.write(b, off, len)
+            count += len
+        }
+    }
+
     companion object {
         /**
          * The current version of the transferred file. This is always specified by the first two bytes of the file
@@ -249,5 +502,109 @@ class MeasurementSerializer {
          * The prefix of the filename used to store temp files for serialization.
          */
         private const val TRANSFER_FILE_PREFIX = "transferFile"
+
+        /**
+         * The suffix of the temp files which bundle multiple attachments, see [writeAttachmentBundle].
+         */
+        private const val BUNDLE_FILE_SUFFIX = ".zip"
+
+        /**
+         * The number of serialized bytes after which the progress of [precompute] is stored, see
+         * [TransferFileCheckpoint].
+         */
+        const val CHECKPOINT_INTERVAL = 64L * ParallelDeflaterOutputStream.BLOCK_SIZE
+
+        /**
+         * The estimated number of bytes of one serialized location, i.e. timestamp, latitude, longitude, speed,
+         * accuracy and the varint overhead.
+         */
+        internal const val LOCATION_BYTES = 40L
+
+        private const val NANOS_PER_MILLI = 1_000_000L
+
+        /**
+         * Loads the transfer file of a measurement precomputed by [precompute], if it still contains all data of the
+         * measurement.
+         *
+         * **ATTENTION**: The returned file is owned by the cache and must not be deleted by the caller. It is deleted
+         * when the measurement is synchronized, skipped or deleted.
+         *
+         * @param measurementId The id of the measurement to load the transfer file of.
+         * @param persistence The [PersistenceLayer] to load the measurement data from.
+         * @return The compressed transfer file, or `null` if it was not precomputed or is outdated.
+         */
+        @JvmStatic
+        suspend fun loadPrecomputed(measurementId: Long, persistence: PersistenceLayer<*>): File? {
+            val transferFile = TransferFile.load(persistence.context!!, persistence.fileIOHandler, measurementId)
+                ?: return null
+            if (!transferFile.isValid(TransferFile.fingerprint(measurementId, persistence))) {
+                Log.d(TAG, "Precomputed transfer file of measurement $measurementId is outdated")
+                return null
+            }
+            return transferFile.file
+        }
+
+        /**
+         * Returns the file to upload for a [de.cyface.persistence.model.Attachment].
+         *
+         * Attachments are not wrapped in the `cyf` format, see [TransferFileSerializer.loadSerializedAttachment], so
+         * the file at the attachment's `path` is uploaded as it is. Unlike [writeSerializedAttachment], the data is
+         * neither loaded into memory nor copied into a temp file.
+         *
+         * **ATTENTION**: The returned file is the attachment itself and must not be deleted by the caller.
+         *
+         * @param attachment The [de.cyface.persistence.model.Attachment] to upload.
+         * @return The file containing the data to transfer.
+         * @throws IllegalArgumentException if the type or format of the attachment is not supported.
+         * @throws IllegalStateException if the attachment file does not exist.
+         */
+        @JvmStatic
+        fun attachmentFile(attachment: de.cyface.persistence.model.Attachment): File {
+            AttachmentSerializer.requireSupported(attachment)
+            val file = attachment.path.toFile()
+            check(file.isFile) { "Could not read attachment (id ${attachment.id} at ${attachment.path})" }
+            return file
+        }
+
+        /**
+         * Estimates the size of the transfer file of a measurement before it is compressed, without serializing it.
+         *
+         * The size is dominated by the sensor data, which is stored already serialized.
+         *
+         * The size is read from the [MeasurementLedger] with one query. Only for measurements captured before the
+         * ledger was added, whose ledger contains no sensor data bytes, the size is estimated from the files.
+         *
+         * @param measurementId The id of the measurement to estimate the size of.
+         * @param persistence The [PersistenceLayer] to load the measurement data from.
+         * @return The estimated size in bytes.
+         */
+        @JvmStatic
+        suspend fun estimateSize(measurementId: Long, persistence: PersistenceLayer<*>): Long {
+            val ledger = persistence.database?.measurementLedgerDao()?.loadByMeasurementId(measurementId)
+            if (ledger != null && ledger.sensorBytes > 0) {
+                return estimateSize(ledger)
+            }
+            val sensorBytes = listOf(
+                Point3DFile.ACCELERATIONS_FOLDER_NAME to Point3DFile.ACCELERATIONS_FILE_EXTENSION,
+                Point3DFile.ROTATIONS_FOLDER_NAME to Point3DFile.ROTATION_FILE_EXTENSION,
+                Point3DFile.DIRECTIONS_FOLDER_NAME to Point3DFile.DIRECTION_FILE_EXTENSION
+            ).sumOf { (folder, extension) ->
+                val file =
+                    persistence.fileIOHandler.getFilePath(persistence.context!!, measurementId, folder, extension)
+                if (file.exists()) file.length() else 0L
+            }
+            return sensorBytes + persistence.countLocations(measurementId) * LOCATION_BYTES
+        }
+
+        /**
+         * Estimates the size of the transfer file of a measurement before it is compressed from its ledger.
+         *
+         * @param ledger The [MeasurementLedger] of the measurement to estimate the size of.
+         * @return The estimated size in bytes.
+         */
+        @JvmStatic
+        fun estimateSize(ledger: MeasurementLedger): Long {
+            return ledger.sensorBytes + ledger.locations * LOCATION_BYTES
+        }
     }
 }
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import java.io.ByteArrayOutputStream
+import java.io.FilterOutputStream
+import java.io.IOException
+import java.io.OutputStream
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Future
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.zip.Deflater
+
+/**
+ * Compresses the data written to it with multiple threads into one raw deflate stream, similar to `pigz`.
+ *
+ * The data is split into blocks of [BLOCK_SIZE] bytes which are compressed concurrently. Each block is compressed
+ * with the last [DICTIONARY_SIZE] bytes of the previous block as dictionary, so the compression ratio is close to a
+ * single [Deflater]. All but the last block end with a [Deflater.SYNC_FLUSH], which aligns them to a byte
+ * boundary. This way the compressed blocks can be concatenated in order and the result can be inflated by any
+ * `Inflater` with `nowrap`, i.e. the server does not need to know how the data was compressed.
+ *
+ * Data which fits into one block is compressed on the calling thread and is equal to the output of a single
+ * [Deflater] with the same level.
+ *
+ * The blocks of all instances are compressed by one [executor] with one thread per processor, so streams written
+ * at the same time do not create more threads than the device can run. At most `threads` blocks per instance are
+ * compressed at once and kept in memory, so the memory used does not depend on the size of the data.
+ *
+ * As every block but the last ends at a byte boundary, the compressed data written until the end of a block can be
+ * continued by another instance, e.g. after the process was killed. The [blockListener] is notified of these
+ * boundaries, and the new instance is created with the `dictionary` reported for the boundary.
+ *
+ * The time spent deflating is measured on the threads which compress the blocks, see [deflateNanos] and
+ * [deflateCpuNanos], so it does not include the time it took to produce the data written to this stream.
+ *
+ * @author Armin Schnabel
+ * @version 1.4.0
+ * @since 7.14.0
+ * @param outputStream The stream to write the compressed data to. It is closed when this stream is closed.
+ * @property level The compression level of the [Deflater], from `0` to `9`.
+ * @param threads The maximal number of blocks of this stream which are compressed concurrently.
+ * @param dictionary The dictionary of the first block when the compressed data of another instance is continued,
+ * or `null` to start a new deflate stream.
+ * @property threadCpuTime Returns the CPU time of the current thread in nanoseconds or a negative value if it's not
+ * supported, e.g. `Debug::threadCpuTimeNanos`, or `null` to not measure the [deflateCpuNanos].
+ */
+class ParallelDeflaterOutputStream(
+    outputStream: OutputStream,
+    private val level: Int,
+    threads: Int = Runtime.getRuntime().availableProcessors(),
+    dictionary: ByteArray? = null,
+    private val threadCpuTime: (() -> Long)? = null
+) : FilterOutputStream(outputStream) {
+
+    /**
+     * The blocks which are compressed, in the order they are written to the output.
+     */
+    private val pending = ArrayDeque<Block>()
+
+    /**
+     * The maximal number of blocks which are compressed at the same time.
+     */
+    private val maxPending = threads.coerceAtLeast(1)
+
+    /**
+     * The block which is currently filled.
+     */
+    private var block = ByteArray(BLOCK_SIZE)
+
+    /**
+     * The number of bytes written to the current [block].
+     */
+    private var blockLength = 0
+
+    /**
+     * The dictionary of the next block, i.e. the end of the previous block, or `null` for the first block.
+     */
+    private var dictionary: ByteArray? = dictionary
+
+    /**
+     * The number of uncompressed bytes handed over to the [executor].
+     */
+    private var submitted = 0L
+
+    private var closed = false
+
+    /**
+     * Notified after a block, which is not the last block, was written to the output stream.
+     *
+     * The first parameter is the number of uncompressed bytes written to this stream up to the end of the block,
+     * the second the dictionary required to continue the compressed data after this block.
+     */
+    var blockListener: ((Long, ByteArray) -> Unit)? = null
+
+    /**
+     * The number of uncompressed bytes written to this stream.
+     */
+    var totalIn = 0L
+        private set
+
+    /**
+     * The time in nanoseconds spent deflating the blocks of this stream, summed up over all threads.
+     */
+    val deflateNanos: Long
+        get() = deflateTime.get()
+
+    /**
+     * The CPU time in nanoseconds the threads used to deflate the blocks of this stream, summed up over all
+     * threads, or `0` if the [threadCpuTime] is not measured.
+     */
+    val deflateCpuNanos: Long
+        get() = deflateCpuTime.get()
+
+    private val deflateTime = AtomicLong()
+
+    private val deflateCpuTime = AtomicLong()
+
+    override fun write(b: Int) {
+        write(byteArrayOf(b.toByte()), 0, 1)
+    }
+
+    override fun write(b: ByteArray, off: Int, len: Int) {
+        if (closed) {
+            throw IOException("Stream closed")
+        }
+        totalIn += len
+        var offset = off
+        var remaining = len
+        while (remaining > 0) {
+            // The block is only submitted on the next write, so the last block can be finished in close()
+            if (blockLength == BLOCK_SIZE) {
+                submit(false)
+            }
+            val length = minOf(remaining, BLOCK_SIZE - blockLength)
+            System.arraycopy(b, offset, block, blockLength, length)
+            blockLength += length
+            offset += length
+            remaining -= length
+        }
+    }
+
+    /**
+     * Writes the blocks compressed so far. The current block is not compressed until it is full or the stream is
+     * closed, as a flush would reduce the compression ratio.
+     */
+    override fun flush() {
+        while (pending.isNotEmpty() && pending.first().future.isDone) {
+            writeBlock(pending.removeFirst())
+        }
+        out.flush()
+    }
+
+    override fun close() {
+        if (closed) {
+            return
+        }
+        closed = true
+        try {
+            if (pending.isEmpty() && dictionary == null) {
+                // Small enough to not need any other thread
+                out.write(compress(block, blockLength, null, true))
+            } else {
+                submit(true)
+                while (pending.isNotEmpty()) {
+                    writeBlock(pending.removeFirst())
+                }
+            }
+            out.flush()
+        } finally {
+            // The executor is shared, so only the blocks of this stream are cancelled, e.g. after a failed write
+            pending.forEach { it.future.cancel(true) }
+            pending.clear()
+            out.close()
+        }
+    }
+
+    /**
+     * Hands the current block over to the [executor] and starts a new block.
+     *
+     * @param last `true` if this is the last block of the stream.
+     */
+    private fun submit(last: Boolean) {
+        val data = block
+        val length = blockLength
+        val blockDictionary = dictionary
+        val future = executor.submit<ByteArray> { compress(data, length, blockDictionary, last) }
+        val nextDictionary = data.copyOfRange(length - minOf(length, DICTIONARY_SIZE), length)
+        submitted += length
+        pending.addLast(Block(future, submitted, nextDictionary, last))
+        dictionary = nextDictionary
+        block = ByteArray(BLOCK_SIZE)
+        blockLength = 0
+
+        // Write finished blocks and limit the memory used when the data is written faster than it's compressed
+        while (pending.isNotEmpty() && (pending.size >= maxPending || pending.first().future.isDone)) {
+            writeBlock(pending.removeFirst())
+        }
+    }
+
+    /**
+     * Writes a compressed block to the output stream and notifies the [blockListener] if the block is not the last.
+     */
+    private fun writeBlock(compressed: Block) {
+        out.write(await(compressed.future))
+        if (!compressed.last) {
+            blockListener?.invoke(compressed.end, compressed.dictionary)
+        }
+    }
+
+    /**
+     * Compresses one block.
+     *
+     * @param data The block to compress.
+     * @param length The number of bytes of the block which contain data.
+     * @param dictionary The end of the previous block or `null` for the first block.
+     * @param last `true` if this is the last block, which finishes the deflate stream.
+     * @return The compressed block.
+     */
+    private fun compress(data: ByteArray, length: Int, dictionary: ByteArray?, last: Boolean): ByteArray {
+        val start = System.nanoTime()
+        val startCpuTime = threadCpuTime?.invoke() ?: -1L
+        val deflater = Deflater(level, MeasurementSerializer.COMPRESSION_NOWRAP)
+        try {
+            if (dictionary != null && dictionary.isNotEmpty()) {
+                deflater.setDictionary(dictionary)
+            }
+            deflater.setInput(data, 0, length)
+            val output = ByteArrayOutputStream(length / 2 + OUTPUT_BUFFER_SIZE)
+            val buffer = ByteArray(OUTPUT_BUFFER_SIZE)
+            if (last) {
+                deflater.finish()
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer))
+                }
+            } else {
+                // The sync flush ends the block at a byte boundary without finishing the stream
+                do {
+                    val compressed = deflater.deflate(buffer, 0, buffer.size, Deflater.SYNC_FLUSH)
+                    output.write(buffer, 0, compressed)
+                } while (compressed == buffer.size)
+            }
+            return output.toByteArray()
+        } finally {
+            deflater.end()
+            deflateTime.addAndGet(System.nanoTime() - start)
+            val endCpuTime = threadCpuTime?.invoke() ?: -1L
+            if (startCpuTime >= 0 && endCpuTime >= 0) {
+                deflateCpuTime.addAndGet(endCpuTime - startCpuTime)
+            }
+        }
+    }
+
+    /**
+     * Waits until a block is compressed.
+     *
+     * @return The compressed block.
+     */
+    private fun await(future: Future<ByteArray>): ByteArray {
+        try {
+            return future.get()
+        } catch (e: ExecutionException) {
+            throw IOException("Failed to compress block", e.cause)
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw IOException("Interrupted while compressing", e)
+        }
+    }
+
+    /**
+     * Creates the threads of the [executor] as daemon threads, so they do not keep the process alive.
+     */
+    private class DaemonThreadFactory : ThreadFactory {
+        private val count = AtomicInteger()
+
+        override fun newThread(runnable: Runnable): Thread {
+            return Thread(runnable, "ParallelDeflater-${count.incrementAndGet()}").apply { isDaemon = true }
+        }
+    }
+
+    /**
+     * A block which is compressed by the [executor].
+     *
+     * @property future The compressed block, when it's finished.
+     * @property end The number of uncompressed bytes written to this stream up to the end of the block.
+     * @property dictionary The dictionary of the block following this block.
+     * @property last `true` if this is the last block of the stream.
+     */
+    private class Block(
+        val future: Future<ByteArray>,
+        val end: Long,
+        val dictionary: ByteArray,
+        val last: Boolean
+    )
+
+    companion object {
+        /**
+         * The threads which compress the blocks of all instances, one per processor. Idle threads are terminated,
+         * so the executor does not hold any threads while no stream is written.
+         */
+        private val executor: ExecutorService by lazy {
+            val processors = Runtime.getRuntime().availableProcessors()
+            ThreadPoolExecutor(
+                processors,
+                processors,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                LinkedBlockingQueue(),
+                DaemonThreadFactory()
+            ).apply { allowCoreThreadTimeOut(true) }
+        }
+
+        /**
+         * The number of seconds after which an idle thread of the [executor] is terminated.
+         */
+        private const val KEEP_ALIVE_SECONDS = 30L
+
+        /**
+         * The number of bytes compressed by one thread at once. Smaller blocks reduce the compression ratio.
+         */
+        const val BLOCK_SIZE = 128 * 1024
+
+        /**
+         * The maximal size of a deflate dictionary, i.e. the window size.
+         */
+        private const val DICTIONARY_SIZE = 32 * 1024
+
+        /**
+         * The size of the buffer the compressed data is written to.
+         */
+        private const val OUTPUT_BUFFER_SIZE = 16 * 1024
+    }
+}
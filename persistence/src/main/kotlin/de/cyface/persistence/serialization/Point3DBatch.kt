@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import com.google.protobuf.CodedInputStream
+import de.cyface.protos.model.Accelerations
+import de.cyface.protos.model.Directions
+import de.cyface.protos.model.Rotations
+import de.cyface.serializer.model.Point3DType
+
+/**
+ * A batch of [de.cyface.model.Point3D] samples stored in primitive arrays, as read by the [Point3DReader] and the
+ * [TransferFileReader].
+ *
+ * The same instance and arrays are reused for each batch, so no objects are created per sample. Copy the values
+ * which are needed after the batch was consumed.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property type The sensor data type of the samples.
+ */
+class Point3DBatch internal constructor(val type: Point3DType) {
+    /**
+     * The number of samples in this batch. Only the first [size] entries of the arrays are valid.
+     */
+    var size = 0
+        private set
+
+    /**
+     * The timestamps of the samples in milliseconds since 1970.
+     */
+    var timestamps = LongArray(INITIAL_CAPACITY)
+        private set
+
+    /**
+     * The x values of the samples, e.g. in m/s² for accelerations.
+     */
+    var x = FloatArray(INITIAL_CAPACITY)
+        private set
+
+    /**
+     * The y values of the samples.
+     */
+    var y = FloatArray(INITIAL_CAPACITY)
+        private set
+
+    /**
+     * The z values of the samples.
+     */
+    var z = FloatArray(INITIAL_CAPACITY)
+        private set
+
+    /**
+     * Reads the next batch message, e.g. one `Accelerations`, and keeps the samples within a time window.
+     *
+     * @param input The stream, limited to the batch message.
+     * @param start The first timestamp to keep in milliseconds.
+     * @param end The timestamp from which on samples are dropped in milliseconds.
+     * @return `true` if the batch contains samples at or after [end], i.e. the following batches can be skipped.
+     */
+    internal fun read(input: CodedInputStream, start: Long, end: Long): Boolean {
+        return when (type) {
+            Point3DType.ACCELERATION -> Accelerations.parseFrom(input).let {
+                decode(
+                    it.timestampCount, ACCELERATION_SCALE, start, end, it::getTimestamp, it::getX, it::getY, it::getZ
+                )
+            }
+
+            Point3DType.ROTATION -> Rotations.parseFrom(input).let {
+                decode(
+                    it.timestampCount, ROTATION_SCALE, start, end, it::getTimestamp, it::getX, it::getY, it::getZ
+                )
+            }
+
+            Point3DType.DIRECTION -> Directions.parseFrom(input).let {
+                decode(
+                    it.timestampCount, DIRECTION_SCALE, start, end, it::getTimestamp, it::getX, it::getY, it::getZ
+                )
+            }
+
+            else -> throw IllegalArgumentException("Unknown type: $type")
+        }
+    }
+
+    /**
+     * Restores the samples from the offset format, see `Point3DSerializer`: the first sample of a batch is stored
+     * absolute, the following ones as difference to the previous sample. The values are stored as integers
+     * multiplied by [scale].
+     */
+    private inline fun decode(
+        count: Int,
+        scale: Float,
+        start: Long,
+        end: Long,
+        timestamp: (Int) -> Long,
+        x: (Int) -> Int,
+        y: (Int) -> Int,
+        z: (Int) -> Int
+    ): Boolean {
+        if (count > timestamps.size) {
+            timestamps = LongArray(count)
+            this.x = FloatArray(count)
+            this.y = FloatArray(count)
+            this.z = FloatArray(count)
+        }
+        size = 0
+        var absoluteTimestamp = 0L
+        var absoluteX = 0
+        var absoluteY = 0
+        var absoluteZ = 0
+        for (i in 0 until count) {
+            absoluteTimestamp += timestamp(i)
+            absoluteX += x(i)
+            absoluteY += y(i)
+            absoluteZ += z(i)
+            if (absoluteTimestamp >= end) {
+                return true
+            }
+            if (absoluteTimestamp >= start) {
+                timestamps[size] = absoluteTimestamp
+                this.x[size] = absoluteX / scale
+                this.y[size] = absoluteY / scale
+                this.z[size] = absoluteZ / scale
+                size++
+            }
+        }
+        return false
+    }
+
+    companion object {
+        private const val INITIAL_CAPACITY = 1_024
+
+        /**
+         * The factor by which the accelerations in m/s² are stored as integers, i.e. mm/s².
+         */
+        private const val ACCELERATION_SCALE = 1_000f
+
+        /**
+         * The factor by which the rotations in rad/s are stored as integers.
+         */
+        private const val ROTATION_SCALE = 1_000f
+
+        /**
+         * The factor by which the directions in µT are stored as integers.
+         */
+        private const val DIRECTION_SCALE = 100f
+    }
+}
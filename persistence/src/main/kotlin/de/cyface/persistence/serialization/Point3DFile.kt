@@ -29,7 +29,7 @@ import java.io.File
  * The file format to persist [Point3D]s such as accelerations, rotations and directions.
  *
  * @author Armin Schnabel
- * @version 6.0.1
+ * @version 6.1.0
  * @since 3.0.0
  */
 class Point3DFile {
@@ -87,10 +87,12 @@ class Point3DFile {
      * Appends data to a file for a certain measurement.
      *
      * @param dataPoints The data to append.
+     * @return The number of bytes appended to the file.
      */
-    fun append(dataPoints: List<Point3D?>?) {
+    fun append(dataPoints: List<Point3D?>?): Int {
         val data = serialize(dataPoints)
         fileIOHandler.write(file, data, true)
+        return data.size
     }
 
     /**
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import com.google.protobuf.CodedInputStream
+import com.google.protobuf.WireFormat
+import de.cyface.protos.model.Accelerations
+import de.cyface.protos.model.Directions
+import de.cyface.protos.model.Rotations
+import de.cyface.serializer.model.Point3DType
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+
+/**
+ * Reads the samples of a [Point3DFile] from a memory-mapped buffer, e.g. for analyses on the device.
+ *
+ * The samples are returned in [Point3DBatch]es of primitive arrays, so neither the file is copied into the heap nor
+ * an object is created per sample. When a time window is read, the batches before the window are skipped without
+ * parsing them, see [SensorBatchIndex].
+ *
+ * The reader can be used by one thread at a time.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property type The sensor data type of the file.
+ */
+class Point3DReader private constructor(
+    val type: Point3DType,
+    private val buffer: ByteBuffer,
+    private val index: SensorBatchIndex
+) {
+    /**
+     * The batch which is reused for each batch read.
+     */
+    private val batch = Point3DBatch(type)
+
+    /**
+     * The number of batches in the file, i.e. the number of [Point3DFile.append] calls.
+     */
+    val batchCount: Int
+        get() = index.batches.size
+
+    /**
+     * Reads the samples captured in a time window.
+     *
+     * @param start The first timestamp to read in milliseconds since 1970.
+     * @param end The timestamp in milliseconds from which on no samples are read.
+     * @param action Called with each batch which contains samples within the window. The batch is only valid until
+     * the action returns.
+     */
+    fun forEach(start: Long = Long.MIN_VALUE, end: Long = Long.MAX_VALUE, action: (Point3DBatch) -> Unit) {
+        require(start < end) { "Invalid time window [$start, $end)" }
+        val batches = index.batches
+        if (batches.isEmpty()) {
+            return
+        }
+        // Binary search for the last batch which starts at or before `start`, as it may contain samples of the window
+        var first = 0
+        var low = 0
+        var high = batches.size - 1
+        while (low <= high) {
+            val middle = (low + high) ushr 1
+            if (batches[middle].timestamp <= start) {
+                first = middle
+                low = middle + 1
+            } else {
+                high = middle - 1
+            }
+        }
+        val window = buffer.duplicate()
+        window.position(batches[first].offset.toInt())
+        readBatches(CodedInputStream.newInstance(window), batch, start, end, action)
+    }
+
+    companion object {
+        /**
+         * Memory-maps a [Point3DFile].
+         *
+         * @param file The `.cyfa`, `.cyfr` or `.cyfd` file to read.
+         * @param type The sensor data type of the file.
+         * @return The reader for the file.
+         */
+        @JvmStatic
+        fun open(file: File, type: Point3DType): Point3DReader {
+            val buffer = FileChannel.open(file.toPath(), StandardOpenOption.READ).use {
+                // The mapping stays valid after the channel is closed
+                it.map(FileChannel.MapMode.READ_ONLY, 0, it.size())
+            }
+            return Point3DReader(type, buffer, SensorBatchIndex.read(buffer, timestampFieldNumber(type)))
+        }
+
+        /**
+         * Reads consecutive batch messages, i.e. the `repeated` field of e.g. `AccelerationsBinary`.
+         *
+         * @param input The stream positioned at the field tag of the first batch to read.
+         * @param batch The batch to read the samples into.
+         * @param start The first timestamp to read in milliseconds since 1970.
+         * @param end The timestamp in milliseconds from which on the reading stops.
+         * @param action Called with each batch which contains samples within the window.
+         * @return `true` if the reading stopped because the end of the window was reached.
+         */
+        internal fun readBatches(
+            input: CodedInputStream,
+            batch: Point3DBatch,
+            start: Long,
+            end: Long,
+            action: (Point3DBatch) -> Unit
+        ): Boolean {
+            input.setSizeLimit(Int.MAX_VALUE)
+            while (true) {
+                val tag = input.readTag()
+                if (tag == 0) {
+                    return false
+                }
+                if (WireFormat.getTagWireType(tag) != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    input.skipField(tag)
+                    continue
+                }
+                val limit = input.pushLimit(input.readRawVarint32())
+                val reachedEnd = batch.read(input, start, end)
+                input.popLimit(limit)
+                if (batch.size > 0) {
+                    action(batch)
+                }
+                if (reachedEnd) {
+                    return true
+                }
+            }
+        }
+
+        private fun timestampFieldNumber(type: Point3DType): Int {
+            return when (type) {
+                Point3DType.ACCELERATION -> Accelerations.TIMESTAMP_FIELD_NUMBER
+                Point3DType.ROTATION -> Rotations.TIMESTAMP_FIELD_NUMBER
+                Point3DType.DIRECTION -> Directions.TIMESTAMP_FIELD_NUMBER
+                else -> throw IllegalArgumentException("Unknown type: $type")
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import com.google.protobuf.CodedOutputStream
+import de.cyface.persistence.io.FileIOHandler
+import de.cyface.protos.model.LocationRecords
+import de.cyface.protos.model.MeasurementBytes
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.OutputStream
+
+/**
+ * The file format to cache the serialized [LocationRecords] and `Event`s of a finished measurement, see
+ * [TransferFileSerializer.prebuildRecords].
+ *
+ * The file contains the `events` and `location_records` fields of a [MeasurementBytes] message. As Protobuf merges
+ * concatenated messages, these bytes are appended to the message with the sensor data as they are, without parsing.
+ *
+ * The number of events and locations when the records were built is stored in front of the records. The records
+ * are only valid as long as these numbers did not change, i.e. no data was added or removed since.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 7.14.0
+ * @property file The [File] pointer to the actual file.
+ * @property eventCount The number of events of the measurement when the records were built.
+ * @property locationCount The number of locations of the measurement when the records were built.
+ */
+class RecordsFile private constructor(
+    val file: File,
+    val eventCount: Int,
+    val locationCount: Int
+) {
+    /**
+     * Checks if the records still contain all data of a measurement.
+     *
+     * @param eventCount The current number of events of the measurement.
+     * @param locationCount The current number of locations of the measurement.
+     * @return `true` if the records can be used instead of serializing the data again.
+     */
+    fun isValid(eventCount: Int, locationCount: Int): Boolean {
+        return this.eventCount == eventCount && this.locationCount == locationCount
+    }
+
+    /**
+     * The number of bytes of the serialized records.
+     */
+    val size: Long
+        get() = file.length() - HEADER_BYTES
+
+    /**
+     * Copies the records to an output stream, without loading them into memory at once.
+     *
+     * @param outputStream The stream to write the serialized records to.
+     * @param skip The number of bytes at the beginning of the records which are not written, e.g. because they were
+     * written before the serialization was interrupted.
+     * @return The number of bytes written.
+     */
+    @JvmOverloads
+    fun writeTo(outputStream: OutputStream, skip: Long = 0L): Long {
+        require(skip in 0..size) { "Invalid number of bytes to skip: $skip" }
+        try {
+            FileInputStream(file).use { stream ->
+                val input = DataInputStream(stream)
+                readHeader(input)
+                var skipped = 0L
+                while (skipped < skip) {
+                    val bytes = input.skip(skip - skipped)
+                    check(bytes > 0) { "The records file was truncated: ${file.path}" }
+                    skipped += bytes
+                }
+                return input.copyTo(outputStream)
+            }
+        } catch (e: IOException) {
+            throw IllegalStateException("Failed to read records file: ${file.path}", e)
+        }
+    }
+
+    companion object {
+        /**
+         * The name of the folder containing the records files.
+         */
+        const val FOLDER_NAME = "records"
+
+        /**
+         * The file extension of records files. This makes sure no system-generated files in the [FOLDER_NAME] are
+         * identified as [RecordsFile]s.
+         */
+        const val FILE_EXTENSION = "cyfm"
+
+        /**
+         * The version of the file format, stored at the beginning of each file.
+         */
+        private const val FORMAT_VERSION: Short = 1
+
+        /**
+         * The number of bytes in front of the records, i.e. the version and the number of events and locations.
+         */
+        private const val HEADER_BYTES = java.lang.Short.BYTES + 2 * Integer.BYTES
+
+        /**
+         * The suffix of the file which is written before it replaces the records file.
+         */
+        private const val TEMPORARY_SUFFIX = ".tmp"
+
+        /**
+         * Loads an existing [RecordsFile] of a specified measurement if it exists.
+         *
+         * Only the header of the file is read.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement for which the file is to be found.
+         * @return The records file or `null` if no records were built for the measurement.
+         */
+        @JvmStatic
+        fun load(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): RecordsFile? {
+            val file = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FILE_EXTENSION)
+            if (!file.exists()) {
+                return null
+            }
+            try {
+                FileInputStream(file).use { stream ->
+                    val (eventCount, locationCount) = readHeader(DataInputStream(stream))
+                    return RecordsFile(file, eventCount, locationCount)
+                }
+            } catch (e: IOException) {
+                throw IllegalStateException("Failed to read records file: ${file.path}", e)
+            }
+        }
+
+        /**
+         * Writes the records of a measurement, replacing existing records.
+         *
+         * The file is written completely before it replaces the previous file, so readers never see partially
+         * written records.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement the records belong to.
+         * @param eventCount The number of events of the measurement when the records were built.
+         * @param locationCount The number of locations of the measurement when the records were built.
+         * @param records Writes the `events` and `location_records` fields of the measurement, e.g. page by page,
+         * so the records are never held in memory as a whole.
+         * @return The written records file.
+         */
+        @JvmStatic
+        suspend fun write(
+            context: Context,
+            fileIOHandler: FileIOHandler,
+            measurementId: Long,
+            eventCount: Int,
+            locationCount: Int,
+            records: suspend (CodedOutputStream) -> Unit
+        ): RecordsFile {
+            val folder = fileIOHandler.getFolderPath(context, FOLDER_NAME)
+            if (!folder.exists()) {
+                require(folder.mkdirs())
+            }
+            val file = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FILE_EXTENSION)
+            val temporary = File(file.path + TEMPORARY_SUFFIX)
+            try {
+                FileOutputStream(temporary).use { stream ->
+                    val output = DataOutputStream(stream.buffered())
+                    output.writeShort(FORMAT_VERSION.toInt())
+                    output.writeInt(eventCount)
+                    output.writeInt(locationCount)
+                    val coded = CodedOutputStream.newInstance(output)
+                    records(coded)
+                    coded.flush()
+                    output.flush()
+                }
+            } catch (e: IOException) {
+                temporary.delete()
+                throw IllegalStateException("Failed to write records file. Is there space left on the device?", e)
+            }
+            if (!temporary.renameTo(file)) {
+                temporary.delete()
+                throw IllegalStateException("Failed to replace records file: ${file.path}")
+            }
+            return RecordsFile(file, eventCount, locationCount)
+        }
+
+        /**
+         * Deletes the records of a measurement if they exist.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement to delete the records of.
+         */
+        @JvmStatic
+        fun delete(context: Context, fileIOHandler: FileIOHandler, measurementId: Long) {
+            val file = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FILE_EXTENSION)
+            if (file.exists()) {
+                require(file.delete())
+            }
+        }
+
+        /**
+         * Reads the header of a records file.
+         *
+         * @return The number of events and locations when the records were built.
+         */
+        private fun readHeader(input: DataInputStream): Pair<Int, Int> {
+            val version = input.readShort()
+            require(version == FORMAT_VERSION) { "Unsupported records file version: $version" }
+            return Pair(input.readInt(), input.readInt())
+        }
+    }
+}
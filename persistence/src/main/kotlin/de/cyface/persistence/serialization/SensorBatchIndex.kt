@@ -0,0 +1,134 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import com.google.protobuf.CodedInputStream
+import com.google.protobuf.WireFormat
+import java.io.BufferedInputStream
+import java.io.File
+import java.io.FileInputStream
+import java.nio.ByteBuffer
+
+/**
+ * The batches of sensor data in a [Point3DFile] and the time at which each was captured, so the file can be cut into
+ * [MeasurementPart]s without deserializing the sensor data.
+ *
+ * Each [Point3DFile.append] writes one length-delimited field of e.g. the `AccelerationsBinary` message. The first
+ * timestamp of a batch is stored absolute, the following ones as offsets. Thus, any subset of the batches is a valid
+ * message of the same type.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ * @property batches The batches in the order of the file.
+ */
+internal class SensorBatchIndex private constructor(val batches: List<Batch>) {
+
+    /**
+     * A batch of sensor data in a [Point3DFile].
+     *
+     * @property offset The position of the first byte of the batch in the file, i.e. of its field tag.
+     * @property length The number of bytes of the batch, including its field tag and length.
+     * @property timestamp The timestamp of the first sensor value of the batch in milliseconds.
+     */
+    data class Batch(val offset: Long, val length: Long, val timestamp: Long)
+
+    /**
+     * @param part The part to select the batches for.
+     * @return The batches which were captured in the time range of the part.
+     */
+    fun select(part: MeasurementPart) = batches.filter { it.timestamp in part }
+
+    companion object {
+        /**
+         * Reads the positions and first timestamps of the batches in a file. Only the field tags and the first
+         * timestamp of each batch are parsed, the sensor values are skipped.
+         *
+         * @param file The [Point3DFile] to index. An empty index is returned if it does not exist.
+         * @param timestampFieldNumber The number of the `timestamp` field in the batch message, e.g.
+         * `Accelerations.TIMESTAMP_FIELD_NUMBER`.
+         * @return The index of the file.
+         */
+        fun read(file: File, timestampFieldNumber: Int): SensorBatchIndex {
+            if (!file.exists()) {
+                return SensorBatchIndex(emptyList())
+            }
+            return BufferedInputStream(FileInputStream(file)).use {
+                read(CodedInputStream.newInstance(it), timestampFieldNumber, file.path)
+            }
+        }
+
+        /**
+         * Reads the positions and first timestamps of the batches in a memory-mapped [Point3DFile].
+         *
+         * @param buffer The content of the file. Its position and limit are not changed.
+         * @param timestampFieldNumber The number of the `timestamp` field in the batch message.
+         * @return The index of the file.
+         */
+        fun read(buffer: ByteBuffer, timestampFieldNumber: Int): SensorBatchIndex {
+            return read(CodedInputStream.newInstance(buffer.duplicate()), timestampFieldNumber, "buffer")
+        }
+
+        private fun read(input: CodedInputStream, timestampFieldNumber: Int, name: String): SensorBatchIndex {
+            val batches = mutableListOf<Batch>()
+            input.setSizeLimit(Int.MAX_VALUE)
+            while (true) {
+                val offset = input.totalBytesRead.toLong()
+                val tag = input.readTag()
+                if (tag == 0) {
+                    break
+                }
+                check(WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    "Unexpected field in $name at $offset"
+                }
+                val limit = input.pushLimit(input.readRawVarint32())
+                // Batches without data belong to the time of the previous batch
+                val timestamp = readFirstTimestamp(input, timestampFieldNumber)
+                    ?: batches.lastOrNull()?.timestamp ?: Long.MIN_VALUE
+                input.skipRawBytes(input.bytesUntilLimit)
+                input.popLimit(limit)
+                batches.add(Batch(offset, input.totalBytesRead - offset, timestamp))
+            }
+            return SensorBatchIndex(batches)
+        }
+
+        /**
+         * Reads the first value of the `timestamp` field of a batch, which is encoded packed or unpacked.
+         *
+         * @return The timestamp, or `null` if the batch contains no timestamps.
+         */
+        private fun readFirstTimestamp(input: CodedInputStream, timestampFieldNumber: Int): Long? {
+            while (!input.isAtEnd) {
+                val tag = input.readTag()
+                if (WireFormat.getTagFieldNumber(tag) != timestampFieldNumber) {
+                    input.skipField(tag)
+                    continue
+                }
+                if (WireFormat.getTagWireType(tag) != WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    return input.readInt64()
+                }
+                val length = input.readRawVarint32()
+                if (length > 0) {
+                    return input.readInt64()
+                }
+            }
+            return null
+        }
+    }
+}
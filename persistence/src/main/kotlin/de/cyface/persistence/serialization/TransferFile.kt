@@ -0,0 +1,266 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import de.cyface.persistence.PersistenceLayer
+import de.cyface.persistence.io.FileIOHandler
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+
+/**
+ * The compressed transfer file of a finished measurement, precomputed before the synchronization, see
+ * [MeasurementSerializer.precompute].
+ *
+ * The file contains the same data as a transfer file written by [MeasurementSerializer.writeSerializedCompressed].
+ * A fingerprint of the measurement data the file was built from is stored next to it. The file is only valid as long
+ * as the fingerprint did not change, i.e. no data was added, removed or replaced since, see [fingerprint].
+ *
+ * The size of all transfer files is limited by [evict], which deletes the least recently written files first.
+ *
+ * @author Armin Schnabel
+ * @version 1.3.0
+ * @since 7.14.0
+ * @property file The [File] pointer to the compressed transfer file.
+ * @property fingerprint The fingerprint of the measurement data when the file was built.
+ */
+class TransferFile private constructor(
+    val file: File,
+    val fingerprint: String
+) {
+    /**
+     * Checks if the file still contains all data of a measurement.
+     *
+     * @param fingerprint The current fingerprint of the measurement, see [TransferFile.fingerprint].
+     * @return `true` if the file can be uploaded instead of serializing the measurement again.
+     */
+    fun isValid(fingerprint: String): Boolean {
+        return this.fingerprint == fingerprint
+    }
+
+    companion object {
+        /**
+         * The name of the folder containing the transfer files.
+         */
+        const val FOLDER_NAME = "transfer"
+
+        /**
+         * The file extension of transfer files. This makes sure no system-generated files in the [FOLDER_NAME] are
+         * identified as [TransferFile]s.
+         */
+        const val FILE_EXTENSION = "ccyf"
+
+        /**
+         * The file extension of the file which contains the fingerprint of a transfer file.
+         */
+        private const val FINGERPRINT_EXTENSION = "fingerprint"
+
+        /**
+         * The suffix of the file which is written before it replaces the fingerprint file.
+         */
+        private const val TEMPORARY_SUFFIX = ".tmp"
+
+        /**
+         * The algorithm used to hash the state of the measurement data.
+         */
+        private const val DIGEST_ALGORITHM = "SHA-256"
+
+        /**
+         * The maximal size of all transfer files in bytes, including interrupted serializations, if not specified
+         * otherwise. This is about 25 hours of compressed sensor data.
+         */
+        const val DEFAULT_MAX_CACHE_BYTES = 512L * 1024 * 1024
+
+        /**
+         * Loads an existing [TransferFile] of a specified measurement if it exists.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement for which the file is to be found.
+         * @return The transfer file or `null` if it was not precomputed or not completely written.
+         */
+        @JvmStatic
+        fun load(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): TransferFile? {
+            val file = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FILE_EXTENSION)
+            val fingerprintFile = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FINGERPRINT_EXTENSION)
+            if (!file.exists() || !fingerprintFile.exists()) {
+                return null
+            }
+            try {
+                return TransferFile(file, fingerprintFile.readText())
+            } catch (e: IOException) {
+                throw IllegalStateException("Failed to read fingerprint file: ${fingerprintFile.path}", e)
+            }
+        }
+
+        /**
+         * Moves a compressed transfer file into the cache, replacing an existing transfer file of the measurement.
+         *
+         * The fingerprint is written last, so a transfer file which was not moved completely, e.g. because the
+         * process was killed, is not loaded.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement the transfer file belongs to.
+         * @param compressed The compressed transfer file, which is moved.
+         * @param fingerprint The fingerprint of the measurement data before the transfer file was built.
+         * @return The cached transfer file.
+         */
+        @JvmStatic
+        fun write(
+            context: Context,
+            fileIOHandler: FileIOHandler,
+            measurementId: Long,
+            compressed: File,
+            fingerprint: String
+        ): TransferFile {
+            val folder = fileIOHandler.getFolderPath(context, FOLDER_NAME)
+            if (!folder.exists()) {
+                require(folder.mkdirs())
+            }
+            val file = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FILE_EXTENSION)
+            val fingerprintFile = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, FINGERPRINT_EXTENSION)
+            val temporary = File(fingerprintFile.path + TEMPORARY_SUFFIX)
+            try {
+                if (fingerprintFile.exists()) {
+                    require(fingerprintFile.delete())
+                }
+                // The cache directory may be on another file system, in which case the file cannot be renamed
+                if (!compressed.renameTo(file)) {
+                    compressed.copyTo(file, true)
+                    require(compressed.delete())
+                }
+                temporary.writeText(fingerprint)
+            } catch (e: IOException) {
+                temporary.delete()
+                throw IllegalStateException("Failed to write transfer file. Is there space left on the device?", e)
+            }
+            if (!temporary.renameTo(fingerprintFile)) {
+                temporary.delete()
+                throw IllegalStateException("Failed to replace fingerprint file: ${fingerprintFile.path}")
+            }
+            return TransferFile(file, fingerprint)
+        }
+
+        /**
+         * Deletes the transfer file of a measurement if it exists, including an interrupted serialization, see
+         * [TransferFileCheckpoint], and the [TransferFileLock] file.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement to delete the transfer file of.
+         */
+        @JvmStatic
+        fun delete(context: Context, fileIOHandler: FileIOHandler, measurementId: Long) {
+            listOf(FINGERPRINT_EXTENSION, FILE_EXTENSION, TransferFileLock.FILE_EXTENSION).forEach {
+                val file = fileIOHandler.getFilePath(context, measurementId, FOLDER_NAME, it)
+                if (file.exists()) {
+                    require(file.delete())
+                }
+            }
+            TransferFileCheckpoint.delete(context, fileIOHandler, measurementId)
+        }
+
+        /**
+         * Returns the size of all transfer files, including interrupted serializations, see [TransferFileCheckpoint].
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the files.
+         * @return The size in bytes.
+         */
+        @JvmStatic
+        fun cacheSize(context: Context, fileIOHandler: FileIOHandler): Long {
+            return cachedFiles(context, fileIOHandler).values.sumOf { files -> files.sumOf { it.length() } }
+        }
+
+        /**
+         * Deletes the transfer files and interrupted serializations which were written least recently, until all
+         * transfer files together are not larger than `maxBytes`. Measurements which are currently serialized are
+         * skipped, see [TransferFileLock].
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the files.
+         * @param maxBytes The maximal size in bytes of all transfer files.
+         * @return The identifiers of the measurements whose transfer files were deleted.
+         */
+        @JvmStatic
+        fun evict(context: Context, fileIOHandler: FileIOHandler, maxBytes: Long): List<Long> {
+            val cached = cachedFiles(context, fileIOHandler)
+            var size = cached.values.sumOf { files -> files.sumOf { it.length() } }
+            val evicted = mutableListOf<Long>()
+            cached.entries.sortedBy { (_, files) -> files.maxOf { it.lastModified() } }.forEach { (id, files) ->
+                if (size <= maxBytes) {
+                    return evicted
+                }
+                val lock = TransferFileLock.tryAcquire(context, fileIOHandler, id) ?: return@forEach
+                lock.use {
+                    size -= files.sumOf(File::length)
+                    delete(context, fileIOHandler, id)
+                }
+                evicted.add(id)
+            }
+            return evicted
+        }
+
+        /**
+         * @return The transfer files and partial files in the cache by the identifier of their measurement.
+         */
+        private fun cachedFiles(context: Context, fileIOHandler: FileIOHandler): Map<Long, List<File>> {
+            val extensions = setOf(FILE_EXTENSION, TransferFileCheckpoint.PARTIAL_FILE_EXTENSION)
+            val files = fileIOHandler.getFolderPath(context, FOLDER_NAME).listFiles() ?: return emptyMap()
+            return files
+                .filter { it.extension in extensions }
+                .mapNotNull { file -> file.nameWithoutExtension.toLongOrNull()?.let { it to file } }
+                .groupBy({ it.first }, { it.second })
+        }
+
+        /**
+         * Calculates the fingerprint of the data of a measurement which is contained in its transfer file.
+         *
+         * The fingerprint contains the [MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION], the size and
+         * modification time of the sensor data and location archive files and the number of events and locations.
+         * This is cheap to calculate, as no data is read.
+         *
+         * @param measurementId The identifier of the measurement to calculate the fingerprint for.
+         * @param persistence The [PersistenceLayer] to load the measurement data from.
+         * @return The fingerprint as hex string.
+         */
+        @JvmStatic
+        suspend fun fingerprint(measurementId: Long, persistence: PersistenceLayer<*>): String {
+            val context = persistence.context!!
+            val files = listOf(
+                Point3DFile.ACCELERATIONS_FOLDER_NAME to Point3DFile.ACCELERATIONS_FILE_EXTENSION,
+                Point3DFile.ROTATIONS_FOLDER_NAME to Point3DFile.ROTATION_FILE_EXTENSION,
+                Point3DFile.DIRECTIONS_FOLDER_NAME to Point3DFile.DIRECTION_FILE_EXTENSION,
+                LocationArchive.FOLDER_NAME to LocationArchive.FILE_EXTENSION
+            ).map { (folder, extension) ->
+                val file = persistence.fileIOHandler.getFilePath(context, measurementId, folder, extension)
+                if (file.exists()) "$extension:${file.length()}:${file.lastModified()}" else "$extension:-"
+            }
+            val state = listOf(
+                "version:${MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION}",
+                "events:${persistence.eventRepository!!.countByMeasurementId(measurementId)}",
+                "locations:${persistence.countLocations(measurementId)}"
+            ) + files
+            val digest = MessageDigest.getInstance(DIGEST_ALGORITHM).digest(state.joinToString("\n").toByteArray())
+            return digest.joinToString("") { "%02x".format(it) }
+        }
+    }
+}
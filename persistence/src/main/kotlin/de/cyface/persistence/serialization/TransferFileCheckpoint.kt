@@ -0,0 +1,193 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import de.cyface.persistence.io.FileIOHandler
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+
+/**
+ * The progress of a [TransferFile] which was not completely written, so the serialization can be continued by a
+ * later sync, see [MeasurementSerializer.precompute].
+ *
+ * The compressed data written so far is stored in the [partialFile]. A checkpoint is written at the end of a
+ * block of the [ParallelDeflaterOutputStream], where the compressed data ends at a byte boundary and can be
+ * continued with the [dictionary]. The bytes written to the partial file after the checkpoint are discarded.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.1
+ * @since 7.14.0
+ * @property fingerprint The fingerprint of the measurement data when the serialization started, see
+ * [TransferFile.fingerprint].
+ * @property uncompressedBytes The number of serialized bytes compressed until the checkpoint.
+ * @property compressedBytes The number of compressed bytes written to the partial file until the checkpoint.
+ * @property dictionary The dictionary to continue the compressed data with.
+ */
+class TransferFileCheckpoint(
+    val fingerprint: String,
+    val uncompressedBytes: Long,
+    val compressedBytes: Long,
+    val dictionary: ByteArray
+) {
+    /**
+     * Checks if the serialization can be continued from this checkpoint.
+     *
+     * @param fingerprint The current fingerprint of the measurement, see [TransferFile.fingerprint].
+     * @param partialFile The file with the compressed data written so far.
+     * @return `true` if the measurement did not change and the compressed data until the checkpoint exists.
+     */
+    fun isValid(fingerprint: String, partialFile: File): Boolean {
+        return this.fingerprint == fingerprint && partialFile.exists() && partialFile.length() >= compressedBytes
+    }
+
+    companion object {
+        /**
+         * The file extension of checkpoint files, which are stored in the [TransferFile.FOLDER_NAME].
+         */
+        const val FILE_EXTENSION = "checkpoint"
+
+        /**
+         * The file extension of the partially written transfer files.
+         */
+        const val PARTIAL_FILE_EXTENSION = "part"
+
+        /**
+         * The version of the file format, stored at the beginning of each file.
+         */
+        private const val FORMAT_VERSION: Short = 1
+
+        /**
+         * The suffix of the file which is written before it replaces the checkpoint file.
+         */
+        private const val TEMPORARY_SUFFIX = ".tmp"
+
+        /**
+         * Returns the file to which the compressed data of a measurement is written until it's complete.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement which is serialized.
+         * @return The partial file, which may not exist.
+         */
+        @JvmStatic
+        fun partialFile(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): File {
+            val folder = fileIOHandler.getFolderPath(context, TransferFile.FOLDER_NAME)
+            if (!folder.exists()) {
+                require(folder.mkdirs())
+            }
+            return fileIOHandler.getFilePath(context, measurementId, TransferFile.FOLDER_NAME, PARTIAL_FILE_EXTENSION)
+        }
+
+        /**
+         * Loads the last checkpoint of a measurement if it exists.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement for which the checkpoint is to be found.
+         * @return The checkpoint or `null` if the serialization was never interrupted.
+         */
+        @JvmStatic
+        fun load(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): TransferFileCheckpoint? {
+            val file = fileIOHandler.getFilePath(context, measurementId, TransferFile.FOLDER_NAME, FILE_EXTENSION)
+            if (!file.exists()) {
+                return null
+            }
+            try {
+                FileInputStream(file).use { stream ->
+                    val input = DataInputStream(stream.buffered())
+                    val version = input.readShort()
+                    require(version == FORMAT_VERSION) { "Unsupported checkpoint file version: $version" }
+                    val fingerprint = input.readUTF()
+                    val uncompressedBytes = input.readLong()
+                    val compressedBytes = input.readLong()
+                    val dictionary = ByteArray(input.readInt())
+                    input.readFully(dictionary)
+                    return TransferFileCheckpoint(fingerprint, uncompressedBytes, compressedBytes, dictionary)
+                }
+            } catch (e: IOException) {
+                throw IllegalStateException("Failed to read checkpoint file: ${file.path}", e)
+            }
+        }
+
+        /**
+         * Writes the checkpoint of a measurement, replacing the previous checkpoint.
+         *
+         * The file is written completely before it replaces the previous file, so an interrupted write does not
+         * corrupt the checkpoint.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the file.
+         * @param measurementId The identifier of the measurement which is serialized.
+         * @param checkpoint The checkpoint to write.
+         */
+        @JvmStatic
+        fun write(
+            context: Context,
+            fileIOHandler: FileIOHandler,
+            measurementId: Long,
+            checkpoint: TransferFileCheckpoint
+        ) {
+            val file = fileIOHandler.getFilePath(context, measurementId, TransferFile.FOLDER_NAME, FILE_EXTENSION)
+            val temporary = File(file.path + TEMPORARY_SUFFIX)
+            try {
+                FileOutputStream(temporary).use { stream ->
+                    val output = DataOutputStream(stream.buffered())
+                    output.writeShort(FORMAT_VERSION.toInt())
+                    output.writeUTF(checkpoint.fingerprint)
+                    output.writeLong(checkpoint.uncompressedBytes)
+                    output.writeLong(checkpoint.compressedBytes)
+                    output.writeInt(checkpoint.dictionary.size)
+                    output.write(checkpoint.dictionary)
+                    output.flush()
+                    // Or the renamed file could be empty after a crash
+                    stream.fd.sync()
+                }
+            } catch (e: IOException) {
+                temporary.delete()
+                throw IllegalStateException("Failed to write checkpoint file. Is there space left on the device?", e)
+            }
+            if (!temporary.renameTo(file)) {
+                temporary.delete()
+                throw IllegalStateException("Failed to replace checkpoint file: ${file.path}")
+            }
+        }
+
+        /**
+         * Deletes the checkpoint and the partial file of a measurement if they exist.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the files.
+         * @param measurementId The identifier of the measurement to delete the checkpoint of.
+         */
+        @JvmStatic
+        fun delete(context: Context, fileIOHandler: FileIOHandler, measurementId: Long) {
+            listOf(FILE_EXTENSION, PARTIAL_FILE_EXTENSION).forEach {
+                val file = fileIOHandler.getFilePath(context, measurementId, TransferFile.FOLDER_NAME, it)
+                if (file.exists()) {
+                    require(file.delete())
+                }
+            }
+        }
+    }
+}
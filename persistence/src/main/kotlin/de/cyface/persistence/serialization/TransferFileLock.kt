@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import de.cyface.persistence.io.FileIOHandler
+import kotlinx.coroutines.delay
+import java.io.Closeable
+import java.io.IOException
+import java.nio.channels.FileChannel
+import java.nio.channels.FileLock
+import java.nio.file.StandardOpenOption
+
+/**
+ * Makes sure the [TransferFile] of a measurement is only written by one serialization at a time, e.g. not by the
+ * `TransferFileJobService` and the synchronization at once, which would corrupt the partial file of the
+ * [TransferFileCheckpoint].
+ *
+ * The lock is held on a lock file in the [TransferFile.FOLDER_NAME], so it also excludes other processes of the app.
+ * As a file lock is held by the whole process, the measurements locked by this process are tracked in [locked].
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property measurementId The identifier of the measurement which is locked.
+ */
+class TransferFileLock private constructor(
+    private val measurementId: Long,
+    private val channel: FileChannel,
+    private val lock: FileLock
+) : Closeable {
+
+    /**
+     * Releases the lock, so the next serialization of the measurement can start.
+     */
+    override fun close() {
+        try {
+            lock.release()
+            channel.close()
+        } finally {
+            synchronized(locked) { locked.remove(measurementId) }
+        }
+    }
+
+    companion object {
+        /**
+         * The file extension of the lock files.
+         */
+        const val FILE_EXTENSION = "lock"
+
+        /**
+         * The time to wait between two attempts to acquire a lock which is held.
+         */
+        private const val RETRY_MILLIS = 500L
+
+        /**
+         * The identifiers of the measurements locked by this process.
+         */
+        private val locked = mutableSetOf<Long>()
+
+        /**
+         * Acquires the lock of a measurement if it's not held by another serialization.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the lock file.
+         * @param measurementId The identifier of the measurement to lock.
+         * @return The lock, which must be closed when the transfer file is written, or `null` if it's held.
+         */
+        @JvmStatic
+        fun tryAcquire(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): TransferFileLock? {
+            synchronized(locked) {
+                if (!locked.add(measurementId)) {
+                    return null
+                }
+            }
+            var lock: TransferFileLock? = null
+            try {
+                lock = lockFile(context, fileIOHandler, measurementId)
+                return lock
+            } catch (e: IOException) {
+                throw IllegalStateException("Failed to lock transfer file of measurement $measurementId", e)
+            } finally {
+                if (lock == null) {
+                    synchronized(locked) { locked.remove(measurementId) }
+                }
+            }
+        }
+
+        /**
+         * Acquires the lock of a measurement, waiting until another serialization released it.
+         *
+         * @param context The [Context] required to access the underlying persistence layer.
+         * @param fileIOHandler The [FileIOHandler] used to access the lock file.
+         * @param measurementId The identifier of the measurement to lock.
+         * @return The lock, which must be closed when the transfer file is written.
+         */
+        @JvmStatic
+        suspend fun acquire(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): TransferFileLock {
+            while (true) {
+                tryAcquire(context, fileIOHandler, measurementId)?.let { return it }
+                delay(RETRY_MILLIS)
+            }
+        }
+
+        /**
+         * Locks the lock file of a measurement.
+         *
+         * @return The lock, or `null` if the lock file is locked by another process.
+         */
+        private fun lockFile(context: Context, fileIOHandler: FileIOHandler, measurementId: Long): TransferFileLock? {
+            val folder = fileIOHandler.getFolderPath(context, TransferFile.FOLDER_NAME)
+            if (!folder.exists()) {
+                require(folder.mkdirs())
+            }
+            val file = fileIOHandler.getFilePath(context, measurementId, TransferFile.FOLDER_NAME, FILE_EXTENSION)
+            val channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)
+            try {
+                channel.tryLock()?.let { return TransferFileLock(measurementId, channel, it) }
+            } catch (e: IOException) {
+                channel.close()
+                throw e
+            }
+            channel.close()
+            return null
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import com.google.protobuf.CodedInputStream
+import com.google.protobuf.WireFormat
+import de.cyface.protos.model.MeasurementBytes
+import de.cyface.serializer.model.Point3DType
+import java.io.BufferedInputStream
+import java.io.File
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+/**
+ * Reads the sensor data of a compressed transfer file (`.ccyf`), e.g. as written by
+ * [MeasurementSerializer.writeSerializedCompressed] or [MeasurementSerializer.precompute].
+ *
+ * The file is memory-mapped and inflated while it is read, so neither the compressed nor the uncompressed data is
+ * loaded into the heap as a whole. The samples are returned in [Point3DBatch]es like by the [Point3DReader]. As the data is
+ * compressed, the file is inflated from the start on each read until the end of the time window is reached.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property file The transfer file to read.
+ */
+class TransferFileReader(private val file: File) {
+    /**
+     * Reads the samples of one sensor data type captured in a time window.
+     *
+     * @param type The sensor data type to read.
+     * @param start The first timestamp to read in milliseconds since 1970.
+     * @param end The timestamp in milliseconds from which on no samples are read.
+     * @param action Called with each batch which contains samples within the window. The batch is only valid until
+     * the action returns.
+     */
+    fun forEach(
+        type: Point3DType,
+        start: Long = Long.MIN_VALUE,
+        end: Long = Long.MAX_VALUE,
+        action: (Point3DBatch) -> Unit
+    ) {
+        require(start < end) { "Invalid time window [$start, $end)" }
+        val fieldNumber = when (type) {
+            Point3DType.ACCELERATION -> MeasurementBytes.ACCELERATIONS_BINARY_FIELD_NUMBER
+            Point3DType.ROTATION -> MeasurementBytes.ROTATIONS_BINARY_FIELD_NUMBER
+            Point3DType.DIRECTION -> MeasurementBytes.DIRECTIONS_BINARY_FIELD_NUMBER
+            else -> throw IllegalArgumentException("Unknown type: $type")
+        }
+        val buffer = FileChannel.open(file.toPath(), StandardOpenOption.READ).use {
+            // The mapping stays valid after the channel is closed
+            it.map(FileChannel.MapMode.READ_ONLY, 0, it.size())
+        }
+        val batch = Point3DBatch(type)
+        val inflater = Inflater(MeasurementSerializer.COMPRESSION_NOWRAP)
+        try {
+            val stream = BufferedInputStream(InflaterInputStream(ByteBufferInputStream(buffer), inflater), BUFFER_SIZE)
+            val input = CodedInputStream.newInstance(stream)
+            input.setSizeLimit(Int.MAX_VALUE)
+            input.skipRawBytes(MeasurementSerializer.BYTES_IN_HEADER)
+            while (true) {
+                val tag = input.readTag()
+                if (tag == 0) {
+                    return
+                }
+                if (WireFormat.getTagFieldNumber(tag) != fieldNumber ||
+                    WireFormat.getTagWireType(tag) != WireFormat.WIRETYPE_LENGTH_DELIMITED
+                ) {
+                    input.skipField(tag)
+                    continue
+                }
+                val limit = input.pushLimit(input.readRawVarint32())
+                if (Point3DReader.readBatches(input, batch, start, end, action)) {
+                    return
+                }
+                input.popLimit(limit)
+            }
+        } finally {
+            inflater.end()
+        }
+    }
+
+    /**
+     * Reads a [ByteBuffer] as stream, so the memory-mapped file can be inflated without copying it.
+     */
+    private class ByteBufferInputStream(private val buffer: ByteBuffer) : InputStream() {
+        override fun read(): Int {
+            return if (buffer.hasRemaining()) buffer.get().toInt() and 0xFF else -1
+        }
+
+        override fun read(b: ByteArray, off: Int, len: Int): Int {
+            if (len == 0) {
+                return 0
+            }
+            if (!buffer.hasRemaining()) {
+                return -1
+            }
+            val count = minOf(len, buffer.remaining())
+            buffer.get(b, off, count)
+            return count
+        }
+
+        override fun available() = buffer.remaining()
+    }
+
+    companion object {
+        /**
+         * The number of inflated bytes read at once.
+         */
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+}
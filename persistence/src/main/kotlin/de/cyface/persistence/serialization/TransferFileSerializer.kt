@@ -22,10 +22,12 @@ import android.database.Cursor
 import android.os.RemoteException
 import android.util.Log
 import androidx.sqlite.db.SimpleSQLiteQuery
-import com.google.protobuf.ByteString
+import com.google.protobuf.CodedOutputStream
+import com.google.protobuf.WireFormat
 import de.cyface.persistence.Constants.TAG
 import de.cyface.persistence.Database
 import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.LocationArchiver
 import de.cyface.persistence.PersistenceLayer
 import de.cyface.persistence.content.AbstractCyfaceTable.Companion.DATABASE_QUERY_LIMIT
 import de.cyface.persistence.content.BaseColumns
@@ -40,8 +42,10 @@ import de.cyface.utils.CursorIsNullException
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 import java.io.BufferedOutputStream
+import java.io.File
 import java.io.FileInputStream
 import java.io.IOException
+import java.nio.file.Files
 import java.util.Locale
 
 /**
@@ -50,6 +54,11 @@ import java.util.Locale
  * @author Armin Schnabel
  */
 object TransferFileSerializer {
+    /**
+     * The number of bytes of the sensor data files copied at once.
+     */
+    private const val BUFFER_SIZE = 8 * 1024
+
     /**
      * Implements the core algorithm of loading data of a [Measurement] from the [PersistenceLayer]
      * and serializing it into an array of bytes, ready to be compressed.
@@ -66,6 +75,9 @@ object TransferFileSerializer {
      * We require a [BufferedOutputStream] for performance reasons.
      * @param measurementIdentifier The id of the `Measurement` to load
      * @param persistence The `PersistenceLayer` to load the `Measurement` data from
+     * @param offset The number of bytes at the beginning of the serialized data which are not written, e.g. because
+     * they were written before the serialization was interrupted. The sensor data and records before the offset are
+     * skipped without reading them.
      * @throws CursorIsNullException If {@link ContentProvider} was inaccessible.
      */
     @JvmStatic
@@ -74,17 +86,12 @@ object TransferFileSerializer {
         bufferedOutputStream: BufferedOutputStream,
         measurementIdentifier: Long,
         persistence: PersistenceLayer<*>,
-        onBatchSerialized: (() -> Unit)? = null
+        onBatchSerialized: (() -> Unit)? = null,
+        offset: Long = 0L
     ) {
-        // Load data from ContentProvider
-        val events = loadEvents(measurementIdentifier, persistence, onBatchSerialized)
-        val locationRecords = loadLocations(measurementIdentifier, persistence, onBatchSerialized)
-
-        // Using the modified `MeasurementBytes` class to inject the sensor bytes without parsing
-        val builder = MeasurementBytes.newBuilder()
-            .setFormatVersion(MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION.toInt())
-            .addAllEvents(events)
-            .setLocationRecords(locationRecords)
+        require(offset >= 0L) { "Invalid offset: $offset" }
+        // Reuses the records built when the measurement was finished or by a previous sync attempt
+        val records = loadRecords(measurementIdentifier, persistence, onBatchSerialized)
 
         // Get already serialized Point3DFiles
         val accelerationFile = persistence.fileIOHandler.getFilePath(
@@ -109,50 +116,28 @@ object TransferFileSerializer {
         // Ensure we only inject bytes from the correct persistence format version
         val measurement: Measurement? = persistence.loadMeasurement(measurementIdentifier)
         require(measurement!!.fileFormatVersion == DefaultPersistenceLayer.PERSISTENCE_FILE_FORMAT_VERSION)
-        if (accelerationFile.exists()) {
-            Log.v(
-                TAG,
-                String.format(
-                    Locale.getDefault(),
-                    "Serializing %s accelerations for synchronization.",
-                    DataSerializable.humanReadableSize(accelerationFile.length(), true)
-                )
-            )
-            builder.accelerationsBinary = FileInputStream(accelerationFile).use { ByteString.readFrom(it) }
-        }
-        if (rotationFile.exists()) {
-            Log.v(
-                TAG,
-                String.format(
-                    Locale.getDefault(),
-                    "Serializing %s rotations for synchronization.",
-                    DataSerializable.humanReadableSize(rotationFile.length(), true)
-                )
-            )
-            builder.rotationsBinary = FileInputStream(rotationFile).use { ByteString.readFrom(it) }
-        }
-        if (directionFile.exists()) {
-            Log.v(
-                TAG,
-                String.format(
-                    Locale.getDefault(),
-                    "Serializing %s directions for synchronization.",
-                    DataSerializable.humanReadableSize(directionFile.length(), true)
-                )
-            )
-            builder.directionsBinary = FileInputStream(directionFile).use { ByteString.readFrom(it) }
-        }
 
-        // Whole measurement is in memory (~ 5 MB / hour serialized).
-        // writeTo() streams it to the output without a second copy via toByteArray().
+        // The fields of the `MeasurementBytes` message are written one after another, so the sensor data is
+        // streamed from disk and the memory used does not depend on the length of the measurement.
         val transferFileHeader = DataSerializable.transferFileHeader()
-        val message = builder.build()
-        try {
+        val size = try {
             // The stream must be closed by the caller in a finally catch
             withContext(Dispatchers.IO) {
-                bufferedOutputStream.write(transferFileHeader)
-                message.writeTo(bufferedOutputStream)
+                val output = SkippingOutput(bufferedOutputStream, offset)
+                output.write(transferFileHeader)
+                val formatVersionField = MeasurementBytes.FORMAT_VERSION_FIELD_NUMBER
+                val formatVersion = MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION.toInt()
+                output.write(encode(CodedOutputStream.computeInt32Size(formatVersionField, formatVersion)) {
+                    it.writeInt32(formatVersionField, formatVersion)
+                })
+                output.writeFile(MeasurementBytes.ACCELERATIONS_BINARY_FIELD_NUMBER, accelerationFile, "accelerations")
+                output.writeFile(MeasurementBytes.ROTATIONS_BINARY_FIELD_NUMBER, rotationFile, "rotations")
+                output.writeFile(MeasurementBytes.DIRECTIONS_BINARY_FIELD_NUMBER, directionFile, "directions")
+                // Protobuf merges concatenated messages, so the events and locations are appended as they are
+                output.writeRecords(records)
                 bufferedOutputStream.flush()
+                require(offset <= output.position) { "Offset $offset exceeds the serialized data" }
+                output.position
             }
         } catch (e: IOException) {
             throw IllegalStateException(e)
@@ -162,105 +147,440 @@ object TransferFileSerializer {
             String.format(
                 Locale.getDefault(),
                 "Serialized %s",
-                DataSerializable.humanReadableSize(
-                    (transferFileHeader.size + message.serializedSize).toLong(),
-                    true
-                )
+                DataSerializable.humanReadableSize(size, true)
+            )
+        )
+    }
+
+    /**
+     * Serializes one [MeasurementPart] of a measurement which is too large to be uploaded in one transfer file.
+     *
+     * Like [loadSerialized], but only the sensor data batches, events and locations captured in the time range of the
+     * part are written. Thus, each part is a valid transfer file of the measurement. The events and locations are
+     * loaded page by page.
+     *
+     * **ATTENTION:** The caller must make sure the {@param bufferedOutputStream} is closed when no longer needed
+     * or the app crashes.
+     *
+     * @param bufferedOutputStream The `OutputStream` to which the serialized data should be written.
+     * @param parts The measurement cut into parts.
+     * @param part The part to serialize.
+     */
+    @JvmStatic
+    suspend fun loadSerializedPart(
+        bufferedOutputStream: BufferedOutputStream,
+        parts: MeasurementParts,
+        part: MeasurementPart
+    ) {
+        require(part in parts.parts) { "Unknown part $part of measurement ${parts.measurementId}" }
+        val size = try {
+            // The stream must be closed by the caller in a finally catch
+            withContext(Dispatchers.IO) {
+                val output = SkippingOutput(bufferedOutputStream, 0L)
+                output.write(DataSerializable.transferFileHeader())
+                val formatVersionField = MeasurementBytes.FORMAT_VERSION_FIELD_NUMBER
+                val formatVersion = MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION.toInt()
+                output.write(encode(CodedOutputStream.computeInt32Size(formatVersionField, formatVersion)) {
+                    it.writeInt32(formatVersionField, formatVersion)
+                })
+                parts.sensors.forEach {
+                    output.writeBatches(it.fieldNumber, it.file, it.index.select(part), it.name)
+                }
+
+                val records = CodedOutputStream.newInstance(bufferedOutputStream, BUFFER_SIZE)
+                val eventSerializer = EventSerializer()
+                parts.forEachEventPage(part) { page ->
+                    eventSerializer.readFrom(page)
+                    eventSerializer.nextBatch()
+                        .forEach { records.writeMessage(MeasurementBytes.EVENTS_FIELD_NUMBER, it) }
+                }
+                val locationSerializer = LocationSerializer()
+                var locationsWritten = false
+                parts.forEachLocationPage(part) { page ->
+                    locationSerializer.readFrom(page)
+                    val batch = locationSerializer.nextBatch()
+                    records.writeMessage(MeasurementBytes.LOCATION_RECORDS_FIELD_NUMBER, batch)
+                    locationsWritten = true
+                }
+                // The field is always set, even without locations
+                if (!locationsWritten) {
+                    records.writeMessage(MeasurementBytes.LOCATION_RECORDS_FIELD_NUMBER, locationSerializer.nextBatch())
+                }
+                records.flush()
+                bufferedOutputStream.flush()
+                output.position + records.totalBytesWritten
+            }
+        } catch (e: IOException) {
+            throw IllegalStateException(e)
+        }
+        Log.d(
+            TAG,
+            String.format(
+                Locale.getDefault(),
+                "Serialized part %d/%d: %s",
+                part.index + 1,
+                part.count,
+                DataSerializable.humanReadableSize(size, true)
             )
         )
     }
 
     /**
-     * Loads and serializes [Event]s from the persistence layer.
+     * Encodes a small part of the [MeasurementBytes] message, e.g. the prefix of a field.
+     *
+     * @param size The number of bytes of the encoded part.
+     * @param write Writes the part.
+     * @return The encoded part.
+     */
+    private fun encode(size: Int, write: (CodedOutputStream) -> Unit): ByteArray {
+        val bytes = ByteArray(size)
+        val output = CodedOutputStream.newInstance(bytes)
+        write(output)
+        output.checkNoSpaceLeft()
+        return bytes
+    }
+
+    /**
+     * Writes the parts of the serialized data which start at or after an offset, so an interrupted serialization
+     * can be continued. The data before the offset is skipped without reading it where possible.
+     *
+     * @property output The stream to write the serialized data to.
+     * @property offset The number of bytes at the beginning of the serialized data which are not written.
+     */
+    private class SkippingOutput(private val output: BufferedOutputStream, private val offset: Long) {
+        /**
+         * The number of bytes of the serialized data, including the skipped bytes.
+         */
+        var position = 0L
+            private set
+
+        /**
+         * The number of bytes of the next part which are skipped.
+         */
+        private fun skip(length: Long) = (offset - position).coerceIn(0L, length)
+
+        fun write(bytes: ByteArray) {
+            val skip = skip(bytes.size.toLong()).toInt()
+            output.write(bytes, skip, bytes.size - skip)
+            position += bytes.size
+        }
+
+        /**
+         * Writes a file with serialized sensor data as `bytes` field, copying it in chunks of [BUFFER_SIZE] bytes.
+         *
+         * @param fieldNumber The number of the `bytes` field in the [MeasurementBytes] message.
+         * @param file The file to write. Nothing is written if it does not exist.
+         * @param name The name of the sensor data used for logging.
+         */
+        fun writeFile(fieldNumber: Int, file: File, name: String) {
+            if (!file.exists()) {
+                return
+            }
+            val length = file.length()
+            require(length <= Int.MAX_VALUE) { "The $name file is too large to be serialized: $length bytes" }
+            Log.v(
+                TAG,
+                String.format(
+                    Locale.getDefault(),
+                    "Serializing %s %s for synchronization.",
+                    DataSerializable.humanReadableSize(length, true),
+                    name
+                )
+            )
+            writePrefix(fieldNumber, length.toInt())
+            copy(file, listOf(SensorBatchIndex.Batch(0L, length, 0L)), name)
+        }
+
+        /**
+         * Writes some batches of a file with serialized sensor data as `bytes` field, see [SensorBatchIndex].
+         *
+         * @param fieldNumber The number of the `bytes` field in the [MeasurementBytes] message.
+         * @param file The file to write the batches of.
+         * @param batches The batches to write. Nothing is written if there are none.
+         * @param name The name of the sensor data used for logging.
+         */
+        fun writeBatches(fieldNumber: Int, file: File, batches: List<SensorBatchIndex.Batch>, name: String) {
+            if (batches.isEmpty()) {
+                return
+            }
+            val length = batches.sumOf { it.length }
+            require(length <= Int.MAX_VALUE) { "The $name batches are too large to be serialized: $length bytes" }
+            writePrefix(fieldNumber, length.toInt())
+            copy(file, batches, name)
+        }
+
+        /**
+         * Writes the tag and length of a `bytes` field.
+         */
+        private fun writePrefix(fieldNumber: Int, length: Int) {
+            val prefixSize = CodedOutputStream.computeTagSize(fieldNumber) +
+                    CodedOutputStream.computeUInt32SizeNoTag(length)
+            write(encode(prefixSize) {
+                it.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED)
+                it.writeUInt32NoTag(length)
+            })
+        }
+
+        /**
+         * Copies ranges of a file in chunks of [BUFFER_SIZE] bytes.
+         *
+         * @param file The file to copy from.
+         * @param ranges The ranges to copy, in the order in which they are written.
+         * @param name The name of the sensor data used for logging.
+         */
+        private fun copy(file: File, ranges: List<SensorBatchIndex.Batch>, name: String) {
+            val length = ranges.sumOf { it.length }
+            if (skip(length) == length) {
+                position += length
+                return
+            }
+            FileInputStream(file).use { input ->
+                val buffer = ByteArray(BUFFER_SIZE)
+                ranges.forEach { range ->
+                    val skip = skip(range.length)
+                    position += skip
+                    if (skip == range.length) {
+                        return@forEach
+                    }
+                    input.channel.position(range.offset + skip)
+                    var remaining = range.length - skip
+                    while (remaining > 0) {
+                        val read = input.read(buffer, 0, minOf(remaining, buffer.size.toLong()).toInt())
+                        check(read >= 0) { "The $name file was truncated while it was serialized: ${file.path}" }
+                        output.write(buffer, 0, read)
+                        position += read
+                        remaining -= read
+                    }
+                }
+            }
+        }
+
+        /**
+         * Appends the `events` and `location_records` fields of a [RecordsFile].
+         *
+         * @param records The records to write.
+         */
+        fun writeRecords(records: RecordsFile) {
+            val size = records.size
+            records.writeTo(output, skip(size))
+            position += size
+        }
+    }
+
+    /**
+     * Serializes the [Event]s and [LocationRecords] of a finished measurement into a [RecordsFile], so they are
+     * not loaded and serialized from the database again on each sync attempt.
+     *
+     * Call this when the measurement is finished. The records are rebuilt by [loadSerialized] when events or
+     * locations were added or removed afterward.
+     *
+     * @param measurementIdentifier The id of the `Measurement` to build the records for.
+     * @param persistence The `PersistenceLayer` to load the `Measurement` data from.
+     * @return The records file.
+     */
+    @JvmStatic
+    suspend fun prebuildRecords(measurementIdentifier: Long, persistence: PersistenceLayer<*>): RecordsFile {
+        return withContext(Dispatchers.IO) { buildRecords(measurementIdentifier, persistence, null) }
+    }
+
+    /**
+     * Loads the [RecordsFile] of a measurement, or builds it if it does not exist or is outdated.
+     */
+    private suspend fun loadRecords(
+        measurementId: Long,
+        persistence: PersistenceLayer<*>,
+        onBatchSerialized: (() -> Unit)?
+    ): RecordsFile {
+        val records = RecordsFile.load(persistence.context!!, persistence.fileIOHandler, measurementId)
+        val eventCount = persistence.eventRepository!!.countByMeasurementId(measurementId)
+        val locationCount = persistence.countLocations(measurementId)
+        if (records != null && records.isValid(eventCount, locationCount)) {
+            Log.v(TAG, "Reusing the records of measurement $measurementId")
+            return records
+        }
+        return buildRecords(measurementId, persistence, onBatchSerialized)
+    }
+
+    /**
+     * Serializes the [Event]s and [LocationRecords] of a measurement into its [RecordsFile].
+     */
+    private suspend fun buildRecords(
+        measurementId: Long,
+        persistence: PersistenceLayer<*>,
+        onBatchSerialized: (() -> Unit)?
+    ): RecordsFile {
+        // Counted first, so data added while the records are built outdates them
+        val eventCount = persistence.eventRepository!!.countByMeasurementId(measurementId)
+        val locationCount = persistence.countLocations(measurementId)
+        return RecordsFile.write(
+            persistence.context!!,
+            persistence.fileIOHandler,
+            measurementId,
+            eventCount,
+            locationCount
+        ) { output ->
+            writeEvents(measurementId, persistence, output, onBatchSerialized)
+            writeLocations(measurementId, persistence, output, onBatchSerialized)
+        }
+    }
+
+    /**
+     * Loads and serializes [Event]s from the persistence layer page by page.
      *
      * @param measurementId The id of the `Measurement` to load
      * @param persistence The `PersistenceLayer` to load the `Measurement` data from
+     * @param output The stream to write the `events` fields to.
      */
     @Throws(CursorIsNullException::class)
-    private suspend fun loadEvents(
+    private suspend fun writeEvents(
         measurementId: Long,
         persistence: PersistenceLayer<*>,
+        output: CodedOutputStream,
         onBatchSerialized: (() -> Unit)? = null
-    ): List<Event?> {
+    ) {
         val serializer = EventSerializer()
         try {
-            val count = persistence.eventRepository!!.countByMeasurementId(measurementId)
-            var startIndex = 0
-            while (startIndex < count) {
+            loadPages(onBatchSerialized) { afterTimestamp, afterId ->
                 persistence.eventRepository!!.selectAllByMeasurementId(
                     persistence.database!!,
                     measurementId,
-                    startIndex,
+                    afterTimestamp,
+                    afterId,
                     DATABASE_QUERY_LIMIT
-                ).use { cursor ->
+                ).also { cursor ->
                     serializer.readFrom(cursor)
+                    serializer.nextBatch().forEach { output.writeMessage(MeasurementBytes.EVENTS_FIELD_NUMBER, it) }
                 }
-                startIndex += DATABASE_QUERY_LIMIT
-                onBatchSerialized?.invoke()
             }
         } catch (e: RemoteException) {
             throw java.lang.IllegalStateException(e)
         }
-        return serializer.result()
     }
 
     /**
-     * Loads and serializes [LocationRecords] from the persistence layer.
+     * Loads and serializes [LocationRecords] from the persistence layer page by page.
+     *
+     * Each page is written as separate `location_records` field, which are merged when the message is parsed.
      *
      * @param measurementId The id of the `Measurement` to load
      * @param persistence The `PersistenceLayer` to load the `Measurement` data from
+     * @param output The stream to write the `location_records` fields to.
      */
     @Throws(CursorIsNullException::class)
-    private suspend fun loadLocations(
+    private suspend fun writeLocations(
         measurementId: Long,
         persistence: PersistenceLayer<*>,
+        output: CodedOutputStream,
         onBatchSerialized: (() -> Unit)? = null
-    ): LocationRecords {
+    ) {
         val serializer = LocationSerializer()
-        try {
-            val count = persistence.locationDao!!.countByMeasurementId(measurementId)
-            var startIndex = 0
-            while (startIndex < count) {
-                getLocationCursor(
-                    persistence.database!!,
-                    measurementId,
-                    startIndex,
-                    DATABASE_QUERY_LIMIT,
-                ).use { cursor ->
-                    serializer.readFrom(cursor)
+        var written = false
+        // Archived locations are read sequentially from the archive file, which is faster than paging
+        val archive = LocationArchive.load(persistence.context!!, persistence.fileIOHandler, measurementId)
+        if (archive != null) {
+            // Rows up to the highest archived id are archived, even if they were not deleted yet
+            val rows = persistence.timeSeriesDatabase(measurementId).locationDao()
+                .loadAllByMeasurementIdAfterId(measurementId, archive.maxId)
+            // Decodes the archive block by block instead of loading all locations at once
+            archive.useLocations { archived ->
+                LocationArchiver.merge(archived, rows).chunked(DATABASE_QUERY_LIMIT).forEach {
+                    serializer.readFrom(it)
+                    output.writeMessage(MeasurementBytes.LOCATION_RECORDS_FIELD_NUMBER, serializer.nextBatch())
+                    written = true
                 }
-                startIndex += DATABASE_QUERY_LIMIT
-                onBatchSerialized?.invoke()
             }
-        } catch (e: RemoteException) {
-            throw java.lang.IllegalStateException(e)
+            onBatchSerialized?.invoke()
+        } else {
+            val database = persistence.timeSeriesDatabase(measurementId)
+            try {
+                loadPages(onBatchSerialized) { afterTimestamp, afterId ->
+                    getLocationCursor(
+                        database,
+                        measurementId,
+                        afterTimestamp,
+                        afterId,
+                        DATABASE_QUERY_LIMIT,
+                    ).also { cursor ->
+                        serializer.readFrom(cursor)
+                        if (cursor.count > 0) {
+                            output.writeMessage(
+                                MeasurementBytes.LOCATION_RECORDS_FIELD_NUMBER,
+                                serializer.nextBatch()
+                            )
+                            written = true
+                        }
+                    }
+                }
+            } catch (e: RemoteException) {
+                throw java.lang.IllegalStateException(e)
+            }
         }
-        return serializer.result()
+        // The field is always set, even without locations
+        if (!written) {
+            output.writeMessage(MeasurementBytes.LOCATION_RECORDS_FIELD_NUMBER, serializer.nextBatch())
+        }
+    }
+
+    /**
+     * Iterates through seek-based pages of [DATABASE_QUERY_LIMIT] entries ordered by timestamp and id.
+     *
+     * The next page starts after the timestamp and id of the last entry of the previous page, so no entries of
+     * the previous pages need to be skipped by the database.
+     *
+     * @param onBatchSerialized Called after each page which contained data.
+     * @param loadPage Returns the `Cursor` of the page which follows the entry with the provided timestamp and id
+     * and has already consumed its entries. Is called with [Long.MIN_VALUE] for the first page.
+     */
+    private inline fun loadPages(
+        noinline onBatchSerialized: (() -> Unit)?,
+        loadPage: (afterTimestamp: Long, afterId: Long) -> Cursor
+    ) {
+        var afterTimestamp = Long.MIN_VALUE
+        var afterId = Long.MIN_VALUE
+        do {
+            val pageSize = loadPage(afterTimestamp, afterId).use { cursor ->
+                if (cursor.moveToLast()) {
+                    afterTimestamp = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.TIMESTAMP))
+                    afterId = cursor.getLong(cursor.getColumnIndexOrThrow(BaseColumns.ID))
+                }
+                cursor.count
+            }
+            if (pageSize > 0) {
+                onBatchSerialized?.invoke()
+            }
+        } while (pageSize == DATABASE_QUERY_LIMIT)
     }
 
     /**
-     * Returns a `Cursor` which points to a specific page defined by [limit] and [offset] of all
-     * locations of a measurement with a specified the [measurementId].
+     * Returns a `Cursor` which points to a specific page of all locations of a measurement with a specified
+     * [measurementId]. The page contains up to [limit] locations which follow the location with [afterTimestamp]
+     * and [afterId]. Use [Long.MIN_VALUE] for both to load the first page.
      *
      * This way we can reuse the code in `SyncAdapter` > `TransferFileSerializer` which queries and
      * serializes only 10_000 entries at a time which fixed performance issues with large
      * measurements. This could be replaced by room-paging, but it's not straight forward.
      *
-     * The locations are ordered by timestamp.
+     * The pages are seek-based instead of `OFFSET`-based so SQLite does not need to skip the locations of all
+     * previous pages. This keeps the cost per page constant as the index on `measurementId`, `timestamp`, `_id`
+     * is used.
+     *
+     * The locations are ordered by timestamp and id. Only the columns of the [LocationSerializer.PROJECTION] are
+     * loaded, so the unused columns are not copied into the `CursorWindow`.
      */
     internal fun getLocationCursor(
         database: Database,
         measurementId: Long,
-        offset: Int,
+        afterTimestamp: Long,
+        afterId: Long,
         limit: Int
     ): Cursor {
         val query = SimpleSQLiteQuery(
-            "SELECT * FROM ${LocationTable.URI_PATH} " +
+            "SELECT ${LocationSerializer.PROJECTION.joinToString()} FROM ${LocationTable.URI_PATH} " +
                     "WHERE ${BaseColumns.MEASUREMENT_ID} = ? " +
-                    "ORDER BY ${BaseColumns.TIMESTAMP} ASC " +
-                    "LIMIT ? " +
-                    "OFFSET ?",
-            arrayOf(measurementId, limit, offset)
+                    "AND (${BaseColumns.TIMESTAMP}, ${BaseColumns.ID}) > (?, ?) " +
+                    "ORDER BY ${BaseColumns.TIMESTAMP} ASC, ${BaseColumns.ID} ASC " +
+                    "LIMIT ?",
+            arrayOf(measurementId, afterTimestamp, afterId, limit)
         )
         // Executing `Cursor` based query directly on the `database` without `dao` layer as Room
         // does not support `Cursor` return types with `KSP` properly.
@@ -268,29 +588,12 @@ object TransferFileSerializer {
         return database.query(query)
     }
 
-    /**
-     * Loads and serializes a [Attachment] from the persistence layer.
-     *
-     * @param attachment The reference of the entry to load
-     */
-    @Throws(CursorIsNullException::class)
-    private fun loadAttachment(
-        attachment: Attachment
-    ): de.cyface.protos.model.File {
-        val serializer = AttachmentSerializer()
-        try {
-            serializer.readFrom(attachment)
-        } catch (e: RemoteException) {
-            throw java.lang.IllegalStateException(e)
-        }
-        return serializer.result()
-    }
-
     /**
      * Implements the core algorithm of loading data of a [Attachment] from the [PersistenceLayer]
      * and serializing it into an array of bytes, ready to be transferred.
      *
-     * We assemble the data using a buffer to avoid OOM exceptions.
+     * We copy the data in chunks to avoid OOM exceptions. As the attachment is not wrapped, the result is a copy of
+     * the attachment file, which can be uploaded directly instead, see [MeasurementSerializer.attachmentFile].
      *
      * **ATTENTION:** The caller must make sure the {@param bufferedOutputStream} is closed when no longer needed
      * or the app crashes.
@@ -312,7 +615,7 @@ object TransferFileSerializer {
         bufferedOutputStream: BufferedOutputStream,
         reference: Attachment,
     ) {
-        val attachment = loadAttachment(reference)
+        AttachmentSerializer.requireSupported(reference)
 
         // In case we switch back to the cyf wrapper for attachments, we need to adjust the code:
         // Out Protobuf format only supports one `capturing_log` file, but we collect multiple
@@ -322,6 +625,7 @@ object TransferFileSerializer {
         // But as we upload each attachment separately, even with the cyf wrapper we should be fine
         // with one `capturing_log` support, as we can just add this one file as such.
         // So if you enable the cyf wrapping code below again, make sure all log files are uploaded.
+        // The `attachment` would be loaded by the `AttachmentSerializer`, which loads the whole file into memory.
         /*val builder = de.cyface.protos.model.Measurement.newBuilder()
             .setFormatVersion(MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION.toInt())
         when (reference.type) {
@@ -338,18 +642,16 @@ object TransferFileSerializer {
             }
         }*/
 
-        // Currently loading one image per transfer file into memory (~ 2-5 MB / image).
-        // - To load add all high-res image data or video data in the future we cannot use the pre-compiled
-        // builder but have to stream the data without loading it into memory to avoid an OOM exception.
+        // The attachment is copied in chunks, so the memory used does not depend on the size of the attachment.
+        // To upload high-res images or videos in the cyf wrapper, the `builder` above would need to be streamed, too.
         //val transferFileHeader = DataSerializable.transferFileHeader()
-        //val uploadBytes = builder.build().toByteArray()
-        val uploadBytes = attachment.bytes.toByteArray()
-        try {
+        val uploadBytes = try {
             // The stream must be closed by the caller in a finally catch
             withContext(Dispatchers.IO) {
                 //bufferedOutputStream.write(transferFileHeader)
-                bufferedOutputStream.write(uploadBytes)
+                val copied = Files.copy(reference.path, bufferedOutputStream)
                 bufferedOutputStream.flush()
+                copied
             }
         } catch (e: IOException) {
             throw IllegalStateException(e)
@@ -360,7 +662,7 @@ object TransferFileSerializer {
                 Locale.getDefault(),
                 "Serialized attachment: %s",
                 DataSerializable.humanReadableSize(
-                    (/*transferFileHeader.size +*/ uploadBytes.size).toLong(),
+                    /*transferFileHeader.size +*/ uploadBytes,
                     true
                 )
             )
@@ -33,7 +33,7 @@ import de.cyface.persistence.model.ParcelableGeoLocation
  * delivers an old, cached location at the beginning of the track.
  *
  * @author Armin Schnabel
- * @version 1.2.0
+ * @version 1.2.1
  * @since 4.1.0
  */
 class DefaultLocationCleaning : LocationCleaningStrategy {
@@ -64,8 +64,9 @@ class DefaultLocationCleaning : LocationCleaningStrategy {
     }
 
     private fun isClean(speed: Double, accuracy: Double?): Boolean {
+        // Like the database query in `loadCleanedLocations`, which also filters locations without accuracy
         return speed > LOWER_SPEED_THRESHOLD &&
-                accuracy!! < UPPER_ACCURACY_THRESHOLD &&
+                accuracy != null && accuracy < UPPER_ACCURACY_THRESHOLD &&
                 speed < UPPER_SPEED_THRESHOLD
     }
 
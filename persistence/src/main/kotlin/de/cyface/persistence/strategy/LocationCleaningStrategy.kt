@@ -30,7 +30,7 @@ import de.cyface.persistence.model.ParcelableGeoLocation
  * Must be `Parcelable` to be passed from the `DataCapturingService` via `Intent`.
  *
  * @author Armin Schnabel
- * @version 2.1.0
+ * @version 2.1.1
  * @since 4.1.0
  */
 interface LocationCleaningStrategy : Parcelable {
@@ -58,7 +58,8 @@ interface LocationCleaningStrategy : Parcelable {
      * `Cursor` is always closed after use. The cursor cannot be closed within this implementation as it's
      * accessed by the caller.**
      *
-     * @param dao the object that provides access to the [GeoLocation]s.
+     * @param dao the object that provides access to the [GeoLocation]s. The one passed by the persistence layer
+     * also loads the locations archived by the `LocationArchiver`.
      * @param measurementId The identifier for the [de.cyface.persistence.model.Measurement] to load the track for.
      * @return A list which contains the "clean" [GeoLocation]s of that measurement.
      */
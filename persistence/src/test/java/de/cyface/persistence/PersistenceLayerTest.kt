@@ -21,6 +21,8 @@ package de.cyface.persistence
 import android.hardware.SensorManager
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.model.Event
+import de.cyface.persistence.model.EventType
 import de.cyface.persistence.model.GeoLocation
 import de.cyface.persistence.model.Pressure
 import de.cyface.persistence.model.Track
@@ -37,7 +39,7 @@ import kotlin.math.pow
  * Tests the inner workings of the [DefaultPersistenceLayer].
  *
  * @author Armin Schnabel
- * @version 1.0.3
+ * @version 1.1.0
  * @since 6.3.0
  */
 @RunWith(AndroidJUnit4::class)
@@ -195,6 +197,33 @@ class PersistenceLayerTest {
         MatcherAssert.assertThat(pressures.size, CoreMatchers.`is`(CoreMatchers.equalTo(2)))
     }
 
+    /**
+     * Tests that the duration excludes pauses and only adds the live duration of the running track for ongoing
+     * measurements.
+     */
+    @Test
+    fun testDuration() {
+        // Arrange
+        val events = listOf(
+            Event(1L, EventType.LIFECYCLE_START, null, 1L),
+            Event(5L, EventType.MODALITY_TYPE_CHANGE, "CAR", 1L),
+            Event(10L, EventType.LIFECYCLE_PAUSE, null, 1L),
+            Event(20L, EventType.LIFECYCLE_RESUME, null, 1L)
+        )
+
+        // Act
+        val lifecycleEvents = oocut!!.lifecycleEvents(events)
+        val completed = oocut!!.completedDuration(lifecycleEvents)
+        val running = oocut!!.runningDuration(lifecycleEvents, true, 25L)
+        val paused = oocut!!.runningDuration(lifecycleEvents, false, 25L)
+
+        // Assert
+        MatcherAssert.assertThat(lifecycleEvents.size, CoreMatchers.`is`(CoreMatchers.equalTo(3)))
+        MatcherAssert.assertThat(completed, CoreMatchers.`is`(CoreMatchers.equalTo(9L)))
+        MatcherAssert.assertThat(running, CoreMatchers.`is`(CoreMatchers.equalTo(5L)))
+        MatcherAssert.assertThat(paused, CoreMatchers.`is`(CoreMatchers.equalTo(0L)))
+    }
+
     /**
      * Calculates the pressure expected for a specific altitude and weather condition.
      *
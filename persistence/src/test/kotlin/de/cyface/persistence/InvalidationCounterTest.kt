@@ -0,0 +1,112 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.os.Build.VERSION_CODES
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.content.EventTable
+import de.cyface.persistence.content.MeasurementTable
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.shadows.ShadowSystemClock
+import java.time.Duration
+
+/**
+ * Tests the rate calculated by the [InvalidationCounter] and which invalidations it counts.
+ *
+ * @author Armin Schnabel
+ * @version 1.2.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+class InvalidationCounterTest {
+
+    @Test
+    fun testPerMinute() {
+        // Arrange
+        val oocut = InvalidationCounter()
+        repeat(30) { oocut.increment() }
+
+        // Act
+        ShadowSystemClock.advanceBy(Duration.ofSeconds(30))
+
+        // Assert
+        assertThat(oocut.count(), equalTo(30L))
+        assertThat(oocut.perMinute(), equalTo(60.0))
+    }
+
+    @Test
+    fun testReset() {
+        // Arrange
+        val oocut = InvalidationCounter()
+        oocut.increment()
+
+        // Act
+        oocut.reset()
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(1))
+
+        // Assert
+        assertThat(oocut.count(), equalTo(0L))
+        assertThat(oocut.perMinute(), equalTo(0.0))
+    }
+
+    @Test
+    fun testObserve() = runBlocking {
+        // Arrange
+        val database = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            Database::class.java
+        ).allowMainThreadQueries().build()
+        val tracker = database.invalidationTracker
+        val oocut = InvalidationCounter()
+        val observer = oocut.observe(tracker, arrayOf(MeasurementTable.URI_PATH))
+
+        try {
+            // Act & Assert
+            // Invalidations raised by this process are counted
+            database.measurementDao().insert(Measurement(MeasurementStatus.OPEN, Modality.BICYCLE, 3, 0.0, 1L, 0L))
+            tracker.refreshVersionsSync()
+            assertThat(oocut.count(), equalTo(1L))
+
+            // As well as those Room delivers from other processes
+            tracker.notifyObserversByTableNames(MeasurementTable.URI_PATH)
+            assertThat(oocut.count(), equalTo(2L))
+
+            // Invalidations of other tables are not counted
+            tracker.notifyObserversByTableNames(EventTable.URI_PATH)
+            assertThat(oocut.count(), equalTo(2L))
+
+            tracker.removeObserver(observer)
+            tracker.notifyObserversByTableNames(MeasurementTable.URI_PATH)
+            assertThat(oocut.count(), equalTo(2L))
+        } finally {
+            database.close()
+        }
+    }
+}
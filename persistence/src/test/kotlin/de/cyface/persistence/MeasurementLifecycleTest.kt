@@ -0,0 +1,135 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.os.Build.VERSION_CODES
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.exception.NoSuchMeasurementException
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.repository.MeasurementRepository
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Assert.assertThrows
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Tests the transitions and the cache of the [MeasurementLifecycle].
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+class MeasurementLifecycleTest {
+
+    private lateinit var database: Database
+    private lateinit var repository: MeasurementRepository
+    private lateinit var oocut: MeasurementLifecycle
+
+    @Before
+    fun setUp() {
+        database = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            Database::class.java
+        ).allowMainThreadQueries().build()
+        repository = MeasurementRepository(database.measurementDao())
+        oocut = MeasurementLifecycle(repository, database.invalidationTracker)
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    @Test
+    fun testLifecycle() = runBlocking {
+        // Arrange
+        val id = insert(MeasurementStatus.OPEN)
+
+        // Act & Assert
+        assertThat(oocut.unfinishedMeasurement()?.id, equalTo(id))
+        oocut.transition(id, MeasurementStatus.PAUSED)
+        assertThat(oocut.hasMeasurement(MeasurementStatus.PAUSED), equalTo(true))
+        assertThat(oocut.hasMeasurement(MeasurementStatus.OPEN), equalTo(false))
+        oocut.transition(id, MeasurementStatus.OPEN)
+        oocut.transition(id, MeasurementStatus.FINISHED)
+        assertThat(oocut.unfinishedMeasurement(), nullValue())
+        assertThat(oocut.hasMeasurement(MeasurementStatus.FINISHED), equalTo(true))
+        oocut.transition(id, MeasurementStatus.SYNCABLE_ATTACHMENTS, setOf(MeasurementStatus.FINISHED))
+        oocut.transition(id, MeasurementStatus.SYNCED)
+        oocut.transition(id, MeasurementStatus.DEPRECATED)
+        assertThat(repository.loadById(id)!!.status, equalTo(MeasurementStatus.DEPRECATED))
+        oocut.transition(id, MeasurementStatus.DELETING)
+        assertThat(repository.loadAllCompleted().size, equalTo(0))
+    }
+
+    @Test
+    fun testInvalidTransition() = runBlocking {
+        // Arrange
+        val id = insert(MeasurementStatus.FINISHED)
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException::class.java) {
+            runBlocking { oocut.transition(id, MeasurementStatus.OPEN) }
+        }
+        assertThrows(IllegalArgumentException::class.java) {
+            runBlocking { oocut.transition(id, MeasurementStatus.SYNCED, setOf(MeasurementStatus.SYNCABLE_ATTACHMENTS)) }
+        }
+        assertThat(repository.loadById(id)!!.status, equalTo(MeasurementStatus.FINISHED))
+    }
+
+    @Test
+    fun testSecondUnfinishedMeasurement() = runBlocking {
+        // Arrange
+        insert(MeasurementStatus.PAUSED)
+        val id = insert(MeasurementStatus.OPEN)
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException::class.java) {
+            runBlocking { oocut.transition(id, MeasurementStatus.FINISHED) }
+        }
+        assertThat(repository.loadById(id)!!.status, equalTo(MeasurementStatus.OPEN))
+
+        // Cleaning up corrupted measurements is allowed [MOV-790]
+        oocut.transition(id, MeasurementStatus.FINISHED, allowCorruptedState = true)
+        assertThat(repository.loadById(id)!!.status, equalTo(MeasurementStatus.FINISHED))
+    }
+
+    @Test
+    fun testMissingMeasurement() {
+        assertThrows(NoSuchMeasurementException::class.java) {
+            runBlocking { oocut.transition(1L, MeasurementStatus.FINISHED) }
+        }
+    }
+
+    private suspend fun insert(status: MeasurementStatus): Long {
+        return repository.insert(Measurement(status, Modality.BICYCLE, 3, 0.0, 1L, 0L))
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import android.os.Build.VERSION_CODES
+import android.util.Log
+import androidx.room.Room
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.Constants.TAG
+import de.cyface.testutils.LegacyDatabases
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.empty
+import org.hamcrest.Matchers.greaterThan
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.SQLiteMode
+import org.robolectric.shadows.ShadowLog
+import java.io.File
+
+/**
+ * Generates large legacy databases at each exported schema version, migrates them to the current version and logs
+ * the time each migration step took.
+ *
+ * The legacy databases are generated by [LegacyDatabases] with [MEASUREMENTS] measurements with [LOCATIONS]
+ * locations each. Increase these numbers to simulate devices with years of data.
+ *
+ * Besides the timing, the benchmark ensures no measurement or location is lost and that the values calculated by the
+ * migrations, like the backfilled ledgers, are correct for large databases.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class MigrationBenchmarkTest {
+
+    private lateinit var context: Context
+
+    /**
+     * The duration of each migration step in milliseconds by the start version of the step.
+     */
+    private val durations = mutableMapOf<Int, Long>()
+
+    @Before
+    fun setUp() {
+        ShadowLog.stream = System.out
+        context = ApplicationProvider.getApplicationContext()
+        DatabaseMigrator.listener = object : MigrationListener {
+            override fun onMigrationStarted(startVersion: Int, endVersion: Int) = Unit
+
+            override fun onMigrationFinished(startVersion: Int, endVersion: Int, durationMillis: Long) {
+                durations[startVersion] = durationMillis
+            }
+        }
+    }
+
+    @After
+    fun tearDown() {
+        DatabaseMigrator.listener = null
+        context.deleteDatabase(DATABASE_NAME)
+        context.deleteDatabase(LegacyDatabases.V6_DATABASE_NAME)
+    }
+
+    @Test
+    fun benchmarkMigrations() {
+        // Arrange
+        val schemaFiles = LegacyDatabases.schemaFiles(SCHEMA_FOLDER, LATEST_VERSION)
+        val failures = mutableListOf<String>()
+
+        schemaFiles.toSortedMap().forEach { (version, schemaFile) ->
+            durations.clear()
+            LegacyDatabases.create(context, DATABASE_NAME, schemaFile, version, MEASUREMENTS, LOCATIONS)
+            if (version == 17) {
+                // The only version which also imports data from the secondary `v6` database
+                LegacyDatabases.createV6(context, MEASUREMENTS, LOCATIONS)
+            }
+
+            // Act
+            val database = Room.databaseBuilder(context, Database::class.java, DATABASE_NAME)
+                .addMigrations(*DatabaseMigrator(context).migrations())
+                .allowMainThreadQueries()
+                .build()
+            val migrated = database.openHelper.writableDatabase
+
+            // Assert
+            durations.toSortedMap().forEach { (startVersion, millis) ->
+                Log.i(TAG, "benchmark: $version: migration from $startVersion took $millis ms")
+            }
+            Log.i(TAG, "benchmark: migration from $version took ${durations.values.sum()} ms")
+            val measurements = count(migrated, "SELECT COUNT(*) FROM Measurement")
+            val locations = count(migrated, "SELECT COUNT(*) FROM Location")
+            // The first location of each measurement has the `BASE_TIMESTAMP`, see migration `13` to `14`
+            val timestamps = count(
+                migrated,
+                "SELECT COUNT(*) FROM Measurement WHERE timestamp = ${LegacyDatabases.BASE_TIMESTAMP}"
+            )
+            // The distance is calculated by the migration from `9` to `10`
+            val distances = count(migrated, "SELECT COUNT(*) FROM Measurement WHERE distance > 0")
+            // The ledgers are backfilled by the migration from `23` to `24`
+            val ledgers = count(
+                migrated,
+                "SELECT COUNT(*) FROM MeasurementLedger l WHERE locations = $LOCATIONS " +
+                        "AND locations = (SELECT COUNT(*) FROM Location WHERE measurementId = l.measurementId) " +
+                        "AND events = (SELECT COUNT(*) FROM Event WHERE measurementId = l.measurementId) " +
+                        "AND pressures = (SELECT COUNT(*) FROM Pressure WHERE measurementId = l.measurementId) " +
+                        "AND logBytes + imageBytes + otherBytes = " +
+                        "(SELECT IFNULL(SUM(size), 0) FROM Attachment WHERE measurementId = l.measurementId) " +
+                        "AND accelerationBytes + rotationBytes + directionBytes = 0"
+            )
+            if (measurements != MEASUREMENTS || locations != MEASUREMENTS * LOCATIONS ||
+                timestamps != MEASUREMENTS || distances != MEASUREMENTS || ledgers != MEASUREMENTS
+            ) {
+                failures.add("$version: $measurements measurements, $locations locations, " +
+                        "$timestamps timestamps, $distances distances, $ledgers ledgers")
+            }
+            database.close()
+            context.deleteDatabase(DATABASE_NAME)
+        }
+        assertThat(schemaFiles.size, greaterThan(1))
+        assertThat(failures.joinToString("\n"), failures, empty())
+    }
+
+    private fun count(db: SupportSQLiteDatabase, query: String): Int {
+        return db.query(query).use { cursor ->
+            cursor.moveToFirst()
+            cursor.getInt(0)
+        }
+    }
+
+    companion object {
+        private const val DATABASE_NAME = "migration-benchmark"
+        private const val LATEST_VERSION = 24
+        private const val MEASUREMENTS = 100
+        private const val LOCATIONS = 1_000
+        private val SCHEMA_FOLDER = File("schemas/de.cyface.persistence.Database")
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence
+
+import android.content.Context
+import android.content.pm.ProviderInfo
+import android.os.Build.VERSION_CODES
+import androidx.room.InvalidationTracker
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.content.LocationTable
+import de.cyface.persistence.content.PressureTable
+import de.cyface.persistence.content.StubProvider
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestCoroutineScheduler
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+
+/**
+ * Tests the coalescing and rate limiting of the notifications published by the [TimeSeriesInvalidation] and the
+ * counting of the notifications received.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+class TimeSeriesInvalidationTest {
+
+    private lateinit var context: Context
+    private lateinit var database: Database
+    private lateinit var scheduler: TestCoroutineScheduler
+    private lateinit var published: InvalidationCounter
+    private lateinit var received: InvalidationCounter
+    private lateinit var oocut: TimeSeriesInvalidation
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        // Robolectric does not load the provider from the library manifest
+        shadowOf(context.packageManager).addOrUpdateProvider(ProviderInfo().apply {
+            name = StubProvider::class.java.name
+            packageName = context.packageName
+            authority = AUTHORITY
+        })
+        database = Room.inMemoryDatabaseBuilder(context, Database::class.java).allowMainThreadQueries().build()
+        scheduler = TestCoroutineScheduler()
+        published = InvalidationCounter()
+        received = InvalidationCounter()
+        oocut = TimeSeriesInvalidation(
+            context,
+            database,
+            published,
+            received,
+            INTERVAL,
+            StandardTestDispatcher(scheduler)
+        )
+        oocut.start()
+    }
+
+    @After
+    fun tearDown() {
+        oocut.close()
+        database.close()
+    }
+
+    @Test
+    fun testCoalescing() {
+        // Arrange
+        repeat(10) { invalidate(LocationTable.URI_PATH) }
+        invalidate(PressureTable.URI_PATH)
+
+        // Act & Assert
+        advanceBy(INTERVAL - 1)
+        assertThat(published.count(), equalTo(0L))
+        advanceBy(1)
+        assertThat(published.count(), equalTo(2L))
+        assertThat(
+            notifiedUris(),
+            equalTo(listOf(LocationTable.getUri(AUTHORITY).toString(), PressureTable.getUri(AUTHORITY).toString()))
+        )
+    }
+
+    @Test
+    fun testRateLimiting() {
+        // Arrange
+        invalidate(LocationTable.URI_PATH)
+        advanceBy(INTERVAL / 2)
+        invalidate(LocationTable.URI_PATH)
+
+        // Act & Assert
+        // The second modification is published along with the first one
+        advanceBy(INTERVAL / 2)
+        assertThat(published.count(), equalTo(1L))
+
+        // The next modification is published at most once per interval
+        invalidate(LocationTable.URI_PATH)
+        advanceBy(INTERVAL - 1)
+        assertThat(published.count(), equalTo(1L))
+        advanceBy(1)
+        assertThat(published.count(), equalTo(2L))
+
+        // Without modifications nothing is published
+        advanceBy(INTERVAL * 10)
+        assertThat(published.count(), equalTo(2L))
+    }
+
+    @Test
+    fun testClose() {
+        // Arrange
+        invalidate(LocationTable.URI_PATH)
+
+        // Act
+        oocut.close()
+        invalidate(PressureTable.URI_PATH)
+        advanceBy(INTERVAL * 2)
+
+        // Assert
+        assertThat(published.count(), equalTo(0L))
+        assertThat(notifiedUris(), equalTo(emptyList<String>()))
+    }
+
+    @Test
+    fun testReceived() {
+        // Arrange
+        val forwarded = mutableListOf<Set<String>>()
+        database.invalidationTracker.addObserver(object : InvalidationTracker.Observer(LocationTable.URI_PATH) {
+            override fun onInvalidated(tables: Set<String>) {
+                forwarded.add(tables)
+            }
+        })
+
+        // Act
+        // Simulates the notification of another process
+        context.contentResolver.notifyChange(LocationTable.getUri(AUTHORITY), null, 0)
+        advanceBy(INTERVAL * 2)
+
+        // Assert
+        assertThat(received.count(), equalTo(1L))
+        assertThat(forwarded, equalTo(listOf(setOf(LocationTable.URI_PATH))))
+        // Forwarded notifications are not published again
+        assertThat(published.count(), equalTo(0L))
+    }
+
+    /**
+     * Simulates a modification of the time series database in this process.
+     */
+    private fun invalidate(table: String) {
+        database.invalidationTracker.notifyObserversByTableNames(table)
+    }
+
+    private fun advanceBy(millis: Long) {
+        scheduler.advanceTimeBy(millis)
+        scheduler.runCurrent()
+    }
+
+    private fun notifiedUris(): List<String> {
+        return shadowOf(context.contentResolver).notifiedUris.map { it.uri.toString() }
+    }
+
+    companion object {
+        private const val AUTHORITY = "de.cyface.persistence.test.provider"
+        private const val INTERVAL = 1_000L
+    }
+}
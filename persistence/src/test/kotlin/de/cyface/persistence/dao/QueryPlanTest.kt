@@ -0,0 +1,332 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.dao
+
+import android.os.Build.VERSION_CODES
+import androidx.room.Room
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.Database
+import de.cyface.persistence.model.AttachmentStatus
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.RetentionTier
+import de.cyface.protos.model.File.FileType
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.empty
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.annotation.SQLiteMode
+import java.util.Collections
+
+/**
+ * Runs `EXPLAIN QUERY PLAN` for the queries of all DAOs to ensure the queries are answered from an index.
+ *
+ * The test fails if a query requires a full table scan or a temporary B-tree to sort the result. Queries which
+ * return all rows of a table by design are listed in [FULL_SCAN_QUERIES].
+ *
+ * Room's `@Query` annotations are not available at runtime. Thus, each DAO method is called and the SQL which
+ * Room executes is captured with a query callback, so the plans are checked for the actual queries.
+ * [testAllDaoQueriesCovered] ensures a call is added here when a DAO method is added.
+ *
+ * @author Armin Schnabel
+ * @version 2.0.3
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+@SQLiteMode(SQLiteMode.Mode.NATIVE) // The legacy mode's SQLite does not support row values
+class QueryPlanTest {
+
+    private lateinit var database: Database
+
+    /**
+     * The statements executed by Room with their arguments.
+     */
+    private val statements = Collections.synchronizedList(mutableListOf<Pair<String, List<Any?>>>())
+
+    @Before
+    fun setUp() {
+        database = Room.inMemoryDatabaseBuilder(
+            ApplicationProvider.getApplicationContext(),
+            Database::class.java
+        ).allowMainThreadQueries()
+            .setQueryCallback({ sql, arguments -> statements.add(Pair(sql, arguments.toList())) }) { it.run() }
+            .build()
+    }
+
+    @After
+    fun tearDown() {
+        database.close()
+    }
+
+    /**
+     * Ensures no query requires a full table scan or a temporary sort.
+     */
+    @Test
+    fun testQueryPlans() {
+        // Arrange
+        val failures = mutableListOf<String>()
+
+        // Act
+        CALLS.filterKeys { !FULL_SCAN_QUERIES.contains(it) }.forEach { (method, call) ->
+            val queries = capture(call)
+            if (queries.isEmpty()) {
+                failures.add("$method: no query captured")
+            }
+            queries.forEach { (query, arguments) ->
+                val plan = queryPlan(query, arguments)
+                // `SELECT EXISTS(...)` reads a constant row, which is no table scan
+                val fullScan = plan.any { it.startsWith("SCAN ") && it != "SCAN CONSTANT ROW" }
+                val tempSort = plan.any { it.contains("TEMP B-TREE") }
+                if (fullScan || tempSort) {
+                    failures.add("$method: $query $plan")
+                }
+            }
+        }
+
+        // Assert
+        assertThat(failures.joinToString("\n"), failures, empty())
+    }
+
+    /**
+     * Ensures there is a query plan check for each DAO query, so new queries cannot be added unchecked.
+     */
+    @Test
+    fun testAllDaoQueriesCovered() {
+        // Arrange
+        val daos = listOf(
+            AttachmentDao::class.java,
+            EventDao::class.java,
+            IdentifierDao::class.java,
+            LocationDao::class.java,
+            MeasurementDao::class.java,
+            MeasurementLedgerDao::class.java,
+            MeasurementSummaryDao::class.java,
+            PressureDao::class.java,
+        )
+
+        // Act
+        val uncovered = daos.flatMap { dao ->
+            dao.declaredMethods.map { "${dao.simpleName}.${it.name}" }
+        }.distinct().filter { !CALLS.containsKey(it) && !NO_QUERIES.contains(it) }
+
+        // Assert
+        assertThat(uncovered.joinToString(), uncovered.size, equalTo(0))
+    }
+
+    /**
+     * Calls a DAO method and returns the queries Room executed for it.
+     *
+     * Transaction statements and the queries of Room's invalidation tracker are ignored.
+     */
+    private fun capture(call: suspend (Database) -> Any?): List<Pair<String, List<Any?>>> {
+        statements.clear()
+        runBlocking { call(database) }
+        return statements.toList().filter { (query, _) ->
+            val statement = query.trimStart().uppercase()
+            val dml = listOf("SELECT", "UPDATE", "DELETE").any { statement.startsWith(it) }
+            dml && !query.contains("room_")
+        }
+    }
+
+    /**
+     * @return The `detail` column of each row of the query plan.
+     */
+    private fun queryPlan(query: String, arguments: List<Any?>): List<String> {
+        val plan = mutableListOf<String>()
+        database.openHelper.readableDatabase.query("EXPLAIN QUERY PLAN $query", arguments.toTypedArray())
+            .use { cursor ->
+                while (cursor.moveToNext()) {
+                    plan.add(cursor.getString(cursor.getColumnIndexOrThrow("detail")))
+                }
+            }
+        return plan
+    }
+
+    companion object {
+        /**
+         * The DAO methods which are not annotated with `@Query`, e.g. `@Insert` and `@Delete`.
+         */
+        private val NO_QUERIES = setOf(
+            "AttachmentDao.insert",
+            "AttachmentDao.insertAll",
+            "AttachmentDao.delete",
+            "EventDao.insert",
+            "IdentifierDao.insert",
+            "LocationDao.insert",
+            "LocationDao.insertAll",
+            "MeasurementDao.insert",
+            "MeasurementLedgerDao.insert",
+            "MeasurementSummaryDao.insert",
+            "PressureDao.insert",
+            "PressureDao.insertAll",
+        )
+
+        /**
+         * The queries which return or delete all or most rows of a table by design.
+         */
+        private val FULL_SCAN_QUERIES = setOf(
+            "AttachmentDao.getAll",
+            "AttachmentDao.deleteAll",
+            "EventDao.getAll",
+            "EventDao.deleteAll",
+            "IdentifierDao.getAll",
+            "LocationDao.getAll",
+            "LocationDao.deleteAll",
+            "MeasurementDao.getAll",
+            "MeasurementDao.deleteAll",
+            // Returns all but the currently captured measurement
+            "MeasurementDao.loadAllCompleted",
+            "MeasurementDao.observeAllCompleted",
+            "MeasurementLedgerDao.deleteAll",
+            "MeasurementSummaryDao.deleteAll",
+            "PressureDao.getAll",
+            "PressureDao.deleteAll",
+        )
+
+        private const val ID = 1L
+        private val IDS = listOf(1L, 2L)
+        private val UNFINISHED = listOf(MeasurementStatus.OPEN, MeasurementStatus.PAUSED)
+
+        /**
+         * Calls each DAO method which is annotated with `@Query`. The values of the arguments do not influence the
+         * query plan.
+         */
+        private val CALLS: Map<String, suspend (Database) -> Any?> = mapOf(
+            "AttachmentDao.getAll" to { it.attachmentDao().getAll() },
+            "AttachmentDao.loadById" to { it.attachmentDao().loadById(ID) },
+            "AttachmentDao.loadIdByPath" to { it.attachmentDao().loadIdByPath("./file.jpg") },
+            "AttachmentDao.loadAllByMeasurementId" to { it.attachmentDao().loadAllByMeasurementId(ID) },
+            "AttachmentDao.loadOneByMeasurementId" to { it.attachmentDao().loadOneByMeasurementId(ID) },
+            "AttachmentDao.loadOneByMeasurementIdAndType" to {
+                it.attachmentDao().loadOneByMeasurementIdAndType(ID, FileType.JPG)
+            },
+            "AttachmentDao.loadAllByMeasurementIdAndType" to {
+                it.attachmentDao().loadAllByMeasurementIdAndType(ID, FileType.JPG)
+            },
+            "AttachmentDao.loadAllByMeasurementIdAndStatus" to {
+                it.attachmentDao().loadAllByMeasurementIdAndStatus(ID, AttachmentStatus.SAVED)
+            },
+            "AttachmentDao.countByMeasurementId" to { it.attachmentDao().countByMeasurementId(ID) },
+            "AttachmentDao.countByMeasurementIdAndType" to {
+                it.attachmentDao().countByMeasurementIdAndType(ID, FileType.JPG)
+            },
+            "AttachmentDao.deleteItemByMeasurementId" to { it.attachmentDao().deleteItemByMeasurementId(ID) },
+            "AttachmentDao.deleteAll" to { it.attachmentDao().deleteAll() },
+            "AttachmentDao.updateSize" to { it.attachmentDao().updateSize(ID, 1L) },
+            "AttachmentDao.updateStatus" to { it.attachmentDao().updateStatus(ID, AttachmentStatus.SYNCED) },
+            "AttachmentDao.updateAllStatus" to { it.attachmentDao().updateAllStatus(IDS, AttachmentStatus.SYNCED) },
+
+            "EventDao.getAll" to { it.eventDao().getAll() },
+            "EventDao.loadById" to { it.eventDao().loadById(ID) },
+            "EventDao.loadAllByMeasurementId" to { it.eventDao().loadAllByMeasurementId(ID) },
+            "EventDao.observeAllByMeasurementId" to { it.eventDao().observeAllByMeasurementId(ID).first() },
+            "EventDao.loadPageByMeasurementId" to {
+                it.eventDao().loadPageByMeasurementId(ID, Long.MIN_VALUE, Long.MIN_VALUE, 10)
+            },
+            "EventDao.countByMeasurementId" to { it.eventDao().countByMeasurementId(ID) },
+            "EventDao.loadAllByMeasurementIdAndType" to {
+                it.eventDao().loadAllByMeasurementIdAndType(ID, EventType.LIFECYCLE_START)
+            },
+            "EventDao.deleteItemByMeasurementId" to { it.eventDao().deleteItemByMeasurementId(ID) },
+            "EventDao.deleteBatchByMeasurementId" to { it.eventDao().deleteBatchByMeasurementId(ID, 10) },
+            "EventDao.deleteItemById" to { it.eventDao().deleteItemById(ID) },
+            "EventDao.deleteAll" to { it.eventDao().deleteAll() },
+
+            "IdentifierDao.getAll" to { it.identifierDao().getAll() },
+
+            "LocationDao.getAll" to { it.locationDao().getAll() },
+            "LocationDao.loadAllByMeasurementId" to { it.locationDao().loadAllByMeasurementId(ID) },
+            "LocationDao.loadAllByMeasurementIdAfterId" to { it.locationDao().loadAllByMeasurementIdAfterId(ID, ID) },
+            "LocationDao.loadPageByMeasurementId" to {
+                it.locationDao().loadPageByMeasurementId(ID, Long.MIN_VALUE, Long.MIN_VALUE, 10)
+            },
+            "LocationDao.countByMeasurementId" to { it.locationDao().countByMeasurementId(ID) },
+            "LocationDao.countByMeasurementIdAfter" to { it.locationDao().countByMeasurementIdAfter(ID, 1L, ID) },
+            "LocationDao.loadMaxIdByMeasurementId" to { it.locationDao().loadMaxIdByMeasurementId(ID) },
+            "LocationDao.countByMeasurementIdAfterIdUpToId" to {
+                it.locationDao().countByMeasurementIdAfterIdUpToId(ID, 0L, ID)
+            },
+            "LocationDao.observeLatestByMeasurementId" to { it.locationDao().observeLatestByMeasurementId(ID).first() },
+            "LocationDao.loadAllByMeasurementIdAndSpeedGtAndAccuracyLtAndSpeedLt" to {
+                it.locationDao().loadAllByMeasurementIdAndSpeedGtAndAccuracyLtAndSpeedLt(ID, 1.0, 20.0, 100.0)
+            },
+            "LocationDao.deleteItemByMeasurementId" to { it.locationDao().deleteItemByMeasurementId(ID) },
+            "LocationDao.deleteBatchByMeasurementId" to { it.locationDao().deleteBatchByMeasurementId(ID, 10) },
+            "LocationDao.deleteBatchByMeasurementIdUpToId" to {
+                it.locationDao().deleteBatchByMeasurementIdUpToId(ID, ID, 10)
+            },
+            "LocationDao.deleteAllById" to { it.locationDao().deleteAllById(IDS) },
+            "LocationDao.deleteAll" to { it.locationDao().deleteAll() },
+
+            "MeasurementDao.getAll" to { it.measurementDao().getAll() },
+            "MeasurementDao.loadAllCompleted" to { it.measurementDao().loadAllCompleted() },
+            "MeasurementDao.observeAllCompleted" to { it.measurementDao().observeAllCompleted().first() },
+            "MeasurementDao.loadById" to { it.measurementDao().loadById(ID) },
+            "MeasurementDao.observeById" to { it.measurementDao().observeById(ID).first() },
+            "MeasurementDao.loadAllByStatus" to { it.measurementDao().loadAllByStatus(MeasurementStatus.FINISHED) },
+            "MeasurementDao.existsByStatus" to { it.measurementDao().existsByStatus(MeasurementStatus.OPEN) },
+            "MeasurementDao.loadAllUnfinished" to { it.measurementDao().loadAllUnfinished() },
+            "MeasurementDao.updateFileFormatVersion" to { it.measurementDao().updateFileFormatVersion(ID, 3) },
+            "MeasurementDao.update" to { it.measurementDao().update(ID, MeasurementStatus.FINISHED) },
+            "MeasurementDao.updateStatus" to {
+                it.measurementDao().updateStatus(ID, MeasurementStatus.OPEN, UNFINISHED, UNFINISHED)
+            },
+            "MeasurementDao.updateDistance" to { it.measurementDao().updateDistance(ID, 1.0) },
+            "MeasurementDao.incrementFilesSize" to { it.measurementDao().incrementFilesSize(ID, 1L) },
+            "MeasurementDao.deleteItemById" to { it.measurementDao().deleteItemById(ID) },
+            "MeasurementDao.deleteAll" to { it.measurementDao().deleteAll() },
+
+            "MeasurementLedgerDao.loadByMeasurementId" to { it.measurementLedgerDao().loadByMeasurementId(ID) },
+            "MeasurementLedgerDao.loadAllByStatus" to {
+                it.measurementLedgerDao().loadAllByStatus(MeasurementStatus.FINISHED)
+            },
+            "MeasurementLedgerDao.add" to { it.measurementLedgerDao().add(ID, 1L, 1L, 1L, 1L, 1L) },
+            "MeasurementLedgerDao.deleteAll" to { it.measurementLedgerDao().deleteAll() },
+
+            "MeasurementSummaryDao.loadByMeasurementId" to { it.measurementSummaryDao().loadByMeasurementId(ID) },
+            "MeasurementSummaryDao.loadIdsNotInTiers" to {
+                it.measurementSummaryDao().loadIdsNotInTiers(
+                    MeasurementStatus.SYNCED,
+                    1L,
+                    listOf(RetentionTier.DOWNSAMPLED, RetentionTier.METADATA),
+                    10
+                )
+            },
+            "MeasurementSummaryDao.updateTier" to {
+                it.measurementSummaryDao().updateTier(ID, RetentionTier.DOWNSAMPLED)
+            },
+            "MeasurementSummaryDao.deleteAll" to { it.measurementSummaryDao().deleteAll() },
+
+            "PressureDao.getAll" to { it.pressureDao().getAll() },
+            "PressureDao.loadAllByMeasurementId" to { it.pressureDao().loadAllByMeasurementId(ID) },
+            "PressureDao.countByMeasurementId" to { it.pressureDao().countByMeasurementId(ID) },
+            "PressureDao.deleteItemByMeasurementId" to { it.pressureDao().deleteItemByMeasurementId(ID) },
+            "PressureDao.deleteBatchByMeasurementId" to { it.pressureDao().deleteBatchByMeasurementId(ID, 10) },
+            "PressureDao.deleteAll" to { it.pressureDao().deleteAll() },
+        )
+    }
+}
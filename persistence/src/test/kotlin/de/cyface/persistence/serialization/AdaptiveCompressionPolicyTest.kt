@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.os.Build.VERSION_CODES
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.serialization.AdaptiveCompressionPolicy.Companion.LARGE_BACKLOG_BYTES
+import de.cyface.persistence.serialization.AdaptiveCompressionPolicy.Companion.chooseLevel
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Tests how the [AdaptiveCompressionPolicy] chooses the compression level and learns from the compressions.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.1
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P])
+class AdaptiveCompressionPolicyTest {
+
+    /**
+     * Each level is half as fast as the previous one, starting at 100 MB/s.
+     */
+    private val throughput = { level: Int -> 100_000.0 / (1 shl level) }
+
+    @Test
+    fun `charging on unmetered network - highest level in budget`() {
+        assertThat(chooseLevel(SMALL, SMALL, charging = true, metered = false, throughput), `is`(9))
+    }
+
+    @Test
+    fun `charging on unmetered network with large file - lower level to stay in budget`() {
+        // Level 9 takes 2_560 s, level 6 320 s, level 5 160 s and level 3 40 s
+        assertThat(chooseLevel(LARGE, LARGE, charging = true, metered = false, throughput), `is`(3))
+    }
+
+    @Test
+    fun `on battery on unmetered network - at most level 6`() {
+        assertThat(chooseLevel(SMALL, SMALL, charging = false, metered = false, throughput), `is`(6))
+    }
+
+    @Test
+    fun `metered network with small backlog - default level`() {
+        assertThat(chooseLevel(SMALL, SMALL, charging = true, metered = true, throughput), `is`(5))
+    }
+
+    @Test
+    fun `metered network with large backlog - fastest level`() {
+        assertThat(chooseLevel(SMALL, LARGE_BACKLOG_BYTES, charging = true, metered = true, throughput), `is`(1))
+    }
+
+    @Test
+    fun `slow device - fastest level even if over budget`() {
+        assertThat(chooseLevel(LARGE, LARGE, charging = true, metered = false) { 1.0 }, `is`(1))
+    }
+
+    @Test
+    fun `onCompressed - first result is the throughput`() {
+        // Arrange
+        val policy = AdaptiveCompressionPolicy(ApplicationProvider.getApplicationContext())
+
+        // Act
+        policy.onCompressed(CompressionResult(5, 1_000_000L, 250_000L, 100L, 80L))
+
+        // Assert
+        val statistics = policy.statistics()
+        assertThat(statistics.keys, equalTo(setOf(5)))
+        assertThat(
+            statistics.getValue(5),
+            equalTo(AdaptiveCompressionPolicy.Statistics(1L, 1_000_000L, 250_000L, 80L, 10_000.0))
+        )
+        assertThat(statistics.getValue(5).ratio, equalTo(4.0))
+    }
+
+    @Test
+    fun `onCompressed - moving average of the throughput and totals`() {
+        // Arrange
+        val policy = AdaptiveCompressionPolicy(ApplicationProvider.getApplicationContext())
+        policy.onCompressed(CompressionResult(5, 1_000_000L, 250_000L, 100L, 80L))
+
+        // Act - twice the throughput, which is weighted with 20 %
+        policy.onCompressed(CompressionResult(5, 2_000_000L, 500_000L, 100L, 90L))
+
+        // Assert
+        val statistics = policy.statistics().getValue(5)
+        assertThat(statistics.count, equalTo(2L))
+        assertThat(statistics.uncompressedBytes, equalTo(3_000_000L))
+        assertThat(statistics.compressedBytes, equalTo(750_000L))
+        assertThat(statistics.cpuTimeMillis, equalTo(170L))
+        assertThat(statistics.throughput, equalTo(12_000.0))
+    }
+
+    @Test
+    fun `onCompressed - statistics are kept per level`() {
+        // Arrange
+        val policy = AdaptiveCompressionPolicy(ApplicationProvider.getApplicationContext())
+
+        // Act
+        policy.onCompressed(CompressionResult(1, 1_000_000L, 500_000L, 25L, 20L))
+        policy.onCompressed(CompressionResult(9, 1_000_000L, 200_000L, 500L, 400L))
+
+        // Assert
+        val statistics = policy.statistics()
+        assertThat(statistics.keys, equalTo(setOf(1, 9)))
+        assertThat(statistics.getValue(1).throughput, equalTo(40_000.0))
+        assertThat(statistics.getValue(9).throughput, equalTo(2_000.0))
+        assertThat(statistics.getValue(9).ratio, equalTo(5.0))
+    }
+
+    companion object {
+        private const val SMALL = 1_000_000L
+        private const val LARGE = 500_000_000L
+    }
+}
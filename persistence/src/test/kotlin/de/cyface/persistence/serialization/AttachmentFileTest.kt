@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.os.Build.VERSION_CODES
+import de.cyface.persistence.model.Attachment
+import de.cyface.persistence.model.AttachmentStatus
+import de.cyface.protos.model.File.FileType
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import kotlin.random.Random
+
+/**
+ * Tests that [Attachment]s are uploaded from their file without copying it, see
+ * [MeasurementSerializer.attachmentFile].
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P]) // >= Q needs java 9
+class AttachmentFileTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("attachment", ".jpg")
+        file.writeBytes(Random(1).nextBytes(100_000))
+    }
+
+    @After
+    fun tearDown() {
+        file.delete()
+    }
+
+    @Test
+    fun testAttachmentFile() {
+        // Act
+        val transferFile = MeasurementSerializer.attachmentFile(attachment(FileType.JPG, file))
+
+        // Assert
+        assertThat(transferFile, equalTo(file))
+    }
+
+    @Test
+    fun testAttachmentFile_equalsSerializedAttachment() = runBlocking {
+        // Arrange
+        val attachment = attachment(FileType.JPG, file)
+        val serialized = ByteArrayOutputStream()
+
+        // Act
+        BufferedOutputStream(serialized).use { TransferFileSerializer.loadSerializedAttachment(it, attachment) }
+
+        // Assert
+        val transferFile = MeasurementSerializer.attachmentFile(attachment)
+        assertThat(transferFile.readBytes().contentEquals(serialized.toByteArray()), equalTo(true))
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun testAttachmentFile_withMissingFile() {
+        // Arrange
+        require(file.delete())
+
+        // Act
+        MeasurementSerializer.attachmentFile(attachment(FileType.JPG, file))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun testAttachmentFile_withUnsupportedFormatVersion() {
+        // Act
+        MeasurementSerializer.attachmentFile(attachment(FileType.JPG, file, 2))
+    }
+
+    private fun attachment(type: FileType, file: File, fileFormatVersion: Short = 1): Attachment {
+        return Attachment(
+            1L,
+            1000L,
+            AttachmentStatus.SAVED,
+            type,
+            fileFormatVersion,
+            file.length(),
+            file.toPath(),
+            null,
+            null,
+            null,
+            1L,
+        )
+    }
+}
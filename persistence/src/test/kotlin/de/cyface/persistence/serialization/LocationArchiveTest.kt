@@ -0,0 +1,213 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import android.os.Build.VERSION_CODES
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.io.DefaultFileIOHandler
+import de.cyface.persistence.model.GeoLocation
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.lessThan
+import org.junit.Assert.assertThrows
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.RandomAccessFile
+import kotlin.random.Random
+
+/**
+ * Tests the inner workings of the [LocationArchive].
+ *
+ * @author Armin Schnabel
+ * @version 1.3.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P]) // >= Q needs java 9
+class LocationArchiveTest {
+
+    private lateinit var context: Context
+    private val fileIOHandler = DefaultFileIOHandler()
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+    }
+
+    @Test
+    fun testWriteAndRead() {
+        // Arrange
+        val random = Random(1)
+        val locations = List(LOCATIONS) {
+            GeoLocation(
+                100L + it,
+                1_740_046_993_000L + it * 1_000L,
+                51.0508 + it * 0.00001 + random.nextDouble() * 1e-6,
+                13.7372 - it * 0.00001 - random.nextDouble() * 1e-6,
+                if (it % 10 == 0) null else 120.5 + it * 0.1 + random.nextDouble(),
+                // Speed and accuracies are reported as `Float` by Android
+                (5.25f + it % 3 + random.nextFloat()).toDouble(),
+                if (it % 7 == 0) null else (4.0f + random.nextFloat()).toDouble(),
+                if (it % 5 == 0) null else 2.5, MEASUREMENT_ID
+            )
+        }
+
+        // Act
+        LocationArchive.write(context, fileIOHandler, MEASUREMENT_ID, locations)
+        val archive = LocationArchive.load(context, fileIOHandler, MEASUREMENT_ID)!!
+        val loaded = archive.read()
+
+        // Assert
+        assertThat(archive.count, equalTo(LOCATIONS))
+        assertThat(archive.maxId, equalTo(100L + LOCATIONS - 1))
+        // The values are stored losslessly
+        assertThat(loaded, equalTo(locations))
+        loaded.forEachIndexed { index, location ->
+            assertThat(location.lat.toRawBits(), equalTo(locations[index].lat.toRawBits()))
+            assertThat(location.speed.toRawBits(), equalTo(locations[index].speed.toRawBits()))
+        }
+        // The columns take less than half of the ~70 bytes of a database row
+        assertThat(archive.file.length(), lessThan(LOCATIONS * 32L))
+    }
+
+    @Test
+    fun testWriteAndRead_specialValues() {
+        // Arrange
+        val values =
+            listOf(0.0, -0.0, Double.MIN_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE, Double.NaN, -180.0, 1e-300)
+        val locations = values.mapIndexed { index, value ->
+            GeoLocation(index + 1L, index.toLong(), value, -value, value, value, value, null, MEASUREMENT_ID)
+        }
+
+        // Act
+        LocationArchive.write(context, fileIOHandler, MEASUREMENT_ID, locations)
+        val loaded = LocationArchive.load(context, fileIOHandler, MEASUREMENT_ID)!!.read()
+
+        // Assert
+        loaded.forEachIndexed { index, location ->
+            val expected = locations[index]
+            assertThat(location.lat.toRawBits(), equalTo(expected.lat.toRawBits()))
+            assertThat(location.lon.toRawBits(), equalTo(expected.lon.toRawBits()))
+            assertThat(location.altitude!!.toRawBits(), equalTo(expected.altitude!!.toRawBits()))
+            assertThat(location.verticalAccuracy, nullValue())
+        }
+    }
+
+    @Test
+    fun testUseLocations_readsBlockByBlock() {
+        // Arrange
+        val locations = List(LOCATIONS) {
+            GeoLocation(it + 1L, it * 1_000L, 51.05, 13.73, null, 5.0, null, null, MEASUREMENT_ID)
+        }
+        val archive = LocationArchive.write(context, fileIOHandler, MEASUREMENT_ID, locations, blockSize = BLOCK_SIZE)
+        // Only the blocks which are read need to be valid, so the corrupted last block shows what is read
+        RandomAccessFile(archive.file, "rw").use { it.setLength(it.length() - 1) }
+
+        // Act
+        val first = archive.useLocations { it.take(LOCATIONS - BLOCK_SIZE).toList() }
+
+        // Assert
+        assertThat(first, equalTo(locations.subList(0, LOCATIONS - BLOCK_SIZE)))
+        assertThrows(IllegalStateException::class.java) { archive.read() }
+    }
+
+    @Test
+    fun testWriter_appendsBlockByBlock() {
+        // Arrange
+        val locations = List(LOCATIONS) {
+            GeoLocation(it + 1L, it * 1_000L, 51.05 + it * 1e-5, 13.73, null, 5.0, null, null, MEASUREMENT_ID)
+        }
+        val expected = LocationArchive.write(context, fileIOHandler, MEASUREMENT_ID, locations, blockSize = BLOCK_SIZE)
+            .file.readBytes()
+
+        // Act
+        val maxId = LOCATIONS.toLong()
+        val archive = LocationArchive.writer(context, fileIOHandler, MEASUREMENT_ID, LOCATIONS, maxId, BLOCK_SIZE).use {
+            // Pages which don't match the blocks, e.g. when rows are filtered
+            locations.chunked(BLOCK_SIZE / 3 + 1).forEach { page -> it.append(page.asSequence()) }
+            it.commit()
+        }
+
+        // Assert
+        assertThat(archive.read(), equalTo(locations))
+        // The same blocks are written as when all locations are passed at once
+        assertThat(archive.file.readBytes(), equalTo(expected))
+    }
+
+    @Test
+    fun testWriter_unexpectedCount() {
+        // Arrange
+        val locations = List(2) {
+            GeoLocation(it + 1L, it * 1_000L, 51.05, 13.73, null, 5.0, null, null, MEASUREMENT_ID)
+        }
+        LocationArchive.write(context, fileIOHandler, MEASUREMENT_ID, locations.subList(0, 1))
+
+        // Act
+        assertThrows(IllegalStateException::class.java) {
+            LocationArchive.writer(context, fileIOHandler, MEASUREMENT_ID, 3, 2L).use {
+                it.append(locations.asSequence())
+                it.commit()
+            }
+        }
+
+        // Assert
+        // The previous archive is kept and the partially written file is deleted
+        val archive = LocationArchive.load(context, fileIOHandler, MEASUREMENT_ID)!!
+        assertThat(archive.read(), equalTo(locations.subList(0, 1)))
+        val folder = fileIOHandler.getFolderPath(context, LocationArchive.FOLDER_NAME)
+        assertThat(folder.list()!!.size, equalTo(1))
+    }
+
+    @Test
+    fun testWriteEmpty() {
+        // Arrange
+
+        // Act
+        LocationArchive.write(context, fileIOHandler, MEASUREMENT_ID, emptyList(), 42L)
+        val archive = LocationArchive.load(context, fileIOHandler, MEASUREMENT_ID)!!
+
+        // Assert
+        assertThat(archive.count, equalTo(0))
+        assertThat(archive.maxId, equalTo(42L))
+        assertThat(archive.read().size, equalTo(0))
+    }
+
+    @Test
+    fun testDelete() {
+        // Arrange
+        LocationArchive.write(context, fileIOHandler, MEASUREMENT_ID, emptyList())
+
+        // Act
+        LocationArchive.load(context, fileIOHandler, MEASUREMENT_ID)!!.delete()
+
+        // Assert
+        assertThat(LocationArchive.load(context, fileIOHandler, MEASUREMENT_ID), nullValue())
+    }
+
+    companion object {
+        private const val MEASUREMENT_ID = 1L
+        private const val LOCATIONS = 1_000
+        private const val BLOCK_SIZE = 100
+    }
+}
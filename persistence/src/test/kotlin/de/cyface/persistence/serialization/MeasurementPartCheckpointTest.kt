@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import android.content.Context
+import android.os.Build.VERSION_CODES
+import androidx.test.core.app.ApplicationProvider
+import de.cyface.persistence.io.DefaultFileIOHandler
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * Tests that the [MeasurementPartCheckpoint] continues the upload of the parts only when the parts did not change.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [VERSION_CODES.P]) // >= Q needs java 9
+class MeasurementPartCheckpointTest {
+
+    private lateinit var context: Context
+    private val fileIOHandler = DefaultFileIOHandler()
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+    }
+
+    @After
+    fun tearDown() {
+        MeasurementPartCheckpoint.delete(context, fileIOHandler, MEASUREMENT_ID)
+    }
+
+    @Test
+    fun testWriteAndLoad() {
+        // Arrange
+        val checkpoint = MeasurementPartCheckpoint(FINGERPRINT, PARTS.size, 1, PARTS[1].end)
+
+        // Act
+        MeasurementPartCheckpoint.write(context, fileIOHandler, MEASUREMENT_ID, checkpoint)
+        val loaded = MeasurementPartCheckpoint.load(context, fileIOHandler, MEASUREMENT_ID)!!
+
+        // Assert
+        assertThat(loaded.fingerprint, equalTo(FINGERPRINT))
+        assertThat(loaded.count, equalTo(PARTS.size))
+        assertThat(loaded.acknowledged, equalTo(1))
+        assertThat(loaded.end, equalTo(PARTS[1].end))
+        assertThat(loaded.next(FINGERPRINT, PARTS), equalTo(2))
+    }
+
+    @Test
+    fun testLoad_withoutCheckpoint() {
+        // Act
+        val loaded = MeasurementPartCheckpoint.load(context, fileIOHandler, MEASUREMENT_ID)
+
+        // Assert
+        assertThat(loaded, nullValue())
+    }
+
+    @Test
+    fun testDelete() {
+        // Arrange
+        val checkpoint = MeasurementPartCheckpoint(FINGERPRINT, PARTS.size, 0, PARTS[0].end)
+        MeasurementPartCheckpoint.write(context, fileIOHandler, MEASUREMENT_ID, checkpoint)
+
+        // Act
+        MeasurementPartCheckpoint.delete(context, fileIOHandler, MEASUREMENT_ID)
+
+        // Assert
+        assertThat(MeasurementPartCheckpoint.load(context, fileIOHandler, MEASUREMENT_ID), nullValue())
+    }
+
+    @Test
+    fun testNext_withChangedMeasurement() {
+        // Arrange
+        val checkpoint = MeasurementPartCheckpoint(FINGERPRINT, PARTS.size, 1, PARTS[1].end)
+
+        // Act
+        val next = checkpoint.next("changed", PARTS)
+
+        // Assert
+        assertThat(next, equalTo(0))
+    }
+
+    @Test
+    fun testNext_withChangedParts() {
+        // Arrange
+        val checkpoint = MeasurementPartCheckpoint(FINGERPRINT, PARTS.size, 1, PARTS[1].end)
+        val cutDifferently = MeasurementPart.plan(List(30) { it * 1_000L to 10L }, 50L)
+
+        // Act
+        val next = checkpoint.next(FINGERPRINT, cutDifferently)
+
+        // Assert
+        assertThat(next, equalTo(0))
+    }
+
+    companion object {
+        private const val MEASUREMENT_ID = 1L
+        private const val FINGERPRINT = "fingerprint"
+
+        /**
+         * Three parts of 10 entries each.
+         */
+        private val PARTS = MeasurementPart.plan(List(30) { it * 1_000L to 10L }, 100L)
+    }
+}
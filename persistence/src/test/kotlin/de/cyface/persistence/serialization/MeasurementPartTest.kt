@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+/**
+ * Tests how [MeasurementPart.plan] cuts a measurement into parts.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+class MeasurementPartTest {
+
+    @Test
+    fun `all entries fit - one part`() {
+        val parts = MeasurementPart.plan(listOf(1L to 40L, 2L to 40L), 100L)
+
+        assertThat(parts, equalTo(listOf(MeasurementPart(0, 1, Long.MIN_VALUE, Long.MAX_VALUE))))
+    }
+
+    @Test
+    fun `no entries - one part`() {
+        assertThat(MeasurementPart.plan(emptyList(), 100L).size, equalTo(1))
+    }
+
+    @Test
+    fun `size cap reached - next part started`() {
+        val entries = listOf(4L to 40L, 1L to 40L, 3L to 40L, 2L to 40L)
+
+        val parts = MeasurementPart.plan(entries, 100L)
+
+        assertThat(
+            parts,
+            equalTo(listOf(MeasurementPart(0, 2, Long.MIN_VALUE, 3L), MeasurementPart(1, 2, 3L, Long.MAX_VALUE)))
+        )
+    }
+
+    @Test
+    fun `same timestamp - same part`() {
+        val entries = listOf(1L to 60L, 1L to 60L, 2L to 10L)
+
+        val parts = MeasurementPart.plan(entries, 100L)
+
+        assertThat(parts.map { it.start }, equalTo(listOf(Long.MIN_VALUE, 2L)))
+    }
+
+    @Test
+    fun `each entry in exactly one part`() {
+        val entries = List(1_000) { it * 7L to 13L }
+
+        val parts = MeasurementPart.plan(entries, 500L)
+
+        entries.forEach { (timestamp, _) -> assertThat(parts.count { timestamp in it }, equalTo(1)) }
+        assertThat(parts.map { it.index }, equalTo((0 until parts.size).toList()))
+        assertThat(parts.last().isLast, equalTo(true))
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.lessThan
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+import kotlin.random.Random
+
+/**
+ * Tests the inner workings of the [ParallelDeflaterOutputStream].
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+class ParallelDeflaterOutputStreamTest {
+
+    @Test
+    fun testCompress_withMultipleBlocks() {
+        // Arrange
+        val data = sampleData(ParallelDeflaterOutputStream.BLOCK_SIZE * 5 + 1_234)
+
+        // Act
+        val compressed = compress(data, THREADS)
+
+        // Assert
+        assertThat(inflate(compressed).contentEquals(data), equalTo(true))
+        // The dictionary keeps the ratio close to a single deflater
+        assertThat(compressed.size.toDouble(), lessThan(deflate(data).size * 1.05))
+    }
+
+    @Test
+    fun testCompress_withOneBlock() {
+        // Arrange
+        val data = sampleData(1_000)
+
+        // Act
+        val compressed = compress(data, THREADS)
+
+        // Assert
+        assertThat(compressed.contentEquals(deflate(data)), equalTo(true))
+    }
+
+    @Test
+    fun testCompress_withExactlyFullBlocks() {
+        // Arrange
+        val data = sampleData(ParallelDeflaterOutputStream.BLOCK_SIZE * 2)
+
+        // Act
+        val compressed = compress(data, 1)
+
+        // Assert
+        assertThat(inflate(compressed).contentEquals(data), equalTo(true))
+    }
+
+    @Test
+    fun testCompress_withoutData() {
+        // Act
+        val compressed = compress(ByteArray(0), THREADS)
+
+        // Assert
+        assertThat(inflate(compressed).size, equalTo(0))
+    }
+
+    @Test
+    fun testCompress_continuedAfterBlock() {
+        // Arrange - a stream interrupted after the second block
+        val data = sampleData(ParallelDeflaterOutputStream.BLOCK_SIZE * 4 + 1_234)
+        val output = ByteArrayOutputStream()
+        val boundaries = mutableListOf<Triple<Long, Int, ByteArray>>()
+        ParallelDeflaterOutputStream(output, LEVEL, THREADS).use { stream ->
+            stream.blockListener = { uncompressed, dictionary ->
+                boundaries.add(Triple(uncompressed, output.size(), dictionary))
+            }
+            stream.write(data)
+        }
+        val (uncompressed, compressed, dictionary) = boundaries[1]
+
+        // Act
+        val continued = ByteArrayOutputStream()
+        continued.write(output.toByteArray(), 0, compressed)
+        ParallelDeflaterOutputStream(continued, LEVEL, THREADS, dictionary).use {
+            it.write(data, uncompressed.toInt(), data.size - uncompressed.toInt())
+        }
+
+        // Assert
+        assertThat(boundaries.size, equalTo(4))
+        assertThat(uncompressed, equalTo(ParallelDeflaterOutputStream.BLOCK_SIZE * 2L))
+        assertThat(inflate(continued.toByteArray()).contentEquals(data), equalTo(true))
+    }
+
+    /**
+     * @return Data which compresses similar to sensor data, i.e. noise around a few values.
+     */
+    private fun sampleData(size: Int): ByteArray {
+        val random = Random(SEED)
+        return ByteArray(size) { (it % 16 + random.nextInt(4)).toByte() }
+    }
+
+    private fun compress(data: ByteArray, threads: Int): ByteArray {
+        val output = ByteArrayOutputStream()
+        ParallelDeflaterOutputStream(output, LEVEL, threads).use { stream ->
+            // Written in chunks which do not align with the blocks
+            data.asList().chunked(7_777).forEach { stream.write(it.toByteArray()) }
+        }
+        return output.toByteArray()
+    }
+
+    private fun deflate(data: ByteArray): ByteArray {
+        val output = ByteArrayOutputStream()
+        val deflater = Deflater(LEVEL, MeasurementSerializer.COMPRESSION_NOWRAP)
+        DeflaterOutputStream(output, deflater).use { it.write(data) }
+        deflater.end()
+        return output.toByteArray()
+    }
+
+    private fun inflate(compressed: ByteArray): ByteArray {
+        val inflater = Inflater(MeasurementSerializer.COMPRESSION_NOWRAP)
+        val inflated = InflaterInputStream(compressed.inputStream(), inflater).use { it.readBytes() }
+        inflater.end()
+        return inflated
+    }
+
+    companion object {
+        private const val LEVEL = 5
+        private const val THREADS = 4
+        private const val SEED = 42
+    }
+}
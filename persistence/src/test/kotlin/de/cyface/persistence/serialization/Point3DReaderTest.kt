@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.persistence.serialization
+
+import com.google.protobuf.ByteString
+import de.cyface.deserializer.Point3DDeserializer
+import de.cyface.model.Point3D
+import de.cyface.model.Point3DImpl
+import de.cyface.protos.model.AccelerationsBinary
+import de.cyface.protos.model.DirectionsBinary
+import de.cyface.protos.model.LocationRecords
+import de.cyface.protos.model.MeasurementBytes
+import de.cyface.serializer.DataSerializable
+import de.cyface.serializer.Point3DSerializer
+import de.cyface.serializer.model.Point3DType
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.closeTo
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+
+/**
+ * Tests that the [Point3DReader] and the [TransferFileReader] read the same samples as the `Point3DDeserializer`.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+class Point3DReaderTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("point3d", ".cyfa")
+    }
+
+    @After
+    fun tearDown() {
+        file.delete()
+    }
+
+    @Test
+    fun testForEach() {
+        // Arrange
+        writeBatches(Point3DType.ACCELERATION)
+        val expected = deserializeAccelerations()
+
+        // Act
+        val reader = Point3DReader.open(file, Point3DType.ACCELERATION)
+        val samples = read { reader.forEach(action = it) }
+
+        // Assert
+        assertThat(reader.batchCount, equalTo(BATCHES))
+        assertSamples(samples, expected)
+    }
+
+    @Test
+    fun testForEach_withTimeWindow() {
+        // Arrange - the window starts and ends within a batch
+        writeBatches(Point3DType.DIRECTION)
+        val start = timestamp(2, 50)
+        val end = timestamp(5, 10)
+        val expected = Point3DDeserializer.directions(DirectionsBinary.parseFrom(file.readBytes()).directionsList)
+            .filter { it.timestamp in start until end }
+
+        // Act
+        val samples = read { action -> Point3DReader.open(file, Point3DType.DIRECTION).forEach(start, end, action) }
+
+        // Assert
+        assertSamples(samples, expected)
+    }
+
+    @Test
+    fun testForEach_withEmptyFile() {
+        // Act
+        val samples = read { Point3DReader.open(file, Point3DType.ROTATION).forEach(action = it) }
+
+        // Assert
+        assertThat(samples.size, equalTo(0))
+    }
+
+    @Test
+    fun testTransferFileReader() {
+        // Arrange
+        writeBatches(Point3DType.ACCELERATION)
+        val expected = deserializeAccelerations()
+        val transferFile = File.createTempFile("transfer", ".ccyf")
+        writeTransferFile(transferFile, file.readBytes())
+
+        try {
+            // Act
+            val reader = TransferFileReader(transferFile)
+            val samples = read { reader.forEach(Point3DType.ACCELERATION, action = it) }
+            val windowed = read { reader.forEach(Point3DType.ACCELERATION, timestamp(1, 0), timestamp(3, 0), it) }
+            val rotations = read { reader.forEach(Point3DType.ROTATION, action = it) }
+
+            // Assert
+            assertSamples(samples, expected)
+            assertSamples(windowed, expected.filter { it.timestamp in timestamp(1, 0) until timestamp(3, 0) })
+            assertThat(rotations.size, equalTo(0))
+        } finally {
+            transferFile.delete()
+        }
+    }
+
+    /**
+     * Writes [BATCHES] batches like [Point3DFile.append].
+     */
+    private fun writeBatches(type: Point3DType) {
+        for (batch in 0 until BATCHES) {
+            val points = List<Point3D?>(BATCH_SIZE) {
+                Point3DImpl(9.81f - it * 0.01f, -1.5f + it * 0.02f, batch + it * 0.1f, timestamp(batch, it))
+            }
+            file.appendBytes(Point3DSerializer.serialize(points, type)!!)
+        }
+    }
+
+    private fun writeTransferFile(transferFile: File, accelerations: ByteArray) {
+        val measurement = MeasurementBytes.newBuilder()
+            .setFormatVersion(MeasurementSerializer.TRANSFER_FILE_FORMAT_VERSION.toInt())
+            .setAccelerationsBinary(ByteString.copyFrom(accelerations))
+            .setLocationRecords(LocationRecords.newBuilder().addTimestamp(1L).addLatitude(1L).addLongitude(1L))
+            .build()
+        val deflater = Deflater(Deflater.BEST_SPEED, MeasurementSerializer.COMPRESSION_NOWRAP)
+        DeflaterOutputStream(transferFile.outputStream(), deflater).use {
+            it.write(DataSerializable.transferFileHeader())
+            measurement.writeTo(it)
+        }
+        deflater.end()
+    }
+
+    private fun deserializeAccelerations(): List<Point3D> {
+        return Point3DDeserializer.accelerations(AccelerationsBinary.parseFrom(file.readBytes()).accelerationsList)
+    }
+
+    /**
+     * Copies the samples of all batches, as the batches are reused.
+     */
+    private fun read(forEach: ((Point3DBatch) -> Unit) -> Unit): List<Point3D> {
+        val samples = mutableListOf<Point3D>()
+        forEach { batch ->
+            for (i in 0 until batch.size) {
+                samples.add(Point3DImpl(batch.x[i], batch.y[i], batch.z[i], batch.timestamps[i]))
+            }
+        }
+        return samples
+    }
+
+    private fun assertSamples(samples: List<Point3D>, expected: List<Point3D>) {
+        assertThat(samples.size, equalTo(expected.size))
+        samples.zip(expected).forEach { (sample, point) ->
+            assertThat(sample.timestamp, equalTo(point.timestamp))
+            assertThat(sample.x.toDouble(), closeTo(point.x.toDouble(), TOLERANCE))
+            assertThat(sample.y.toDouble(), closeTo(point.y.toDouble(), TOLERANCE))
+            assertThat(sample.z.toDouble(), closeTo(point.z.toDouble(), TOLERANCE))
+        }
+    }
+
+    private fun timestamp(batch: Int, index: Int) = 1_700_000_000_000L + batch * 1_000L + index * 10L
+
+    companion object {
+        private const val BATCHES = 8
+        private const val BATCH_SIZE = 100
+        private const val TOLERANCE = 0.0001
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import android.accounts.Account
+import android.accounts.AccountManager
+import android.content.Context
+import android.content.SyncResult
+import android.os.Bundle
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.content.LocationTable
+import de.cyface.persistence.model.AttachmentStatus
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.testutils.SharedTestUtils.cleanupOldAccounts
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import de.cyface.testutils.SharedTestUtils.insertSampleMeasurementWithData
+import de.cyface.testutils.SharedTestUtils.randomFiles
+import de.cyface.uploader.Result
+import de.cyface.uploader.UploadProgressListener
+import de.cyface.uploader.Uploader
+import de.cyface.uploader.model.Attachment
+import de.cyface.uploader.model.Measurement
+import de.cyface.uploader.model.Uploadable
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import java.io.File
+import java.net.URL
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.Collections
+import java.util.zip.ZipFile
+
+/**
+ * Tests that the [SyncAdapter] uploads the log attachments of a measurement in ZIP bundles when
+ * `maxAttachmentBundleBytes` is set, with the default [Uploader] interface.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class AttachmentBundleUploadTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour?>
+    private lateinit var accountManager: AccountManager
+    private lateinit var account: Account
+    private lateinit var sampleFiles: List<Path>
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+        persistence.restoreOrCreateDeviceId() // is usually called by the DataCapturingService
+
+        accountManager = AccountManager.get(context)
+        cleanupOldAccounts(accountManager, TestUtils.ACCOUNT_TYPE, TestUtils.AUTHORITY)
+        account = Account(TestUtils.DEFAULT_USERNAME, TestUtils.ACCOUNT_TYPE)
+        accountManager.addAccountExplicitly(account, TestUtils.DEFAULT_PASSWORD, null)
+
+        sampleFiles = randomFiles(LOGS + IMAGES)
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+        cleanupOldAccounts(accountManager, TestUtils.ACCOUNT_TYPE, TestUtils.AUTHORITY)
+        sampleFiles.forEach { Files.deleteIfExists(it) }
+    }
+
+    @Test
+    fun testBundledAttachmentsSynced() = runBlocking {
+        // Arrange
+        val measurement = insertSampleMeasurementWithData(
+            context,
+            MeasurementStatus.FINISHED,
+            persistence,
+            1,
+            1,
+            LOGS,
+            IMAGES,
+            0,
+            sampleFiles
+        )
+        val uploader = RecordingUploader()
+        // The sample logs have 1234 bytes each, so three fit into one bundle
+        val maxAttachmentBundleBytes = 3 * SAMPLE_FILE_BYTES
+
+        // Act
+        sync(SyncAdapter(context, false, MockAuth(), uploader, Long.MAX_VALUE, maxAttachmentBundleBytes))
+
+        // Assert
+        // Two bundles of logs and the image on its own
+        val uploads = uploader.attachments.sortedBy { it.entries }
+        assertThat(uploads.map { it.entries }, equalTo(listOf(0, 2, 3)))
+        assertThat(uploads.filter { it.entries > 0 }.all { it.fileName.endsWith(".zip") }, equalTo(true))
+        // The bundles of one measurement do not overwrite each other
+        assertThat(uploads.map { it.fileName }.distinct().size, equalTo(uploads.size))
+        val attachments = persistence.attachmentDao!!
+        assertThat(attachments.loadAllByMeasurementIdAndStatus(measurement.id, AttachmentStatus.SYNCED).size,
+            equalTo(LOGS + IMAGES))
+        assertThat(attachments.loadAllByMeasurementIdAndStatus(measurement.id, AttachmentStatus.SAVED).size,
+            equalTo(0))
+        assertThat(persistence.loadMeasurementStatus(measurement.id), equalTo(MeasurementStatus.SYNCED))
+    }
+
+    private fun sync(syncAdapter: SyncAdapter) {
+        context.contentResolver.acquireContentProviderClient(LocationTable.getUri(TestUtils.AUTHORITY)).use {
+            val bundle = Bundle()
+            bundle.putString(SyncAdapter.MOCK_IS_CONNECTED_TO_RETURN_TRUE, "")
+            syncAdapter.onPerformSync(account, bundle, TestUtils.AUTHORITY, requireNotNull(it), SyncResult())
+        }
+    }
+
+    /**
+     * An attachment received by the [RecordingUploader].
+     *
+     * @property fileName The name the attachment was uploaded with.
+     * @property entries The number of ZIP entries or `0` if the file is not a ZIP.
+     */
+    private data class ReceivedAttachment(val fileName: String, val entries: Int)
+
+    /**
+     * An [Uploader] which records the attachments uploaded, as the bundle files are deleted after their upload.
+     */
+    private class RecordingUploader : Uploader {
+        val attachments: MutableList<ReceivedAttachment> = Collections.synchronizedList(mutableListOf())
+
+        override fun measurementsEndpoint(uploadable: Uploadable): URL {
+            return URL("https://mocked.cyface.de/api/v123/measurements")
+        }
+
+        override fun onUploadFinished(uploadable: Uploadable) {
+            // Nothing to do
+        }
+
+        override fun attachmentsEndpoint(uploadable: Uploadable): URL {
+            return URL("https://mocked.cyface.de/api/v123/measurements/did/mid/attachments")
+        }
+
+        override fun uploadMeasurement(
+            jwtToken: String,
+            uploadable: Measurement,
+            file: File,
+            progressListener: UploadProgressListener
+        ): Result {
+            progressListener.updatedProgress(1.0f) // 100%
+            return Result.UPLOAD_SUCCESSFUL
+        }
+
+        override fun uploadAttachment(
+            jwtToken: String,
+            uploadable: Attachment,
+            file: File,
+            fileName: String,
+            progressListener: UploadProgressListener
+        ): Result {
+            val entries = if (fileName.endsWith(".zip")) ZipFile(file).use { it.size() } else 0
+            attachments.add(ReceivedAttachment(fileName, entries))
+            progressListener.updatedProgress(1.0f) // 100%
+            return Result.UPLOAD_SUCCESSFUL
+        }
+    }
+
+    companion object {
+        private const val LOGS = 5
+        private const val IMAGES = 1
+
+        /**
+         * The size stored for each attachment inserted by `insertSampleMeasurementWithData`.
+         */
+        private const val SAMPLE_FILE_BYTES = 1234L
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import android.accounts.Account
+import android.accounts.AccountManager
+import android.content.Context
+import android.content.SyncResult
+import android.os.Bundle
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.platform.app.InstrumentationRegistry
+import de.cyface.model.Point3DImpl
+import de.cyface.persistence.DefaultPersistenceBehaviour
+import de.cyface.persistence.DefaultPersistenceLayer
+import de.cyface.persistence.content.LocationTable
+import de.cyface.persistence.model.EventType
+import de.cyface.persistence.model.GeoLocation
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementLedger
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import de.cyface.persistence.serialization.MeasurementSerializer
+import de.cyface.persistence.serialization.Point3DFile
+import de.cyface.serializer.model.Point3DType
+import de.cyface.testutils.SharedTestUtils.cleanupOldAccounts
+import de.cyface.testutils.SharedTestUtils.clearPersistenceLayer
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.greaterThan
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Tests that measurements larger than the maximal measurement size are uploaded in [MeasurementPartUploader] parts
+ * by the [SyncAdapter], end to end against the [PartCollector].
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+@RunWith(AndroidJUnit4::class)
+class MeasurementPartUploadTest {
+
+    private lateinit var context: Context
+    private lateinit var persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour?>
+    private lateinit var accountManager: AccountManager
+    private lateinit var account: Account
+    private lateinit var measurement: Measurement
+
+    @Before
+    fun setUp() = runBlocking {
+        context = InstrumentationRegistry.getInstrumentation().targetContext
+        persistence = DefaultPersistenceLayer(context, DefaultPersistenceBehaviour())
+        clearPersistenceLayer(context, persistence)
+        persistence.restoreOrCreateDeviceId() // is usually called by the DataCapturingService
+
+        accountManager = AccountManager.get(context)
+        cleanupOldAccounts(accountManager, TestUtils.ACCOUNT_TYPE, TestUtils.AUTHORITY)
+        account = Account(TestUtils.DEFAULT_USERNAME, TestUtils.ACCOUNT_TYPE)
+        accountManager.addAccountExplicitly(account, TestUtils.DEFAULT_PASSWORD, null)
+
+        // One batch of sensor data and 10 locations per 10 seconds, as captured
+        measurement = persistence.newMeasurement(Modality.BICYCLE)
+        persistence.logEvent(EventType.LIFECYCLE_START, measurement, 0L)
+        val files = listOf(Point3DType.ACCELERATION, Point3DType.ROTATION, Point3DType.DIRECTION).map {
+            Point3DFile(context, measurement.id, it, persistence.fileIOHandler)
+        }
+        val bytes = LongArray(files.size)
+        for (batch in 0 until BATCHES) {
+            files.forEachIndexed { index, file ->
+                val points = List(BATCH_SIZE) { Point3DImpl(1f, 2f, it.toFloat(), timestamp(batch, it)) }
+                bytes[index] += file.append(points).toLong()
+            }
+        }
+        persistence.locationDao!!.insertAll(*Array(LOCATIONS) { location(it) })
+        persistence.logEvent(EventType.LIFECYCLE_STOP, measurement, LOCATIONS * 1_000L)
+        persistence.addToLedgers(
+            listOf(
+                MeasurementLedger(
+                    measurement.id,
+                    accelerationBytes = bytes[0],
+                    rotationBytes = bytes[1],
+                    directionBytes = bytes[2],
+                    locations = LOCATIONS.toLong()
+                )
+            )
+        )
+        persistence.setStatus(measurement.id, MeasurementStatus.FINISHED, false)
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { clearPersistenceLayer(context, persistence) }
+        cleanupOldAccounts(accountManager, TestUtils.ACCOUNT_TYPE, TestUtils.AUTHORITY)
+    }
+
+    @Test
+    fun testUploadInParts() = runBlocking {
+        // Arrange
+        val collector = PartCollector()
+        val maxMeasurementBytes = MeasurementSerializer.estimateSize(measurement.id, persistence) / 3
+
+        // Act
+        sync(SyncAdapter(context, false, MockAuth(), collector, maxMeasurementBytes))
+
+        // Assert
+        val parts = collector.parts
+        assertThat(parts.size, greaterThan(1))
+        assertThat(parts.map { it.part.index }, equalTo((0 until parts.size).toList()))
+        parts.forEach { received ->
+            assertThat(received.part.count, equalTo(parts.size))
+            assertThat(received.measurement.formatVersion, equalTo(3))
+            (received.locationTimestamps + received.accelerationTimestamps + received.eventTimestamps).forEach {
+                assertThat(it in received.part, equalTo(true))
+            }
+        }
+        // Each entry is received exactly once
+        assertThat(parts.flatMap { it.locationTimestamps }, equalTo(List(LOCATIONS) { it * 1_000L }))
+        val accelerations = (0 until BATCHES).flatMap { batch -> List(BATCH_SIZE) { timestamp(batch, it) } }
+        assertThat(parts.flatMap { it.accelerationTimestamps }, equalTo(accelerations))
+        assertThat(parts.flatMap { it.eventTimestamps }, equalTo(listOf(0L, LOCATIONS * 1_000L)))
+        assertThat(persistence.loadMeasurementStatus(measurement.id), equalTo(MeasurementStatus.SYNCED))
+    }
+
+    @Test
+    fun testUploadInParts_continuesAfterInterruption() = runBlocking {
+        // Arrange
+        val collector = PartCollector()
+        collector.failAt = 1
+        val maxMeasurementBytes = MeasurementSerializer.estimateSize(measurement.id, persistence) / 3
+        sync(SyncAdapter(context, false, MockAuth(), collector, maxMeasurementBytes))
+        assertThat(persistence.loadMeasurementStatus(measurement.id), equalTo(MeasurementStatus.FINISHED))
+
+        // Act
+        sync(SyncAdapter(context, false, MockAuth(), collector, maxMeasurementBytes))
+
+        // Assert
+        // The first part is not uploaded again
+        val parts = collector.parts
+        assertThat(parts.size, greaterThan(1))
+        assertThat(parts.map { it.part.index }, equalTo((0 until parts.size).toList()))
+        assertThat(parts.flatMap { it.locationTimestamps }, equalTo(List(LOCATIONS) { it * 1_000L }))
+        assertThat(persistence.loadMeasurementStatus(measurement.id), equalTo(MeasurementStatus.SYNCED))
+    }
+
+    @Test
+    fun testUploadInParts_withoutPartUploader() = runBlocking {
+        // Arrange
+        val maxMeasurementBytes = MeasurementSerializer.estimateSize(measurement.id, persistence) / 3
+
+        // Act
+        sync(SyncAdapter(context, false, MockAuth(), MockedUploader(), maxMeasurementBytes))
+
+        // Assert
+        assertThat(persistence.loadMeasurementStatus(measurement.id), equalTo(MeasurementStatus.SKIPPED))
+    }
+
+    private fun sync(syncAdapter: SyncAdapter) {
+        context.contentResolver.acquireContentProviderClient(LocationTable.getUri(TestUtils.AUTHORITY)).use {
+            val bundle = Bundle()
+            bundle.putString(SyncAdapter.MOCK_IS_CONNECTED_TO_RETURN_TRUE, "")
+            syncAdapter.onPerformSync(account, bundle, TestUtils.AUTHORITY, requireNotNull(it), SyncResult())
+        }
+    }
+
+    private fun timestamp(batch: Int, index: Int) = batch * 10_000L + index * 10L
+
+    private fun location(index: Int): GeoLocation {
+        return GeoLocation(0, index * 1_000L, 51.1, 13.7 + index * 0.0001, 400.0, 5.0, 5.0, 20.0, measurement.id)
+    }
+
+    companion object {
+        private const val BATCHES = 10
+        private const val BATCH_SIZE = 100
+        private const val LOCATIONS = BATCHES * 10
+    }
+}
@@ -50,6 +50,7 @@ import org.junit.After
 import org.junit.Before
 import org.junit.Test
 import org.mockito.kotlin.any
+import org.mockito.kotlin.doAnswer
 import org.mockito.kotlin.doReturn
 import org.mockito.kotlin.eq
 import org.mockito.kotlin.mock
@@ -61,6 +62,7 @@ import java.io.FileOutputStream
 import java.io.IOException
 import java.nio.ByteBuffer
 import java.nio.ByteOrder
+import java.nio.file.Files
 import java.util.zip.DataFormatException
 import java.util.zip.Inflater
 
@@ -69,7 +71,7 @@ import java.util.zip.Inflater
  *
  * @author Klemens Muthmann
  * @author Armin Schnabel
- * @version 4.0.2
+ * @version 4.0.3
  * @since 2.0.0
  */
 class MeasurementSerializerTest {
@@ -86,6 +88,11 @@ class MeasurementSerializerTest {
 
     private val tempFiles = mutableListOf<File>()
 
+    /**
+     * The folder for the other files of the measurement, e.g. the records cached by the serializer.
+     */
+    private lateinit var tempFolder: File
+
     private fun writeTempFile(data: ByteArray): File {
         val file = File.createTempFile("sensor", ".tmp")
         file.writeBytes(data)
@@ -107,8 +114,12 @@ class MeasurementSerializerTest {
         val mockFolder = mock<File> {
             on { exists() } doReturn true
         }
+        tempFolder = Files.createTempDirectory("serializer").toFile()
         val mockFileIOHandler = mock<FileIOHandler> {
             on { getFolderPath(any(), any()) } doReturn mockFolder
+            on { getFilePath(any(), any(), any(), any()) } doAnswer {
+                File(tempFolder, "${it.arguments[2]}.${it.arguments[3]}")
+            }
             on {
                 getFilePath(
                     any(),
@@ -158,6 +169,7 @@ class MeasurementSerializerTest {
         runBlocking { SharedTestUtils.clearPersistenceLayer(context!!, persistence) }
         tempFiles.forEach { it.delete() }
         tempFiles.clear()
+        tempFolder.deleteRecursively()
     }
 
     /**
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import de.cyface.deserializer.LocationDeserializer
+import de.cyface.deserializer.Point3DDeserializer
+import de.cyface.persistence.serialization.MeasurementPart
+import de.cyface.persistence.serialization.MeasurementSerializer
+import de.cyface.protos.model.Measurement
+import de.cyface.uploader.Result
+import de.cyface.uploader.UploadProgressListener
+import de.cyface.uploader.Uploader
+import de.cyface.uploader.model.Attachment
+import de.cyface.uploader.model.Uploadable
+import java.io.File
+import java.net.URL
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+/**
+ * A stand-in for a collector which accepts measurements in parts, for testing.
+ *
+ * Each part is decompressed and parsed like the collector would, so the tests can check that each part is a valid
+ * transfer file.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+internal class PartCollector : Uploader, MeasurementPartUploader {
+
+    /**
+     * A part received by this collector.
+     *
+     * @property part The part as announced by the uploader.
+     * @property measurement The parsed transfer file of the part.
+     */
+    data class ReceivedPart(val part: MeasurementPart, val measurement: Measurement) {
+        val locationTimestamps: List<Long>
+            get() = LocationDeserializer.deserialize(measurement.locationRecords).map { it.timestamp }
+
+        val accelerationTimestamps: List<Long>
+            get() = Point3DDeserializer.accelerations(measurement.accelerationsBinary.accelerationsList)
+                .map { it.timestamp }
+
+        val eventTimestamps: List<Long>
+            get() = measurement.eventsList.map { it.timestamp }
+    }
+
+    /**
+     * The parts received, in the order they were uploaded.
+     */
+    val parts = mutableListOf<ReceivedPart>()
+
+    /**
+     * The index of the part whose next upload fails, e.g. to simulate an interrupted upload, or `null`.
+     */
+    var failAt: Int? = null
+
+    override fun measurementsEndpoint(uploadable: Uploadable) = URL("https://localhost/api/v4/measurements")
+
+    override fun onUploadFinished(uploadable: Uploadable) {
+        // Nothing to do
+    }
+
+    override fun attachmentsEndpoint(uploadable: Uploadable) = URL("https://localhost/api/v4/attachments")
+
+    override fun uploadMeasurement(
+        jwtToken: String,
+        uploadable: de.cyface.uploader.model.Measurement,
+        file: File,
+        progressListener: UploadProgressListener
+    ): Result {
+        throw IllegalStateException("Measurement uploaded in one file")
+    }
+
+    override fun uploadMeasurementPart(
+        jwtToken: String,
+        uploadable: de.cyface.uploader.model.Measurement,
+        part: MeasurementPart,
+        file: File,
+        progressListener: UploadProgressListener
+    ): Result {
+        if (part.index == failAt) {
+            failAt = null
+            return Result.UPLOAD_FAILED
+        }
+        val inflater = Inflater(MeasurementSerializer.COMPRESSION_NOWRAP)
+        val bytes = InflaterInputStream(file.inputStream(), inflater).use { it.readBytes() }
+        inflater.end()
+        val measurement = Measurement.parseFrom(bytes.copyOfRange(MeasurementSerializer.BYTES_IN_HEADER, bytes.size))
+        parts.add(ReceivedPart(part, measurement))
+        progressListener.updatedProgress(1.0f) // 100%
+        return Result.UPLOAD_SUCCESSFUL
+    }
+
+    override fun uploadAttachment(
+        jwtToken: String,
+        uploadable: Attachment,
+        file: File,
+        fileName: String,
+        progressListener: UploadProgressListener
+    ): Result {
+        progressListener.updatedProgress(1.0f) // 100%
+        return Result.UPLOAD_SUCCESSFUL
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.os.SystemClock
+import android.util.Log
+import de.cyface.synchronization.Constants.TAG
+import de.cyface.uploader.exception.ServerUnavailableException
+import de.cyface.uploader.exception.TooManyRequestsException
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
+import java.net.SocketTimeoutException
+import java.net.URL
+
+/**
+ * Limits how many attachments are uploaded in parallel and adapts the limit to the connection (AIMD).
+ *
+ * After each round of [limit] uploads, the limit is increased by one if the throughput of the round grew. It is
+ * halved when the server is overloaded, i.e. answers with `429` or `503` or the upload timed out, and when at least
+ * half of the uploads of a round failed. Thus, fast Wi-Fi connections upload thousands of images with more
+ * parallel requests, while weak connections and busy servers get fewer.
+ *
+ * The limit is stored per Collector in the [SharedPreferences] and used as the starting point of the next sync.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ * @property preferences The preferences to store the limit in.
+ * @property collector The Collector the attachments are uploaded to, see [collector].
+ * @property clock Returns the current time in milliseconds.
+ */
+class AdaptiveUploadConcurrency internal constructor(
+    private val preferences: SharedPreferences,
+    private val collector: String,
+    private val clock: () -> Long
+) {
+    /**
+     * @param context The context to access the preferences.
+     * @param collector The Collector the attachments are uploaded to, see [collector].
+     */
+    constructor(context: Context, collector: String) : this(
+        context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE),
+        collector,
+        SystemClock::elapsedRealtime
+    )
+
+    private val lock = Any()
+    private val controller = Controller(preferences.getInt(key(), DEFAULT_PARALLELISM))
+    private var running = 0
+
+    /**
+     * Incremented when an upload finished or the limit changed, so waiting uploads check again.
+     */
+    private val changes = MutableStateFlow(0L)
+
+    /**
+     * The number of uploads which currently run in parallel at most.
+     */
+    val limit: Int
+        get() = synchronized(lock) { controller.limit }
+
+    /**
+     * Runs an upload as soon as less than [limit] uploads are running and adapts the limit to its result.
+     *
+     * @param upload Runs the upload and returns its result, or `null` if nothing was uploaded, e.g. because the
+     * sync was aborted.
+     */
+    suspend fun withPermit(upload: suspend () -> Upload?) {
+        val ticket = acquire()
+        try {
+            upload()?.let { onUpload(ticket, it) }
+        } finally {
+            synchronized(lock) { running-- }
+            changes.update { it + 1 }
+        }
+    }
+
+    private suspend fun acquire(): Ticket {
+        while (true) {
+            val version = changes.value
+            synchronized(lock) {
+                if (running < controller.limit) {
+                    running++
+                    return Ticket(controller.epoch, clock())
+                }
+            }
+            changes.first { it != version }
+        }
+    }
+
+    private fun onUpload(ticket: Ticket, upload: Upload) {
+        val limit = synchronized(lock) {
+            val previous = controller.limit
+            controller.onUpload(ticket.epoch, ticket.startMillis, clock(), upload)
+            if (controller.limit == previous) return
+            controller.limit
+        }
+        Log.d(TAG, "Attachment upload parallelism for $collector changed to $limit (${upload.outcome})")
+        preferences.edit().putInt(key(), limit).apply()
+        changes.update { it + 1 }
+    }
+
+    private fun key() = "parallelism_$collector"
+
+    /**
+     * The result of an upload.
+     *
+     * @property bytes The size of the uploaded file.
+     * @property outcome How the upload ended.
+     */
+    data class Upload(val bytes: Long, val outcome: Outcome)
+
+    /**
+     * How an upload ended.
+     */
+    enum class Outcome {
+        /**
+         * The upload was accepted or skipped by the server.
+         */
+        SUCCEEDED,
+
+        /**
+         * The upload failed for a reason which does not indicate an overload, e.g. a locked file.
+         */
+        FAILED,
+
+        /**
+         * The server or connection is overloaded, e.g. the server answered with `429` or the upload timed out.
+         */
+        OVERLOADED
+    }
+
+    /**
+     * The time an upload started and the [Controller.epoch] it started in.
+     */
+    private data class Ticket(val epoch: Int, val startMillis: Long)
+
+    /**
+     * Adapts the limit to the results of the uploads, additive increase and multiplicative decrease.
+     *
+     * @param initial The limit to start with.
+     */
+    internal class Controller(initial: Int) {
+        /**
+         * The number of uploads which run in parallel at most.
+         */
+        var limit = initial.coerceIn(MIN_PARALLELISM, MAX_PARALLELISM)
+            private set
+
+        /**
+         * Incremented each time the limit is decreased. The results of uploads which started before are ignored,
+         * as they ran with the previous limit, so one overload does not decrease the limit once per running upload.
+         */
+        var epoch = 0
+            private set
+
+        private var roundStartMillis = -1L
+        private var roundUploads = 0
+        private var roundFailures = 0
+        private var roundBytes = 0L
+
+        /**
+         * The throughput of the previous round in bytes per millisecond, or `0` if there is none.
+         */
+        private var previousThroughput = 0.0
+
+        /**
+         * Adapts the limit to the result of an upload.
+         *
+         * @param epoch The [epoch] in which the upload started.
+         * @param startMillis The time the upload started.
+         * @param endMillis The time the upload ended.
+         * @param upload The result of the upload.
+         */
+        fun onUpload(epoch: Int, startMillis: Long, endMillis: Long, upload: Upload) {
+            if (epoch != this.epoch) return
+            if (upload.outcome == Outcome.OVERLOADED) {
+                decrease()
+                return
+            }
+
+            if (roundStartMillis < 0) roundStartMillis = startMillis
+            roundUploads++
+            if (upload.outcome == Outcome.FAILED) roundFailures++ else roundBytes += upload.bytes
+            if (roundUploads < limit) return
+
+            if (roundFailures * 2 >= roundUploads) {
+                decrease()
+                return
+            }
+            val throughput = roundBytes.toDouble() / (endMillis - roundStartMillis).coerceAtLeast(1L)
+            if (roundFailures == 0 && throughput > previousThroughput * (1 + MIN_GAIN)) {
+                limit = (limit + 1).coerceAtMost(MAX_PARALLELISM)
+            }
+            previousThroughput = throughput
+            startRound(endMillis)
+        }
+
+        private fun decrease() {
+            limit = (limit / 2).coerceAtLeast(MIN_PARALLELISM)
+            epoch++
+            previousThroughput = 0.0
+            startRound(-1L)
+        }
+
+        private fun startRound(startMillis: Long) {
+            roundStartMillis = startMillis
+            roundUploads = 0
+            roundFailures = 0
+            roundBytes = 0L
+        }
+    }
+
+    companion object {
+        /**
+         * The name of the [SharedPreferences] file which contains the limits.
+         */
+        private const val PREFERENCES_NAME = "de.cyface.synchronization.upload_concurrency"
+
+        /**
+         * The limit used until a limit was stored for a Collector.
+         *
+         * Image-heavy measurements (Digural) have thousands of attachments; running them sequentially made each file
+         * pay a full HTTP round-trip in the upload path.
+         */
+        internal const val DEFAULT_PARALLELISM = 4
+
+        internal const val MIN_PARALLELISM = 1
+
+        /**
+         * The limit is not increased further, so a single device does not overwhelm the server.
+         */
+        internal const val MAX_PARALLELISM = 16
+
+        /**
+         * The relative throughput gain of a round which increases the limit. Below this the limit is kept, as more
+         * parallel uploads only share the same bandwidth.
+         */
+        internal const val MIN_GAIN = 0.1
+
+        /**
+         * Returns the Collector an endpoint belongs to, i.e. its protocol, host and port.
+         *
+         * @param endpoint An endpoint of the Collector.
+         * @return The Collector, e.g. `https://example.com`.
+         */
+        fun collector(endpoint: URL): String = "${endpoint.protocol}://${endpoint.authority}"
+
+        /**
+         * Returns how an upload ended.
+         *
+         * @param successful `true` if the upload was accepted or skipped by the server.
+         * @param cause The exception which caused the upload to fail, if known.
+         * @return The outcome of the upload.
+         */
+        fun outcome(successful: Boolean, cause: Throwable?): Outcome {
+            if (successful) return Outcome.SUCCEEDED
+            val overloaded = generateSequence(cause) { it.cause }.take(MAX_CAUSES).any {
+                it is TooManyRequestsException || it is ServerUnavailableException || it is SocketTimeoutException
+            }
+            return if (overloaded) Outcome.OVERLOADED else Outcome.FAILED
+        }
+
+        /**
+         * The number of nested causes which are checked, in case an exception is its own cause.
+         */
+        private const val MAX_CAUSES = 10
+    }
+}
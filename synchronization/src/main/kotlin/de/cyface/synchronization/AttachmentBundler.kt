@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import de.cyface.persistence.model.Attachment
+import de.cyface.persistence.serialization.AttachmentSerializer
+
+/**
+ * Groups the attachments of a measurement into uploads, so small log files are uploaded together in one ZIP instead
+ * of paying the request overhead for each file, see [AttachmentSerializer.isLog].
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+internal object AttachmentBundler {
+    /**
+     * Groups the attachments into uploads.
+     *
+     * Log attachments are added to a bundle in their order until the next one would exceed [maxBundleBytes]. Then the
+     * next bundle is started. All other attachments, and log attachments larger than [maxBundleBytes], are uploaded
+     * on their own.
+     *
+     * @param attachments The attachments to upload.
+     * @param maxBundleBytes The maximal size of the bundled attachments in bytes, or `0` to upload each attachment on
+     * its own.
+     * @return The uploads, each containing one attachment which is uploaded as it is, or multiple attachments which
+     * are uploaded as one bundle.
+     */
+    fun plan(attachments: List<Attachment>, maxBundleBytes: Long): List<List<Attachment>> {
+        if (maxBundleBytes <= 0L) {
+            return attachments.map { listOf(it) }
+        }
+
+        val uploads = mutableListOf<List<Attachment>>()
+        var bundle = mutableListOf<Attachment>()
+        var bundleBytes = 0L
+        attachments.forEach {
+            if (!AttachmentSerializer.isLog(it) || it.size > maxBundleBytes) {
+                uploads.add(listOf(it))
+                return@forEach
+            }
+            if (bundleBytes + it.size > maxBundleBytes) {
+                uploads.add(bundle)
+                bundle = mutableListOf()
+                bundleBytes = 0L
+            }
+            bundle.add(it)
+            bundleBytes += it.size
+        }
+        if (bundle.isNotEmpty()) {
+            uploads.add(bundle)
+        }
+        return uploads
+    }
+}
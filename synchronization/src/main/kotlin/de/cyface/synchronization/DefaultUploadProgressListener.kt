@@ -26,8 +26,12 @@ import de.cyface.uploader.UploadProgressListener
  * Upload progress listener which receives the upload progress from an upload (either measurement
  * or attachment file) and calculates the total progress.
  *
+ * An upload can contain multiple files, e.g. a ZIP which bundles multiple log attachments, see
+ * [de.cyface.persistence.serialization.MeasurementSerializer.writeAttachmentBundle]. Its progress then covers the
+ * progress of all contained files.
+ *
  * @author Armin Schnabel
- * @version 1.0.0
+ * @version 1.1.1
  * @since 7.10.0
  */
 class DefaultUploadProgressListener(
@@ -36,7 +40,8 @@ class DefaultUploadProgressListener(
     private val measurementId: Long,
     private val fileCount: Int,
     private val fileIndex: Int,
-    private val progressListener: MutableCollection<ConnectionStatusListener>
+    private val progressListener: MutableCollection<ConnectionStatusListener>,
+    private val filesInUpload: Int = 1
 ) : UploadProgressListener {
 
     override fun updatedProgress(percent: Float) {
@@ -45,7 +50,7 @@ class DefaultUploadProgressListener(
 
         val progressPerMeasurement = 1.0 / measurementCount.toDouble()
 
-        val totalProgressForCurrentFile = percent * progressPerAttachment * progressPerMeasurement
+        val totalProgressForCurrentFile = percent * filesInUpload * progressPerAttachment * progressPerMeasurement
 
         val progressBeforeThisMeasurement = measurementIndex.toDouble() * progressPerMeasurement
         val progressWithinCurrentMeasurement =
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import de.cyface.persistence.serialization.MeasurementPart
+import de.cyface.uploader.Result
+import de.cyface.uploader.UploadProgressListener
+import de.cyface.uploader.exception.UploadFailed
+import de.cyface.uploader.model.Measurement
+import java.io.File
+
+/**
+ * Uploads measurements which are too large to be uploaded in one transfer file in multiple parts, see
+ * [MeasurementPart].
+ *
+ * Implement this interface in addition to [de.cyface.uploader.Uploader] when the collector accepts measurement parts.
+ * Otherwise, measurements larger than the maximal measurement size are skipped by the [SyncAdapter]. The
+ * `DefaultUploader` does not implement it, as the collector has no route for measurement parts yet.
+ *
+ * The parts of a measurement are uploaded in the order of their index, each after the previous one was accepted. The
+ * collector identifies the parts of a measurement by its identifier and the part index and can assemble the
+ * measurement when the last part, i.e. with index `count - 1`, was received. When the synchronization is interrupted,
+ * the upload continues with the part after the last accepted part, see
+ * [de.cyface.persistence.serialization.MeasurementPartCheckpoint]. When the measurement is cut differently in the
+ * meantime, the parts are uploaded again starting with the first part, so the collector must accept parts which it
+ * already received.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.1
+ * @since 7.14.0
+ */
+interface MeasurementPartUploader {
+    /**
+     * Uploads one part of a measurement.
+     *
+     * @param jwtToken A valid JWT auth token to authenticate the transmission.
+     * @param uploadable The meta data of the whole measurement.
+     * @param part The part to upload, containing the part index and the number of parts.
+     * @param file The compressed transfer file of the part.
+     * @param progressListener The [UploadProgressListener] to be informed about the upload progress of the part.
+     * @return The result of the upload.
+     * @throws UploadFailed when the upload failed.
+     */
+    @Throws(UploadFailed::class)
+    fun uploadMeasurementPart(
+        jwtToken: String,
+        uploadable: Measurement,
+        part: MeasurementPart,
+        file: File,
+        progressListener: UploadProgressListener
+    ): Result
+}
@@ -37,8 +37,13 @@ import de.cyface.persistence.exception.NoSuchMeasurementException
 import de.cyface.persistence.model.AttachmentStatus
 import de.cyface.persistence.model.Measurement
 import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.serialization.AdaptiveCompressionPolicy
+import de.cyface.persistence.serialization.CompressionPolicy
+import de.cyface.persistence.serialization.MeasurementPart
+import de.cyface.persistence.serialization.MeasurementPartCheckpoint
+import de.cyface.persistence.serialization.MeasurementParts
 import de.cyface.persistence.serialization.MeasurementSerializer
-import de.cyface.persistence.serialization.Point3DFile
+import de.cyface.persistence.serialization.TransferFile
 import de.cyface.protos.model.File.FileType
 import de.cyface.synchronization.ErrorHandler.ErrorCode
 import de.cyface.uploader.Result
@@ -61,10 +66,9 @@ import kotlinx.coroutines.async
 import kotlinx.coroutines.awaitAll
 import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.runBlocking
-import kotlinx.coroutines.sync.Semaphore
-import kotlinx.coroutines.sync.withPermit
 import java.io.File
 import java.nio.file.Path
+import java.nio.file.Paths
 import java.util.Locale
 import java.util.UUID
 import java.util.concurrent.atomic.AtomicBoolean
@@ -77,7 +81,7 @@ import java.util.concurrent.atomic.AtomicBoolean
  *
  * @author Armin Schnabel
  * @author Klemens Muthmann
- * @version 4.2.1
+ * @version 4.15.1
  * @since 2.0.0
  * @property authenticator The authenticator to use for synchronization.
  * @property uploader The uploader to use for synchronization.
@@ -88,7 +92,8 @@ class SyncAdapter private constructor(
     allowParallelSyncs: Boolean,
     private val authenticator: Auth,
     private val uploader: Uploader,
-    private val maxMeasurementBytes: Long
+    private val maxMeasurementBytes: Long,
+    private val maxAttachmentBundleBytes: Long
 ) : AbstractThreadedSyncAdapter(context, autoInitialize, allowParallelSyncs) {
 
     private val progressListeners: MutableCollection<ConnectionStatusListener> = HashSet()
@@ -104,9 +109,17 @@ class SyncAdapter private constructor(
      * @param authenticator The authenticator to use for synchronization.
      * @param uploader The uploader to use for synchronization.
      * @param maxMeasurementBytes Maximum estimated measurement size (bytes) to attempt uploading.
-     *   Measurements exceeding this are skipped before serialization to avoid blocking the sync
-     *   queue (Android's SyncManager kills operations after ~2 min without network progress).
+     *   Measurements exceeding this are split by time into parts of at most this size if the [uploader]
+     *   implements [MeasurementPartUploader], see [MeasurementParts]. Otherwise, they are skipped before
+     *   serialization, e.g. when the server rejects larger uploads. This is no longer required to avoid
+     *   blocking the sync queue, as interrupted serializations are continued by the next sync, see
+     *   [MeasurementSerializer.precompute].
      *   Use [Long.MAX_VALUE] (default) to let the server decide (e.g. data-collector/gridfs).
+     * @param maxAttachmentBundleBytes Maximum size (bytes) of the log attachments (CSV, JSON, JSONL) of a
+     *   measurement which are bundled into one ZIP attachment, so they are uploaded in one request instead of one
+     *   request per file, see [MeasurementSerializer.writeAttachmentBundle]. A bundle is uploaded as a ZIP
+     *   attachment with the meta data of its first attachment, so only use this when the server accepts ZIP
+     *   attachments. Use `0` (default) to upload each attachment on its own.
      */
     constructor(
         context: Context,
@@ -114,13 +127,15 @@ class SyncAdapter private constructor(
         authenticator: Auth,
         uploader: Uploader,
         maxMeasurementBytes: Long = Long.MAX_VALUE,
+        maxAttachmentBundleBytes: Long = 0L,
     ) : this(
         context,
         autoInitialize,
         false,
         authenticator,
         uploader,
-        maxMeasurementBytes
+        maxMeasurementBytes,
+        maxAttachmentBundleBytes
     )
 
     init {
@@ -146,6 +161,7 @@ class SyncAdapter private constructor(
         authenticator.performActionWithFreshTokens { _, _, ex ->
             if (ex != null) {
                 handleAuthenticationError(ex, syncResult, fromBackground)
+                persistence.shutdown()
                 return@performActionWithFreshTokens
             }
 
@@ -172,6 +188,8 @@ class SyncAdapter private constructor(
             } catch (e: Exception) {
                 handleSyncExceptions(e, syncResult, fromBackground)
             } finally {
+                // Releases the observers registered by the persistence layer of this sync
+                persistence.shutdown()
                 finalizeSync(syncResult, provider)
             }
         }
@@ -251,232 +269,382 @@ class SyncAdapter private constructor(
         authority: String
     ) {
         val measurementCount = measurements.size
-
-        for (index in 0 until measurementCount) {
-            val measurement = measurements[index]
-
-            validateMeasurementFormat(measurement)
-            val measurementMeta = loadMeasurementMeta(measurement, persistence, deviceId, context)
-            // Attention: the attachmentCount might be too little, if images are still being saved
-            // just after the measurement stopped, if the upload is instantly triggered. Thus,
-            // the imageCount in the metadata might be smaller than the number of images uploaded.
-            val attachmentCount = measurementMeta.attachmentMetaData.logCount +
-                    measurementMeta.attachmentMetaData.imageCount +
-                    measurementMeta.attachmentMetaData.videoCount
-
-            Log.d(TAG, "Preparing to upload Measurement (id ${measurement.id}) with $attachmentCount attachments: ${measurementMeta.attachmentMetaData}")
-
-            // Upload measurement binary first
-            if (measurement.status === MeasurementStatus.FINISHED) {
-                // Skip measurements that would exceed the upload size limit before serializing.
-                // Serialization of very large measurements (e.g. 25+ hours, forgotten-to-stop)
-                // takes longer than Android's SyncManager timeout, blocking the sync queue.
-                // This only applies to WebDAV uploads; gridfs (data-collector) has no client-side
-                // limit -- the server decides on max size.
-                val estimatedBytes = estimateMeasurementSize(measurement.id, persistence)
-                if (estimatedBytes > maxMeasurementBytes) {
-                    Log.w(TAG, "Measurement ${measurement.id} too large for upload " +
-                        "(~${estimatedBytes / (1024 * 1024)} MB), marking as skipped")
-                    persistence.markFinishedAs(MeasurementStatus.SKIPPED, measurement.id)
-                    syncResult.stats.numSkippedEntries++
-                    continue
+        val compressionPolicy = AdaptiveCompressionPolicy(context)
+        // Kept for the whole sync, so the parallelism learned from the previous measurements is used
+        val uploadConcurrencies = mutableMapOf<String, AdaptiveUploadConcurrency>()
+        // The sizes are read from the ledgers with one query, the files are only accessed for measurements
+        // captured before the ledger was added, whose ledger contains no sensor data bytes
+        val ledgers = persistence.loadLedgers(MeasurementStatus.FINISHED)
+            .filter { it.sensorBytes > 0 }
+            .associateBy { it.measurementId }
+        suspend fun estimateSize(measurement: Measurement): Long {
+            return ledgers[measurement.id]?.let { MeasurementSerializer.estimateSize(it) }
+                ?: MeasurementSerializer.estimateSize(measurement.id, persistence)
+        }
+        val estimates = measurements
+            .filter { it.status === MeasurementStatus.FINISHED }
+            .associate { it.id to estimateSize(it) }
+        // The measurements which were not serialized yet. A measurement is removed when it was serialized, also when
+        // this failed or it was skipped, so the backlog does not stay too large for the rest of the sync.
+        val backlog = estimates.toMutableMap()
+        compressionPolicy.backlogBytes = estimates.values.sum()
+        fun removeFromBacklog(measurement: Measurement) {
+            // Called by the prefetcher and the sync thread
+            synchronized(backlog) {
+                if (backlog.remove(measurement.id) != null) {
+                    compressionPolicy.backlogBytes = backlog.values.sum()
                 }
+            }
+        }
 
-                var compressedTransferTempFile: File? = null
+        // The next measurements are serialized while the current one is uploaded
+        val prefetcher = TransferFilePrefetcher(PREFETCH_FILES, PREFETCH_BYTES) { measurement ->
+            // Measurements above the size limit are uploaded in parts or skipped, see below
+            if (estimates.getValue(measurement.id) > maxMeasurementBytes) {
+                null
+            } else {
                 try {
-                    compressedTransferTempFile = serializeMeasurement(measurement, persistence, syncResult)
-
-                    if (isSyncRequestAborted(account, authority)) return
-
-                    val indexWithinMeasurement = 0 // the core file is index 0
-                    val progressListener = DefaultUploadProgressListener(
-                        measurementCount,
-                        index,
-                        measurement.id,
-                        attachmentCount,
-                        indexWithinMeasurement,
-                        progressListeners
-                    )
-                    val success = syncMeasurement(
-                        measurement,
-                        measurementMeta,
-                        compressedTransferTempFile,
-                        syncPerformer,
-                        syncResult,
-                        fromBackground,
-                        persistence,
-                        progressListener
-                    )
-                    if (!success) {
-                        Log.w(TAG, "Measurement ${measurement.id} upload failed, skipping to next")
+                    // Owned by the cache, which deletes it when the measurement is synced. An interrupted
+                    // serialization is continued, so large measurements are serialized across multiple syncs.
+                    // Not prefetched while the `TransferFileJobService` serializes the measurement, the sync thread
+                    // then waits for it. The batches are counted by the sync thread, as `syncResult` is not shared.
+                    var serializedBatches = 0
+                    MeasurementSerializer(compressionPolicy).tryPrecompute(measurement.id, persistence) {
+                        serializedBatches++
+                    }?.let { TransferFilePrefetcher.Prepared(it.file, serializedBatches) }
+                } finally {
+                    removeFromBacklog(measurement)
+                }
+            }
+        }
+        prefetcher.start(measurements.filter { it.status === MeasurementStatus.FINISHED })
+
+        try {
+            for (index in 0 until measurementCount) {
+                val measurement = measurements[index]
+
+                validateMeasurementFormat(measurement)
+                val measurementMeta = loadMeasurementMeta(measurement, persistence, deviceId, context)
+                // Attention: the attachmentCount might be too little, if images are still being saved
+                // just after the measurement stopped, if the upload is instantly triggered. Thus,
+                // the imageCount in the metadata might be smaller than the number of images uploaded.
+                val attachmentCount = measurementMeta.attachmentMetaData.logCount +
+                        measurementMeta.attachmentMetaData.imageCount +
+                        measurementMeta.attachmentMetaData.videoCount
+
+                Log.d(TAG, "Preparing to upload Measurement (id ${measurement.id}) with $attachmentCount attachments: ${measurementMeta.attachmentMetaData}")
+
+                // Upload measurement binary first
+                if (measurement.status === MeasurementStatus.FINISHED) {
+                    // Skip measurements that would exceed the upload size limit before serializing.
+                    // Very large measurements (e.g. 25+ hours, forgotten-to-stop) don't need to be skipped
+                    // for the SyncManager timeout anymore, as their serialization continues in the next sync.
+                    // This only applies to WebDAV uploads; gridfs (data-collector) has no client-side
+                    // limit -- the server decides on max size.
+                    val estimatedBytes = estimates.getValue(measurement.id)
+                    val uploadInParts = estimatedBytes > maxMeasurementBytes
+                    if (uploadInParts && uploader !is MeasurementPartUploader) {
+                        Log.w(TAG, "Measurement ${measurement.id} too large for upload " +
+                            "(~${estimatedBytes / (1024 * 1024)} MB), marking as skipped")
+                        persistence.markFinishedAs(MeasurementStatus.SKIPPED, measurement.id)
+                        syncResult.stats.numSkippedEntries++
+                        removeFromBacklog(measurement)
+                        prefetcher.release(measurement)
+                        continue
+                    }
+
+                    try {
+                        val success = if (uploadInParts) {
+                            syncMeasurementParts(
+                                measurement,
+                                measurementMeta,
+                                measurementCount,
+                                index,
+                                attachmentCount,
+                                syncPerformer,
+                                syncResult,
+                                fromBackground,
+                                persistence,
+                                compressionPolicy,
+                                account,
+                                authority
+                            ) ?: return
+                        } else {
+                            // Usually serialized by the prefetcher while the previous measurement was uploaded
+                            val prepared = prefetcher.await(measurement)
+                            syncResult.stats.numInserts += prepared?.serializedBatches ?: 0
+                            val transferFile = prepared?.file
+                                ?: serializeMeasurement(measurement, persistence, syncResult, compressionPolicy)
+
+                            if (isSyncRequestAborted(account, authority)) return
+
+                            val indexWithinMeasurement = 0 // the core file is index 0
+                            val progressListener = DefaultUploadProgressListener(
+                                measurementCount,
+                                index,
+                                measurement.id,
+                                attachmentCount,
+                                indexWithinMeasurement,
+                                progressListeners
+                            )
+                            syncMeasurement(
+                                measurement,
+                                measurementMeta,
+                                transferFile,
+                                syncPerformer,
+                                syncResult,
+                                fromBackground,
+                                persistence,
+                                progressListener
+                            )
+                        }
+                        if (!success) {
+                            Log.w(TAG, "Measurement ${measurement.id} upload failed, skipping to next")
+                            syncResult.stats.numIoExceptions++
+                            continue
+                        }
+                    } catch (e: kotlin.coroutines.cancellation.CancellationException) {
+                        throw e
+                    } catch (@Suppress("TooGenericExceptionCaught") e: Exception) {
+                        Log.w(TAG, "Measurement ${measurement.id} serialization failed, skipping to next", e)
                         syncResult.stats.numIoExceptions++
                         continue
+                    } finally {
+                        // Also when the upload failed, so the next measurement can be prepared
+                        removeFromBacklog(measurement)
+                        prefetcher.release(measurement)
                     }
-                } catch (e: kotlin.coroutines.cancellation.CancellationException) {
-                    throw e
-                } catch (@Suppress("TooGenericExceptionCaught") e: Exception) {
-                    Log.w(TAG, "Measurement ${measurement.id} serialization failed, skipping to next", e)
-                    syncResult.stats.numIoExceptions++
-                    continue
-                } finally {
-                    delete(compressedTransferTempFile)
                 }
-            }
 
-            // Upload attachments of measurement
-            // The status in the database could have changed due to upload, reload it
-            val currentStatus = persistence.measurementRepository!!.loadById(measurement.id)!!.status
-            if (currentStatus === MeasurementStatus.SYNCABLE_ATTACHMENTS) {
-                val syncableAttachments =
-                    persistence.attachmentDao!!.loadAllByMeasurementIdAndStatus(
-                        measurement.id,
-                        AttachmentStatus.SAVED
-                    )
-                val totalAttachments = persistence.attachmentDao!!.countByMeasurementId(measurement.id)
-                val syncedAttachments = totalAttachments - syncableAttachments.size
-
-                // Upload attachments in parallel (bounded concurrency) to avoid a per-file
-                // round-trip serialization bottleneck for image-heavy measurements
-                // (e.g. Digural: thousands of JPGs per measurement). Per-attachment progress
-                // is tracked by AttachmentDao (SAVED -> SYNCED) so interrupted runs resume
-                // where they left off.
-                //
-                // A single attachment failure does *not* abort the batch: each attachment's
-                // status transitions independently, so letting every parallel worker run to
-                // completion gives the sync as much progress as possible per cycle. Failed
-                // attachments stay SAVED and are retried on the next sync. This matters for
-                // WebDAV on Nextcloud: an interrupted PUT leaves the target filename locked
-                // server-side for minutes to an hour; retrying it repeatedly returns 423
-                // Locked / 403 Forbidden until the lock expires, and we don't want those
-                // stragglers to prevent *other* attachments in the same measurement from
-                // making progress.
-                //
-                // Only an explicit sync cancel (aborted) short-circuits remaining work.
-                val aborted = AtomicBoolean(false)
-                val semaphore = Semaphore(ATTACHMENT_UPLOAD_PARALLELISM)
-
-                coroutineScope {
-                    syncableAttachments.mapIndexed { attachmentIndex, attachment ->
-                        async(Dispatchers.IO) {
-                            semaphore.withPermit {
-                                if (aborted.get()) return@withPermit
-
-                                val localFileName = attachment.path.fileName
-                                Log.d(TAG, "Preparing to upload attachment (id ${attachment.id}: ${localFileName}).")
-                                validateFileFormat(attachment)
-
-                                var transferTempFile: File? = null
-                                try {
-                                    transferTempFile = serializeAttachment(attachment, persistence)
-
-                                    if (isSyncRequestAborted(account, authority)) {
-                                        aborted.set(true)
-                                        return@withPermit
-                                    }
+                // Upload attachments of measurement
+                // The status in the database could have changed due to upload, reload it
+                val currentStatus = persistence.measurementRepository!!.loadById(measurement.id)!!.status
+                if (currentStatus === MeasurementStatus.SYNCABLE_ATTACHMENTS) {
+                    val syncableAttachments =
+                        persistence.attachmentDao!!.loadAllByMeasurementIdAndStatus(
+                            measurement.id,
+                            AttachmentStatus.SAVED
+                        )
+                    val totalAttachments = persistence.attachmentDao!!.countByMeasurementId(measurement.id)
+                    val syncedAttachments = totalAttachments - syncableAttachments.size
+
+                    // Upload attachments in parallel (bounded concurrency) to avoid a per-file
+                    // round-trip serialization bottleneck for image-heavy measurements
+                    // (e.g. Digural: thousands of JPGs per measurement). The parallelism adapts to
+                    // the connection and is stored per Collector, see `AdaptiveUploadConcurrency`.
+                    // Per-attachment progress
+                    // is tracked by AttachmentDao (SAVED -> SYNCED) so interrupted runs resume
+                    // where they left off.
+                    //
+                    // A single attachment failure does *not* abort the batch: each attachment's
+                    // status transitions independently, so letting every parallel worker run to
+                    // completion gives the sync as much progress as possible per cycle. Failed
+                    // attachments stay SAVED and are retried on the next sync. This matters for
+                    // WebDAV on Nextcloud: an interrupted PUT leaves the target filename locked
+                    // server-side for minutes to an hour; retrying it repeatedly returns 423
+                    // Locked / 403 Forbidden until the lock expires, and we don't want those
+                    // stragglers to prevent *other* attachments in the same measurement from
+                    // making progress.
+                    //
+                    // Only an explicit sync cancel (aborted) short-circuits remaining work.
+                    val aborted = AtomicBoolean(false)
+                    val collector = AdaptiveUploadConcurrency.collector(uploader.measurementsEndpoint(measurementMeta))
+                    val concurrency = uploadConcurrencies.getOrPut(collector) {
+                        AdaptiveUploadConcurrency(context, collector)
+                    }
 
-                                    val indexWithinMeasurement = 1 + syncedAttachments + attachmentIndex // ccyf is index 0
-                                    val progressListener = DefaultUploadProgressListener(
-                                        measurementCount,
-                                        index,
-                                        measurement.id,
-                                        attachmentCount,
-                                        indexWithinMeasurement,
-                                        progressListeners
-                                    )
-                                    val attachmentMeta = attachmentMeta(measurementMeta, attachment.id)
-                                    // syncAttachment already marks SYNCED on success and
-                                    // increments syncResult.stats on failure; the attachment
-                                    // stays SAVED on failure and will be retried next cycle.
-                                    // We deliberately ignore the return value.
-                                    syncAttachment(
-                                        attachmentMeta,
-                                        localFileName,
-                                        syncPerformer,
-                                        transferTempFile,
-                                        syncResult,
-                                        fromBackground,
-                                        persistence,
-                                        progressListener
+                    // Small log files are bundled into ZIPs if enabled, see `maxAttachmentBundleBytes`
+                    val uploads = AttachmentBundler.plan(syncableAttachments, maxAttachmentBundleBytes)
+                    // The number of attachments uploaded before each upload, as a bundle contains multiple
+                    val uploadOffsets = uploads.runningFold(0) { offset, upload -> offset + upload.size }
+
+                    coroutineScope {
+                        uploads.mapIndexed { uploadIndex, upload ->
+                            async(Dispatchers.IO) {
+                                concurrency.withPermit {
+                                    if (aborted.get()) return@withPermit null
+
+                                    val attachment = upload.first()
+                                    val bundled = upload.size > 1
+                                    val localFileName =
+                                        if (bundled) Paths.get(bundleFileName(upload)) else attachment.path.fileName
+                                    Log.d(
+                                        TAG,
+                                        "Preparing to upload attachment (id ${attachment.id}: ${localFileName})."
                                     )
-                                } finally {
-                                    delete(transferTempFile)
+                                    upload.forEach { validateFileFormat(it) }
+
+                                    var bundleFile: File? = null
+                                    try {
+                                        // Uploaded from where it's stored, without copying it into memory or a
+                                        // temp file
+                                        val transferFile = if (bundled) {
+                                            MeasurementSerializer().writeAttachmentBundle(upload, persistence)
+                                                .also { bundleFile = it }
+                                        } else {
+                                            MeasurementSerializer.attachmentFile(attachment)
+                                        }
+
+                                        if (isSyncRequestAborted(account, authority)) {
+                                            aborted.set(true)
+                                            return@withPermit null
+                                        }
+
+                                        // ccyf is index 0, a bundle counts as the number of attachments it contains
+                                        val indexWithinMeasurement = 1 + syncedAttachments + uploadOffsets[uploadIndex]
+                                        val progressListener = DefaultUploadProgressListener(
+                                            measurementCount,
+                                            index,
+                                            measurement.id,
+                                            attachmentCount,
+                                            indexWithinMeasurement,
+                                            progressListeners,
+                                            upload.size
+                                        )
+                                        // A bundle is uploaded with the meta data of the attachment it starts with
+                                        val attachmentMeta = attachmentMeta(measurementMeta, attachment.id)
+                                        // syncAttachment already marks SYNCED on success and
+                                        // increments syncResult.stats on failure; the attachments
+                                        // stay SAVED on failure and will be retried next cycle.
+                                        // The return value only adapts the parallelism.
+                                        var cause: Throwable? = null
+                                        val successful = syncAttachment(
+                                            attachmentMeta,
+                                            upload.map { it.id },
+                                            localFileName,
+                                            syncPerformer,
+                                            transferFile,
+                                            syncResult,
+                                            fromBackground,
+                                            persistence,
+                                            progressListener
+                                        ) { cause = it }
+                                        AdaptiveUploadConcurrency.Upload(
+                                            transferFile.length(),
+                                            AdaptiveUploadConcurrency.outcome(successful, cause)
+                                        )
+                                    } finally {
+                                        bundleFile?.delete()
+                                    }
                                 }
                             }
-                        }
-                    }.awaitAll()
-                }
+                        }.awaitAll()
+                    }
 
-                if (aborted.get()) return
-
-                // Only advance the measurement's status once every attachment is either
-                // SYNCED or SKIPPED (i.e. no SAVED stragglers remain). Re-query the DAO so
-                // transient failures keep the measurement in SYNCABLE_ATTACHMENTS and the
-                // next sync cycle can retry just the remaining work.
-                val remainingSaved = persistence.attachmentDao!!
-                    .loadAllByMeasurementIdAndStatus(measurement.id, AttachmentStatus.SAVED)
-                    .size
-                if (remainingSaved == 0) {
-                    persistence.markSyncableAttachmentsAs(MeasurementStatus.SYNCED, measurement.id)
-                    uploader.onUploadFinished(measurementMeta) // required for WebdavUploader
-                    Log.d(TAG, "Measurement marked as ${MeasurementStatus.SYNCED.name.lowercase()}")
-                } else {
-                    Log.i(
-                        TAG,
-                        "Measurement ${measurement.id}: $remainingSaved attachments still pending; " +
-                                "will retry on the next sync cycle"
-                    )
+                    if (aborted.get()) return
+
+                    // Only advance the measurement's status once every attachment is either
+                    // SYNCED or SKIPPED (i.e. no SAVED stragglers remain). Re-query the DAO so
+                    // transient failures keep the measurement in SYNCABLE_ATTACHMENTS and the
+                    // next sync cycle can retry just the remaining work.
+                    val remainingSaved = persistence.attachmentDao!!
+                        .loadAllByMeasurementIdAndStatus(measurement.id, AttachmentStatus.SAVED)
+                        .size
+                    if (remainingSaved == 0) {
+                        persistence.markSyncableAttachmentsAs(MeasurementStatus.SYNCED, measurement.id)
+                        uploader.onUploadFinished(measurementMeta) // required for WebdavUploader
+                        Log.d(TAG, "Measurement marked as ${MeasurementStatus.SYNCED.name.lowercase()}")
+                    } else {
+                        Log.i(
+                            TAG,
+                            "Measurement ${measurement.id}: $remainingSaved attachments still pending; " +
+                                    "will retry on the next sync cycle"
+                        )
+                    }
                 }
             }
-        }
-    }
-
-    private fun delete(file: File?) {
-        if (file != null && file.exists()) {
-            require(file.delete())
+        } finally {
+            prefetcher.close()
         }
     }
 
     private suspend fun serializeMeasurement(
         measurement: Measurement,
         persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour?>,
-        syncResult: SyncResult
-    ): File? {
-        // Signal progress to SyncManager after each batch so it doesn't kill the sync
+        syncResult: SyncResult,
+        compressionPolicy: CompressionPolicy
+    ): File {
+        // Signal progress to SyncManager after each batch and checkpoint so it doesn't kill the sync
         // for "making no progress" during long serializations (large measurements).
-        return MeasurementSerializer().writeSerializedCompressed(measurement.id, persistence) {
+        return MeasurementSerializer(compressionPolicy).precompute(measurement.id, persistence) {
             syncResult.stats.numInserts++
-        }
+        }.file
     }
 
-    private suspend fun estimateMeasurementSize(
-        measurementId: Long,
-        persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour?>
-    ): Long {
-        val accelFile = persistence.fileIOHandler.getFilePath(
-            context, measurementId,
-            Point3DFile.ACCELERATIONS_FOLDER_NAME, Point3DFile.ACCELERATIONS_FILE_EXTENSION
-        )
-        val rotFile = persistence.fileIOHandler.getFilePath(
-            context, measurementId,
-            Point3DFile.ROTATIONS_FOLDER_NAME, Point3DFile.ROTATION_FILE_EXTENSION
-        )
-        val dirFile = persistence.fileIOHandler.getFilePath(
-            context, measurementId,
-            Point3DFile.DIRECTIONS_FOLDER_NAME, Point3DFile.DIRECTION_FILE_EXTENSION
-        )
-        val sensorBytes = (if (accelFile.exists()) accelFile.length() else 0L) +
-            (if (rotFile.exists()) rotFile.length() else 0L) +
-            (if (dirFile.exists()) dirFile.length() else 0L)
-        // ~40 bytes per location in protobuf (timestamp, lat, lon, speed, accuracy + varint overhead)
-        val locationCount = persistence.locationDao!!.countByMeasurementId(measurementId)
-        return sensorBytes + locationCount * 40L
-    }
+    /**
+     * Uploads a measurement which is larger than [maxMeasurementBytes] in parts of about that size, see
+     * [MeasurementPartUploader].
+     *
+     * The parts are serialized, uploaded and deleted one after another, so only one part is stored at a time. The
+     * measurement is only marked as [MeasurementStatus.SYNCABLE_ATTACHMENTS] after the last part was uploaded. The
+     * last part accepted by the collector is stored in a [MeasurementPartCheckpoint], so when the sync is
+     * interrupted, the next sync continues with the following part.
+     *
+     * @return `true` if all parts were uploaded or the measurement was skipped by the server, `false` if the upload
+     * of a part failed or `null` if the sync request was aborted.
+     */
+    private suspend fun syncMeasurementParts(
+        measurement: Measurement,
+        uploadable: de.cyface.uploader.model.Measurement,
+        measurementCount: Int,
+        index: Int,
+        attachmentCount: Int,
+        syncPerformer: SyncPerformer,
+        syncResult: SyncResult,
+        fromBackground: Boolean,
+        persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour?>,
+        compressionPolicy: CompressionPolicy,
+        account: Account,
+        authority: String
+    ): Boolean? {
+        val parts = MeasurementParts.load(measurement.id, persistence, maxMeasurementBytes)
+        val fingerprint = TransferFile.fingerprint(measurement.id, persistence)
+        val first = MeasurementPartCheckpoint.load(context, persistence.fileIOHandler, measurement.id)
+            ?.next(fingerprint, parts.parts) ?: 0
+        Log.i(TAG, "Measurement ${measurement.id} too large for one upload, uploading parts ${first + 1} to " +
+                "${parts.parts.size}")
+        for (part in parts.parts.drop(first)) {
+            if (isSyncRequestAborted(account, authority)) return null
+
+            val partFile = MeasurementSerializer(compressionPolicy).writeSerializedPart(parts, part, persistence)
+            try {
+                // Signal progress to SyncManager so it doesn't kill the sync for "making no progress"
+                syncResult.stats.numInserts++
+                val indexWithinMeasurement = 0 // the core file is index 0
+                val progressListener = DefaultUploadProgressListener(
+                    measurementCount,
+                    index,
+                    measurement.id,
+                    attachmentCount,
+                    indexWithinMeasurement,
+                    progressListeners
+                )
+                val success = syncMeasurement(
+                    measurement,
+                    uploadable,
+                    partFile,
+                    syncPerformer,
+                    syncResult,
+                    fromBackground,
+                    persistence,
+                    progressListener,
+                    part
+                )
+                if (!success) return false
+            } finally {
+                partFile.delete()
+            }
 
-    private suspend fun serializeAttachment(
-        attachment: de.cyface.persistence.model.Attachment,
-        persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour?>
-    ): File? {
-        return MeasurementSerializer().writeSerializedAttachment(attachment, persistence)
+            // The data of skipped measurements is deleted, so the remaining parts cannot be uploaded
+            val status = persistence.measurementRepository!!.loadById(measurement.id)!!.status
+            if (status === MeasurementStatus.SKIPPED) return true
+            // The checkpoint is deleted when the measurement leaves the finished status after the last part
+            if (!part.isLast) {
+                val checkpoint = MeasurementPartCheckpoint(fingerprint, part.count, part.index, part.end)
+                MeasurementPartCheckpoint.write(context, persistence.fileIOHandler, measurement.id, checkpoint)
+            }
+        }
+        return true
     }
 
     private suspend fun syncMeasurement(
@@ -487,7 +655,8 @@ class SyncAdapter private constructor(
         syncResult: SyncResult,
         fromBackground: Boolean,
         persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour?>,
-        progressListener: DefaultUploadProgressListener
+        progressListener: DefaultUploadProgressListener,
+        part: MeasurementPart? = null
     ): Boolean = coroutineScope {
         val resultDeferred = CompletableDeferred<Boolean>()
 
@@ -515,7 +684,8 @@ class SyncAdapter private constructor(
                     progressListener,
                     accessToken!!,
                     fileName,
-                    UploadType.MEASUREMENT
+                    UploadType.MEASUREMENT,
+                    part
                 )
                 if (result == Result.UPLOAD_FAILED) {
                     resultDeferred.complete(false)
@@ -535,7 +705,9 @@ class SyncAdapter private constructor(
                                     )
                                 }
 
-                                Result.UPLOAD_SUCCESSFUL -> {
+                                Result.UPLOAD_SUCCESSFUL -> if (part != null && !part.isLast) {
+                                    Log.d(TAG, "Part ${part.index + 1}/${part.count} uploaded")
+                                } else {
                                     // UPLOADING means only the attachments have to be synced
                                     persistence.markFinishedAs(
                                         MeasurementStatus.SYNCABLE_ATTACHMENTS,
@@ -571,6 +743,7 @@ class SyncAdapter private constructor(
 
     private suspend fun syncAttachment(
         attachment: Attachment,
+        attachmentIds: List<Long>,
         localFileName: Path,
         syncPerformer: SyncPerformer,
         transferFile: File?,
@@ -578,6 +751,7 @@ class SyncAdapter private constructor(
         fromBackground: Boolean,
         persistence: DefaultPersistenceLayer<DefaultPersistenceBehaviour?>,
         progressListener: DefaultUploadProgressListener,
+        failureListener: (Throwable?) -> Unit,
     ): Boolean = coroutineScope {
         val resultDeferred = CompletableDeferred<Boolean>()
 
@@ -612,7 +786,8 @@ class SyncAdapter private constructor(
                     progressListener,
                     accessToken!!,
                     fileName,
-                    UploadType.ATTACHMENT
+                    UploadType.ATTACHMENT,
+                    failureListener = failureListener
                 )
                 if (result == Result.UPLOAD_FAILED) {
                     resultDeferred.complete(false)
@@ -622,13 +797,13 @@ class SyncAdapter private constructor(
                         runBlocking {
                             when (result) {
                                 Result.UPLOAD_SKIPPED -> {
-                                    persistence.markSavedAs(AttachmentStatus.SKIPPED, attachmentId)
-                                    Log.d(TAG, "Attachment marked as ${AttachmentStatus.SKIPPED.name.lowercase()}")
+                                    persistence.markSavedAs(AttachmentStatus.SKIPPED, attachmentIds)
+                                    Log.d(TAG, "Attachments marked as ${AttachmentStatus.SKIPPED.name.lowercase()}")
                                 }
 
                                 Result.UPLOAD_SUCCESSFUL -> {
-                                    persistence.markSavedAs(AttachmentStatus.SYNCED, attachmentId)
-                                    Log.d(TAG, "Attachment marked as ${AttachmentStatus.SYNCED.name.lowercase()}")
+                                    persistence.markSavedAs(AttachmentStatus.SYNCED, attachmentIds)
+                                    Log.d(TAG, "Attachments marked as ${AttachmentStatus.SYNCED.name.lowercase()}")
                                 }
 
                                 else -> {
@@ -883,18 +1058,34 @@ class SyncAdapter private constructor(
         const val COMPRESSED_TRANSFER_FILE_EXTENSION = "ccyf"
 
         /**
-         * Number of attachment uploads executed concurrently per measurement.
-         *
-         * Image-heavy measurements (Digural) have thousands of attachments; running them
-         * sequentially made each file pay a full HTTP round-trip in the upload path. A small
-         * fixed pool avoids overwhelming the server while largely eliminating round-trip
-         * overhead. Individual upload progress is tracked in the database so interruptions
-         * do not re-upload already-SYNCED attachments.
+         * The maximal number of transfer files which are serialized ahead while a measurement is uploaded, see
+         * [TransferFilePrefetcher].
          */
-        private const val ATTACHMENT_UPLOAD_PARALLELISM = 4
+        private const val PREFETCH_FILES = 2
+
+        /**
+         * The maximal size of the transfer files which are serialized ahead, so the cache does not grow by more
+         * than this while the uploads are slower than the serialization.
+         */
+        private const val PREFETCH_BYTES = 100L * 1024 * 1024
 
         fun fileNamePrefix(deviceId: String, measurementId: Long): String {
             return "${deviceId}_" + "${measurementId}_"
         }
+
+        /**
+         * Returns the local file name of a ZIP which bundles multiple log attachments, see
+         * `maxAttachmentBundleBytes`.
+         *
+         * The name contains the ids of the first and the last attachment in the bundle, so the bundles of a
+         * measurement do not overwrite each other, e.g. on WebDAV.
+         *
+         * @param bundle The attachments in the bundle, in the order of the ZIP entries.
+         * @return The file name, e.g. `logs_12-17.zip`.
+         */
+        @JvmStatic
+        fun bundleFileName(bundle: List<de.cyface.persistence.model.Attachment>): String {
+            return "logs_${bundle.first().id}-${bundle.last().id}.zip"
+        }
     }
 }
@@ -21,6 +21,7 @@ package de.cyface.synchronization
 import android.content.Context
 import android.content.SyncResult
 import android.util.Log
+import de.cyface.persistence.serialization.MeasurementPart
 import de.cyface.serializer.DataSerializable
 import de.cyface.synchronization.ErrorHandler.ErrorCode
 import de.cyface.uploader.Result
@@ -80,6 +81,10 @@ internal class SyncPerformer(private val context: Context, private val fromBackg
      * @param jwtAuthToken A valid JWT auth token to authenticate the transmission
      * @param fileName How the transfer file should be named when uploading.
      * @param uploadType The [UploadType] of the file to upload.
+     * @param part The part of the measurement contained in the file, or `null` if it contains the whole measurement.
+     * Parts are uploaded with the [MeasurementPartUploader] which the `uploader` must implement.
+     * @param failureListener Informed about the exception which caused the upload to fail, e.g. to upload fewer
+     * files in parallel when the server answers with [TooManyRequestsException].
      * @return True of the transmission was successful.
      */
     fun sendData(
@@ -90,7 +95,9 @@ internal class SyncPerformer(private val context: Context, private val fromBackg
         progressListener: UploadProgressListener,
         jwtAuthToken: String,
         fileName: String,
-        uploadType: UploadType
+        uploadType: UploadType,
+        part: MeasurementPart? = null,
+        failureListener: ((Throwable?) -> Unit)? = null
     ): Result {
         val size = DataSerializable.humanReadableSize(file.length(), true)
         Log.d(TAG, "Transferring attachment or compressed measurement ($size})")
@@ -99,22 +106,32 @@ internal class SyncPerformer(private val context: Context, private val fromBackg
             when (uploadType) {
                 UploadType.MEASUREMENT ->  {
                     val endpoint = uploader.measurementsEndpoint(uploadable)
-                    Log.i(TAG, "Uploading $fileName to $endpoint.")
-                    uploader.uploadMeasurement(
-                        jwtAuthToken,
-                        uploadable as Measurement,
-                        file,
-                        progressListener
-                    )
+                    if (part == null) {
+                        Log.i(TAG, "Uploading $fileName to $endpoint.")
+                        uploader.uploadMeasurement(
+                            jwtAuthToken,
+                            uploadable as Measurement,
+                            file,
+                            progressListener
+                        )
+                    } else {
+                        Log.i(TAG, "Uploading part ${part.index + 1}/${part.count} of $fileName to $endpoint.")
+                        (uploader as MeasurementPartUploader).uploadMeasurementPart(
+                            jwtAuthToken,
+                            uploadable as Measurement,
+                            part,
+                            file,
+                            progressListener
+                        )
+                    }
                 }
 
                 UploadType.ATTACHMENT -> {
-                    val attachment = uploadable as Attachment
                     val endpoint = uploader.attachmentsEndpoint(uploadable)
                     Log.i(TAG, "Uploading $fileName to $endpoint.")
                     uploader.uploadAttachment(
                         jwtAuthToken,
-                        attachment,
+                        uploadable as Attachment,
                         file,
                         fileName,
                         progressListener
@@ -122,6 +139,7 @@ internal class SyncPerformer(private val context: Context, private val fromBackg
                 }
             }
         } catch (e: UploadFailed) {
+            failureListener?.invoke(e.cause)
             return handleUploadFailed(e, syncResult)
         } catch (e: MalformedURLException) {
             // Catching this temporarily to indicate a hard error to the sync adapter
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import android.util.Log
+import de.cyface.persistence.model.Measurement
+import de.cyface.synchronization.Constants.TAG
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.withContext
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Prepares the transfer files of the measurements to upload ahead of their upload, so the next measurement is
+ * serialized and compressed while the current one is uploaded.
+ *
+ * The files are prepared in the order of the measurements. At most [maxFiles] files and, unless a single file is
+ * larger, [maxBytes] bytes are prepared ahead. A file counts as prepared ahead until the uploader [release]s it.
+ *
+ * Preparing a file does not change the status of its measurement, so the statuses are only changed by the upload.
+ * When the sync ends, e.g. because it was aborted, the preparation is cancelled by [close].
+ *
+ * The files are prepared on an IO thread, so [prepare] must not change state owned by the caller's thread. Instead,
+ * it returns what the caller applies after [await], e.g. the number of serialized batches.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ * @property maxFiles The maximal number of transfer files prepared ahead.
+ * @property maxBytes The maximal size in bytes of the transfer files prepared ahead.
+ * @property prepare Prepares the transfer file of a measurement, or returns `null` if it was not prepared, e.g.
+ * because the measurement is not uploaded as one file.
+ */
+internal class TransferFilePrefetcher(
+    private val maxFiles: Int,
+    private val maxBytes: Long,
+    private val prepare: suspend (Measurement) -> Prepared?
+) {
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val files = ConcurrentHashMap<Long, CompletableDeferred<Prepared?>>()
+    private val sizes = ConcurrentHashMap<Long, Long>()
+    private val permits = Semaphore(maxFiles)
+    private val preparedBytes = AtomicLong(0L)
+
+    /**
+     * Signals the producer that prepared files were released.
+     */
+    private val released = Channel<Unit>(Channel.CONFLATED)
+
+    private var producer: Job? = null
+
+    /**
+     * Starts to prepare the transfer files.
+     *
+     * @param measurements The measurements in the order in which they are uploaded.
+     */
+    fun start(measurements: List<Measurement>) {
+        check(producer == null) { "Already started" }
+        measurements.forEach { files[it.id] = CompletableDeferred() }
+        producer = scope.launch {
+            measurements.forEach { measurement ->
+                permits.acquire()
+                while (preparedBytes.get() >= maxBytes) {
+                    released.receive()
+                }
+                val file = files.getValue(measurement.id)
+                try {
+                    val prepared = prepare(measurement)
+                    val size = prepared?.file?.length() ?: 0L
+                    sizes[measurement.id] = size
+                    preparedBytes.addAndGet(size)
+                    file.complete(prepared)
+                } catch (e: kotlin.coroutines.cancellation.CancellationException) {
+                    file.cancel(e)
+                    throw e
+                } catch (@Suppress("TooGenericExceptionCaught") e: Exception) {
+                    Log.w(TAG, "Preparing measurement ${measurement.id} failed", e)
+                    file.completeExceptionally(e)
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the transfer file of a measurement is prepared.
+     *
+     * @param measurement The measurement to wait for. Must be one of the measurements passed to [start].
+     * @return The prepared transfer file, or `null` if it was not prepared.
+     * @throws Exception the exception thrown while the file was prepared.
+     */
+    suspend fun await(measurement: Measurement): Prepared? {
+        return files.getValue(measurement.id).await()
+    }
+
+    /**
+     * Marks the transfer file of a measurement as consumed, so the next file can be prepared. Call this for each
+     * measurement passed to [start] after its upload, also when the upload failed or was skipped.
+     *
+     * Waits until the file was prepared, so a measurement is never released before it was accounted.
+     *
+     * @param measurement The measurement to release the file of.
+     */
+    suspend fun release(measurement: Measurement) {
+        val file = files.remove(measurement.id) ?: return
+        file.join()
+        preparedBytes.addAndGet(-(sizes.remove(measurement.id) ?: 0L))
+        permits.release()
+        released.trySend(Unit)
+    }
+
+    /**
+     * Cancels the preparation of the remaining transfer files and waits until it stopped. An interrupted
+     * serialization is continued by the next sync.
+     */
+    suspend fun close() {
+        withContext(NonCancellable) {
+            producer?.cancelAndJoin()
+            scope.coroutineContext[Job]?.cancel()
+        }
+    }
+
+    /**
+     * A transfer file prepared ahead of its upload.
+     *
+     * @property file The transfer file.
+     * @property serializedBatches The number of batches serialized to prepare the file, `0` if it was cached.
+     */
+    data class Prepared(val file: File, val serializedBatches: Int)
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import de.cyface.synchronization.AdaptiveUploadConcurrency.Companion.DEFAULT_PARALLELISM
+import de.cyface.synchronization.AdaptiveUploadConcurrency.Companion.MAX_PARALLELISM
+import de.cyface.synchronization.AdaptiveUploadConcurrency.Companion.MIN_PARALLELISM
+import de.cyface.synchronization.AdaptiveUploadConcurrency.Companion.collector
+import de.cyface.synchronization.AdaptiveUploadConcurrency.Companion.outcome
+import de.cyface.synchronization.AdaptiveUploadConcurrency.Controller
+import de.cyface.synchronization.AdaptiveUploadConcurrency.Outcome
+import de.cyface.synchronization.AdaptiveUploadConcurrency.Upload
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.io.IOException
+import java.net.SocketTimeoutException
+import java.net.URL
+
+/**
+ * Tests how the [AdaptiveUploadConcurrency] adapts the number of parallel attachment uploads.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+class AdaptiveUploadConcurrencyTest {
+
+    @Test
+    fun `throughput grows - limit increased by one`() {
+        val controller = Controller(DEFAULT_PARALLELISM)
+
+        round(controller, 0L, 1_000L, BYTES)
+        round(controller, 1_000L, 2_000L, 2 * BYTES)
+
+        assertThat(controller.limit, `is`(DEFAULT_PARALLELISM + 2))
+    }
+
+    @Test
+    fun `throughput stays the same - limit kept`() {
+        val controller = Controller(DEFAULT_PARALLELISM)
+
+        round(controller, 0L, 1_000L, BYTES)
+        round(controller, 1_000L, 2_000L, BYTES)
+
+        assertThat(controller.limit, `is`(DEFAULT_PARALLELISM + 1))
+    }
+
+    @Test
+    fun `overloaded - limit halved once for all running uploads`() {
+        val controller = Controller(8)
+
+        // All running uploads started in the same epoch are answered with `429`
+        repeat(8) { controller.onUpload(0, 0L, 1_000L, Upload(BYTES, Outcome.OVERLOADED)) }
+
+        assertThat(controller.limit, `is`(4))
+        assertThat(controller.epoch, `is`(1))
+    }
+
+    @Test
+    fun `many failures in a round - limit halved`() {
+        val controller = Controller(DEFAULT_PARALLELISM)
+
+        repeat(DEFAULT_PARALLELISM) {
+            val outcome = if (it % 2 == 0) Outcome.FAILED else Outcome.SUCCEEDED
+            controller.onUpload(0, 0L, 1_000L, Upload(BYTES, outcome))
+        }
+
+        assertThat(controller.limit, `is`(DEFAULT_PARALLELISM / 2))
+    }
+
+    @Test
+    fun `single failure in a round - limit kept`() {
+        val controller = Controller(DEFAULT_PARALLELISM)
+
+        repeat(DEFAULT_PARALLELISM) {
+            val outcome = if (it == 0) Outcome.FAILED else Outcome.SUCCEEDED
+            controller.onUpload(0, 0L, 1_000L, Upload(BYTES, outcome))
+        }
+
+        assertThat(controller.limit, `is`(DEFAULT_PARALLELISM))
+    }
+
+    @Test
+    fun `limit - within bounds`() {
+        assertThat(Controller(0).limit, `is`(MIN_PARALLELISM))
+        assertThat(Controller(MAX_PARALLELISM + 1).limit, `is`(MAX_PARALLELISM))
+
+        val controller = Controller(MIN_PARALLELISM)
+        controller.onUpload(0, 0L, 1_000L, Upload(BYTES, Outcome.OVERLOADED))
+        assertThat(controller.limit, `is`(MIN_PARALLELISM))
+    }
+
+    @Test
+    fun `outcome - timeout is an overload`() {
+        assertThat(outcome(true, null), `is`(Outcome.SUCCEEDED))
+        assertThat(outcome(false, null), `is`(Outcome.FAILED))
+        assertThat(outcome(false, IOException("Locked")), `is`(Outcome.FAILED))
+        assertThat(outcome(false, IOException(SocketTimeoutException())), `is`(Outcome.OVERLOADED))
+    }
+
+    @Test
+    fun `collector - protocol, host and port of the endpoint`() {
+        val endpoint = URL("https://example.com:8080/api/v4/measurements/1/2/attachments")
+
+        assertThat(collector(endpoint), `is`("https://example.com:8080"))
+    }
+
+    /**
+     * Reports a round of successful uploads, one per parallel upload.
+     */
+    private fun round(controller: Controller, startMillis: Long, endMillis: Long, bytes: Long) {
+        val limit = controller.limit
+        repeat(limit) {
+            controller.onUpload(controller.epoch, startMillis, endMillis, Upload(bytes / limit, Outcome.SUCCEEDED))
+        }
+    }
+
+    companion object {
+        private const val BYTES = 10_000_000L
+    }
+}
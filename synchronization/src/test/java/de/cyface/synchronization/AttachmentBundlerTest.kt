@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import de.cyface.persistence.model.Attachment
+import de.cyface.persistence.model.AttachmentStatus
+import de.cyface.protos.model.File.FileType
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.nio.file.Paths
+
+/**
+ * Tests how the [AttachmentBundler] groups attachments into uploads.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+class AttachmentBundlerTest {
+
+    @Test
+    fun `bundling disabled - each attachment on its own`() {
+        val attachments = listOf(attachment(1, FileType.CSV, 10), attachment(2, FileType.JSON, 10))
+
+        assertThat(ids(AttachmentBundler.plan(attachments, 0L)), `is`(listOf(listOf(1L), listOf(2L))))
+    }
+
+    @Test
+    fun `log attachments - bundled`() {
+        val attachments = listOf(
+            attachment(1, FileType.CSV, 10),
+            attachment(2, FileType.JSON, 10),
+            attachment(3, FileType.JSONL, 10)
+        )
+
+        assertThat(ids(AttachmentBundler.plan(attachments, 100L)), `is`(listOf(listOf(1L, 2L, 3L))))
+    }
+
+    @Test
+    fun `images - not bundled`() {
+        val attachments = listOf(
+            attachment(1, FileType.JPG, 10),
+            attachment(2, FileType.CSV, 10),
+            attachment(3, FileType.JPG, 10),
+            attachment(4, FileType.CSV, 10)
+        )
+
+        assertThat(ids(AttachmentBundler.plan(attachments, 100L)), `is`(listOf(listOf(1L), listOf(3L), listOf(2L, 4L))))
+    }
+
+    @Test
+    fun `size cap reached - next bundle started`() {
+        val attachments = listOf(
+            attachment(1, FileType.CSV, 40),
+            attachment(2, FileType.CSV, 40),
+            attachment(3, FileType.CSV, 40),
+            attachment(4, FileType.CSV, 40)
+        )
+
+        assertThat(ids(AttachmentBundler.plan(attachments, 100L)), `is`(listOf(listOf(1L, 2L), listOf(3L, 4L))))
+    }
+
+    @Test
+    fun `log attachment larger than cap - on its own`() {
+        val attachments = listOf(attachment(1, FileType.CSV, 200), attachment(2, FileType.CSV, 10))
+
+        assertThat(ids(AttachmentBundler.plan(attachments, 100L)), `is`(listOf(listOf(1L), listOf(2L))))
+    }
+
+    private fun ids(uploads: List<List<Attachment>>) = uploads.map { upload -> upload.map { it.id } }
+
+    private fun attachment(id: Long, type: FileType, size: Long): Attachment {
+        return Attachment(
+            id,
+            1000L + id,
+            AttachmentStatus.SAVED,
+            type,
+            1,
+            size,
+            Paths.get("./$id.ext"),
+            null,
+            null,
+            null,
+            1L,
+        )
+    }
+}
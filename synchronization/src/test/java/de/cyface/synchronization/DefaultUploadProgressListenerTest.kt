@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.closeTo
+import org.junit.Test
+
+/**
+ * Tests how the [DefaultUploadProgressListener] calculates the total progress.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+class DefaultUploadProgressListenerTest {
+
+    @Test
+    fun `single file - progress of one file`() {
+        // 1 measurement with the core file and 4 attachments, the first attachment is uploaded completely
+        assertThat(progress(fileIndex = 1, filesInUpload = 1, percent = 1f), closeTo(40.0, DELTA))
+    }
+
+    @Test
+    fun `bundle - progress of all bundled files`() {
+        // The first 3 attachments are uploaded in one bundle
+        assertThat(progress(fileIndex = 1, filesInUpload = 3, percent = 0.5f), closeTo(50.0, DELTA))
+        assertThat(progress(fileIndex = 1, filesInUpload = 3, percent = 1f), closeTo(80.0, DELTA))
+    }
+
+    @Test
+    fun `after bundle - continues with the next attachment`() {
+        assertThat(progress(fileIndex = 4, filesInUpload = 1, percent = 1f), closeTo(100.0, DELTA))
+    }
+
+    private fun progress(fileIndex: Int, filesInUpload: Int, percent: Float): Double {
+        var reported = -1f
+        val listener = object : ConnectionStatusListener {
+            override fun onSyncStarted() = Unit
+
+            override fun onProgress(percent: Float, measurementId: Long) {
+                reported = percent
+            }
+
+            override fun onSyncFinished() = Unit
+        }
+        DefaultUploadProgressListener(1, 0, 1L, ATTACHMENTS, fileIndex, mutableListOf(listener), filesInUpload)
+            .updatedProgress(percent)
+        return reported.toDouble()
+    }
+
+    companion object {
+        private const val ATTACHMENTS = 4
+        private const val DELTA = 0.01
+    }
+}
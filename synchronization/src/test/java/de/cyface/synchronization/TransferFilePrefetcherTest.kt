@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.synchronization
+
+import de.cyface.persistence.model.Measurement
+import de.cyface.persistence.model.MeasurementStatus
+import de.cyface.persistence.model.Modality
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.util.Collections
+
+/**
+ * Tests that the [TransferFilePrefetcher] prepares the transfer files in order and within its limits.
+ *
+ * @author Armin Schnabel
+ * @version 1.1.0
+ * @since 7.14.0
+ */
+class TransferFilePrefetcherTest {
+
+    private lateinit var directory: File
+    private val prepared = Collections.synchronizedList(mutableListOf<Long>())
+
+    @Before
+    fun setUp() {
+        directory = Files.createTempDirectory("prefetcher").toFile()
+    }
+
+    @After
+    fun tearDown() {
+        directory.deleteRecursively()
+    }
+
+    @Test
+    fun `files - prepared in order`() = runBlocking {
+        val measurements = (1L..3L).map { measurement(it) }
+        val prefetcher = TransferFilePrefetcher(2, 1_000L) { file(it, 10) }
+        prefetcher.start(measurements)
+
+        measurements.forEach {
+            val file = prefetcher.await(it)!!
+            assertThat(file.file.name, `is`("${it.id}.ccyf"))
+            assertThat(file.serializedBatches, `is`(BATCHES))
+            prefetcher.release(it)
+        }
+        prefetcher.close()
+
+        assertThat(prepared, `is`(listOf(1L, 2L, 3L)))
+    }
+
+    @Test
+    fun `file limit reached - waits for release`() = runBlocking {
+        val measurements = (1L..3L).map { measurement(it) }
+        val prefetcher = TransferFilePrefetcher(2, 1_000L) { file(it, 10) }
+        prefetcher.start(measurements)
+
+        prefetcher.await(measurements[1])
+        delay(WAIT_MILLIS)
+        assertThat(prepared, `is`(listOf(1L, 2L)))
+
+        prefetcher.release(measurements[0])
+        prefetcher.await(measurements[2])
+        assertThat(prepared, `is`(listOf(1L, 2L, 3L)))
+        prefetcher.close()
+    }
+
+    @Test
+    fun `byte limit reached - waits for release`() = runBlocking {
+        val measurements = (1L..3L).map { measurement(it) }
+        val prefetcher = TransferFilePrefetcher(3, 100L) { file(it, 100) }
+        prefetcher.start(measurements)
+
+        prefetcher.await(measurements[0])
+        delay(WAIT_MILLIS)
+        assertThat(prepared, `is`(listOf(1L)))
+
+        prefetcher.release(measurements[0])
+        prefetcher.await(measurements[1])
+        assertThat(prepared, `is`(listOf(1L, 2L)))
+        prefetcher.close()
+    }
+
+    @Test
+    fun `measurement not prepared - null`() = runBlocking {
+        val measurement = measurement(1L)
+        val prefetcher = TransferFilePrefetcher(2, 1_000L) { null }
+        prefetcher.start(listOf(measurement))
+
+        assertThat(prefetcher.await(measurement), nullValue())
+        prefetcher.release(measurement)
+        prefetcher.close()
+    }
+
+    @Test
+    fun `preparation failed - thrown by await, next prepared`() = runBlocking {
+        val measurements = (1L..2L).map { measurement(it) }
+        val prefetcher = TransferFilePrefetcher(2, 1_000L) {
+            if (it.id == 1L) throw IOException("Disk full") else file(it, 10)
+        }
+        prefetcher.start(measurements)
+
+        val thrown = try {
+            prefetcher.await(measurements[0])
+            false
+        } catch (@Suppress("SwallowedException") e: IOException) {
+            true
+        }
+        prefetcher.release(measurements[0])
+
+        assertThat(thrown, `is`(true))
+        assertThat(prefetcher.await(measurements[1])!!.file.name, `is`("2.ccyf"))
+        prefetcher.close()
+    }
+
+    @Test
+    fun `closed - remaining files not prepared`() = runBlocking {
+        val measurements = (1L..3L).map { measurement(it) }
+        val prefetcher = TransferFilePrefetcher(1, 1_000L) { file(it, 10) }
+        prefetcher.start(measurements)
+
+        prefetcher.await(measurements[0])
+        prefetcher.close()
+        delay(WAIT_MILLIS)
+
+        assertThat(prepared, `is`(listOf(1L)))
+    }
+
+    private fun file(measurement: Measurement, size: Int): TransferFilePrefetcher.Prepared {
+        prepared.add(measurement.id)
+        val file = File(directory, "${measurement.id}.ccyf").apply { writeBytes(ByteArray(size)) }
+        return TransferFilePrefetcher.Prepared(file, BATCHES)
+    }
+
+    private fun measurement(id: Long): Measurement {
+        return Measurement(id, MeasurementStatus.FINISHED, Modality.BICYCLE, 3, 0.0, 0L, 0L)
+    }
+
+    companion object {
+        /**
+         * The time to wait for files which must not be prepared.
+         */
+        private const val WAIT_MILLIS = 200L
+
+        /**
+         * The number of batches reported by each preparation.
+         */
+        private const val BATCHES = 3
+    }
+}
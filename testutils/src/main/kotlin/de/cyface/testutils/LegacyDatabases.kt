@@ -0,0 +1,238 @@
+/*
+ * Copyright 2025 Cyface GmbH
+ *
+ * This file is part of the Cyface SDK for Android.
+ *
+ * The Cyface SDK for Android is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Cyface SDK for Android is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Cyface SDK for Android. If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.cyface.testutils
+
+import android.content.Context
+import android.database.sqlite.SQLiteDatabase
+import org.json.JSONObject
+import java.io.File
+
+/**
+ * Generates large databases in the schema of older database versions, e.g. to benchmark the migrations.
+ *
+ * The tables are created from the schemas exported by Room and filled with generated values which are valid for
+ * the columns of the legacy tables. Each measurement `n` has the id `n`, its locations start at [BASE_TIMESTAMP]
+ * with one location per second.
+ *
+ * @author Armin Schnabel
+ * @version 1.0.0
+ * @since 7.14.0
+ */
+object LegacyDatabases {
+    /**
+     * The timestamp of the first location of each measurement.
+     */
+    const val BASE_TIMESTAMP = 1_551_431_485_000L
+
+    /**
+     * The oldest database version which can be migrated.
+     */
+    const val OLDEST_VERSION = 8
+
+    /**
+     * The name of the secondary database which was used by SDK 6.3 and 7.4 to store altitudes.
+     */
+    const val V6_DATABASE_NAME = "v6"
+
+    /**
+     * The number of rows of the other tables which reference the measurements, e.g. events, per measurement.
+     */
+    private const val OTHER_ROWS = 10
+
+    /**
+     * The tables which contained the locations in the different versions.
+     */
+    private val LOCATION_TABLES = setOf("gps_points", "locations", "Location")
+
+    /**
+     * The columns which referenced the measurement in the different versions.
+     */
+    private val FOREIGN_KEYS = setOf("measurement_fk", "measurementId")
+
+    /**
+     * Returns the exported schema files of the versions which can be migrated.
+     *
+     * @param schemaFolder The folder with the schemas exported by Room, i.e. `persistence/schemas/<Database>`.
+     * @param latestVersion The current database version, which is excluded.
+     * @return The schema files by their version.
+     */
+    @JvmStatic
+    fun schemaFiles(schemaFolder: File, latestVersion: Int): Map<Int, File> {
+        return schemaFolder.listFiles()!!
+            .associateBy { it.nameWithoutExtension.toInt() }
+            .filterKeys { it >= OLDEST_VERSION && it < latestVersion }
+    }
+
+    /**
+     * Creates a database in the schema of an exported version and fills it with generated data.
+     *
+     * @param context The context to find the database path.
+     * @param name The name of the database to create.
+     * @param schemaFile The schema of the version to create, see [schemaFiles].
+     * @param version The version of the schema.
+     * @param measurements The number of measurements to generate.
+     * @param locations The number of locations to generate per measurement.
+     */
+    @JvmStatic
+    fun create(context: Context, name: String, schemaFile: File, version: Int, measurements: Int, locations: Int) {
+        val schema = JSONObject(schemaFile.readText()).getJSONObject("database")
+        val entities = schema.getJSONArray("entities")
+        val tables = (0 until entities.length()).map { entities.getJSONObject(it) }
+        val file = context.getDatabasePath(name)
+        file.parentFile!!.mkdirs()
+        SQLiteDatabase.openOrCreateDatabase(file, null).use { db ->
+            db.beginTransaction()
+            try {
+                // The measurements first, as the other tables reference them
+                tables.sortedBy { if (isMeasurementTable(it.getString("tableName"))) 0 else 1 }.forEach { table ->
+                    val tableName = table.getString("tableName")
+                    db.execSQL(table.getString("createSql").replace("\${TABLE_NAME}", tableName))
+                    val indices = table.optJSONArray("indices")
+                    for (index in 0 until (indices?.length() ?: 0)) {
+                        val createSql = indices!!.getJSONObject(index).getString("createSql")
+                        db.execSQL(createSql.replace("\${TABLE_NAME}", tableName))
+                    }
+                    val fields = table.getJSONArray("fields").let { fields ->
+                        (0 until fields.length()).map { fields.getJSONObject(it) }
+                    }
+                    fill(db, tableName, fields, measurements, locations)
+                }
+                db.setTransactionSuccessful()
+            } finally {
+                db.endTransaction()
+            }
+            db.version = version
+        }
+    }
+
+    /**
+     * Creates the secondary database `v6` version `1` with the locations and pressures of every second measurement.
+     *
+     * @param context The context to find the database path.
+     * @param measurements The number of measurements in the main database.
+     * @param locations The number of locations and pressures to generate per measurement.
+     */
+    @JvmStatic
+    fun createV6(context: Context, measurements: Int, locations: Int) {
+        SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(V6_DATABASE_NAME), null).use { db ->
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `Pressure` " +
+                        "(`pressure` REAL NOT NULL, `measurement_fk` INTEGER NOT NULL, " +
+                        "`uid` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `timestamp` INTEGER NOT NULL)"
+            )
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `Location` " +
+                        "(`lat` REAL NOT NULL, `lon` REAL NOT NULL, `altitude` REAL, `speed` REAL NOT NULL, " +
+                        "`accuracy` REAL NOT NULL, `vertical_accuracy` REAL, `measurement_fk` INTEGER NOT NULL, " +
+                        "`uid` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `timestamp` INTEGER NOT NULL)"
+            )
+            db.beginTransaction()
+            try {
+                for (measurementId in 2L..measurements step 2) {
+                    for (index in 0 until locations) {
+                        db.execSQL(
+                            "INSERT INTO Location (lat,lon,altitude,speed,accuracy,vertical_accuracy," +
+                                    "measurement_fk,timestamp) VALUES (?,?,400.0,5.0,500.0,20.0,?,?)",
+                            arrayOf(
+                                51.05 + index * 1e-5, 13.73 + index * 1e-5, measurementId,
+                                BASE_TIMESTAMP + index * 1_000L
+                            )
+                        )
+                        db.execSQL(
+                            "INSERT INTO Pressure (pressure,measurement_fk,timestamp) VALUES (1013.25,?,?)",
+                            arrayOf(measurementId, BASE_TIMESTAMP + index * 1_000L)
+                        )
+                    }
+                }
+                db.setTransactionSuccessful()
+            } finally {
+                db.endTransaction()
+            }
+            db.version = 1
+        }
+    }
+
+    /**
+     * Inserts rows with generated values which are valid for the columns of the legacy table.
+     */
+    private fun fill(db: SQLiteDatabase, table: String, fields: List<JSONObject>, measurements: Int, locations: Int) {
+        val measurementTable = isMeasurementTable(table)
+        val rowsPerMeasurement = when {
+            measurementTable -> 1
+            LOCATION_TABLES.contains(table) -> locations
+            fields.any { FOREIGN_KEYS.contains(it.getString("columnName")) } -> OTHER_ROWS
+            // E.g. the identifiers
+            else -> 0
+        }
+        // The ids of the other tables are generated
+        val columns = fields.filter { measurementTable || it.getString("columnName") != "_id" }
+        val names = columns.joinToString { it.getString("columnName") }
+        db.compileStatement("INSERT INTO $table ($names) VALUES (${columns.joinToString { "?" }})").use { statement ->
+            val insert = { measurementId: Long, index: Int ->
+                columns.forEachIndexed { position, field ->
+                    val column = field.getString("columnName")
+                    val affinity = field.getString("affinity")
+                    when (val value = value(column, affinity, measurementId, index, measurementTable)) {
+                        is Long -> statement.bindLong(position + 1, value)
+                        is Double -> statement.bindDouble(position + 1, value)
+                        else -> statement.bindString(position + 1, value.toString())
+                    }
+                }
+                statement.executeInsert()
+            }
+            if (rowsPerMeasurement == 0) {
+                insert(1L, 0)
+                return
+            }
+            for (measurementId in 1L..measurements) {
+                for (index in 0 until rowsPerMeasurement) {
+                    insert(measurementId, index)
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A value for a column of a legacy table, depending on the column name and type.
+     */
+    private fun value(column: String, affinity: String, measurementId: Long, index: Int, measurement: Boolean): Any {
+        return when (column) {
+            "_id" -> measurementId
+            in FOREIGN_KEYS -> measurementId
+            "gps_time", "timestamp", "time", "locationTimestamp" -> BASE_TIMESTAMP + index * 1_000L
+            "lat" -> 51.05 + index * 1e-5
+            "lon" -> 13.73 + index * 1e-5
+            "status" -> if (measurement) "FINISHED" else "SAVED"
+            "vehicle", "modality" -> "BICYCLE"
+            "type" -> "LIFECYCLE_START"
+            "finished" -> 1L
+            "file_format_version", "fileFormatVersion" -> 3L
+            "device_id", "deviceId" -> "61e112e1-548e-4a90-be28-9d5b31d6875b"
+            "path" -> "/attachments/$measurementId-$index"
+            else -> when (affinity) {
+                // The accuracy was stored in centimeters until version `17`
+                "INTEGER" -> if (column == "accuracy") 500L else 0L
+                "REAL" -> 5.0
+                else -> "value"
+            }
+        }
+    }
+
+    private fun isMeasurementTable(table: String) = table.equals("measurement", true) || table == "measurements"
+}
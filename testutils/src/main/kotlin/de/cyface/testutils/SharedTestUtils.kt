@@ -41,7 +41,10 @@ import de.cyface.persistence.model.MeasurementStatus
 import de.cyface.persistence.model.Modality
 import de.cyface.persistence.model.ParcelableAttachment
 import de.cyface.persistence.model.ParcelableGeoLocation
+import de.cyface.persistence.serialization.LocationArchive
 import de.cyface.persistence.serialization.Point3DFile
+import de.cyface.persistence.serialization.RecordsFile
+import de.cyface.persistence.serialization.TransferFile
 import de.cyface.persistence.strategy.DefaultLocationCleaning
 import de.cyface.protos.model.File.FileType
 import de.cyface.protos.model.Measurement
@@ -254,7 +257,13 @@ object SharedTestUtils {
         // remove the file folders, they are not create again, as this is done in persistence construction.
         val removedFiles = clearFileLayer(context, false)
 
-        // Remove database entries
+        // Remove database entries, starting with the time series stored in a separate database
+        persistence.loadMeasurements().forEach {
+            val timeSeries = persistence.timeSeriesDatabase(it.id)
+            if (timeSeries !== persistence.database) {
+                timeSeries.measurementDao().deleteItemById(it.id)
+            }
+        }
         val removedGeoLocations = persistence.locationDao!!.deleteAll()
         val removedPressures = persistence.pressureDao!!.deleteAll()
         val removedEvents = persistence.eventRepository!!.deleteAll()
@@ -320,6 +329,42 @@ object SharedTestUtils {
                 require(directionFolder.delete())
             }
         }
+        // Remove {@code LocationArchive}s, the folder is created when the first archive is written
+        val locationFolder = fileIOHandler.getFolderPath(context, LocationArchive.FOLDER_NAME)
+        if (locationFolder.exists()) {
+            require(locationFolder.isDirectory)
+            val locationFiles = locationFolder.listFiles()
+            if (locationFiles != null) {
+                for (file in locationFiles) {
+                    require(file.delete())
+                }
+                removedFiles += locationFiles.size
+            }
+        }
+        // Remove {@code RecordsFile}s, the folder is created when the first records are built
+        val recordsFolder = fileIOHandler.getFolderPath(context, RecordsFile.FOLDER_NAME)
+        if (recordsFolder.exists()) {
+            require(recordsFolder.isDirectory)
+            val recordsFiles = recordsFolder.listFiles()
+            if (recordsFiles != null) {
+                for (file in recordsFiles) {
+                    require(file.delete())
+                }
+                removedFiles += recordsFiles.size
+            }
+        }
+        // Remove {@code TransferFile}s, the folder is created when the first transfer file is precomputed
+        val transferFolder = fileIOHandler.getFolderPath(context, TransferFile.FOLDER_NAME)
+        if (transferFolder.exists()) {
+            require(transferFolder.isDirectory)
+            val transferFiles = transferFolder.listFiles()
+            if (transferFiles != null) {
+                for (file in transferFiles) {
+                    require(file.delete())
+                }
+                removedFiles += transferFiles.size
+            }
+        }
         return removedFiles
     }
 